@@ -0,0 +1,98 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.jbpm.process.audit.AbstractAuditLogger;
+import org.jbpm.process.audit.AuditLoggerFactory;
+import org.kie.internal.persistence.jpa.JPAKnowledgeService;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bitronix.tm.resource.jdbc.PoolingDataSource;
+
+/**
+ * Runs processes in a persistent session with and without the JPA audit logger, to
+ * measure the overhead of writing the process, node and variable logs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AuditLoggingBenchmark {
+
+    @Param({ "none", "jpa" })
+    public String logger;
+
+    private PoolingDataSource ds;
+    private EntityManagerFactory emf;
+    private StatefulKnowledgeSession ksession;
+    private CapturingWorkItemHandler handler;
+    private Map<String, Object> parameters;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ds = BenchmarkSupport.setupDataSource();
+        emf = BenchmarkSupport.createEntityManagerFactory();
+        ksession = JPAKnowledgeService.newStatefulKnowledgeSession(BenchmarkSupport.createKnowledgeBase(), null,
+                                                                   BenchmarkSupport.createEnvironment(emf));
+        if ("jpa".equals(logger)) {
+            AbstractAuditLogger auditLogger = AuditLoggerFactory.newInstance(AuditLoggerFactory.Type.JPA, ksession, null);
+            ksession.addEventListener(auditLogger);
+        }
+        handler = new CapturingWorkItemHandler();
+        ksession.getWorkItemManager().registerWorkItemHandler(BenchmarkSupport.WORK_ITEM_NAME, handler);
+        parameters = new HashMap<String, Object>();
+        parameters.put("x", "b");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ksession.dispose();
+        BenchmarkSupport.close(emf, ds);
+    }
+
+    @Benchmark
+    public long straightThrough() {
+        return ksession.startProcess(BenchmarkSupport.STRAIGHT_THROUGH, parameters).getId();
+    }
+
+    @Benchmark
+    public long workItem() {
+        long processInstanceId = ksession.startProcess(BenchmarkSupport.WORK_ITEM, parameters).getId();
+        ksession.getWorkItemManager().completeWorkItem(handler.getWorkItemId(), null);
+        return processInstanceId;
+    }
+}
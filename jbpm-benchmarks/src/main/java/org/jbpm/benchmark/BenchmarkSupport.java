@@ -0,0 +1,113 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.benchmark;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.io.ResourceFactory;
+
+import bitronix.tm.TransactionManagerServices;
+import bitronix.tm.resource.jdbc.PoolingDataSource;
+
+/**
+ * Shared setup of the benchmarks: knowledge bases built from the processes in
+ * <code>org/jbpm/benchmark</code> and an in memory H2 database for persistent sessions.
+ */
+public final class BenchmarkSupport {
+
+    public static final String PERSISTENCE_UNIT_NAME = "org.jbpm.persistence.jpa";
+
+    public static final String STRAIGHT_THROUGH = "org.jbpm.benchmark.StraightThrough";
+    public static final String GATEWAY_HEAVY = "org.jbpm.benchmark.GatewayHeavy";
+    public static final String MULTI_INSTANCE = "org.jbpm.benchmark.MultiInstance";
+    public static final String EVENT_SUBPROCESS = "org.jbpm.benchmark.EventSubprocess";
+    public static final String WORK_ITEM = "org.jbpm.benchmark.WorkItem";
+
+    public static final String WORK_ITEM_NAME = "Benchmark";
+    public static final String SIGNAL = "benchmark-signal";
+
+    private static final String[] PROCESSES = new String[] {
+        "StraightThrough.bpmn2", "GatewayHeavy.bpmn2", "MultiInstance.bpmn2", "EventSubprocess.bpmn2", "WorkItem.bpmn2"
+    };
+
+    private BenchmarkSupport() {
+    }
+
+    public static String[] getProcessResources() {
+        String[] resources = new String[PROCESSES.length];
+        for (int i = 0; i < PROCESSES.length; i++) {
+            resources[i] = "org/jbpm/benchmark/" + PROCESSES[i];
+        }
+        return resources;
+    }
+
+    public static KnowledgeBase createKnowledgeBase() {
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        for (String resource : getProcessResources()) {
+            kbuilder.add(ResourceFactory.newClassPathResource(resource), ResourceType.BPMN2);
+        }
+        if (kbuilder.hasErrors()) {
+            throw new IllegalStateException("Could not build benchmark processes: " + kbuilder.getErrors());
+        }
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        kbase.addKnowledgePackages(kbuilder.getKnowledgePackages());
+        return kbase;
+    }
+
+    public static PoolingDataSource setupDataSource() {
+        PoolingDataSource pds = new PoolingDataSource();
+        pds.setUniqueName("jdbc/jbpm-ds");
+        pds.setClassName("bitronix.tm.resource.jdbc.lrc.LrcXADataSource");
+        pds.setMaxPoolSize(5);
+        pds.setAllowLocalTransactions(true);
+        pds.getDriverProperties().put("user", "sa");
+        pds.getDriverProperties().put("password", "");
+        pds.getDriverProperties().put("url", "jdbc:h2:mem:jbpm-benchmark;MVCC=true");
+        pds.getDriverProperties().put("driverClassName", "org.h2.Driver");
+        pds.init();
+        return pds;
+    }
+
+    public static EntityManagerFactory createEntityManagerFactory() {
+        return Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME);
+    }
+
+    public static Environment createEnvironment(EntityManagerFactory emf) {
+        Environment env = KnowledgeBaseFactory.newEnvironment();
+        env.set(EnvironmentName.ENTITY_MANAGER_FACTORY, emf);
+        env.set(EnvironmentName.TRANSACTION_MANAGER, TransactionManagerServices.getTransactionManager());
+        return env;
+    }
+
+    public static void close(EntityManagerFactory emf, PoolingDataSource ds) {
+        if (emf != null) {
+            emf.close();
+        }
+        if (ds != null) {
+            ds.close();
+        }
+        TransactionManagerServices.getTransactionManager().shutdown();
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.drools.core.common.InternalKnowledgeRuntime;
+import org.jbpm.marshalling.impl.CompressionHelper;
+import org.jbpm.persistence.processinstance.ProcessInstanceInfo;
+import org.kie.api.runtime.process.ProcessInstance;
+import org.kie.api.runtime.process.WorkflowProcessInstance;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writes and reads the protobuf representation of a process instance as stored in
+ * {@link ProcessInstanceInfo}, for a growing number of process variables, with and without
+ * compression.
+ * <p>
+ * {@link #updateVariable(WriteCounters)} changes one variable before each write, as a typical
+ * command does, and reports the <code>updates</code> and <code>bytesWritten</code> counters. It
+ * runs in throughput mode, so both counters are rates over the same time and the bytes written
+ * per update are <code>bytesWritten / updates</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MarshallingBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int variables;
+
+    @Param({ "10", "1000" })
+    public int valueLength;
+
+    @Param({ "false", "true" })
+    public boolean compressed;
+
+    private StatefulKnowledgeSession ksession;
+    private ProcessInstanceInfo processInstanceInfo;
+    private WorkflowProcessInstance processInstance;
+    private int updates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CompressionHelper.setThreshold(compressed ? 0 : -1);
+        ksession = BenchmarkSupport.createKnowledgeBase().newStatefulKnowledgeSession();
+        ksession.getWorkItemManager().registerWorkItemHandler(BenchmarkSupport.WORK_ITEM_NAME, new CapturingWorkItemHandler());
+        Map<String, Object> parameters = new HashMap<String, Object>();
+        for (int i = 0; i < variables; i++) {
+            parameters.put("variable" + i, createValue(i));
+        }
+        processInstance = (WorkflowProcessInstance) ksession.startProcess(BenchmarkSupport.WORK_ITEM, parameters);
+        processInstanceInfo = new ProcessInstanceInfo(processInstance, ksession.getEnvironment());
+        processInstanceInfo.update();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ksession.dispose();
+        CompressionHelper.setThreshold(-1);
+    }
+
+    @Benchmark
+    public byte[] marshal() {
+        processInstanceInfo.update();
+        return processInstanceInfo.getProcessInstanceByteArray();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public byte[] updateVariable(WriteCounters counters) {
+        processInstance.setVariable("variable0", createValue(updates++));
+        processInstanceInfo.update();
+        byte[] data = processInstanceInfo.getProcessInstanceByteArray();
+        counters.updates++;
+        counters.bytesWritten += data.length;
+        return data;
+    }
+
+    @Benchmark
+    public ProcessInstance unmarshal() {
+        processInstanceInfo.clearProcessInstance();
+        return processInstanceInfo.getProcessInstance((InternalKnowledgeRuntime) ksession, ksession.getEnvironment(), true);
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class WriteCounters {
+
+        public long updates;
+        public long bytesWritten;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            updates = 0;
+            bytesWritten = 0;
+        }
+    }
+
+    private String createValue(int i) {
+        StringBuilder value = new StringBuilder(valueLength);
+        value.append("value").append(i);
+        while (value.length() < valueLength) {
+            value.append(' ').append(i);
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.kie.api.runtime.process.ProcessInstance;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Starts and completes process instances of representative shapes in an in memory session.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ProcessShapeBenchmark {
+
+    @Param({ "straight-through", "gateway-heavy", "multi-instance", "event-subprocess" })
+    public String shape;
+
+    @Param({ "10" })
+    public int items;
+
+    private StatefulKnowledgeSession ksession;
+    private CapturingWorkItemHandler handler;
+    private Map<String, Object> parameters;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ksession = BenchmarkSupport.createKnowledgeBase().newStatefulKnowledgeSession();
+        handler = new CapturingWorkItemHandler();
+        ksession.getWorkItemManager().registerWorkItemHandler(BenchmarkSupport.WORK_ITEM_NAME, handler);
+        parameters = new HashMap<String, Object>();
+        if ("multi-instance".equals(shape)) {
+            List<String> list = new ArrayList<String>();
+            for (int i = 0; i < items; i++) {
+                list.add("item" + i);
+            }
+            parameters.put("list", list);
+        } else {
+            parameters.put("x", "b");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ksession.dispose();
+    }
+
+    @Benchmark
+    public int startAndComplete() {
+        if ("straight-through".equals(shape)) {
+            return ksession.startProcess(BenchmarkSupport.STRAIGHT_THROUGH, parameters).getState();
+        } else if ("gateway-heavy".equals(shape)) {
+            return ksession.startProcess(BenchmarkSupport.GATEWAY_HEAVY, parameters).getState();
+        } else if ("multi-instance".equals(shape)) {
+            return ksession.startProcess(BenchmarkSupport.MULTI_INSTANCE, parameters).getState();
+        }
+        ProcessInstance processInstance = ksession.startProcess(BenchmarkSupport.EVENT_SUBPROCESS, parameters);
+        ksession.signalEvent(BenchmarkSupport.SIGNAL, null, processInstance.getId());
+        ksession.getWorkItemManager().completeWorkItem(handler.getWorkItemId(), null);
+        return processInstance.getState();
+    }
+}
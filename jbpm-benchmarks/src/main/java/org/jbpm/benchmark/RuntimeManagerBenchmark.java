@@ -0,0 +1,107 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.benchmark;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.jbpm.services.task.identity.JBossUserGroupCallbackImpl;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.manager.Context;
+import org.kie.api.runtime.manager.RuntimeEngine;
+import org.kie.api.runtime.manager.RuntimeEnvironment;
+import org.kie.api.runtime.manager.RuntimeEnvironmentBuilder;
+import org.kie.api.runtime.manager.RuntimeManager;
+import org.kie.api.runtime.manager.RuntimeManagerFactory;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.runtime.manager.context.EmptyContext;
+import org.kie.internal.runtime.manager.context.ProcessInstanceIdContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bitronix.tm.resource.jdbc.PoolingDataSource;
+
+/**
+ * Obtains a runtime engine, runs a process to completion and disposes the engine again
+ * for each runtime manager strategy, including the cost of creating sessions per request
+ * or per process instance.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RuntimeManagerBenchmark {
+
+    @Param({ "singleton", "per-request", "per-process-instance" })
+    public String strategy;
+
+    private PoolingDataSource ds;
+    private EntityManagerFactory emf;
+    private RuntimeManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ds = BenchmarkSupport.setupDataSource();
+        emf = BenchmarkSupport.createEntityManagerFactory();
+        RuntimeEnvironmentBuilder builder = RuntimeEnvironmentBuilder.Factory.get()
+            .newDefaultBuilder()
+            .entityManagerFactory(emf)
+            .userGroupCallback(new JBossUserGroupCallbackImpl(new Properties()));
+        for (String resource : BenchmarkSupport.getProcessResources()) {
+            builder.addAsset(ResourceFactory.newClassPathResource(resource), ResourceType.BPMN2);
+        }
+        RuntimeEnvironment environment = builder.get();
+        if ("singleton".equals(strategy)) {
+            manager = RuntimeManagerFactory.Factory.get().newSingletonRuntimeManager(environment, "benchmark-" + strategy);
+        } else if ("per-request".equals(strategy)) {
+            manager = RuntimeManagerFactory.Factory.get().newPerRequestRuntimeManager(environment, "benchmark-" + strategy);
+        } else {
+            manager = RuntimeManagerFactory.Factory.get().newPerProcessInstanceRuntimeManager(environment, "benchmark-" + strategy);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.close();
+        BenchmarkSupport.close(emf, ds);
+    }
+
+    @Benchmark
+    public long startProcess() {
+        Context<?> context = "per-process-instance".equals(strategy) ? ProcessInstanceIdContext.get() : EmptyContext.get();
+        RuntimeEngine engine = manager.getRuntimeEngine(context);
+        try {
+            return engine.getKieSession().startProcess(BenchmarkSupport.STRAIGHT_THROUGH).getId();
+        } finally {
+            manager.disposeRuntimeEngine(engine);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Delivers signals to active process instances that handle them in a non interrupting
+ * event subprocess, either to one process instance or to every instance of the session.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SignalBenchmark {
+
+    @Param({ "1", "100" })
+    public int instances;
+
+    private StatefulKnowledgeSession ksession;
+    private long processInstanceId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ksession = BenchmarkSupport.createKnowledgeBase().newStatefulKnowledgeSession();
+        ksession.getWorkItemManager().registerWorkItemHandler(BenchmarkSupport.WORK_ITEM_NAME, new CapturingWorkItemHandler());
+        for (int i = 0; i < instances; i++) {
+            processInstanceId = ksession.startProcess(BenchmarkSupport.EVENT_SUBPROCESS).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ksession.dispose();
+    }
+
+    @Benchmark
+    public void signalProcessInstance() {
+        ksession.signalEvent(BenchmarkSupport.SIGNAL, null, processInstanceId);
+    }
+
+    @Benchmark
+    public void signalSession() {
+        ksession.signalEvent(BenchmarkSupport.SIGNAL, null);
+    }
+
+    @Benchmark
+    public void signalWithoutListeners() {
+        ksession.signalEvent("unknown-signal", null);
+    }
+}
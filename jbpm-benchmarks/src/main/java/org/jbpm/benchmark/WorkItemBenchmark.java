@@ -0,0 +1,97 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.kie.api.runtime.process.ProcessInstance;
+import org.kie.internal.persistence.jpa.JPAKnowledgeService;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bitronix.tm.resource.jdbc.PoolingDataSource;
+
+/**
+ * Starts a process waiting in a work item and completes the work item with results,
+ * in memory or with the session persisted to an in memory H2 database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WorkItemBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean persistent;
+
+    private PoolingDataSource ds;
+    private EntityManagerFactory emf;
+    private StatefulKnowledgeSession ksession;
+    private CapturingWorkItemHandler handler;
+    private Map<String, Object> parameters;
+    private Map<String, Object> results;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (persistent) {
+            ds = BenchmarkSupport.setupDataSource();
+            emf = BenchmarkSupport.createEntityManagerFactory();
+            ksession = JPAKnowledgeService.newStatefulKnowledgeSession(BenchmarkSupport.createKnowledgeBase(), null,
+                                                                       BenchmarkSupport.createEnvironment(emf));
+        } else {
+            ksession = BenchmarkSupport.createKnowledgeBase().newStatefulKnowledgeSession();
+        }
+        handler = new CapturingWorkItemHandler();
+        ksession.getWorkItemManager().registerWorkItemHandler(BenchmarkSupport.WORK_ITEM_NAME, handler);
+        parameters = new HashMap<String, Object>();
+        parameters.put("x", "input");
+        results = new HashMap<String, Object>();
+        results.put("output", "output");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ksession.dispose();
+        if (persistent) {
+            BenchmarkSupport.close(emf, ds);
+        }
+    }
+
+    @Benchmark
+    public long startAndCompleteWorkItem() {
+        ProcessInstance processInstance = ksession.startProcess(BenchmarkSupport.WORK_ITEM, parameters);
+        ksession.getWorkItemManager().completeWorkItem(handler.getWorkItemId(), results);
+        return processInstance.getId();
+    }
+}
@@ -54,6 +54,7 @@ import org.jbpm.workflow.core.node.ForEachNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.NodeList;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -364,6 +365,16 @@ public abstract class AbstractNodeHandler extends BaseAbstractHandler implements
     @SuppressWarnings("unchecked")
     protected void readMultiInstanceLoopCharacteristics(org.w3c.dom.Node xmlNode, ForEachNode forEachNode, ExtensibleXmlParser parser) {
         
+        // drools:completionWindow limits the number of active iterations
+        NamedNodeMap attributes = xmlNode.getAttributes();
+        for (int i = 0; attributes != null && i < attributes.getLength(); i++) {
+            org.w3c.dom.Node attribute = attributes.item(i);
+            String attributeName = attribute.getNodeName();
+            if (attributeName.endsWith(":completionWindow") || "completionWindow".equals(attributeName)) {
+                forEachNode.setCompletionWindow(Integer.parseInt(attribute.getNodeValue().trim()));
+            }
+        }
+
         // sourceRef
         org.w3c.dom.Node subNode = xmlNode.getFirstChild();
         while (subNode != null) {
@@ -17,6 +17,7 @@
 package org.jbpm.bpmn2.xml;
 
 import java.util.List;
+import java.util.Map;
 
 import org.drools.core.xml.ExtensibleXmlParser;
 import org.jbpm.bpmn2.core.SequenceFlow;
@@ -65,8 +66,9 @@ public class AdHocSubProcessHandler extends CompositeContextNodeHandler {
         }
     	List<SequenceFlow> connections = (List<SequenceFlow>)
 			dynamicNode.getMetaData(ProcessHandler.CONNECTIONS);
-    	ProcessHandler.linkConnections(dynamicNode, connections);
-    	ProcessHandler.linkBoundaryEvents(dynamicNode);
+    	Map<String, org.kie.api.definition.process.Node> nodesByUniqueId = ProcessHandler.indexNodesByUniqueId(dynamicNode);
+    	ProcessHandler.linkConnections(dynamicNode, connections, nodesByUniqueId);
+    	ProcessHandler.linkBoundaryEvents(dynamicNode, nodesByUniqueId);
     }
     
     public void writeNode(Node node, StringBuilder xmlDump, int metaDataType) {
@@ -63,8 +63,10 @@ public class ForEachNodeHandler extends AbstractCompositeNodeHandler {
                 "      </dataInputAssociation>" + EOL);
         }
         // multiInstanceLoopCharacteristics
+        String completionWindow = forEachNode.getCompletionWindow() > 0 ?
+            " tns:completionWindow=\"" + forEachNode.getCompletionWindow() + "\"" : "";
         xmlDump.append(
-    		"      <multiInstanceLoopCharacteristics>" + EOL +
+    		"      <multiInstanceLoopCharacteristics" + completionWindow + ">" + EOL +
             "        <loopDataInputRef>" + XmlBPMNProcessDumper.getUniqueNodeId(forEachNode) + "_input</loopDataInputRef>" + EOL);
         if (parameterName != null) {
         	xmlDump.append("        <inputDataItem id=\"" + XmlBPMNProcessDumper.replaceIllegalCharsAttribute(parameterName) + "\" itemSubjectRef=\"" + XmlBPMNProcessDumper.getUniqueNodeId(forEachNode) + "_multiInstanceItemType\"/>" + EOL);
@@ -170,18 +170,20 @@ public class ProcessHandler extends BaseAbstractHandler implements Handler {
 		parser.endElementBuilder();
 		
 		RuleFlowProcess process = (RuleFlowProcess) parser.getCurrent();
+		// nodes are looked up by their unique id in all linking passes so index them once
+		Map<String, Node> nodesByUniqueId = indexNodesByUniqueId(process);
 		 List<IntermediateLink> throwLinks = (List<IntermediateLink>) process
          .getMetaData(LINKS);
-        linkIntermediateLinks(process, throwLinks);
+        linkIntermediateLinks(process, throwLinks, nodesByUniqueId);
 
  		List<SequenceFlow> connections = (List<SequenceFlow>) process.getMetaData(CONNECTIONS);
- 		linkConnections(process, connections);
-		linkBoundaryEvents(process);
+ 		linkConnections(process, connections, nodesByUniqueId);
+		linkBoundaryEvents(process, nodesByUniqueId);
 		
         // This must be done *after* linkConnections(process, connections)
 		//  because it adds hidden connections for compensations
  		List<Association> associations = (List<Association>) process.getMetaData(ASSOCIATIONS);
-		linkAssociations((Definitions) process.getMetaData("Definitions"), process, associations);
+		linkAssociations((Definitions) process.getMetaData("Definitions"), process, associations, nodesByUniqueId);
 		
         List<Lane> lanes = (List<Lane>)
             process.getMetaData(LaneHandler.LANES);
@@ -192,42 +194,52 @@ public class ProcessHandler extends BaseAbstractHandler implements Handler {
 	
 	 public static void linkIntermediateLinks(NodeContainer process,
 	            List<IntermediateLink> links) {
+	     linkIntermediateLinks(process, links, indexNodesByUniqueId(process));
+	 }
+
+	 public static void linkIntermediateLinks(NodeContainer process,
+	            List<IntermediateLink> links, Map<String, Node> nodesByUniqueId) {
 
 	        if (null != links) {
 
-	            // Search throw links
+	            // Group links by name and search throw links
+	            Map<String, List<IntermediateLink>> linksByName = new HashMap<String, List<IntermediateLink>>();
 	            ArrayList<IntermediateLink> throwLinks = new ArrayList<IntermediateLink>();
-	            for (IntermediateLink aLinks : links) {
-	                if (aLinks.isThrowLink()) {
-	                    throwLinks.add(aLinks);
+	            for (IntermediateLink aLink : links) {
+	                List<IntermediateLink> linksWithSharedNames = linksByName.get(aLink.getName());
+	                if (linksWithSharedNames == null) {
+	                    linksWithSharedNames = new ArrayList<IntermediateLink>();
+	                    linksByName.put(aLink.getName(), linksWithSharedNames);
+	                }
+	                linksWithSharedNames.add(aLink);
+	                if (aLink.isThrowLink()) {
+	                    throwLinks.add(aLink);
 	                }
 	            }
+	            int unprocessedLinks = links.size();
 
 	            // Look for catch links for a throw link
 	            for (IntermediateLink throwLink : throwLinks) {
 
-	                ArrayList<IntermediateLink> linksWithSharedNames = new ArrayList<IntermediateLink>();
-	                for (IntermediateLink aLink : links) {
-	                    if (throwLink.getName().equals(aLink.getName())) {
-	                        linksWithSharedNames.add(aLink);
-	                    }
-	                }
+	                // links are processed once per name
+	                List<IntermediateLink> linksWithSharedNames = linksByName.remove(throwLink.getName());
 
-	                if (linksWithSharedNames.size() < 2) {
+	                if (linksWithSharedNames == null || linksWithSharedNames.size() < 2) {
 	                    throw new IllegalArgumentException(
 	                            "There should be at least 2 link events to make a connection");
 	                }
+	                unprocessedLinks -= linksWithSharedNames.size();
 
 	                linksWithSharedNames.remove(throwLink);
 
 	                // Make the connections
-	                Node t = findNodeByIdOrUniqueIdInMetadata(process,
+	                Node t = findNodeByIdOrUniqueIdInMetadata(nodesByUniqueId,
 	                        throwLink.getUniqueId());
 
 	                // connect throw to catch
 	                for (IntermediateLink catchLink : linksWithSharedNames) {
 
-	                    Node c = findNodeByIdOrUniqueIdInMetadata(process,
+	                    Node c = findNodeByIdOrUniqueIdInMetadata(nodesByUniqueId,
 	                            catchLink.getUniqueId());
 	                    if (t != null && c != null) {
 	                        Connection result = new ConnectionImpl(t,
@@ -236,21 +248,19 @@ public class ProcessHandler extends BaseAbstractHandler implements Handler {
 	                        result.setMetaData("linkNodeHidden", "yes");
 	                    }
 	                }
-
-	                // Remove processed links
-	                links.remove(throwLink);
-	                links.removeAll(linksWithSharedNames);
 	            }
 
-	            if (links.size() > 0) {
-	                throw new IllegalArgumentException(links.size()
+	            if (unprocessedLinks > 0) {
+	                throw new IllegalArgumentException(unprocessedLinks
 	                        + " links were not processed");
 	            }
+	            // Remove processed links
+	            links.clear();
 
 	        }
 	 }
 
-	 private static Object findNodeOrDataStoreByUniqueId(Definitions definitions, NodeContainer nodeContainer, final String nodeRef, String errorMsg) { 
+	 private static Object findNodeOrDataStoreByUniqueId(Definitions definitions, Map<String, Node> nodesByUniqueId, final String nodeRef, String errorMsg) { 
 	     if( definitions !=  null ) { 
 	         List<DataStore> dataStores = definitions.getDataStores();
 	         if( dataStores != null ) { 
@@ -261,38 +271,52 @@ public class ProcessHandler extends BaseAbstractHandler implements Handler {
 	             }
 	         }
 	     }
-	     return findNodeByIdOrUniqueIdInMetadata(nodeContainer, nodeRef, errorMsg);
+	     return findNodeByIdOrUniqueIdInMetadata(nodesByUniqueId, nodeRef, errorMsg);
      } 
 	 
 	 private static Node findNodeByIdOrUniqueIdInMetadata(
-	         NodeContainer nodeContainer, String targetRef) {
-	     return findNodeByIdOrUniqueIdInMetadata(nodeContainer, targetRef, "Could not find target node for connection:" + targetRef);
+	         Map<String, Node> nodesByUniqueId, String targetRef) {
+	     return findNodeByIdOrUniqueIdInMetadata(nodesByUniqueId, targetRef, "Could not find target node for connection:" + targetRef);
 	 }
 
-	 private static Node findNodeByIdOrUniqueIdInMetadata(NodeContainer nodeContainer, final String nodeRef, String errorMsg) { 
-	     Node node = null;
-	     // try looking for a node with same "UniqueId" (in metadata)
-	     for (Node containerNode: nodeContainer.getNodes()) {
-	         if (nodeRef.equals(containerNode.getMetaData().get("UniqueId"))) {
-	             node = containerNode;
-	             break;
-	         }
-	     }
+	 private static Node findNodeByIdOrUniqueIdInMetadata(Map<String, Node> nodesByUniqueId, final String nodeRef, String errorMsg) { 
+	     // look for a node with same "UniqueId" (in metadata)
+	     Node node = nodesByUniqueId.get(nodeRef);
 	     if (node == null) {
 	         throw new IllegalArgumentException(errorMsg);
 	     }
 	     return node;
 	 }
 
+	 /**
+	  * Indexes the direct child nodes of given container by the "UniqueId" in their metadata,
+	  * the first node wins when several share the same id.
+	  */
+	 public static Map<String, Node> indexNodesByUniqueId(NodeContainer nodeContainer) {
+	     Node[] nodes = nodeContainer.getNodes();
+	     Map<String, Node> nodesByUniqueId = new HashMap<String, Node>(nodes.length * 4 / 3 + 1);
+	     for (Node containerNode: nodes) {
+	         Object uniqueId = containerNode.getMetaData().get("UniqueId");
+	         if (uniqueId instanceof String && !nodesByUniqueId.containsKey(uniqueId)) {
+	             nodesByUniqueId.put((String) uniqueId, containerNode);
+	         }
+	     }
+	     return nodesByUniqueId;
+	 }
+
 	 public Class<?> generateNodeFor() {
 		return RuleFlowProcess.class;
 	}
 	
 	public static void linkConnections(NodeContainer nodeContainer, List<SequenceFlow> connections) {
+		linkConnections(nodeContainer, connections, indexNodesByUniqueId(nodeContainer));
+	}
+
+	public static void linkConnections(NodeContainer nodeContainer, List<SequenceFlow> connections, Map<String, Node> nodesByUniqueId) {
 		if (connections != null) {
 			for (SequenceFlow connection: connections) {
 				String sourceRef = connection.getSourceRef();
-                Node source = findNodeByIdOrUniqueIdInMetadata(nodeContainer, sourceRef, "Could not find source node for connection:" + sourceRef);
+                Node source = findNodeByIdOrUniqueIdInMetadata(nodesByUniqueId, sourceRef, "Could not find source node for connection:" + sourceRef);
                 
                 if (source instanceof EventNode) {
                     for (EventFilter eventFilter : ((EventNode) source).getEventFilters()) {
@@ -308,7 +332,7 @@ public class ProcessHandler extends BaseAbstractHandler implements Handler {
                 }
                 
                 String targetRef = connection.getTargetRef();
-                Node target = findNodeByIdOrUniqueIdInMetadata(nodeContainer, targetRef, "Could not find target node for connection:" + targetRef);
+                Node target = findNodeByIdOrUniqueIdInMetadata(nodesByUniqueId, targetRef, "Could not find target node for connection:" + targetRef);
 
 				
 				Connection result = new ConnectionImpl(
@@ -338,13 +362,17 @@ public class ProcessHandler extends BaseAbstractHandler implements Handler {
 
 	   
     public static void linkBoundaryEvents(NodeContainer nodeContainer) {
+        linkBoundaryEvents(nodeContainer, indexNodesByUniqueId(nodeContainer));
+    }
+
+    public static void linkBoundaryEvents(NodeContainer nodeContainer, Map<String, Node> nodesByUniqueId) {
         for (Node node: nodeContainer.getNodes()) {
             if (node instanceof EventNode) {
                 final String attachedTo = (String) node.getMetaData().get("AttachedTo");
                 if (attachedTo != null) {
                     for( EventFilter filter : ((EventNode) node).getEventFilters() ) {
                         String type = ((EventTypeFilter) filter).getType();
-                        Node attachedNode = findNodeByIdOrUniqueIdInMetadata(nodeContainer, attachedTo, "Could not find node to attach to: " + attachedTo);
+                        Node attachedNode = findNodeByIdOrUniqueIdInMetadata(nodesByUniqueId, attachedTo, "Could not find node to attach to: " + attachedTo);
 
                         // 
                         if (!(attachedNode instanceof StateBasedNode) && !type.equals("Compensation")) {
@@ -528,12 +556,16 @@ public class ProcessHandler extends BaseAbstractHandler implements Handler {
     }
     
     public static void linkAssociations(Definitions definitions, NodeContainer nodeContainer, List<Association> associations) {
+        linkAssociations(definitions, nodeContainer, associations, indexNodesByUniqueId(nodeContainer));
+    }
+
+    public static void linkAssociations(Definitions definitions, NodeContainer nodeContainer, List<Association> associations, Map<String, Node> nodesByUniqueId) {
         if( associations != null ) { 
             for( Association association : associations ) { 
                String sourceRef = association.getSourceRef();
                Object source = null;
                try {
-            	   source = findNodeOrDataStoreByUniqueId(definitions, nodeContainer, sourceRef,
+            	   source = findNodeOrDataStoreByUniqueId(definitions, nodesByUniqueId, sourceRef,
                        "Could not find source [" + sourceRef + "] for association " + association.getId() + "]" );
                } catch (IllegalArgumentException e) {
             	   // source not found
@@ -541,7 +573,7 @@ public class ProcessHandler extends BaseAbstractHandler implements Handler {
                String targetRef = association.getTargetRef();
                Object target = null;
                try {
-            	   target = findNodeOrDataStoreByUniqueId(definitions, nodeContainer, targetRef, 
+            	   target = findNodeOrDataStoreByUniqueId(definitions, nodesByUniqueId, targetRef, 
                        "Could not find target [" + targetRef + "] for association [" + association.getId() + "]" );
                } catch (IllegalArgumentException e) {
             	   // target not found
@@ -553,7 +585,7 @@ public class ProcessHandler extends BaseAbstractHandler implements Handler {
                } else if (source instanceof EventNode) { 
                    EventNode sourceNode = (EventNode) source;
                    Node targetNode = (Node) target;
-                   checkBoundaryEventCompensationHandler(association, sourceNode, targetNode);
+                   checkBoundaryEventCompensationHandler(association, sourceNode, targetNode, nodeContainer, nodesByUniqueId);
                    
                    // make sure IsForCompensation is set to true on target
                    NodeImpl targetNodeImpl = (NodeImpl) target;
@@ -604,7 +636,8 @@ public class ProcessHandler extends BaseAbstractHandler implements Handler {
      * @param source The source of the association.
      * @param target The target of the association.
      */
-    private static void checkBoundaryEventCompensationHandler(Association association, Node source, Node target) { 
+    private static void checkBoundaryEventCompensationHandler(Association association, Node source, Node target,
+            NodeContainer nodeContainer, Map<String, Node> nodesByUniqueId) { 
         // check that 
         // - event node is boundary event node
         if( ! (source instanceof BoundaryEventNode) ) { 
@@ -647,10 +680,14 @@ public class ProcessHandler extends BaseAbstractHandler implements Handler {
          */
         String attachedToId = eventNode.getAttachedToNodeId();
         Node attachedToNode = null;
-        for( Node node : eventNode.getNodeContainer().getNodes() ) { 
-            if( attachedToId.equals(node.getMetaData().get("UniqueId")) ) { 
-                attachedToNode = node;
-                break;
+        if( eventNode.getNodeContainer() == nodeContainer ) { 
+            attachedToNode = nodesByUniqueId.get(attachedToId);
+        } else { 
+            for( Node node : eventNode.getNodeContainer().getNodes() ) { 
+                if( attachedToId.equals(node.getMetaData().get("UniqueId")) ) { 
+                    attachedToNode = node;
+                    break;
+                }
             }
         }
         if( attachedToNode == null ) { 
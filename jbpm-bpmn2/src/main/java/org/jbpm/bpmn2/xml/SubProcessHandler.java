@@ -17,6 +17,7 @@
 package org.jbpm.bpmn2.xml;
 
 import java.util.List;
+import java.util.Map;
 
 import org.drools.core.xml.ExtensibleXmlParser;
 import org.jbpm.bpmn2.core.Association;
@@ -111,16 +112,17 @@ public class SubProcessHandler extends AbstractNodeHandler {
     	handleScript(compositeNode, element, "onEntry");
         handleScript(compositeNode, element, "onExit");
     	
+    	Map<String, org.kie.api.definition.process.Node> nodesByUniqueId = ProcessHandler.indexNodesByUniqueId(compositeNode);
     	List<IntermediateLink> throwLinks = (List<IntermediateLink>) compositeNode.getMetaData(ProcessHandler.LINKS);
-    	ProcessHandler.linkIntermediateLinks(compositeNode, throwLinks);	
+    	ProcessHandler.linkIntermediateLinks(compositeNode, throwLinks, nodesByUniqueId);	
     	
-    	ProcessHandler.linkConnections(compositeNode, connections);
-    	ProcessHandler.linkBoundaryEvents(compositeNode);
+    	ProcessHandler.linkConnections(compositeNode, connections, nodesByUniqueId);
+    	ProcessHandler.linkBoundaryEvents(compositeNode, nodesByUniqueId);
     	
         // This must be done *after* linkConnections(process, connections)
         //  because it adds hidden connections for compensations
         List<Association> associations = (List<Association>) compositeNode.getMetaData(ProcessHandler.ASSOCIATIONS);
-        ProcessHandler.linkAssociations((Definitions) compositeNode.getMetaData("Definitions"), compositeNode, associations);
+        ProcessHandler.linkAssociations((Definitions) compositeNode.getMetaData("Definitions"), compositeNode, associations, nodesByUniqueId);
         
         // TODO: do we fully support interruping ESP's? 
         /** 
@@ -155,13 +157,14 @@ public class SubProcessHandler extends AbstractNodeHandler {
         }
     	List<SequenceFlow> connections = (List<SequenceFlow>)
 			forEachNode.getMetaData(ProcessHandler.CONNECTIONS);
-    	ProcessHandler.linkConnections(forEachNode, connections);
-    	ProcessHandler.linkBoundaryEvents(forEachNode);
+    	Map<String, org.kie.api.definition.process.Node> nodesByUniqueId = ProcessHandler.indexNodesByUniqueId(forEachNode);
+    	ProcessHandler.linkConnections(forEachNode, connections, nodesByUniqueId);
+    	ProcessHandler.linkBoundaryEvents(forEachNode, nodesByUniqueId);
     	
         // This must be done *after* linkConnections(process, connections)
         //  because it adds hidden connections for compensations
         List<Association> associations = (List<Association>) forEachNode.getMetaData(ProcessHandler.ASSOCIATIONS);
-        ProcessHandler.linkAssociations((Definitions) forEachNode.getMetaData("Definitions"), forEachNode, associations);
+        ProcessHandler.linkAssociations((Definitions) forEachNode.getMetaData("Definitions"), forEachNode, associations, nodesByUniqueId);
     }    
 
     public void writeNode(Node node, StringBuilder xmlDump, int metaDataType) {
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.bpmn2;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.drools.core.xml.SemanticModules;
+import org.jbpm.bpmn2.xml.BPMNDISemanticModule;
+import org.jbpm.bpmn2.xml.BPMNSemanticModule;
+import org.jbpm.compiler.xml.XmlProcessReader;
+import org.jbpm.ruleflow.core.RuleFlowProcess;
+import org.junit.Test;
+import org.kie.api.definition.process.Node;
+import org.kie.api.definition.process.Process;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parses generated processes of growing size to make sure linking of nodes
+ * does not degrade with the number of nodes.
+ */
+public class ProcessParsingPerformanceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessParsingPerformanceTest.class);
+
+    @Test
+    public void testParsingOfLargeProcesses() throws Exception {
+        SemanticModules modules = new SemanticModules();
+        modules.addSemanticModule(new BPMNSemanticModule());
+        modules.addSemanticModule(new BPMNDISemanticModule());
+
+        for (int size : new int[] { 1000, 5000, 20000 }) {
+            String xml = generateProcess(size);
+            XmlProcessReader processReader = new XmlProcessReader(modules, getClass().getClassLoader());
+
+            long start = System.currentTimeMillis();
+            List<Process> processes = processReader.read(new StringReader(xml));
+            long duration = System.currentTimeMillis() - start;
+            logger.info("Parsing of process with {} nodes took {} ms", size, duration);
+
+            assertEquals(1, processes.size());
+            RuleFlowProcess process = (RuleFlowProcess) processes.get(0);
+            // start and end events plus script tasks
+            assertEquals(size + 2, process.getNodes().length);
+            for (Node node : process.getNodes()) {
+                if (!"_start".equals(node.getMetaData().get("UniqueId"))) {
+                    assertEquals(1, node.getIncomingConnections().size());
+                }
+            }
+        }
+    }
+
+    private String generateProcess(int size) {
+        StringBuilder xml = new StringBuilder(size * 200);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<definitions id=\"Definition\" targetNamespace=\"http://www.example.org/LargeExample\" ");
+        xml.append("typeLanguage=\"http://www.java.com/javaTypes\" expressionLanguage=\"http://www.mvel.org/2.0\" ");
+        xml.append("xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" xmlns:tns=\"http://www.jboss.org/drools\">\n");
+        xml.append("  <process id=\"Large").append(size).append("\" name=\"Large Process\" tns:packageName=\"com.sample\">\n");
+        xml.append("    <startEvent id=\"_start\" name=\"StartProcess\"/>\n");
+        String previous = "_start";
+        for (int i = 0; i < size; i++) {
+            String id = "_" + i;
+            xml.append("    <scriptTask id=\"").append(id).append("\" name=\"Task ").append(i).append("\">\n");
+            xml.append("      <script>int i = 0;</script>\n");
+            xml.append("    </scriptTask>\n");
+            previous = appendSequenceFlow(xml, previous, id);
+        }
+        xml.append("    <endEvent id=\"_end\" name=\"EndProcess\"/>\n");
+        appendSequenceFlow(xml, previous, "_end");
+        xml.append("  </process>\n");
+        xml.append("</definitions>\n");
+        return xml.toString();
+    }
+
+    private String appendSequenceFlow(StringBuilder xml, String source, String target) {
+        xml.append("    <sequenceFlow id=\"").append(source).append("-").append(target)
+            .append("\" sourceRef=\"").append(source).append("\" targetRef=\"").append(target).append("\"/>\n");
+        return target;
+    }
+}
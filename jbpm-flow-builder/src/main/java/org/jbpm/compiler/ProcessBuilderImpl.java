@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -39,6 +40,7 @@ import org.drools.compiler.lang.descr.ProcessDescr;
 import org.drools.compiler.rule.builder.dialect.java.JavaDialect;
 import org.drools.core.definitions.InternalKnowledgePackage;
 import org.drools.core.io.internal.InternalResource;
+import org.drools.core.xml.SemanticModule;
 import org.jbpm.compiler.xml.ProcessSemanticModule;
 import org.jbpm.compiler.xml.XmlProcessReader;
 import org.jbpm.compiler.xml.processes.RuleFlowMigrator;
@@ -87,7 +89,7 @@ import org.slf4j.LoggerFactory;
 public class ProcessBuilderImpl implements org.drools.compiler.compiler.ProcessBuilder {
 
     private static final Logger logger = LoggerFactory.getLogger(ProcessBuilderImpl.class);
-    
+
     private KnowledgeBuilderImpl knowledgeBuilder;
     private final List<BaseKnowledgeBuilderResultImpl> errors = new ArrayList<BaseKnowledgeBuilderResultImpl>();
 
@@ -108,103 +110,124 @@ public class ProcessBuilderImpl implements org.drools.compiler.compiler.ProcessB
     }
 
     public void buildProcess(final Process process, Resource resource) {
+        ProcessBuildUnit unit = new ProcessBuildUnit( process, resource );
+        if ( validateProcess( unit ) ) {
+            addProcessRules( unit );
+            addProcessToPackage( unit );
+            if ( unit.isCompilationSupported() ) {
+                compile( unit.pkgRegistry );
+            }
+        }
+    }
+
+    private boolean validateProcess(ProcessBuildUnit unit) {
+        Process process = unit.process;
+        Resource resource = unit.resource;
         if ( resource != null && ((InternalResource) resource).hasURL()) {
             ((org.jbpm.process.core.Process) process).setResource(resource);
         }
-        boolean hasErrors = false;
         ProcessValidator validator = ProcessValidatorRegistry.getInstance().getValidator(process, resource);
+        unit.validator = validator;
         if (validator == null) {
             logger.warn("Could not find validator for process {}.", ((Process)process).getType());
             logger.warn("Continuing without validation of the process {} [{}]", process.getName(), process.getId());
         } else {
             ProcessValidationError[] errors = validator.validateProcess( (WorkflowProcess) process );
             if ( errors.length != 0 ) {
-                hasErrors = true;
                 for ( int i = 0; i < errors.length; i++ ) {
                     this.errors.add( new ParserError( resource,
                                                       errors[i].toString(),
                                                       -1,
                                                       -1 ) );
                 }
+                return false;
             }
         }
-        if ( !hasErrors ) {
-        	
-            // generate and add rule for process
-            String rules = "package " + process.getPackageName() + "\n";
-            // NPE for validator
-            if (validator != null && validator.compilationSupported()) {
-            	rules = generateRules( process );
-            }
-            try {
-                knowledgeBuilder.addPackageFromDrl( new StringReader( rules ), resource );
-            } catch ( IOException e ) {
-                // should never occur
-                logger.error("IOException during addPackageFromDRL", e);
-            } catch ( DroolsParserException e ) {
-                // should never occur
-                logger.error("DroolsParserException during addPackageFromDRL", e);
+        return true;
+    }
+
+    private void addProcessRules(ProcessBuildUnit unit) {
+        Process process = unit.process;
+        ProcessValidator validator = unit.validator;
+        // generate and add rule for process
+        String rules = "package " + process.getPackageName() + "\n";
+        // NPE for validator
+        if (validator != null && validator.compilationSupported()) {
+            rules = generateRules( process );
+        }
+        try {
+            knowledgeBuilder.addPackageFromDrl( new StringReader( rules ), unit.resource );
+        } catch ( IOException e ) {
+            // should never occur
+            logger.error("IOException during addPackageFromDRL", e);
+        } catch ( DroolsParserException e ) {
+            // should never occur
+            logger.error("DroolsParserException during addPackageFromDRL", e);
+        }
+    }
+
+    private void addProcessToPackage(ProcessBuildUnit unit) {
+        Process process = unit.process;
+        Resource resource = unit.resource;
+        ProcessValidator validator = unit.validator;
+        PackageRegistry pkgRegistry = this.knowledgeBuilder.getPackageRegistry(process.getPackageName());
+        if (pkgRegistry != null) {
+            InternalKnowledgePackage p = pkgRegistry.getPackage();
+
+            if (p != null) {
+                if( validator != null ) {
+                    // NPE for validator
+                    if (validator.compilationSupported()) {
+                        ProcessDescr processDescr = new ProcessDescr();
+                        processDescr.setName(process.getPackageName() + "." + process.getName());
+                        processDescr.setResource( resource );
+                        processDescr.setProcessId( process.getId() );
+                        DialectCompiletimeRegistry dialectRegistry = pkgRegistry.getDialectCompiletimeRegistry();
+                        Dialect dialect = dialectRegistry.getDialect( "java" );
+                        dialect.init(processDescr);
+
+                        ProcessBuildContext buildContext = new ProcessBuildContext(
+                                this.knowledgeBuilder,
+                                p,
+                                process,
+                                processDescr,
+                                dialectRegistry,
+                                dialect);
+
+                        buildContexts( ( ContextContainer ) process, buildContext );
+                        if (process instanceof WorkflowProcess) {
+                            buildNodes( (WorkflowProcess) process, buildContext );
+                        }
+                    }
+                    Process duplicateProcess = p.getRuleFlows().get(process.getId());
+                    if (duplicateProcess != null) {
+                        Resource duplicatedResource = duplicateProcess.getResource();
+                        if (resource == null || duplicatedResource == null || duplicatedResource.getSourcePath() == null ||
+                                duplicatedResource.getSourcePath().equals(resource.getSourcePath())) {
+                            this.errors.add(new DuplicateProcess(process,
+                                    this.knowledgeBuilder.getBuilderConfiguration()));
+                        } else {
+                            this.errors.add( new ParserError( resource,
+                                    "Process with same id already exists: " + process.getId(),
+                                    -1,
+                                    -1 ) );
+                        }
+                    }
+                    p.addProcess( process );
+                    unit.pkgRegistry = pkgRegistry;
+                }
             }
-            
-            PackageRegistry pkgRegistry = this.knowledgeBuilder.getPackageRegistry(process.getPackageName());
-			if (pkgRegistry != null) {
-				InternalKnowledgePackage p = pkgRegistry.getPackage();
-            
-				if (p != null) {
-				    if( validator != null ) { 
-				        // NPE for validator
-				        if (validator.compilationSupported()) {
-				            ProcessDescr processDescr = new ProcessDescr();
-				            processDescr.setName(process.getPackageName() + "." + process.getName());
-				            processDescr.setResource( resource );
-				            processDescr.setProcessId( process.getId() );
-				            DialectCompiletimeRegistry dialectRegistry = pkgRegistry.getDialectCompiletimeRegistry();
-				            Dialect dialect = dialectRegistry.getDialect( "java" );
-				            dialect.init(processDescr);
-
-				            ProcessBuildContext buildContext = new ProcessBuildContext(
-				                    this.knowledgeBuilder,
-				                    p,
-				                    process,
-				                    processDescr,
-				                    dialectRegistry,
-				                    dialect);
-
-				            buildContexts( ( ContextContainer ) process, buildContext );
-				            if (process instanceof WorkflowProcess) {
-				                buildNodes( (WorkflowProcess) process, buildContext );
-				            }
-				        }
-				        Process duplicateProcess = p.getRuleFlows().get(process.getId());
-				        if (duplicateProcess != null) {
-				            Resource duplicatedResource = duplicateProcess.getResource();
-				            if (resource == null || duplicatedResource == null || duplicatedResource.getSourcePath() == null ||
-				                    duplicatedResource.getSourcePath().equals(resource.getSourcePath())) {
-				                this.errors.add(new DuplicateProcess(process,
-				                        this.knowledgeBuilder.getBuilderConfiguration()));
-				            } else {
-				                this.errors.add( new ParserError( resource,
-				                        "Process with same id already exists: " + process.getId(),
-				                        -1,
-				                        -1 ) );
-				            }
-				        }
-				        p.addProcess( process );
-				        // NPE for validator
-				        if (validator.compilationSupported()) {
-				            pkgRegistry.compileAll();                
-				            pkgRegistry.getDialectRuntimeRegistry().onBeforeExecute();
-				        }
-				    }
-				}
-	        } else {
-				// invalid package registry..there is an issue with the package
-				// name of the process
-				throw new RuntimeException("invalid package name");
-			}
+        } else {
+            // invalid package registry..there is an issue with the package
+            // name of the process
+            throw new RuntimeException("invalid package name");
         }
     }
 
+    private void compile(PackageRegistry pkgRegistry) {
+        pkgRegistry.compileAll();
+        pkgRegistry.getDialectRuntimeRegistry().onBeforeExecute();
+    }
     public void buildContexts(ContextContainer contextContainer, ProcessBuildContext buildContext) {
     	List<Context> exceptionScopes = contextContainer.getContexts(ExceptionScope.EXCEPTION_SCOPE);
     	if (exceptionScopes != null) {
@@ -266,42 +289,111 @@ public class ProcessBuilderImpl implements org.drools.compiler.compiler.ProcessB
     }
 
     public List<BaseKnowledgeBuilderResultImpl> addProcessFromXml(final Resource resource) throws IOException {
+        ParsedResource parsedResource = parseProcesses( resource );
+        this.errors.addAll( parsedResource.errors );
+        if ( parsedResource.processes != null ) {
+            try {
+                for (Process process : parsedResource.processes) {
+                    buildProcess(process, resource);
+                }
+            } catch ( Exception e ) {
+                logger.error("Unable to build process", e);
+                this.errors.add( new ProcessLoadError( resource, "unable to parse xml", e ) );
+            }
+        }
+        return this.errors;
+    }
+
+    private ParsedResource parseProcesses(final Resource resource) throws IOException {
+        ParsedResource parsedResource = new ParsedResource( resource );
     	Reader reader = resource.getReader();
         KnowledgeBuilderConfigurationImpl configuration = knowledgeBuilder.getBuilderConfiguration();
         XmlProcessReader xmlReader = new XmlProcessReader( configuration.getSemanticModules(), knowledgeBuilder.getRootClassLoader() );
         
         try {
             String portRuleFlow = System.getProperty( "drools.ruleflow.port", "false" );
-            Reader portedReader = null;
-            if ( portRuleFlow.equalsIgnoreCase( "true" ) ) {
-                portedReader = portToCurrentVersion( reader );
-            } else {
-                portedReader = reader;
+            ProcessDefinitionCache cache = ProcessDefinitionCache.getConfiguredCache();
+            String cacheKey = null;
+            Reader processReader = reader;
+            List<Process> processes = null;
+            if ( cache != null ) {
+                String source = RuleFlowMigrator.convertReaderToString( reader );
+                cacheKey = getCacheKey( cache, source, portRuleFlow, configuration );
+                if ( cacheKey != null ) {
+                    processes = cache.get( cacheKey, knowledgeBuilder.getRootClassLoader() );
+                }
+                processReader = new StringReader( source );
             }
-            List<Process> processes = xmlReader.read(portedReader);
-            if (processes != null) {
-                // it is possible an xml file could not be parsed, so we need to
-                // stop null pointers
-                for (Process process : processes) {
-                    buildProcess(process, resource);
+            if ( processes == null ) {
+                Reader portedReader = null;
+                if ( portRuleFlow.equalsIgnoreCase( "true" ) ) {
+                    portedReader = portToCurrentVersion( processReader );
+                } else {
+                    portedReader = processReader;
+                }
+                processes = xmlReader.read(portedReader);
+                // store before building, the builders attach compiled actions to the definition
+                if ( cacheKey != null && processes != null ) {
+                    cache.put( cacheKey, processes );
                 }
+            }
+            if (processes != null) {
+                parsedResource.processes = processes;
             } else {
                 // @TODO could we maybe add something a bit more informative about what is wrong with the XML ?
-                this.errors.add( new ProcessLoadError( resource, "unable to parse xml", null ) );
+                parsedResource.errors.add( new ProcessLoadError( resource, "unable to parse xml", null ) );
             }
         } catch ( FactoryConfigurationError e1 ) {
-            this.errors.add( new ProcessLoadError( resource, "FactoryConfigurationError ", e1.getException()) );
+            parsedResource.errors.add( new ProcessLoadError( resource, "FactoryConfigurationError ", e1.getException()) );
         } catch ( Exception e2 ) {
-        	e2.printStackTrace();
-            this.errors.add( new ProcessLoadError( resource, "unable to parse xml", e2 ) );
+            logger.error( "Unable to parse process from {}", resource, e2 );
+            parsedResource.errors.add( new ProcessLoadError( resource, "unable to parse xml", e2 ) );
         } finally {
             reader.close();
         }
 
-        return this.errors;
+        return parsedResource;
     }
                                    
   
+    /**
+     * Returns the key of given process source in the definition cache or <code>null</code> when the
+     * parsed definition must not be cached, i.e. when the builder version is unknown or when semantic
+     * modules other than the process and BPMN2 ones are registered, as their handlers may collect
+     * data while the xml is read.
+     */
+    private static String getCacheKey(ProcessDefinitionCache cache, String source, String portRuleFlow,
+                                      KnowledgeBuilderConfigurationImpl configuration) {
+        String version = getBuilderVersion();
+        if ( version == null ) {
+            logger.debug( "Version of the process builder is unknown, process definitions are not cached" );
+            return null;
+        }
+        List<String> modules = new ArrayList<String>();
+        for ( Map.Entry<String, SemanticModule> entry : configuration.getSemanticModules().modules.entrySet() ) {
+            String type = entry.getValue().getClass().getName();
+            if ( !type.startsWith( "org.drools." ) && !type.startsWith( "org.jbpm.compiler.xml." )
+                    && !type.startsWith( "org.jbpm.bpmn2.xml." ) ) {
+                logger.debug( "Semantic module {} is registered, process definitions are not cached", type );
+                return null;
+            }
+            modules.add( entry.getKey() + "=" + type );
+        }
+        Collections.sort( modules );
+        return cache.getKey( source, portRuleFlow, version, modules.toString(), configuration.getDefaultDialect(),
+                System.getProperty( "jbpm.enable.multi.con" ), System.getProperty( "jbpm.v5.id.strategy" ) );
+    }
+
+    private static String getBuilderVersion() {
+        Package builderPackage = ProcessBuilderImpl.class.getPackage();
+        String version = builderPackage == null ? null : builderPackage.getImplementationVersion();
+        if ( version == null ) {
+            // e.g. when running from a class directory instead of the released jar
+            version = System.getProperty( "org.jbpm.process.cache.version" );
+        }
+        return version;
+    }
+
     /*************************************************************************
      * Converts a drools version 4 .rf or .rfm ruleflow to a version 5 .rf.
      * Version 5 .rf ruleflows are allowed, but are not migrated.
@@ -516,4 +608,32 @@ public class ProcessBuilderImpl implements org.drools.compiler.compiler.ProcessB
         return result;
     }
 
+    private static class ParsedResource {
+
+        private final Resource resource;
+        private final List<BaseKnowledgeBuilderResultImpl> errors = new ArrayList<BaseKnowledgeBuilderResultImpl>();
+        private List<Process> processes;
+
+        private ParsedResource(Resource resource) {
+            this.resource = resource;
+        }
+    }
+
+    private static class ProcessBuildUnit {
+
+        private final Process process;
+        private final Resource resource;
+        private ProcessValidator validator;
+        private PackageRegistry pkgRegistry;
+
+        private ProcessBuildUnit(Process process, Resource resource) {
+            this.process = process;
+            this.resource = resource;
+        }
+
+        private boolean isCompilationSupported() {
+            return pkgRegistry != null && validator != null && validator.compilationSupported();
+        }
+    }
+
 }
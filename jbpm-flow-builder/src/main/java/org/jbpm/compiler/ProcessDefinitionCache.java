@@ -0,0 +1,230 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kie.api.definition.process.Process;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On disk cache of parsed process definitions, keyed by a hash of the process source and
+ * the builder settings that influence parsing. The cache is only active when the
+ * <code>org.jbpm.process.cache.dir</code> system property points to a directory.
+ * <br/>
+ * Entries are stored before the process is built, so a hit only skips reading the xml; the
+ * contexts and nodes are still built and compiled into the target package.
+ * <br/>
+ * Every entry starts with its key, and only classes of the JDK collections and of the process
+ * engine are resolved when an entry is read, so a file that does not hold a process definition
+ * is discarded instead of being deserialized.
+ */
+public class ProcessDefinitionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessDefinitionCache.class);
+
+    private static final String SUFFIX = ".process";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final String[] ALLOWED_PACKAGES = new String[] {
+        "java.lang.", "java.util.", "java.math.", "org.jbpm.", "org.drools.", "org.kie."
+    };
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong failures = new AtomicLong();
+
+    private final File directory;
+
+    public ProcessDefinitionCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the cache configured through system properties or <code>null</code> when caching is disabled.
+     */
+    public static ProcessDefinitionCache getConfiguredCache() {
+        String location = System.getProperty("org.jbpm.process.cache.dir");
+        if (location == null || location.trim().length() == 0) {
+            return null;
+        }
+        File directory = new File(location);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            logger.warn("Unable to create process definition cache directory {}, caching disabled", directory);
+            return null;
+        }
+        return new ProcessDefinitionCache(directory);
+    }
+
+    public String getKey(String source, String... settings) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (String setting : settings) {
+                digest.update(String.valueOf(setting).getBytes("UTF-8"));
+                digest.update((byte) 0);
+            }
+            digest.update(source.getBytes("UTF-8"));
+            byte[] hash = digest.digest();
+            char[] key = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                key[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+                key[i * 2 + 1] = HEX[hash[i] & 0xF];
+            }
+            return new String(key);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not available", e);
+        }
+    }
+
+    /**
+     * Returns a fresh copy of the cached processes or <code>null</code> when there is no
+     * usable entry for given key.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Process> get(String key, final ClassLoader classLoader) {
+        File file = new File(directory, key + SUFFIX);
+        if (!file.isFile()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        ObjectInputStream in = null;
+        try {
+            in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file))) {
+                @Override
+                protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                    if (!isAllowed(desc.getName())) {
+                        throw new InvalidClassException(desc.getName(), "class is not allowed in a cached process definition");
+                    }
+                    try {
+                        return Class.forName(desc.getName(), false, classLoader);
+                    } catch (ClassNotFoundException e) {
+                        return super.resolveClass(desc);
+                    }
+                }
+            };
+            if (!key.equals(in.readUTF())) {
+                throw new InvalidObjectException("entry does not belong to key " + key);
+            }
+            List<Process> processes = (List<Process>) in.readObject();
+            hits.incrementAndGet();
+            return processes;
+        } catch (Exception e) {
+            logger.warn("Unable to read cached process definition {}, it will be rebuilt: {}", file, e.getMessage());
+            failures.incrementAndGet();
+            misses.incrementAndGet();
+            close(in);
+            in = null;
+            file.delete();
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    public void put(String key, List<Process> processes) {
+        File file = new File(directory, key + SUFFIX);
+        File temp = new File(directory, key + SUFFIX + "." + Thread.currentThread().getId() + ".tmp");
+        ObjectOutputStream out = null;
+        try {
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeUTF(key);
+            out.writeObject(new ArrayList<Process>(processes));
+            out.close();
+            out = null;
+            if (!temp.renameTo(file)) {
+                // another builder stored the same entry in the meantime
+                temp.delete();
+            }
+        } catch (IOException e) {
+            // processes with non serializable meta data are simply not cached
+            logger.debug("Unable to cache process definition {}: {}", key, e.getMessage());
+            failures.incrementAndGet();
+            close(out);
+            out = null;
+            temp.delete();
+        } finally {
+            close(out);
+        }
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static long getFailures() {
+        return failures.get();
+    }
+
+    public static void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+        failures.set(0);
+    }
+
+    private static boolean isAllowed(String className) {
+        // arrays are checked by their component type
+        String name = className;
+        while (name.startsWith("[")) {
+            name = name.substring(1);
+        }
+        if (name.length() == 1) {
+            // primitive array
+            return true;
+        }
+        if (name.startsWith("L") && name.endsWith(";")) {
+            name = name.substring(1, name.length() - 1);
+        }
+        for (String allowed : ALLOWED_PACKAGES) {
+            if (name.startsWith(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
@@ -41,6 +41,9 @@ public class ForEachNodeHandler extends CompositeNodeHandler {
     	if (!waitForCompletion) {
     		xmlDump.append("waitForCompletion=\"false\" ");
     	}
+    	if (forEachNode.getCompletionWindow() > 0) {
+    		xmlDump.append("completionWindow=\"" + forEachNode.getCompletionWindow() + "\" ");
+    	}
     }
 
     protected List<Node> getSubNodes(CompositeNode compositeNode) {
@@ -75,6 +78,10 @@ public class ForEachNodeHandler extends CompositeNodeHandler {
         if ("false".equals(waitForCompletion)) {
             forEachNode.setWaitForCompletion(false);
         }
+        final String completionWindow = element.getAttribute("completionWindow");
+        if (completionWindow != null && completionWindow.length() != 0) {
+            forEachNode.setCompletionWindow(Integer.parseInt(completionWindow));
+        }
     }
 
 }
@@ -0,0 +1,200 @@
+package org.jbpm.integrationtests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jbpm.integrationtests.handler.TestWorkItemHandler;
+import org.jbpm.process.instance.event.listeners.NodeProfilingListener;
+import org.jbpm.process.instance.event.listeners.NodeProfilingListener.NodeStatistics;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.junit.Test;
+import org.kie.api.runtime.process.ProcessInstance;
+import org.kie.api.runtime.process.WorkItem;
+import org.kie.api.runtime.process.WorkItemHandler;
+import org.kie.api.runtime.process.WorkItemManager;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class NodeProfilingListenerTest extends AbstractBaseTest {
+
+    private static final String PROCESS =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<process xmlns=\"http://drools.org/drools-5.0/process\"\n" +
+        "    xmlns:xs=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+        "    xs:schemaLocation=\"http://drools.org/drools-5.0/process drools-processes-5.0.xsd\"\n" +
+        "    type=\"RuleFlow\" name=\"ruleflow\" id=\"org.test.ruleflow\" package-name=\"org.test\" >\n" +
+        "  <header>\n" +
+        "  </header>\n" +
+        "  <nodes>\n" +
+        "    <start id=\"1\" name=\"Start\" />\n" +
+        "    <actionNode id=\"2\" name=\"Action\" >\n" +
+        "      <action type=\"expression\" dialect=\"java\" >Thread.sleep(5);</action>\n" +
+        "    </actionNode>\n" +
+        "    <workItem id=\"3\" name=\"Email\" >\n" +
+        "      <work name=\"Report\" />\n" +
+        "    </workItem>\n" +
+        "    <end id=\"4\" name=\"End\" />\n" +
+        "  </nodes>\n" +
+        "  <connections>\n" +
+        "    <connection from=\"1\" to=\"2\"/>\n" +
+        "    <connection from=\"2\" to=\"3\"/>\n" +
+        "    <connection from=\"3\" to=\"4\"/>\n" +
+        "  </connections>\n" +
+        "</process>";
+
+    private static final String FOR_EACH_PROCESS =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<process xmlns=\"http://drools.org/drools-5.0/process\"\n" +
+        "    xmlns:xs=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+        "    xs:schemaLocation=\"http://drools.org/drools-5.0/process drools-processes-5.0.xsd\"\n" +
+        "    type=\"RuleFlow\" name=\"ruleflow\" id=\"org.test.foreach\" package-name=\"org.test\" >\n" +
+        "  <header>\n" +
+        "    <variables>\n" +
+        "      <variable name=\"collection\" >\n" +
+        "        <type name=\"org.drools.core.process.core.datatype.impl.type.ObjectDataType\" className=\"java.util.List\" />\n" +
+        "      </variable>\n" +
+        "    </variables>\n" +
+        "  </header>\n" +
+        "  <nodes>\n" +
+        "    <start id=\"1\" name=\"Start\" />\n" +
+        "    <forEach id=\"2\" name=\"ForEach\" variableName=\"item\" collectionExpression=\"collection\" >\n" +
+        "      <nodes>\n" +
+        "        <workItem id=\"1\" name=\"Email\" >\n" +
+        "          <work name=\"Report\" />\n" +
+        "        </workItem>\n" +
+        "      </nodes>\n" +
+        "      <connections>\n" +
+        "      </connections>\n" +
+        "      <in-ports>\n" +
+        "        <in-port type=\"DROOLS_DEFAULT\" nodeId=\"1\" nodeInType=\"DROOLS_DEFAULT\" />\n" +
+        "      </in-ports>\n" +
+        "      <out-ports>\n" +
+        "        <out-port type=\"DROOLS_DEFAULT\" nodeId=\"1\" nodeOutType=\"DROOLS_DEFAULT\" />\n" +
+        "      </out-ports>\n" +
+        "    </forEach>\n" +
+        "    <end id=\"3\" name=\"End\" />\n" +
+        "  </nodes>\n" +
+        "  <connections>\n" +
+        "    <connection from=\"1\" to=\"2\"/>\n" +
+        "    <connection from=\"2\" to=\"3\"/>\n" +
+        "  </connections>\n" +
+        "</process>";
+
+    @Test
+    public void testNodeStatistics() throws Exception {
+        builder.addProcessFromXml(new StringReader(PROCESS));
+        StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+        TestWorkItemHandler handler = new TestWorkItemHandler();
+        session.getWorkItemManager().registerWorkItemHandler("Report", handler);
+        NodeProfilingListener listener = new NodeProfilingListener();
+        session.addEventListener(listener);
+
+        session.startProcess("org.test.ruleflow");
+        NodeStatistics workItem = listener.getStatistics("org.test.ruleflow", "3");
+        assertEquals(1, workItem.getTriggerCount());
+        assertEquals(0, workItem.getLeaveCount());
+        assertEquals(1, workItem.getExecutionTime().getCount());
+        assertEquals(0, workItem.getTimeInNode().getCount());
+        assertTrue(listener.getActiveCount() > 0);
+
+        Thread.sleep(10);
+        session.getWorkItemManager().completeWorkItem(handler.getWorkItem().getId(), null);
+        workItem = listener.getStatistics("org.test.ruleflow", "3");
+        assertEquals(1, workItem.getLeaveCount());
+        assertEquals(1, workItem.getTimeInNode().getCount());
+        // time in node includes the time spent waiting for the work item
+        assertTrue(workItem.getTimeInNode().getTotal() >= 10000000);
+        assertTrue(workItem.getTimeInNode().getTotal() > workItem.getExecutionTime().getTotal());
+        assertEquals(0, listener.getActiveCount());
+
+        NodeStatistics action = listener.getStatistics("org.test.ruleflow", "2");
+        assertEquals(1, action.getTriggerCount());
+        assertEquals(1, action.getExecutionTime().getCount());
+        assertTrue(action.getExecutionTime().getTotal() >= 5000000);
+
+        List<NodeStatistics> hottest = listener.getHottestNodes(1);
+        assertEquals(1, hottest.size());
+        assertEquals("2", hottest.get(0).getNodeId());
+        assertEquals(4, listener.getStatistics().size());
+
+        listener.reset();
+        assertNull(listener.getStatistics("org.test.ruleflow", "2"));
+        session.dispose();
+    }
+
+    @Test
+    public void testActiveNodesAreBounded() throws Exception {
+        builder.addProcessFromXml(new StringReader(PROCESS));
+        StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+        session.getWorkItemManager().registerWorkItemHandler("Report", new TestWorkItemHandler());
+        NodeProfilingListener listener = new NodeProfilingListener(1);
+        session.addEventListener(listener);
+
+        session.startProcess("org.test.ruleflow");
+        session.startProcess("org.test.ruleflow");
+        assertEquals(1, listener.getActiveCount());
+        assertEquals(2, listener.getStatistics("org.test.ruleflow", "3").getTriggerCount());
+        session.dispose();
+    }
+
+    @Test
+    public void testNodesInsideForEach() throws Exception {
+        builder.addProcessFromXml(new StringReader(FOR_EACH_PROCESS));
+        StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+        final List<WorkItem> workItems = new ArrayList<WorkItem>();
+        session.getWorkItemManager().registerWorkItemHandler("Report", new WorkItemHandler() {
+            public void executeWorkItem(WorkItem workItem, WorkItemManager manager) {
+                workItems.add(workItem);
+            }
+            public void abortWorkItem(WorkItem workItem, WorkItemManager manager) {
+            }
+        });
+        NodeProfilingListener listener = new NodeProfilingListener();
+        session.addEventListener(listener);
+
+        Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("collection", Arrays.asList("one", "two"));
+        ProcessInstance processInstance = session.startProcess("org.test.foreach", parameters);
+        assertEquals(2, workItems.size());
+        for (WorkItem workItem : workItems) {
+            session.getWorkItemManager().completeWorkItem(workItem.getId(), null);
+        }
+        assertEquals(ProcessInstance.STATE_COMPLETED, processInstance.getState());
+
+        // node instances of both iterations have the same id within their own composite node instance
+        NodeStatistics email = null;
+        for (NodeStatistics statistics : listener.getStatistics()) {
+            if ("Email".equals(statistics.getNodeName())) {
+                email = statistics;
+            }
+        }
+        assertEquals(2, email.getTriggerCount());
+        assertEquals(2, email.getLeaveCount());
+        assertEquals(2, email.getTimeInNode().getCount());
+        assertEquals(0, listener.getActiveCount());
+        session.dispose();
+    }
+
+    @Test
+    public void testResetDiscardsActiveNodes() throws Exception {
+        builder.addProcessFromXml(new StringReader(PROCESS));
+        StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+        session.getWorkItemManager().registerWorkItemHandler("Report", new TestWorkItemHandler());
+        NodeProfilingListener listener = new NodeProfilingListener();
+        session.addEventListener(listener);
+
+        session.startProcess("org.test.ruleflow");
+        assertTrue(listener.getActiveCount() > 0);
+        listener.reset();
+        assertEquals(0, listener.getActiveCount());
+        assertTrue(listener.getStatistics().isEmpty());
+        session.dispose();
+    }
+}
@@ -0,0 +1,164 @@
+package org.jbpm.integrationtests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.drools.compiler.builder.impl.KnowledgeBuilderImpl;
+import org.drools.core.xml.DefaultSemanticModule;
+import org.jbpm.compiler.ProcessDefinitionCache;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.runtime.process.ProcessInstance;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ProcessDefinitionCacheTest extends AbstractBaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessDefinitionCacheTest.class);
+
+    private static final int ACTIONS = 200;
+
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheDir = File.createTempFile("jbpm-process-cache", "");
+        cacheDir.delete();
+        cacheDir.mkdirs();
+        System.setProperty("org.jbpm.process.cache.dir", cacheDir.getAbsolutePath());
+        System.setProperty("org.jbpm.process.cache.version", "test");
+        ProcessDefinitionCache.resetStatistics();
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("org.jbpm.process.cache.dir");
+        System.clearProperty("org.jbpm.process.cache.version");
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheDir.delete();
+    }
+
+    @Test
+    public void testCachedDefinitionIsReused() throws Exception {
+        String process = generateProcess(ACTIONS);
+
+        long start = System.currentTimeMillis();
+        builder.addRuleFlow(new StringReader(process));
+        long cold = System.currentTimeMillis() - start;
+        assertTrue(builder.getErrors().toString(), builder.getErrors().isEmpty());
+        assertEquals(0, ProcessDefinitionCache.getHits());
+        assertEquals(1, ProcessDefinitionCache.getMisses());
+        assertEquals(1, cacheDir.list().length);
+
+        KnowledgeBuilderImpl cachedBuilder = new KnowledgeBuilderImpl();
+        start = System.currentTimeMillis();
+        cachedBuilder.addRuleFlow(new StringReader(process));
+        long warm = System.currentTimeMillis() - start;
+        assertTrue(cachedBuilder.getErrors().toString(), cachedBuilder.getErrors().isEmpty());
+        assertEquals(1, ProcessDefinitionCache.getHits());
+        assertEquals(0, ProcessDefinitionCache.getFailures());
+        logger.info("Building process with {} actions took {} ms without and {} ms with cached definition", ACTIONS, cold, warm);
+
+        StatefulKnowledgeSession session = createKieSession(cachedBuilder.getPackage());
+        List<String> list = new ArrayList<String>();
+        session.setGlobal("list", list);
+        ProcessInstance processInstance = session.startProcess("org.jbpm.cached");
+        assertEquals(ProcessInstance.STATE_COMPLETED, processInstance.getState());
+        assertEquals(ACTIONS, list.size());
+        session.dispose();
+    }
+
+    @Test
+    public void testChangedDefinitionIsNotReused() throws Exception {
+        builder.addRuleFlow(new StringReader(generateProcess(2)));
+        new KnowledgeBuilderImpl().addRuleFlow(new StringReader(generateProcess(3)));
+        assertEquals(0, ProcessDefinitionCache.getHits());
+        assertEquals(2, ProcessDefinitionCache.getMisses());
+        assertEquals(2, cacheDir.list().length);
+    }
+
+    @Test
+    public void testCustomSemanticModuleBypassesCache() throws Exception {
+        String process = generateProcess(2);
+        builder.addRuleFlow(new StringReader(process));
+        assertEquals(1, cacheDir.list().length);
+
+        KnowledgeBuilderImpl customBuilder = new KnowledgeBuilderImpl();
+        customBuilder.getBuilderConfiguration().addSemanticModule(new CustomSemanticModule());
+        customBuilder.addRuleFlow(new StringReader(process));
+        assertTrue(customBuilder.getErrors().toString(), customBuilder.getErrors().isEmpty());
+        assertEquals(0, ProcessDefinitionCache.getHits());
+        assertEquals(1, cacheDir.list().length);
+    }
+
+    @Test
+    public void testForeignEntryIsNotDeserialized() throws Exception {
+        String process = generateProcess(2);
+        builder.addRuleFlow(new StringReader(process));
+        File entry = cacheDir.listFiles()[0];
+        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(entry));
+        out.writeUTF(entry.getName().substring(0, entry.getName().indexOf('.')));
+        // any class outside of the JDK collections and the process engine is rejected
+        out.writeObject(new ArrayList<Object>(Collections.singletonList(new URI("http://www.jbpm.org"))));
+        out.close();
+
+        KnowledgeBuilderImpl cachedBuilder = new KnowledgeBuilderImpl();
+        cachedBuilder.addRuleFlow(new StringReader(process));
+        assertTrue(cachedBuilder.getErrors().toString(), cachedBuilder.getErrors().isEmpty());
+        assertEquals(0, ProcessDefinitionCache.getHits());
+        assertEquals(1, ProcessDefinitionCache.getFailures());
+    }
+
+    public static class CustomSemanticModule extends DefaultSemanticModule {
+        public CustomSemanticModule() {
+            super("http://www.jbpm.org/test/custom");
+        }
+    }
+
+    private String generateProcess(int actions) {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<process xmlns=\"http://drools.org/drools-5.0/process\"\n");
+        xml.append("         xmlns:xs=\"http://www.w3.org/2001/XMLSchema-instance\"\n");
+        xml.append("         xs:schemaLocation=\"http://drools.org/drools-5.0/process drools-processes-5.0.xsd\"\n");
+        xml.append("         type=\"RuleFlow\" name=\"flow\" id=\"org.jbpm.cached\" package-name=\"org.jbpm\" version=\"1\" >\n");
+        xml.append("  <header>\n");
+        xml.append("    <globals>\n");
+        xml.append("      <global identifier=\"list\" type=\"java.util.List\" />\n");
+        xml.append("    </globals>\n");
+        xml.append("  </header>\n");
+        xml.append("  <nodes>\n");
+        xml.append("    <start id=\"1\" name=\"Start\" />\n");
+        for (int i = 0; i < actions; i++) {
+            xml.append("    <actionNode id=\"").append(i + 2).append("\" name=\"Action").append(i).append("\" >\n");
+            xml.append("      <action type=\"expression\" dialect=\"java\" >list.add(\"").append(i).append("\");</action>\n");
+            xml.append("    </actionNode>\n");
+        }
+        xml.append("    <end id=\"").append(actions + 2).append("\" name=\"End\" />\n");
+        xml.append("  </nodes>\n");
+        xml.append("  <connections>\n");
+        for (int i = 1; i < actions + 2; i++) {
+            xml.append("    <connection from=\"").append(i).append("\" to=\"").append(i + 1).append("\" />\n");
+        }
+        xml.append("  </connections>\n");
+        xml.append("</process>");
+        return xml.toString();
+    }
+}
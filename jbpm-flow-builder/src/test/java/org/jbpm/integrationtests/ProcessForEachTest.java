@@ -1,6 +1,7 @@
 package org.jbpm.integrationtests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.Reader;
 import java.io.StringReader;
@@ -15,6 +16,7 @@ import org.junit.Test;
 import org.kie.api.runtime.process.WorkItem;
 import org.kie.api.runtime.process.WorkItemHandler;
 import org.kie.api.runtime.process.WorkItemManager;
+import org.kie.api.runtime.process.WorkflowProcessInstance;
 import org.kie.internal.runtime.StatefulKnowledgeSession;
 
 public class ProcessForEachTest extends AbstractBaseTest {
@@ -153,6 +155,152 @@ public class ProcessForEachTest extends AbstractBaseTest {
         assertEquals(10000, myList.size());
     }
     
+    @Test
+    public void testForEachCompletionWindowLargeList() {
+        builder.addRuleFlow(new StringReader(getWindowedForEachProcess(10)));
+        StatefulKnowledgeSession workingMemory = createKieSession(builder.getPackage());
+
+        final List<String> myList = new ArrayList<String>();
+        workingMemory.getWorkItemManager().registerWorkItemHandler("Log", new WorkItemHandler() {
+            public void executeWorkItem(WorkItem workItem, WorkItemManager manager) {
+                myList.add((String) workItem.getParameter("Message"));
+                manager.completeWorkItem(workItem.getId(), null);
+            }
+            public void abortWorkItem(WorkItem workItem, WorkItemManager manager) {
+            }
+        });
+        List<String> collection = new ArrayList<String>();
+        for (int i = 0; i < 50000; i++) {
+            collection.add(i + "");
+        }
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("collection", collection);
+        ProcessInstance processInstance = ( ProcessInstance )
+            workingMemory.startProcess("org.drools.ForEach", params);
+        assertEquals(ProcessInstance.STATE_COMPLETED, processInstance.getState());
+        assertEquals(collection, myList);
+    }
+
+    @Test
+    public void testForEachCompletionWindow() throws Exception {
+        builder.addRuleFlow(new StringReader(getWindowedForEachProcess(3)));
+        StatefulKnowledgeSession workingMemory = createKieSession(builder.getPackage());
+
+        final List<WorkItem> workItems = new ArrayList<WorkItem>();
+        WorkItemHandler handler = new WorkItemHandler() {
+            public void executeWorkItem(WorkItem workItem, WorkItemManager manager) {
+                workItems.add(workItem);
+            }
+            public void abortWorkItem(WorkItem workItem, WorkItemManager manager) {
+            }
+        };
+        workingMemory.getWorkItemManager().registerWorkItemHandler("Log", handler);
+        List<String> collection = new ArrayList<String>();
+        for (int i = 0; i < 10; i++) {
+            collection.add(i + "");
+        }
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("collection", collection);
+        workingMemory.startProcess("org.drools.ForEach", params);
+        assertEquals(3, workItems.size());
+        assertEquals("2", workItems.get(2).getParameter("Message"));
+
+        // the position in the collection is kept with the process instance
+        workingMemory = JbpmSerializationHelper.getSerialisedStatefulKnowledgeSession(workingMemory, true);
+        workingMemory.getWorkItemManager().registerWorkItemHandler("Log", handler);
+
+        List<String> completed = new ArrayList<String>();
+        while (!workItems.isEmpty()) {
+            WorkItem workItem = workItems.remove(0);
+            completed.add((String) workItem.getParameter("Message"));
+            workingMemory.getWorkItemManager().completeWorkItem(workItem.getId(), null);
+            assertTrue(workItems.size() <= 3);
+        }
+        assertEquals(collection, completed);
+        assertEquals(0, workingMemory.getProcessInstances().size());
+    }
+
+    @Test
+    public void testForEachCompletionWindowUsesElementsAtStart() throws Exception {
+        builder.addRuleFlow(new StringReader(getWindowedForEachProcess(2)));
+        StatefulKnowledgeSession workingMemory = createKieSession(builder.getPackage());
+
+        final List<WorkItem> workItems = new ArrayList<WorkItem>();
+        workingMemory.getWorkItemManager().registerWorkItemHandler("Log", new WorkItemHandler() {
+            public void executeWorkItem(WorkItem workItem, WorkItemManager manager) {
+                workItems.add(workItem);
+            }
+            public void abortWorkItem(WorkItem workItem, WorkItemManager manager) {
+            }
+        });
+        List<String> collection = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            collection.add(i + "");
+        }
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("collection", new ArrayList<String>(collection));
+        WorkflowProcessInstance processInstance = (WorkflowProcessInstance)
+            workingMemory.startProcess("org.drools.ForEach", params);
+        // later changes of the collection do not change the remaining iterations
+        processInstance.setVariable("collection", new ArrayList<String>());
+
+        List<String> completed = new ArrayList<String>();
+        while (!workItems.isEmpty()) {
+            WorkItem workItem = workItems.remove(0);
+            completed.add((String) workItem.getParameter("Message"));
+            workingMemory.getWorkItemManager().completeWorkItem(workItem.getId(), null);
+        }
+        assertEquals(collection, completed);
+        assertEquals(ProcessInstance.STATE_COMPLETED, processInstance.getState());
+    }
+
+    private String getWindowedForEachProcess(int completionWindow) {
+        return
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<process xmlns=\"http://drools.org/drools-5.0/process\"\n" +
+            "         xmlns:xs=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+            "         xs:schemaLocation=\"http://drools.org/drools-5.0/process drools-processes-5.0.xsd\"\n" +
+            "         type=\"RuleFlow\" name=\"ForEach\" id=\"org.drools.ForEach\" package-name=\"org.drools\" >\n" +
+            "  <header>\n" +
+            "    <variables>\n" +
+            "      <variable name=\"collection\" >\n" +
+            "        <type name=\"org.drools.core.process.core.datatype.impl.type.ObjectDataType\" className=\"java.util.List\" />\n" +
+            "      </variable>\n" +
+            "    </variables>\n" +
+            "  </header>\n" +
+            "\n" +
+            "  <nodes>\n" +
+            "    <forEach id=\"2\" name=\"ForEach\" variableName=\"item\" collectionExpression=\"collection\" completionWindow=\"" + completionWindow + "\" >\n" +
+            "      <nodes>\n" +
+            "        <workItem id=\"1\" name=\"Log\" >\n" +
+            "          <work name=\"Log\" >\n" +
+            "            <parameter name=\"Message\" >\n" +
+            "              <type name=\"org.drools.core.process.core.datatype.impl.type.StringDataType\" />\n" +
+            "            </parameter>\n" +
+            "          </work>\n" +
+            "          <mapping type=\"in\" from=\"item\" to=\"Message\" />" +
+            "        </workItem>\n" +
+            "      </nodes>\n" +
+            "      <connections>\n" +
+            "      </connections>\n" +
+            "      <in-ports>\n" +
+            "        <in-port type=\"DROOLS_DEFAULT\" nodeId=\"1\" nodeInType=\"DROOLS_DEFAULT\" />\n" +
+            "      </in-ports>\n" +
+            "      <out-ports>\n" +
+            "        <out-port type=\"DROOLS_DEFAULT\" nodeId=\"1\" nodeOutType=\"DROOLS_DEFAULT\" />\n" +
+            "      </out-ports>\n" +
+            "    </forEach>\n" +
+            "    <start id=\"1\" name=\"Start\" />\n" +
+            "    <end id=\"3\" name=\"End\" />\n" +
+            "  </nodes>\n" +
+            "\n" +
+            "  <connections>\n" +
+            "    <connection from=\"1\" to=\"2\" />\n" +
+            "    <connection from=\"2\" to=\"3\" />\n" +
+            "  </connections>\n" +
+            "</process>";
+    }
+    
     @Test
     public void testForEachEmptyList() {
         Reader source = new StringReader(
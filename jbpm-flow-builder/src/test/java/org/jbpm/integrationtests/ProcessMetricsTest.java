@@ -0,0 +1,136 @@
+package org.jbpm.integrationtests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.jbpm.integrationtests.handler.TestWorkItemHandler;
+import org.jbpm.process.instance.metrics.InMemoryProcessMetrics;
+import org.jbpm.process.instance.metrics.InMemoryProcessMetrics.Histogram;
+import org.jbpm.process.instance.metrics.NoOpProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetricsProvider;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.runtime.process.ProcessInstance;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class ProcessMetricsTest extends AbstractBaseTest {
+
+    private static final String PROCESS =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<process xmlns=\"http://drools.org/drools-5.0/process\"\n" +
+        "    xmlns:xs=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+        "    xs:schemaLocation=\"http://drools.org/drools-5.0/process drools-processes-5.0.xsd\"\n" +
+        "    type=\"RuleFlow\" name=\"ruleflow\" id=\"org.test.ruleflow\" package-name=\"org.test\" >\n" +
+        "  <header>\n" +
+        "  </header>\n" +
+        "  <nodes>\n" +
+        "    <start id=\"1\" name=\"Start\" />\n" +
+        "    <workItem id=\"2\" name=\"Email\" >\n" +
+        "      <work name=\"Report\" />\n" +
+        "    </workItem>\n" +
+        "    <end id=\"3\" name=\"End\" />\n" +
+        "  </nodes>\n" +
+        "  <connections>\n" +
+        "    <connection from=\"1\" to=\"2\"/>\n" +
+        "    <connection from=\"2\" to=\"3\"/>\n" +
+        "  </connections>\n" +
+        "</process>";
+
+    private InMemoryProcessMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new InMemoryProcessMetrics();
+        ProcessMetricsProvider.setMetrics(metrics);
+    }
+
+    @After
+    public void tearDown() {
+        ProcessMetricsProvider.setMetrics(null);
+    }
+
+    @Test
+    public void testProcessRuntimeIsMeasured() throws Exception {
+        builder.addProcessFromXml(new StringReader(PROCESS));
+        StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+        TestWorkItemHandler handler = new TestWorkItemHandler();
+        session.getWorkItemManager().registerWorkItemHandler("Report", handler);
+
+        session.startProcess("org.test.ruleflow");
+        session.getWorkItemManager().completeWorkItem(handler.getWorkItem().getId(), null);
+        ProcessInstance processInstance = session.startProcess("org.test.ruleflow");
+        session.signalEvent("unknown", null);
+        session.abortProcessInstance(processInstance.getId());
+
+        assertEquals(2, metrics.getHistogram(ProcessMetrics.PROCESS_START, "org.test.ruleflow").getCount());
+        assertEquals(2, metrics.getHistogram(ProcessMetrics.WORK_ITEM_CREATE, "WorkItemNode").getCount());
+        assertEquals(1, metrics.getHistogram(ProcessMetrics.WORK_ITEM_COMPLETE, "WorkItemNode").getCount());
+        assertEquals(2, metrics.getHistogram(ProcessMetrics.WORK_ITEM_HANDLER_CREATE, "Report").getCount());
+        assertEquals(1, metrics.getHistogram(ProcessMetrics.WORK_ITEM_HANDLER_COMPLETE, "Report").getCount());
+        assertEquals(1, metrics.getHistogram(ProcessMetrics.PROCESS_SIGNAL, "unknown").getCount());
+        assertEquals(1, metrics.getCount(ProcessMetrics.PROCESS_ABORT, "org.test.ruleflow"));
+        assertNull(metrics.getHistogram(ProcessMetrics.PROCESS_START, "org.test.other"));
+        session.dispose();
+    }
+
+    @Test
+    public void testHistogram() {
+        for (int i = 1; i <= 100; i++) {
+            metrics.recordValue("test", "key", i);
+        }
+        Histogram histogram = metrics.getHistogram("test", "key");
+        assertNotNull(histogram);
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getTotal());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 0.001);
+        // percentiles are reported as the upper bound of their power of two bucket
+        assertEquals(63, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(99));
+        assertTrue(metrics.getNames().contains("test:key"));
+
+        metrics.clear();
+        assertNull(metrics.getHistogram("test", "key"));
+    }
+
+    @Test
+    public void testSignalsAreMeasuredPerKind() throws Exception {
+        builder.addProcessFromXml(new StringReader(PROCESS));
+        StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+        session.getWorkItemManager().registerWorkItemHandler("Report", new TestWorkItemHandler());
+
+        session.signalEvent("processInstanceCompleted:1", null);
+        session.signalEvent("processInstanceCompleted:2", null);
+        assertEquals(2, metrics.getHistogram(ProcessMetrics.PROCESS_SIGNAL, "processInstanceCompleted").getCount());
+        assertNull(metrics.getHistogram(ProcessMetrics.PROCESS_SIGNAL, "processInstanceCompleted:1"));
+        session.dispose();
+    }
+
+    @Test
+    public void testNamesAreBounded() {
+        InMemoryProcessMetrics bounded = new InMemoryProcessMetrics(2);
+        bounded.increment("test", "a");
+        bounded.increment("test", "b");
+        bounded.increment("test", "c");
+        bounded.increment("test", "d");
+        bounded.increment("test", "a");
+        assertEquals(2, bounded.getCount("test", "a"));
+        assertEquals(0, bounded.getCount("test", "c"));
+        assertEquals(2, bounded.getCount("test", InMemoryProcessMetrics.OVERFLOW_KEY));
+        assertEquals(3, bounded.getNames().size());
+    }
+
+    @Test
+    public void testNoOpIsDefault() {
+        ProcessMetricsProvider.setMetrics(null);
+        assertTrue(ProcessMetricsProvider.getMetrics() instanceof NoOpProcessMetrics);
+    }
+}
@@ -0,0 +1,135 @@
+package org.jbpm.integrationtests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.drools.compiler.builder.impl.KnowledgeBuilderImpl;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.junit.Test;
+import org.kie.api.event.process.DefaultProcessEventListener;
+import org.kie.api.event.process.ProcessStartedEvent;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class SessionCreationPerformanceTest extends AbstractBaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionCreationPerformanceTest.class);
+
+    private static final int SESSIONS = 200;
+
+    @Test
+    public void testSessionCreationWithManyProcesses() throws Exception {
+        for (int size : new int[] { 10, 100, 1000 }) {
+            KnowledgeBase kbase = createKnowledgeBase(0, size);
+            for (int i = 0; i < SESSIONS; i++) {
+                kbase.newStatefulKnowledgeSession().dispose();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < SESSIONS; i++) {
+                kbase.newStatefulKnowledgeSession().dispose();
+            }
+            logger.info("Creating a session for a knowledge base with {} processes took {} us on average",
+                        size, (System.nanoTime() - start) / SESSIONS / 1000);
+
+            StatefulKnowledgeSession session = kbase.newStatefulKnowledgeSession();
+            List<String> started = trackStartedProcesses(session);
+            session.signalEvent("event-" + (size - 1), null);
+            assertEquals(Arrays.asList("org.jbpm.start" + (size - 1)), started);
+            session.dispose();
+        }
+    }
+
+    @Test
+    public void testStartEventsFollowKnowledgeBaseChanges() throws Exception {
+        KnowledgeBase kbase = createKnowledgeBase(0, 2);
+        StatefulKnowledgeSession session = kbase.newStatefulKnowledgeSession();
+        List<String> started = trackStartedProcesses(session);
+
+        kbase.addKnowledgePackages(createPackages(2, 3));
+        session.signalEvent("event-2", null);
+        assertEquals(Arrays.asList("org.jbpm.start2"), started);
+
+        // sessions created later see the added process as well
+        StatefulKnowledgeSession otherSession = kbase.newStatefulKnowledgeSession();
+        List<String> otherStarted = trackStartedProcesses(otherSession);
+        otherSession.signalEvent("event-2", null);
+        assertEquals(Arrays.asList("org.jbpm.start2"), otherStarted);
+
+        kbase.removeProcess("org.jbpm.start0");
+        session.signalEvent("event-0", null);
+        otherSession.signalEvent("event-0", null);
+        assertEquals(1, started.size());
+        assertEquals(1, otherStarted.size());
+
+        StatefulKnowledgeSession newSession = kbase.newStatefulKnowledgeSession();
+        List<String> newStarted = trackStartedProcesses(newSession);
+        newSession.signalEvent("event-0", null);
+        newSession.signalEvent("event-1", null);
+        assertEquals(Arrays.asList("org.jbpm.start1"), newStarted);
+
+        session.dispose();
+        otherSession.dispose();
+        newSession.dispose();
+    }
+
+    private KnowledgeBase createKnowledgeBase(int from, int to) throws Exception {
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        kbase.addKnowledgePackages(createPackages(from, to));
+        return kbase;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Collection createPackages(int from, int to) throws Exception {
+        KnowledgeBuilderImpl builder = new KnowledgeBuilderImpl();
+        for (int i = from; i < to; i++) {
+            builder.addProcessFromXml(new StringReader(generateProcess(i)));
+        }
+        assertTrue(builder.getErrors().toString(), builder.getErrors().isEmpty());
+        return Arrays.asList(builder.getPackage());
+    }
+
+    private List<String> trackStartedProcesses(StatefulKnowledgeSession session) {
+        final List<String> started = new ArrayList<String>();
+        session.addEventListener(new DefaultProcessEventListener() {
+            public void beforeProcessStarted(ProcessStartedEvent event) {
+                started.add(event.getProcessInstance().getProcessId());
+            }
+        });
+        return started;
+    }
+
+    private String generateProcess(int index) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<process xmlns=\"http://drools.org/drools-5.0/process\"\n" +
+            "         xmlns:xs=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+            "         xs:schemaLocation=\"http://drools.org/drools-5.0/process drools-processes-5.0.xsd\"\n" +
+            "         type=\"RuleFlow\" name=\"flow" + index + "\" id=\"org.jbpm.start" + index + "\" package-name=\"org.jbpm\" version=\"1\" >\n" +
+            "  <header>\n" +
+            "  </header>\n" +
+            "  <nodes>\n" +
+            "    <start id=\"1\" name=\"Start\" >\n" +
+            "      <triggers>\n" +
+            "        <trigger type=\"event\" >\n" +
+            "          <eventFilters>\n" +
+            "            <eventFilter type=\"eventType\" eventType=\"event-" + index + "\" />\n" +
+            "          </eventFilters>\n" +
+            "        </trigger>\n" +
+            "      </triggers>\n" +
+            "    </start>\n" +
+            "    <end id=\"2\" name=\"End\" />\n" +
+            "  </nodes>\n" +
+            "  <connections>\n" +
+            "    <connection from=\"1\" to=\"2\" />\n" +
+            "  </connections>\n" +
+            "</process>";
+    }
+}
@@ -0,0 +1,186 @@
+package org.jbpm.integrationtests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jbpm.integrationtests.handler.TestWorkItemHandler;
+import org.jbpm.process.instance.command.SignalEventsCommand;
+import org.jbpm.process.instance.event.SignalInbox;
+import org.jbpm.process.instance.metrics.InMemoryProcessMetrics;
+import org.jbpm.process.instance.metrics.InMemoryProcessMetrics.Histogram;
+import org.jbpm.process.instance.metrics.ProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetricsProvider;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.event.process.DefaultProcessEventListener;
+import org.kie.api.event.process.ProcessVariableChangedEvent;
+import org.kie.api.runtime.process.ProcessInstance;
+import org.kie.api.runtime.process.WorkflowProcessInstance;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class SignalInboxTest extends AbstractBaseTest {
+
+    private static final String PROCESS =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<process xmlns=\"http://drools.org/drools-5.0/process\"\n" +
+        "    xmlns:xs=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+        "    xs:schemaLocation=\"http://drools.org/drools-5.0/process drools-processes-5.0.xsd\"\n" +
+        "    type=\"RuleFlow\" name=\"ruleflow\" id=\"org.test.ruleflow\" package-name=\"org.test\" >\n" +
+        "  <header>\n" +
+        "    <variables>\n" +
+        "      <variable name=\"MyVar\" >\n" +
+        "        <type name=\"org.drools.core.process.core.datatype.impl.type.StringDataType\" />\n" +
+        "      </variable>\n" +
+        "    </variables>\n" +
+        "  </header>\n" +
+        "  <nodes>\n" +
+        "    <start id=\"1\" name=\"Start\" />\n" +
+        "    <workItem id=\"2\" name=\"Email\" >\n" +
+        "      <work name=\"Report\" />\n" +
+        "    </workItem>\n" +
+        "    <end id=\"3\" name=\"End\" />\n" +
+        "    <eventNode id=\"4\" name=\"Event\" variableName=\"MyVar\" >\n" +
+        "      <eventFilters>\n" +
+        "        <eventFilter type=\"eventType\" eventType=\"MyEvent\" />\n" +
+        "      </eventFilters>\n" +
+        "    </eventNode>\n" +
+        "    <end id=\"5\" name=\"Event End\" terminate=\"false\" />\n" +
+        "  </nodes>\n" +
+        "  <connections>\n" +
+        "    <connection from=\"1\" to=\"2\"/>\n" +
+        "    <connection from=\"2\" to=\"3\"/>\n" +
+        "    <connection from=\"4\" to=\"5\"/>\n" +
+        "  </connections>\n" +
+        "</process>";
+
+    private InMemoryProcessMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new InMemoryProcessMetrics();
+        ProcessMetricsProvider.setMetrics(metrics);
+    }
+
+    @After
+    public void tearDown() {
+        ProcessMetricsProvider.setMetrics(null);
+    }
+
+    @Test
+    public void testSignalsAreCoalesced() throws Exception {
+        builder.addProcessFromXml(new StringReader(PROCESS));
+        StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+        session.getWorkItemManager().registerWorkItemHandler("Report", new TestWorkItemHandler());
+        ProcessInstance processInstance = session.startProcess("org.test.ruleflow");
+
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<Integer>());
+        SignalInbox inbox = new SignalInbox(session, 60000, 3) {
+            protected void execute(SignalEventsCommand command) {
+                batches.add(command.getSignalCount());
+                super.execute(command);
+            }
+        };
+        for (int i = 1; i <= 5; i++) {
+            inbox.signalEvent("MyEvent", "value" + i, processInstance.getId());
+        }
+        inbox.flush();
+        assertEquals(Arrays.asList(3, 2), batches);
+        assertEquals(0, inbox.getPendingCount());
+        // signals are delivered in order, so the last one wins
+        assertEquals("value5", ((WorkflowProcessInstance) processInstance).getVariable("MyVar"));
+
+        Histogram histogram = metrics.getHistogram(ProcessMetrics.SIGNAL_BATCH_SIZE, String.valueOf(session.getId()));
+        assertEquals(2, histogram.getCount());
+        assertEquals(5, histogram.getTotal());
+        inbox.close();
+        session.dispose();
+    }
+
+    @Test
+    public void testSignalsAreDeliveredAfterWindow() throws Exception {
+        builder.addProcessFromXml(new StringReader(PROCESS));
+        StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+        session.getWorkItemManager().registerWorkItemHandler("Report", new TestWorkItemHandler());
+        ProcessInstance processInstance = session.startProcess("org.test.ruleflow");
+
+        SignalInbox inbox = new SignalInbox(session, 10, 100);
+        inbox.signalEvent("MyEvent", "value1", processInstance.getId());
+        inbox.signalEvent("MyEvent", "value2", processInstance.getId());
+        for (int i = 0; i < 500 && inbox.getPendingCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        inbox.close();
+        assertEquals("value2", ((WorkflowProcessInstance) processInstance).getVariable("MyVar"));
+        assertEquals(1, metrics.getHistogram(ProcessMetrics.SIGNAL_BATCH_SIZE, String.valueOf(session.getId())).getCount());
+        session.dispose();
+    }
+
+    @Test
+    public void testFailedBatchIsDeliveredOneByOneAfterRollback() throws Exception {
+        builder.addProcessFromXml(new StringReader(PROCESS));
+        StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+        session.getWorkItemManager().registerWorkItemHandler("Report", new TestWorkItemHandler());
+        ProcessInstance processInstance = session.startProcess("org.test.ruleflow");
+
+        final List<Object> delivered = Collections.synchronizedList(new ArrayList<Object>());
+        SignalInbox inbox = new SignalInbox(session, 60000, 100) {
+            protected void execute(SignalEventsCommand command) {
+                // fails before any signal is applied, as a rolled back transaction would
+                if (command.getEvents().contains("fail")) {
+                    throw new IllegalStateException("Signal failed");
+                }
+                super.execute(command);
+                delivered.addAll(command.getEvents());
+            }
+            protected boolean isRolledBackOnFailure() {
+                return true;
+            }
+        };
+        inbox.signalEvent("MyEvent", "value1", processInstance.getId());
+        inbox.signalEvent("MyEvent", "fail", processInstance.getId());
+        inbox.signalEvent("MyEvent", "value3", processInstance.getId());
+        inbox.flush();
+        assertEquals(Arrays.<Object>asList("value1", "value3"), delivered);
+        assertEquals("value3", ((WorkflowProcessInstance) processInstance).getVariable("MyVar"));
+        assertEquals(2, metrics.getHistogram(ProcessMetrics.SIGNAL_BATCH_SIZE, String.valueOf(session.getId())).getCount());
+        inbox.close();
+        session.dispose();
+    }
+
+    @Test
+    public void testPartiallyAppliedBatchIsNotDeliveredTwice() throws Exception {
+        builder.addProcessFromXml(new StringReader(PROCESS));
+        StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+        session.getWorkItemManager().registerWorkItemHandler("Report", new TestWorkItemHandler());
+        ProcessInstance processInstance = session.startProcess("org.test.ruleflow");
+
+        final List<Object> applied = Collections.synchronizedList(new ArrayList<Object>());
+        session.addEventListener(new DefaultProcessEventListener() {
+            public void beforeVariableChanged(ProcessVariableChangedEvent event) {
+                if ("fail".equals(event.getNewValue())) {
+                    throw new IllegalStateException("Signal failed");
+                }
+            }
+            public void afterVariableChanged(ProcessVariableChangedEvent event) {
+                applied.add(event.getNewValue());
+            }
+        });
+        SignalInbox inbox = new SignalInbox(session, 60000, 100);
+        inbox.signalEvent("MyEvent", "value1", processInstance.getId());
+        inbox.signalEvent("MyEvent", "fail", processInstance.getId());
+        inbox.signalEvent("MyEvent", "value3", processInstance.getId());
+        inbox.flush();
+        // the session has no transactions, so the first signal stays applied and is not delivered again
+        assertEquals(Arrays.<Object>asList("value1", "value3"), applied);
+        assertEquals("value3", ((WorkflowProcessInstance) processInstance).getVariable("MyVar"));
+        inbox.close();
+        session.dispose();
+    }
+}
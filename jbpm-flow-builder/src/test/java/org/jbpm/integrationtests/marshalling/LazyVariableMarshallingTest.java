@@ -0,0 +1,138 @@
+package org.jbpm.integrationtests.marshalling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.drools.core.util.DroolsStreamUtils;
+import org.jbpm.integrationtests.JbpmSerializationHelper;
+import org.jbpm.integrationtests.handler.TestWorkItemHandler;
+import org.jbpm.integrationtests.test.Person;
+import org.jbpm.marshalling.impl.ProtobufProcessMarshaller;
+import org.jbpm.process.core.context.variable.VariableScope;
+import org.jbpm.process.instance.ProcessInstance;
+import org.jbpm.process.instance.context.variable.VariableScopeInstance;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.marshalling.ObjectMarshallingStrategy;
+import org.kie.internal.marshalling.MarshallerFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class LazyVariableMarshallingTest extends AbstractBaseTest {
+
+    private static final String PROCESS =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<process xmlns=\"http://drools.org/drools-5.0/process\"\n" +
+        "    xmlns:xs=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+        "    xs:schemaLocation=\"http://drools.org/drools-5.0/process drools-processes-5.0.xsd\"\n" +
+        "    type=\"RuleFlow\" name=\"ruleflow\" id=\"org.test.ruleflow\" package-name=\"org.test\" >\n" +
+        "  <header>\n" +
+        "    <variables>\n" +
+        "      <variable name=\"myVariable\" >\n" +
+        "        <type name=\"org.drools.core.process.core.datatype.impl.type.StringDataType\" />\n" +
+        "      </variable>\n" +
+        "      <variable name=\"myPerson\" >\n" +
+        "        <type name=\"org.drools.core.process.core.datatype.impl.type.ObjectDataType\" className=\"org.jbpm.integrationtests.test.Person\"/>\n" +
+        "      </variable>\n" +
+        "    </variables>\n" +
+        "  </header>\n" +
+        "  <nodes>\n" +
+        "    <start id=\"1\" name=\"Start\" />\n" +
+        "    <workItem id=\"2\" name=\"Email\" >\n" +
+        "      <work name=\"Report\" />\n" +
+        "    </workItem>\n" +
+        "    <end id=\"3\" name=\"End\" />\n" +
+        "  </nodes>\n" +
+        "  <connections>\n" +
+        "    <connection from=\"1\" to=\"2\"/>\n" +
+        "    <connection from=\"2\" to=\"3\"/>\n" +
+        "  </connections>\n" +
+        "</process>";
+
+    private CountingPersonStrategy personStrategy;
+
+    @Before
+    public void setUp() {
+        ProtobufProcessMarshaller.setLazyVariables(true);
+        personStrategy = new CountingPersonStrategy();
+    }
+
+    @After
+    public void tearDown() {
+        ProtobufProcessMarshaller.setLazyVariables(false);
+    }
+
+    @Test
+    public void testVariablesAreUnmarshalledOnFirstAccess() throws Exception {
+        builder.addProcessFromXml(new StringReader(PROCESS));
+        StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+        TestWorkItemHandler handler = new TestWorkItemHandler();
+        session.getWorkItemManager().registerWorkItemHandler("Report", handler);
+
+        Person person = new Person("Nikola Tesla", 156);
+        Map<String, Object> variables = new HashMap<String, Object>();
+        variables.put("myVariable", "ThisIsMyValue");
+        variables.put("myPerson", person);
+        session.startProcess("org.test.ruleflow", variables);
+        assertNotNull(handler.getWorkItem());
+
+        // serializes the restored session again and compares the bytes, so untouched
+        // lazy values must be written back exactly as they were read
+        session = JbpmSerializationHelper.getSerialisedStatefulKnowledgeSession(session,
+            new ObjectMarshallingStrategy[] { personStrategy, MarshallerFactory.newSerializeMarshallingStrategy() }, true);
+        assertEquals(0, personStrategy.unmarshalled);
+
+        VariableScopeInstance variableScopeInstance = (VariableScopeInstance)
+            ((ProcessInstance) session.getProcessInstances().iterator().next()).getContextInstance(VariableScope.VARIABLE_SCOPE);
+        assertEquals(person, variableScopeInstance.getVariable("myPerson"));
+        assertEquals(1, personStrategy.unmarshalled);
+        assertEquals(person, variableScopeInstance.getVariable("myPerson"));
+        assertEquals(1, personStrategy.unmarshalled);
+        assertEquals("ThisIsMyValue", variableScopeInstance.getVariables().get("myVariable"));
+
+        session.getWorkItemManager().completeWorkItem(handler.getWorkItem().getId(), null);
+        assertEquals(0, session.getProcessInstances().size());
+        session.dispose();
+    }
+
+    private static class CountingPersonStrategy implements ObjectMarshallingStrategy {
+
+        private int unmarshalled;
+
+        public boolean accept(Object object) {
+            return object instanceof Person;
+        }
+
+        public void write(ObjectOutputStream os, Object object) throws IOException {
+            os.writeObject(object);
+        }
+
+        public Object read(ObjectInputStream os) throws IOException, ClassNotFoundException {
+            return os.readObject();
+        }
+
+        public byte[] marshal(Context context, ObjectOutputStream os, Object object) throws IOException {
+            return DroolsStreamUtils.streamOut(object);
+        }
+
+        public Object unmarshal(Context context, ObjectInputStream is, byte[] object, ClassLoader classloader)
+                throws IOException, ClassNotFoundException {
+            unmarshalled++;
+            return new ObjectInputStream(new ByteArrayInputStream(object)).readObject();
+        }
+
+        public Context createContext() {
+            // no context needed
+            return null;
+        }
+    }
+}
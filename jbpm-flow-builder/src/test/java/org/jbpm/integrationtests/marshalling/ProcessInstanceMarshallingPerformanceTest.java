@@ -0,0 +1,88 @@
+package org.jbpm.integrationtests.marshalling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jbpm.integrationtests.JbpmSerializationHelper;
+import org.jbpm.integrationtests.handler.TestWorkItemHandler;
+import org.jbpm.process.core.context.variable.VariableScope;
+import org.jbpm.process.instance.ProcessInstance;
+import org.jbpm.process.instance.context.variable.VariableScopeInstance;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.junit.Test;
+import org.kie.api.marshalling.Marshaller;
+import org.kie.internal.marshalling.MarshallerFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the cost of writing a process instance with a growing number of variables.
+ */
+public class ProcessInstanceMarshallingPerformanceTest extends AbstractBaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessInstanceMarshallingPerformanceTest.class);
+
+    private static final int ITERATIONS = 200;
+
+    private static final String PROCESS =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<process xmlns=\"http://drools.org/drools-5.0/process\"\n" +
+        "    xmlns:xs=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+        "    xs:schemaLocation=\"http://drools.org/drools-5.0/process drools-processes-5.0.xsd\"\n" +
+        "    type=\"RuleFlow\" name=\"ruleflow\" id=\"org.test.ruleflow\" package-name=\"org.test\" >\n" +
+        "  <header>\n" +
+        "  </header>\n" +
+        "  <nodes>\n" +
+        "    <start id=\"1\" name=\"Start\" />\n" +
+        "    <workItem id=\"2\" name=\"Email\" >\n" +
+        "      <work name=\"Report\" />\n" +
+        "    </workItem>\n" +
+        "    <end id=\"3\" name=\"End\" />\n" +
+        "  </nodes>\n" +
+        "  <connections>\n" +
+        "    <connection from=\"1\" to=\"2\"/>\n" +
+        "    <connection from=\"2\" to=\"3\"/>\n" +
+        "  </connections>\n" +
+        "</process>";
+
+    @Test
+    public void testWriteProcessInstanceWithManyVariables() throws Exception {
+        builder.addProcessFromXml(new StringReader(PROCESS));
+
+        for (int size : new int[] { 10, 100, 1000 }) {
+            StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+            session.getWorkItemManager().registerWorkItemHandler("Report", new TestWorkItemHandler());
+            Map<String, Object> variables = new HashMap<String, Object>();
+            for (int i = 0; i < size; i++) {
+                variables.put("variable" + i, "value" + i);
+            }
+            session.startProcess("org.test.ruleflow", variables);
+
+            Marshaller marshaller = MarshallerFactory.newMarshaller(session.getKieBase());
+            byte[] expected = JbpmSerializationHelper.serializeKnowledgeSession(marshaller, session);
+            for (int i = 0; i < ITERATIONS; i++) {
+                JbpmSerializationHelper.serializeKnowledgeSession(marshaller, session);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                byte[] bytes = JbpmSerializationHelper.serializeKnowledgeSession(marshaller, session);
+                assertTrue(JbpmSerializationHelper.areByteArraysEqual(expected, bytes));
+            }
+            logger.info("Writing process instance with {} variables took {} us on average",
+                        size, (System.nanoTime() - start) / ITERATIONS / 1000);
+
+            StatefulKnowledgeSession restored = JbpmSerializationHelper.deserializeKnowledgeSession(marshaller, expected);
+            VariableScopeInstance variableScopeInstance = (VariableScopeInstance)
+                ((ProcessInstance) restored.getProcessInstances().iterator().next()).getContextInstance(VariableScope.VARIABLE_SCOPE);
+            assertEquals(size, variableScopeInstance.getVariables().size());
+            assertEquals("value0", variableScopeInstance.getVariable("variable0"));
+            restored.dispose();
+            session.dispose();
+        }
+    }
+}
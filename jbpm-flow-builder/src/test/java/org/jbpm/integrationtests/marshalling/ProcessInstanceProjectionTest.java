@@ -0,0 +1,157 @@
+package org.jbpm.integrationtests.marshalling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.drools.core.marshalling.impl.MarshallerWriteContext;
+import org.drools.core.marshalling.impl.PersisterHelper;
+import org.jbpm.integrationtests.handler.TestWorkItemHandler;
+import org.jbpm.integrationtests.test.Person;
+import org.jbpm.marshalling.impl.CompressionHelper;
+import org.jbpm.marshalling.impl.JBPMMessages;
+import org.jbpm.marshalling.impl.ProcessInstanceProjection;
+import org.jbpm.marshalling.impl.ProcessInstanceProjectionReader;
+import org.jbpm.marshalling.impl.ProtobufRuleFlowProcessInstanceMarshaller;
+import org.jbpm.ruleflow.core.RuleFlowProcess;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.junit.Test;
+import org.kie.api.runtime.process.ProcessInstance;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class ProcessInstanceProjectionTest extends AbstractBaseTest {
+
+    private static final String PROCESS =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<process xmlns=\"http://drools.org/drools-5.0/process\"\n" +
+        "    xmlns:xs=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+        "    xs:schemaLocation=\"http://drools.org/drools-5.0/process drools-processes-5.0.xsd\"\n" +
+        "    type=\"RuleFlow\" name=\"ruleflow\" id=\"org.test.ruleflow\" package-name=\"org.test\" >\n" +
+        "  <header>\n" +
+        "    <variables>\n" +
+        "      <variable name=\"collection\" >\n" +
+        "        <type name=\"org.drools.core.process.core.datatype.impl.type.ObjectDataType\" className=\"java.util.List\" />\n" +
+        "      </variable>\n" +
+        "      <variable name=\"myVariable\" >\n" +
+        "        <type name=\"org.drools.core.process.core.datatype.impl.type.StringDataType\" />\n" +
+        "      </variable>\n" +
+        "      <variable name=\"myPerson\" >\n" +
+        "        <type name=\"org.drools.core.process.core.datatype.impl.type.ObjectDataType\" className=\"org.jbpm.integrationtests.test.Person\"/>\n" +
+        "      </variable>\n" +
+        "    </variables>\n" +
+        "  </header>\n" +
+        "  <nodes>\n" +
+        "    <start id=\"4\" name=\"Start\" />\n" +
+        "    <forEach id=\"2\" name=\"ForEach\" variableName=\"item\" collectionExpression=\"collection\" >\n" +
+        "      <nodes>\n" +
+        "        <workItem id=\"1\" name=\"Email\" >\n" +
+        "          <work name=\"Report\" />\n" +
+        "        </workItem>\n" +
+        "      </nodes>\n" +
+        "      <connections>\n" +
+        "      </connections>\n" +
+        "      <in-ports>\n" +
+        "        <in-port type=\"DROOLS_DEFAULT\" nodeId=\"1\" nodeInType=\"DROOLS_DEFAULT\" />\n" +
+        "      </in-ports>\n" +
+        "      <out-ports>\n" +
+        "        <out-port type=\"DROOLS_DEFAULT\" nodeId=\"1\" nodeOutType=\"DROOLS_DEFAULT\" />\n" +
+        "      </out-ports>\n" +
+        "    </forEach>\n" +
+        "    <end id=\"3\" name=\"End\" />\n" +
+        "  </nodes>\n" +
+        "  <connections>\n" +
+        "    <connection from=\"4\" to=\"2\"/>\n" +
+        "    <connection from=\"2\" to=\"3\"/>\n" +
+        "  </connections>\n" +
+        "</process>";
+
+    @Test
+    public void testProjection() throws Exception {
+        builder.addProcessFromXml(new StringReader(PROCESS));
+        StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+        session.getWorkItemManager().registerWorkItemHandler("Report", new TestWorkItemHandler());
+
+        Person person = new Person("Nikola Tesla", 156);
+        Map<String, Object> variables = new HashMap<String, Object>();
+        variables.put("collection", Arrays.asList("one", "two"));
+        variables.put("myVariable", "ThisIsMyValue");
+        variables.put("myPerson", person);
+        ProcessInstance processInstance = session.startProcess("org.test.ruleflow", variables);
+        byte[] data = marshall(session, processInstance);
+
+        // no environment, as when reading the process instance table through plain JDBC
+        ProcessInstanceProjection projection = new ProcessInstanceProjectionReader(null)
+            .read(data, Arrays.asList("myVariable", "myPerson", "unknown"));
+        assertEquals(processInstance.getId(), projection.getId());
+        assertEquals("org.test.ruleflow", projection.getProcessId());
+        assertEquals(ProcessInstance.STATE_ACTIVE, projection.getState());
+        assertEquals(0, projection.getParentProcessInstanceId());
+
+        List<Long> activeNodeIds = projection.getActiveNodeIds();
+        assertTrue(activeNodeIds.contains(2L));
+        assertEquals(2, Collections.frequency(activeNodeIds, 1L));
+        assertFalse(activeNodeIds.contains(4L));
+
+        assertEquals(2, projection.getVariables().size());
+        assertEquals("ThisIsMyValue", projection.getVariable("myVariable"));
+        assertEquals(person, projection.getVariable("myPerson"));
+        assertFalse(projection.getVariables().containsKey("collection"));
+
+        projection = new ProcessInstanceProjectionReader(null).read(data, new ArrayList<String>());
+        assertTrue(projection.getVariables().isEmpty());
+        projection = new ProcessInstanceProjectionReader(null).read(data, null);
+        assertEquals(3, projection.getVariables().size());
+        session.dispose();
+    }
+
+    @Test
+    public void testProjectionOfCompressedProcessInstance() throws Exception {
+        builder.addProcessFromXml(new StringReader(PROCESS));
+        StatefulKnowledgeSession session = createKieSession(builder.getPackage());
+        session.getWorkItemManager().registerWorkItemHandler("Report", new TestWorkItemHandler());
+
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            value.append("ThisIsMyValue");
+        }
+        Map<String, Object> variables = new HashMap<String, Object>();
+        variables.put("collection", Arrays.asList("one", "two"));
+        variables.put("myVariable", value.toString());
+        ProcessInstance processInstance = session.startProcess("org.test.ruleflow", variables);
+        CompressionHelper.setThreshold(0);
+        try {
+            byte[] data = CompressionHelper.compress(marshall(session, processInstance));
+            assertTrue(CompressionHelper.isCompressed(data));
+            ProcessInstanceProjection projection = new ProcessInstanceProjectionReader(null)
+                .read(data, Collections.singleton("myVariable"));
+            assertEquals(processInstance.getId(), projection.getId());
+            assertEquals(value.toString(), projection.getVariable("myVariable"));
+        } finally {
+            CompressionHelper.setThreshold(-1);
+        }
+        session.dispose();
+    }
+
+    /**
+     * Marshalls the process instance the same way as it is stored by the persistence layer.
+     */
+    private byte[] marshall(StatefulKnowledgeSession session, ProcessInstance processInstance) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        MarshallerWriteContext context = new MarshallerWriteContext(baos, null, null, null, null, session.getEnvironment());
+        context.stream.writeUTF(RuleFlowProcess.RULEFLOW_TYPE);
+        JBPMMessages.ProcessInstance _instance = (JBPMMessages.ProcessInstance)
+            ProtobufRuleFlowProcessInstanceMarshaller.INSTANCE.writeProcessInstance(context, processInstance);
+        PersisterHelper.writeToStreamWithHeader(context, _instance);
+        context.close();
+        return baos.toByteArray();
+    }
+}
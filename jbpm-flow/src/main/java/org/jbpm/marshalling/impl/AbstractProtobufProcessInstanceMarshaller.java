@@ -24,6 +24,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
 
 import org.drools.core.common.DefaultFactHandle;
 import org.drools.core.common.InternalWorkingMemory;
@@ -92,15 +93,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
             }
         }
 
-        List<NodeInstance> nodeInstances = new ArrayList<NodeInstance>( workFlow.getNodeInstances() );
-        Collections.sort( nodeInstances,
-                          new Comparator<NodeInstance>() {
-
-                              public int compare(NodeInstance o1,
-                                                 NodeInstance o2) {
-                                  return (int) (o1.getId() - o2.getId());
-                              }
-                          } );
+        Collection<NodeInstance> nodeInstances = sortById( workFlow.getNodeInstances() );
         for ( NodeInstance nodeInstance : nodeInstances ) {
             _instance.addNodeInstance( writeNodeInstance( context,
                                                           nodeInstance ) );
@@ -121,29 +114,15 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
         }
 
         VariableScopeInstance variableScopeInstance = (VariableScopeInstance) workFlow.getContextInstance( VariableScope.VARIABLE_SCOPE );
-        List<Map.Entry<String, Object>> variables = new ArrayList<Map.Entry<String, Object>>( variableScopeInstance.getVariables().entrySet() );
-        Collections.sort( variables,
-                          new Comparator<Map.Entry<String, Object>>() {
-                              public int compare(Map.Entry<String, Object> o1,
-                                                 Map.Entry<String, Object> o2) {
-                                  return o1.getKey().compareTo( o2.getKey() );
-                              }
-                          } );
+        Collection<Map.Entry<String, Object>> variables = sortByKey( variableScopeInstance.internalGetVariables() );
 
         for ( Map.Entry<String, Object> variable : variables ) {
             if ( variable.getValue() != null ) {
-                _instance.addVariable( ProtobufProcessMarshaller.marshallVariable( context, variable.getKey(), variable.getValue() ) );
+                _instance.addVariable( ProtobufProcessMarshaller.marshallScopeVariable( context, variable.getKey(), variable.getValue() ) );
             }
         }
         
-        List<Map.Entry<String, Integer>> iterationlevels = new ArrayList<Map.Entry<String, Integer>>( workFlow.getIterationLevels().entrySet() );
-        Collections.sort( iterationlevels,
-                          new Comparator<Map.Entry<String, Integer>>() {
-                              public int compare(Map.Entry<String, Integer> o1,
-                                                 Map.Entry<String, Integer> o2) {
-                                  return o1.getKey().compareTo( o2.getKey() );
-                              }
-                          } );
+        Collection<Map.Entry<String, Integer>> iterationlevels = sortByKey( workFlow.getIterationLevels() );
 
         for ( Map.Entry<String, Integer> level : iterationlevels ) {
             if ( level.getValue() != null ) {
@@ -157,6 +136,48 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
         return _instance.build();
     }
 
+    /**
+     * Returns the node instances ordered by id. Node instances are added with increasing ids,
+     * so the collection is usually in order already and is then used as it is.
+     */
+    protected Collection<NodeInstance> sortById(Collection<NodeInstance> nodeInstances) {
+        long previousId = Long.MIN_VALUE;
+        for ( NodeInstance nodeInstance : nodeInstances ) {
+            if ( nodeInstance.getId() <= previousId ) {
+                List<NodeInstance> sorted = new ArrayList<NodeInstance>( nodeInstances );
+                Collections.sort( sorted,
+                                  new Comparator<NodeInstance>() {
+                                      public int compare(NodeInstance o1,
+                                                         NodeInstance o2) {
+                                          return (int) (o1.getId() - o2.getId());
+                                      }
+                                  } );
+                return sorted;
+            }
+            previousId = nodeInstance.getId();
+        }
+        return nodeInstances;
+    }
+
+    /**
+     * Returns the entries ordered by key. Variables and iteration levels are kept in sorted
+     * maps, only other maps are copied and sorted.
+     */
+    protected <T> Collection<Map.Entry<String, T>> sortByKey(Map<String, T> map) {
+        if ( map instanceof SortedMap && ((SortedMap<String, T>) map).comparator() == null ) {
+            return map.entrySet();
+        }
+        List<Map.Entry<String, T>> entries = new ArrayList<Map.Entry<String, T>>( map.entrySet() );
+        Collections.sort( entries,
+                          new Comparator<Map.Entry<String, T>>() {
+                              public int compare(Map.Entry<String, T> o1,
+                                                 Map.Entry<String, T> o2) {
+                                  return o1.getKey().compareTo( o2.getKey() );
+                              }
+                          } );
+        return entries;
+    }
+
     public JBPMMessages.ProcessInstance.NodeInstance writeNodeInstance(MarshallerWriteContext context,
                                                                        NodeInstance nodeInstance) throws IOException {
         JBPMMessages.ProcessInstance.NodeInstance.Builder _node = JBPMMessages.ProcessInstance.NodeInstance.newBuilder()
@@ -296,14 +317,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
         } else if ( nodeInstance instanceof ForEachNodeInstance ) {
             JBPMMessages.ProcessInstance.NodeInstanceContent.ForEachNode.Builder _foreach = JBPMMessages.ProcessInstance.NodeInstanceContent.ForEachNode.newBuilder();
             ForEachNodeInstance forEachNodeInstance = (ForEachNodeInstance) nodeInstance;
-            List<NodeInstance> nodeInstances = new ArrayList<NodeInstance>( forEachNodeInstance.getNodeInstances() );
-            Collections.sort( nodeInstances,
-                              new Comparator<NodeInstance>() {
-                                  public int compare(NodeInstance o1,
-                                                     NodeInstance o2) {
-                                      return (int) (o1.getId() - o2.getId());
-                                  }
-                              } );
+            Collection<NodeInstance> nodeInstances = sortById( forEachNodeInstance.getNodeInstances() );
             for ( NodeInstance subNodeInstance : nodeInstances ) {
                 if ( subNodeInstance instanceof CompositeContextNodeInstance ) {
                     _foreach.addNodeInstance( writeNodeInstance( context,
@@ -313,28 +327,14 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
             
             VariableScopeInstance variableScopeInstance = (VariableScopeInstance) forEachNodeInstance.getContextInstance( VariableScope.VARIABLE_SCOPE);
             if ( variableScopeInstance != null ) {
-                List<Map.Entry<String, Object>> variables = new ArrayList<Map.Entry<String, Object>>( variableScopeInstance.getVariables().entrySet() );
-                Collections.sort( variables,
-                                  new Comparator<Map.Entry<String, Object>>() {
-                                      public int compare(Map.Entry<String, Object> o1,
-                                                         Map.Entry<String, Object> o2) {
-                                          return o1.getKey().compareTo( o2.getKey() );
-                                      }
-                                  } );
+                Collection<Map.Entry<String, Object>> variables = sortByKey( variableScopeInstance.internalGetVariables() );
                 for ( Map.Entry<String, Object> variable : variables ) {
                     
-                    _foreach.addVariable( ProtobufProcessMarshaller.marshallVariable( context, variable.getKey(), variable.getValue() ) );
+                    _foreach.addVariable( ProtobufProcessMarshaller.marshallScopeVariable( context, variable.getKey(), variable.getValue() ) );
                 }
             }
             
-            List<Map.Entry<String, Integer>> iterationlevels = new ArrayList<Map.Entry<String, Integer>>( forEachNodeInstance.getIterationLevels().entrySet() );
-            Collections.sort( iterationlevels,
-                              new Comparator<Map.Entry<String, Integer>>() {
-                                  public int compare(Map.Entry<String, Integer> o1,
-                                                     Map.Entry<String, Integer> o2) {
-                                      return o1.getKey().compareTo( o2.getKey() );
-                                  }
-                              } );
+            Collection<Map.Entry<String, Integer>> iterationlevels = sortByKey( forEachNodeInstance.getIterationLevels() );
 
             for ( Map.Entry<String, Integer> level : iterationlevels ) {
                 if ( level.getKey() != null && level.getValue() != null ) {
@@ -369,28 +369,14 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
             }
             VariableScopeInstance variableScopeInstance = (VariableScopeInstance) compositeNodeInstance.getContextInstance( VariableScope.VARIABLE_SCOPE );
             if ( variableScopeInstance != null ) {
-                List<Map.Entry<String, Object>> variables = new ArrayList<Map.Entry<String, Object>>( variableScopeInstance.getVariables().entrySet() );
-                Collections.sort( variables,
-                                  new Comparator<Map.Entry<String, Object>>() {
-                                      public int compare(Map.Entry<String, Object> o1,
-                                                         Map.Entry<String, Object> o2) {
-                                          return o1.getKey().compareTo( o2.getKey() );
-                                      }
-                                  } );
+                Collection<Map.Entry<String, Object>> variables = sortByKey( variableScopeInstance.internalGetVariables() );
                 for ( Map.Entry<String, Object> variable : variables ) {
                     
-                    _composite.addVariable( ProtobufProcessMarshaller.marshallVariable( context, variable.getKey(), variable.getValue() ) );
+                    _composite.addVariable( ProtobufProcessMarshaller.marshallScopeVariable( context, variable.getKey(), variable.getValue() ) );
                 }
             }
             
-            List<Map.Entry<String, Integer>> iterationlevels = new ArrayList<Map.Entry<String, Integer>>( compositeNodeInstance.getIterationLevels().entrySet() );
-            Collections.sort( iterationlevels,
-                              new Comparator<Map.Entry<String, Integer>>() {
-                                  public int compare(Map.Entry<String, Integer> o1,
-                                                     Map.Entry<String, Integer> o2) {
-                                      return o1.getKey().compareTo( o2.getKey() );
-                                  }
-                              } );
+            Collection<Map.Entry<String, Integer>> iterationlevels = sortByKey( compositeNodeInstance.getIterationLevels() );
 
             for ( Map.Entry<String, Integer> level : iterationlevels ) {
                 if (level.getKey() != null && level.getValue() != null ) {
@@ -401,14 +387,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
                 }
             }
             
-            List<NodeInstance> nodeInstances = new ArrayList<NodeInstance>( compositeNodeInstance.getNodeInstances() );
-            Collections.sort( nodeInstances,
-                              new Comparator<NodeInstance>() {
-                                  public int compare(NodeInstance o1,
-                                                     NodeInstance o2) {
-                                      return (int) (o1.getId() - o2.getId());
-                                  }
-                              } );
+            Collection<NodeInstance> nodeInstances = sortById( compositeNodeInstance.getNodeInstances() );
             for ( NodeInstance subNodeInstance : nodeInstances ) {
                 _composite.addNodeInstance( writeNodeInstance( context,
                                                                subNodeInstance ) );
@@ -515,7 +494,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
                     .getContextInstance( variableScope );
             for ( JBPMMessages.Variable _variable : _instance.getVariableList() ) {
                 try {
-                    Object _value = ProtobufProcessMarshaller.unmarshallVariableValue( context, _variable );
+                    Object _value = ProtobufProcessMarshaller.unmarshallScopeVariableValue( context, _variable );
                     variableScopeInstance.internalSetVariable( _variable.getName(), 
                                                                _value );
                 } catch ( ClassNotFoundException e ) {
@@ -561,7 +540,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
                     VariableScopeInstance variableScopeInstance = (VariableScopeInstance) ((CompositeContextNodeInstance) nodeInstance).getContextInstance( variableScope );
                     for ( JBPMMessages.Variable _variable : _node.getContent().getComposite().getVariableList() ) {
                         try {
-                            Object _value = ProtobufProcessMarshaller.unmarshallVariableValue( context, _variable );
+                            Object _value = ProtobufProcessMarshaller.unmarshallScopeVariableValue( context, _variable );
                             variableScopeInstance.internalSetVariable( _variable.getName(), _value );
                         } catch ( ClassNotFoundException e ) {
                             throw new IllegalArgumentException( "Could not reload variable " + _variable.getName() );
@@ -599,20 +578,24 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
                     readNodeInstance( context,
                                       (ForEachNodeInstance) nodeInstance,
                                       processInstance );
+                }
+                // the variables and levels belong to the for each node itself, read them once
+                // instead of once per iteration
+                if ( _node.getContent().getForEach().getVariableCount() > 0 ) {
                     VariableScopeInstance variableScopeInstance = (VariableScopeInstance) ((ForEachNodeInstance) nodeInstance).getContextInstance( VariableScope.VARIABLE_SCOPE );
                     for ( JBPMMessages.Variable _variable : _node.getContent().getForEach().getVariableList() ) {
                         try {
-                            Object _value = ProtobufProcessMarshaller.unmarshallVariableValue( context, _variable );
+                            Object _value = ProtobufProcessMarshaller.unmarshallScopeVariableValue( context, _variable );
                             variableScopeInstance.internalSetVariable( _variable.getName(), _value );
                         } catch ( ClassNotFoundException e ) {
                             throw new IllegalArgumentException( "Could not reload variable " + _variable.getName() );
                         }
                     }
-                    if ( _node.getContent().getForEach().getIterationLevelsCount() > 0 ) {
-                        
-                        for ( JBPMMessages.IterationLevel _level : _node.getContent().getForEach().getIterationLevelsList()) {
-                            ((ForEachNodeInstance) nodeInstance).getIterationLevels().put(_level.getId(), _level.getLevel());
-                        }
+                }
+                if ( _node.getContent().getForEach().getIterationLevelsCount() > 0 ) {
+                    
+                    for ( JBPMMessages.IterationLevel _level : _node.getContent().getForEach().getIterationLevelsList()) {
+                        ((ForEachNodeInstance) nodeInstance).getIterationLevels().put(_level.getId(), _level.getLevel());
                     }
                 }
                 break;
@@ -625,7 +608,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
                     VariableScopeInstance variableScopeInstance = (VariableScopeInstance) ((EventSubProcessNodeInstance) nodeInstance).getContextInstance( VariableScope.VARIABLE_SCOPE );
                     for ( JBPMMessages.Variable _variable : _node.getContent().getComposite().getVariableList() ) {
                         try {
-                            Object _value = ProtobufProcessMarshaller.unmarshallVariableValue( context, _variable );
+                            Object _value = ProtobufProcessMarshaller.unmarshallScopeVariableValue( context, _variable );
                             variableScopeInstance.internalSetVariable( _variable.getName(), _value );
                         } catch ( ClassNotFoundException e ) {
                             throw new IllegalArgumentException( "Could not reload variable " + _variable.getName() );
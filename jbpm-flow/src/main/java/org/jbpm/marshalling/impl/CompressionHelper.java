@@ -0,0 +1,139 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.marshalling.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses marshalled process instances before they are stored. Compression is enabled by
+ * setting <code>org.jbpm.marshalling.compress.threshold</code> to the minimum size in bytes of
+ * the data to compress.
+ * <p>
+ * Compressed data starts with a header that can not be the start of uncompressed data, which
+ * is always written through an <code>ObjectOutputStream</code> and so starts with its stream
+ * magic <code>0xACED</code>. Data stored before compression was enabled, or below the
+ * threshold, is therefore returned as it is by {@link #decompress(byte[])}.
+ */
+public final class CompressionHelper {
+
+    private static final byte MAGIC_0 = 'J';
+    private static final byte MAGIC_1 = 'Z';
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = 7;
+
+    private static volatile int threshold = Integer.parseInt(
+            System.getProperty( "org.jbpm.marshalling.compress.threshold", "-1" ) );
+
+    private CompressionHelper() {
+    }
+
+    /**
+     * Returns the minimum size of the data to compress, or a negative value if compression is
+     * disabled, which is the default.
+     */
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Overrides the threshold read from <code>org.jbpm.marshalling.compress.threshold</code> at
+     * startup. A negative value disables compression.
+     */
+    public static void setThreshold(int threshold) {
+        CompressionHelper.threshold = threshold;
+    }
+
+    /**
+     * Compresses the given data if compression is enabled and the data is at least as large
+     * as the threshold. The data is returned as it is if it is not compressed or compression
+     * does not make it smaller.
+     */
+    public static byte[] compress(byte[] data) {
+        int threshold = getThreshold();
+        if ( threshold < 0 || data.length < threshold ) {
+            return data;
+        }
+        Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream( data.length / 2 + HEADER_LENGTH );
+            DataOutputStream out = new DataOutputStream( baos );
+            out.writeByte( MAGIC_0 );
+            out.writeByte( MAGIC_1 );
+            out.writeByte( VERSION );
+            out.writeInt( data.length );
+            deflater.setInput( data );
+            deflater.finish();
+            byte[] buffer = new byte[4096];
+            while ( !deflater.finished() ) {
+                int count = deflater.deflate( buffer );
+                out.write( buffer, 0, count );
+                if ( baos.size() >= data.length ) {
+                    return data;
+                }
+            }
+            out.flush();
+            return baos.toByteArray();
+        } catch ( IOException e ) {
+            // not thrown by in memory streams
+            throw new IllegalStateException( e );
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static boolean isCompressed(byte[] data) {
+        return data != null && data.length >= HEADER_LENGTH && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+
+    /**
+     * Decompresses the given data if it was compressed by {@link #compress(byte[])}, otherwise
+     * returns it as it is.
+     */
+    public static byte[] decompress(byte[] data) {
+        if ( !isCompressed( data ) ) {
+            return data;
+        }
+        if ( data[2] != VERSION ) {
+            throw new IllegalArgumentException( "Unsupported compression version " + data[2] );
+        }
+        int length = ((data[3] & 0xFF) << 24) | ((data[4] & 0xFF) << 16) | ((data[5] & 0xFF) << 8) | (data[6] & 0xFF);
+        byte[] result = new byte[length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput( data, HEADER_LENGTH, data.length - HEADER_LENGTH );
+            int offset = 0;
+            while ( offset < length ) {
+                int count = inflater.inflate( result, offset, length - offset );
+                if ( count == 0 && (inflater.finished() || inflater.needsInput()) ) {
+                    throw new IllegalArgumentException( "Compressed data is truncated" );
+                }
+                offset += count;
+            }
+            return result;
+        } catch ( DataFormatException e ) {
+            throw new IllegalArgumentException( "Compressed data is corrupt: " + e.getMessage(), e );
+        } finally {
+            inflater.end();
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.marshalling.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only view of a subset of the state of a marshalled process instance, as returned by
+ * {@link ProcessInstanceProjectionReader}. It is detached from any session and does not
+ * reflect later changes of the process instance.
+ */
+public class ProcessInstanceProjection {
+
+    private final long id;
+    private final String processId;
+    private final int state;
+    private final long parentProcessInstanceId;
+    private final List<Long> activeNodeIds;
+    private final Map<String, Object> variables;
+
+    public ProcessInstanceProjection(long id,
+                                     String processId,
+                                     int state,
+                                     long parentProcessInstanceId,
+                                     List<Long> activeNodeIds,
+                                     Map<String, Object> variables) {
+        this.id = id;
+        this.processId = processId;
+        this.state = state;
+        this.parentProcessInstanceId = parentProcessInstanceId;
+        this.activeNodeIds = Collections.unmodifiableList( activeNodeIds );
+        this.variables = Collections.unmodifiableMap( variables );
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getProcessId() {
+        return processId;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public long getParentProcessInstanceId() {
+        return parentProcessInstanceId;
+    }
+
+    /**
+     * Returns the node ids of all active node instances, including the ones nested in
+     * composite and multi instance nodes, in the order they were stored.
+     */
+    public List<Long> getActiveNodeIds() {
+        return activeNodeIds;
+    }
+
+    /**
+     * Returns the requested process variables that are set on the process instance.
+     */
+    public Map<String, Object> getVariables() {
+        return variables;
+    }
+
+    public Object getVariable(String name) {
+        return variables.get( name );
+    }
+
+    @Override
+    public String toString() {
+        return "ProcessInstanceProjection[id=" + id + ", processId=" + processId + ", state=" + state + "]";
+    }
+
+}
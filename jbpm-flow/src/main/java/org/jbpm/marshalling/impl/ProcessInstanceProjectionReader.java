@@ -0,0 +1,254 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.marshalling.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.drools.core.marshalling.impl.ClassObjectMarshallingStrategyAcceptor;
+import org.drools.core.marshalling.impl.MarshallerReaderContext;
+import org.drools.core.marshalling.impl.MarshallingConfigurationImpl;
+import org.drools.core.marshalling.impl.PersisterHelper;
+import org.drools.core.marshalling.impl.ProtobufMessages.Header;
+import org.drools.core.marshalling.impl.SerializablePlaceholderResolverStrategy;
+import org.kie.api.marshalling.ObjectMarshallingStrategy;
+import org.kie.api.marshalling.ObjectMarshallingStrategyStore;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistry;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Reads a {@link ProcessInstanceProjection} from a marshalled process instance, e.g. the
+ * byte array of a <code>ProcessInstanceInfo</code> loaded through plain JDBC or JPA.
+ * <p>
+ * The protobuf process instance is streamed field by field: only the state, the node ids of
+ * the node instances and the requested variables are read, everything else is skipped. No
+ * knowledge base or session is needed and no process or node instances are created, so
+ * this is much cheaper than loading the process instance when only a few fields are needed.
+ */
+public class ProcessInstanceProjectionReader {
+
+    private final Environment env;
+    private final ClassLoader classLoader;
+    private final ObjectMarshallingStrategyStore strategyStore;
+
+    public ProcessInstanceProjectionReader(Environment env) {
+        this( env, null );
+    }
+
+    /**
+     * @param env the environment providing the marshalling strategies used to store the
+     *            process instances, may be <code>null</code> if they only use serialization
+     * @param classLoader the class loader of the variable types, may be <code>null</code>
+     */
+    public ProcessInstanceProjectionReader(Environment env, ClassLoader classLoader) {
+        this.env = env;
+        this.classLoader = classLoader != null ? classLoader : ProcessInstanceProjectionReader.class.getClassLoader();
+        ObjectMarshallingStrategy[] strategies = null;
+        if ( env != null ) {
+            strategies = (ObjectMarshallingStrategy[]) env.get( EnvironmentName.OBJECT_MARSHALLING_STRATEGIES );
+        }
+        if ( strategies == null ) {
+            strategies = new ObjectMarshallingStrategy[]{new SerializablePlaceholderResolverStrategy( ClassObjectMarshallingStrategyAcceptor.DEFAULT )};
+        }
+        this.strategyStore = new MarshallingConfigurationImpl( strategies, false, false ).getObjectMarshallingStrategyStore();
+    }
+
+    /**
+     * Reads the projection of the given marshalled process instance.
+     *
+     * @param data the marshalled process instance, possibly compressed
+     * @param variableNames the names of the process variables to read, <code>null</code> to
+     *                      read all of them
+     */
+    public ProcessInstanceProjection read(byte[] data, Collection<String> variableNames) {
+        try {
+            MarshallerReaderContext context = new MarshallerReaderContext( new ByteArrayInputStream( CompressionHelper.decompress( data ) ),
+                                                                           null,
+                                                                           null,
+                                                                           strategyStore,
+                                                                           null,
+                                                                           env );
+            context.classLoader = classLoader;
+            String processInstanceType = context.stream.readUTF();
+            if ( !(ProcessMarshallerRegistry.INSTANCE.getMarshaller( processInstanceType ) instanceof AbstractProtobufProcessInstanceMarshaller) ) {
+                throw new IllegalArgumentException( "Unsupported process instance type " + processInstanceType );
+            }
+            ExtensionRegistry registry = PersisterHelper.buildRegistry( context, null );
+            Header _header = PersisterHelper.readFromStreamWithHeaderPreloaded( context, registry );
+            ProcessInstanceProjection projection = readProcessInstance( context,
+                                                                        _header.getPayload().newCodedInput(),
+                                                                        variableNames );
+            context.close();
+            return projection;
+        } catch ( IOException e ) {
+            throw new IllegalArgumentException( "IOException while reading process instance projection: " + e.getMessage(), e );
+        } catch ( ClassNotFoundException e ) {
+            throw new IllegalArgumentException( "ClassNotFoundException while reading process instance projection: " + e.getMessage(), e );
+        }
+    }
+
+    private ProcessInstanceProjection readProcessInstance(MarshallerReaderContext context,
+                                                          CodedInputStream input,
+                                                          Collection<String> variableNames) throws IOException,
+                                                                                                   ClassNotFoundException {
+        long id = 0;
+        String processId = null;
+        int state = 0;
+        long parentProcessInstanceId = 0;
+        List<Long> activeNodeIds = new ArrayList<Long>();
+        Map<String, Object> variables = new HashMap<String, Object>();
+        int tag;
+        while ( (tag = input.readTag()) != 0 ) {
+            switch ( WireFormat.getTagFieldNumber( tag ) ) {
+                case JBPMMessages.ProcessInstance.ID_FIELD_NUMBER :
+                    id = input.readInt64();
+                    break;
+                case JBPMMessages.ProcessInstance.PROCESS_ID_FIELD_NUMBER :
+                    processId = input.readString();
+                    break;
+                case JBPMMessages.ProcessInstance.STATE_FIELD_NUMBER :
+                    state = input.readInt32();
+                    break;
+                case JBPMMessages.ProcessInstance.PARENT_PROCESS_INSTANCE_ID_FIELD_NUMBER :
+                    parentProcessInstanceId = input.readInt64();
+                    break;
+                case JBPMMessages.ProcessInstance.NODE_INSTANCE_FIELD_NUMBER :
+                    readNodeInstance( input, activeNodeIds );
+                    break;
+                case JBPMMessages.ProcessInstance.VARIABLE_FIELD_NUMBER :
+                    readVariable( context, input, variableNames, variables );
+                    break;
+                default :
+                    input.skipField( tag );
+            }
+        }
+        return new ProcessInstanceProjection( id, processId, state, parentProcessInstanceId, activeNodeIds, variables );
+    }
+
+    private void readNodeInstance(CodedInputStream input, List<Long> nodeIds) throws IOException {
+        int limit = input.pushLimit( input.readRawVarint32() );
+        int tag;
+        while ( (tag = input.readTag()) != 0 ) {
+            switch ( WireFormat.getTagFieldNumber( tag ) ) {
+                case JBPMMessages.ProcessInstance.NodeInstance.NODE_ID_FIELD_NUMBER :
+                    nodeIds.add( input.readInt64() );
+                    break;
+                case JBPMMessages.ProcessInstance.NodeInstance.CONTENT_FIELD_NUMBER :
+                    readNodeInstanceContent( input, nodeIds );
+                    break;
+                default :
+                    input.skipField( tag );
+            }
+        }
+        input.popLimit( limit );
+    }
+
+    private void readNodeInstanceContent(CodedInputStream input, List<Long> nodeIds) throws IOException {
+        int limit = input.pushLimit( input.readRawVarint32() );
+        int tag;
+        while ( (tag = input.readTag()) != 0 ) {
+            switch ( WireFormat.getTagFieldNumber( tag ) ) {
+                case JBPMMessages.ProcessInstance.NodeInstanceContent.COMPOSITE_FIELD_NUMBER :
+                    readNodeInstanceContainer( input,
+                                               JBPMMessages.ProcessInstance.NodeInstanceContent.CompositeContextNode.NODE_INSTANCE_FIELD_NUMBER,
+                                               nodeIds );
+                    break;
+                case JBPMMessages.ProcessInstance.NodeInstanceContent.FOR_EACH_FIELD_NUMBER :
+                    readNodeInstanceContainer( input,
+                                               JBPMMessages.ProcessInstance.NodeInstanceContent.ForEachNode.NODE_INSTANCE_FIELD_NUMBER,
+                                               nodeIds );
+                    break;
+                default :
+                    input.skipField( tag );
+            }
+        }
+        input.popLimit( limit );
+    }
+
+    private void readNodeInstanceContainer(CodedInputStream input, int nodeInstanceFieldNumber, List<Long> nodeIds) throws IOException {
+        int limit = input.pushLimit( input.readRawVarint32() );
+        int tag;
+        while ( (tag = input.readTag()) != 0 ) {
+            if ( WireFormat.getTagFieldNumber( tag ) == nodeInstanceFieldNumber ) {
+                readNodeInstance( input, nodeIds );
+            } else {
+                input.skipField( tag );
+            }
+        }
+        input.popLimit( limit );
+    }
+
+    private void readVariable(MarshallerReaderContext context,
+                              CodedInputStream input,
+                              Collection<String> variableNames,
+                              Map<String, Object> variables) throws IOException,
+                                                            ClassNotFoundException {
+        int limit = input.pushLimit( input.readRawVarint32() );
+        String name = null;
+        int strategyIndex = 0;
+        ByteString value = null;
+        int tag;
+        while ( (tag = input.readTag()) != 0 ) {
+            switch ( WireFormat.getTagFieldNumber( tag ) ) {
+                case JBPMMessages.Variable.NAME_FIELD_NUMBER :
+                    name = input.readString();
+                    break;
+                case JBPMMessages.Variable.STRATEGY_INDEX_FIELD_NUMBER :
+                    strategyIndex = input.readInt32();
+                    break;
+                case JBPMMessages.Variable.VALUE_FIELD_NUMBER :
+                    // the name is always written first, so values of other variables are skipped unread
+                    if ( isRequested( name, variableNames ) ) {
+                        value = input.readBytes();
+                    } else {
+                        input.skipField( tag );
+                    }
+                    break;
+                default :
+                    input.skipField( tag );
+            }
+        }
+        input.popLimit( limit );
+        if ( !isRequested( name, variableNames ) ) {
+            return;
+        }
+        Object _value = null;
+        if ( value != null && !value.isEmpty() ) {
+            ObjectMarshallingStrategy strategy = context.usedStrategies.get( strategyIndex );
+            _value = strategy.unmarshal( context.strategyContexts.get( strategy ),
+                                         context,
+                                         value.toByteArray(),
+                                         classLoader );
+        }
+        variables.put( name, _value );
+    }
+
+    private static boolean isRequested(String name, Collection<String> variableNames) {
+        return name != null && (variableNames == null || variableNames.contains( name ));
+    }
+
+}
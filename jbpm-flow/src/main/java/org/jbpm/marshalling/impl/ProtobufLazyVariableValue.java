@@ -0,0 +1,71 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.marshalling.impl;
+
+import java.io.IOException;
+
+import org.drools.core.marshalling.impl.MarshallerWriteContext;
+import org.jbpm.process.instance.context.variable.LazyVariableValue;
+import org.kie.api.marshalling.ObjectMarshallingStrategy;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Marshalled variable read from a process instance that is unmarshalled on first access.
+ * Only used for strategies without a strategy context, so the marshalled bytes are self
+ * contained and can be written back as they are while the variable is not accessed.
+ * Only the strategy, the class loader and the bytes are kept, not the reader context the
+ * variable was read with.
+ */
+public class ProtobufLazyVariableValue implements LazyVariableValue {
+
+    private final String name;
+    private final ByteString value;
+    private final ObjectMarshallingStrategy strategy;
+    private final ClassLoader classLoader;
+
+    public ProtobufLazyVariableValue(JBPMMessages.Variable variable,
+                                     ObjectMarshallingStrategy strategy,
+                                     ClassLoader classLoader) {
+        this.name = variable.getName();
+        this.value = variable.getValue();
+        this.strategy = strategy;
+        this.classLoader = classLoader;
+    }
+
+    public Object resolve() {
+        try {
+            return strategy.unmarshal( null,
+                                       null,
+                                       value.toByteArray(),
+                                       classLoader );
+        } catch ( IOException e ) {
+            throw new IllegalArgumentException( "Could not reload variable " + name, e );
+        } catch ( ClassNotFoundException e ) {
+            throw new IllegalArgumentException( "Could not reload variable " + name, e );
+        }
+    }
+
+    public JBPMMessages.Variable writeVariable(MarshallerWriteContext context, String name) {
+        return JBPMMessages.Variable.newBuilder()
+                .setName( name )
+                .setStrategyIndex( context.getStrategyIndex( strategy ) )
+                .setValue( value )
+                .build();
+    }
+
+}
@@ -36,6 +36,8 @@ public class ProtobufProcessMarshaller
         implements
         ProcessMarshaller {
 
+    private static volatile boolean lazyVariables = Boolean.parseBoolean( System.getProperty( "org.jbpm.marshalling.lazy.variables", "false" ) );
+
     public void writeProcessInstances(MarshallerWriteContext context) throws IOException {
         ProtobufMessages.ProcessData.Builder _pdata = (ProtobufMessages.ProcessData.Builder) context.parameterObject;
                                                   
@@ -233,6 +235,19 @@ public class ProtobufProcessMarshaller
         return builder.build();
     }
     
+    /**
+     * Marshalls a process or scope variable, values that were read lazily and never accessed
+     * are written back without going through the marshalling strategy.
+     */
+    public static Variable marshallScopeVariable(MarshallerWriteContext context,
+                                                 String name,
+                                                 Object value) throws IOException {
+        if ( value instanceof ProtobufLazyVariableValue ) {
+            return ((ProtobufLazyVariableValue) value).writeVariable( context, name );
+        }
+        return marshallVariable( context, name, value );
+    }
+
     public static Variable marshallVariablesMap(MarshallerWriteContext context, Map<String, Object> variables) throws IOException{
         Map<String, Variable> marshalledVariables = new HashMap<String, Variable>();
         for(String key : variables.keySet()){
@@ -269,6 +284,33 @@ public class ProtobufProcessMarshaller
         return value;
     }
 
+    /**
+     * Unmarshalls a process or scope variable. When <code>org.jbpm.marshalling.lazy.variables</code>
+     * is enabled, values of strategies without a strategy context are unmarshalled on first
+     * access instead.
+     */
+    public static Object unmarshallScopeVariableValue(MarshallerReaderContext context,
+                                                      JBPMMessages.Variable _variable) throws IOException,
+                                                                                      ClassNotFoundException {
+        if ( lazyVariables && _variable.getValue() != null && !_variable.getValue().isEmpty() ) {
+            ObjectMarshallingStrategy strategy = context.usedStrategies.get( _variable.getStrategyIndex() );
+            if ( strategy != null && context.strategyContexts.get( strategy ) == null ) {
+                return new ProtobufLazyVariableValue( _variable,
+                                                      strategy,
+                                                      (context.kBase == null)?null:context.kBase.getRootClassLoader() );
+            }
+        }
+        return unmarshallVariableValue( context, _variable );
+    }
+
+    public static boolean isLazyVariables() {
+        return lazyVariables;
+    }
+
+    public static void setLazyVariables(boolean lazy) {
+        lazyVariables = lazy;
+    }
+
     public void init(MarshallerReaderContext context) {
         ExtensionRegistry registry = (ExtensionRegistry) context.parameterObject;
         registry.add( JBPMMessages.processInstance );
@@ -4,7 +4,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
@@ -62,6 +64,17 @@ public class BusinessCalendarImpl implements BusinessCalendar {
     private List<TimePeriod> holidays;
     private List<Integer> weekendDays= new ArrayList<Integer>();
     private SessionClock clock;
+
+    // lookup structures derived from the configuration by init()
+    private TimeZone timeZone;
+    private boolean[] weekendDaysIndex = new boolean[8];
+    // number of working days before each day of a two week cycle starting on Sunday
+    private int[] workingDaysBefore = new int[15];
+    private int workingDaysPerWeek;
+    private TimePeriod[] holidaysByStart;
+    private long[] holidayStarts;
+    private long[] holidayMaxEnds;
+    private final ThreadLocal<Calendar> calendars = new ThreadLocal<Calendar>();
     
     private static final Pattern SIMPLE  = Pattern.compile( "([+-])?\\s*((\\d+)[Ww])?\\s*((\\d+)[Dd])?\\s*((\\d+)[Hh])?\\s*((\\d+)[Mm])?" );
     private static final int     SIM_WEEK = 3;
@@ -131,6 +144,11 @@ public class BusinessCalendarImpl implements BusinessCalendar {
         holidays = parseHolidays();
         parseWeekendDays();
         this.timezone = businessCalendarConfiguration.getProperty(TIMEZONE);
+        if (timezone != null) {
+            timeZone = TimeZone.getTimeZone(timezone);
+        }
+        indexWeekendDays();
+        indexHolidays();
     }
     
     public long calculateBusinessTimeAsDuration(String timeExpression) {
@@ -166,13 +184,7 @@ public class BusinessCalendarImpl implements BusinessCalendar {
         }
         int time = 0;
         
-        Calendar c = new GregorianCalendar();
-        if (timezone != null) {
-            c.setTimeZone(TimeZone.getTimeZone(timezone));
-        }
-        if (this.clock != null) {
-            c.setTimeInMillis(this.clock.getCurrentTime());
-        }
+        Calendar c = getCalendar();
         
         
         // calculate number of weeks
@@ -186,10 +198,7 @@ public class BusinessCalendarImpl implements BusinessCalendar {
         // calculate number of days
         int numberOfDays = hours/hoursInDay;
         if (numberOfDays > 0) {
-            for (int i = 0; i < numberOfDays; i++) {
-                c.add(Calendar.DAY_OF_YEAR, 1);
-                handleWeekend(c);
-            }
+            addWorkingDays(c, numberOfDays);
         }
 
         int currentCalHour = c.get(Calendar.HOUR_OF_DAY);
@@ -240,22 +249,103 @@ public class BusinessCalendarImpl implements BusinessCalendar {
         return c.getTime();
     }
     
+    /**
+     * Moves given calendar to the given number of working days after its current day, i.e.
+     * adds one day and skips the weekend for each of the days. Holidays are not taken into
+     * account here, they are handled once the whole time has been added.
+     * <br/>
+     * The target day is looked up in the working day index of a week, so the cost does not
+     * depend on the number of days. The calendar then moves in one step, which keeps the time
+     * of day the same as moving day by day, unless that time is skipped by a daylight saving
+     * transition on one of the days in between. Outside of business hours in time zones with
+     * daylight saving time the calendar is therefore moved day by day.
+     */
+    protected void addWorkingDays(Calendar c, int numberOfDays) {
+        if (workingDaysPerWeek == 0 || !canMoveInOneStep(c)) {
+            for (int i = 0; i < numberOfDays; i++) {
+                c.add(Calendar.DAY_OF_YEAR, 1);
+                handleWeekend(c);
+            }
+            return;
+        }
+        int weeks = (numberOfDays - 1) / workingDaysPerWeek;
+        int remaining = numberOfDays - weeks * workingDaysPerWeek;
+        // smallest number of days after the current one that contain the remaining working days
+        int day = c.get(Calendar.DAY_OF_WEEK) - Calendar.SUNDAY;
+        int before = workingDaysBefore[day + 1];
+        int low = 1;
+        int high = 7;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (workingDaysBefore[day + mid + 1] - before >= remaining) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        c.add(Calendar.DAY_OF_YEAR, weeks * 7 + low);
+    }
+
+    private boolean canMoveInOneStep(Calendar c) {
+        TimeZone zone = c.getTimeZone();
+        if (!zone.useDaylightTime() && zone.getDSTSavings() == 0) {
+            return true;
+        }
+        int hour = c.get(Calendar.HOUR_OF_DAY);
+        return hour >= startHour && hour < endHour;
+    }
+
     protected void handleHoliday(Calendar c) {
-        if (!holidays.isEmpty()) {
-            Date current = c.getTime();
-            for (TimePeriod holiday : holidays) {
-                // check each holiday if it overlaps current date and break after first match
-                if (current.after(holiday.getFrom()) && current.before(holiday.getTo())) {
-                    
-                    Calendar tmp = new GregorianCalendar();
-                    tmp.setTime(holiday.getTo());                    
-                    c.add(Calendar.DAY_OF_YEAR, tmp.get(Calendar.DAY_OF_YEAR) - c.get(Calendar.DAY_OF_YEAR));
-                    handleWeekend(c);
-                    break;
-                }
+        TimePeriod holiday = findHoliday(c.getTimeInMillis());
+        if (holiday != null) {
+            c.add(Calendar.DAY_OF_YEAR, holiday.getToDayOfYear() - c.get(Calendar.DAY_OF_YEAR));
+            handleWeekend(c);
+        }
+    }
+
+    /**
+     * Returns the first configured holiday that contains given time, holidays are looked up
+     * in the index sorted by their start and only periods that can still contain the time
+     * are checked.
+     */
+    protected TimePeriod findHoliday(long time) {
+        if (holidaysByStart.length == 0) {
+            return null;
+        }
+        // last holiday that starts before given time
+        int low = 0;
+        int high = holidayStarts.length - 1;
+        int last = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (holidayStarts[mid] < time) {
+                last = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
             }
         }
-        
+        TimePeriod found = null;
+        for (int i = last; i >= 0 && holidayMaxEnds[i] > time; i--) {
+            TimePeriod holiday = holidaysByStart[i];
+            if (holiday.getTo().getTime() > time && (found == null || holiday.getPosition() < found.getPosition())) {
+                found = holiday;
+            }
+        }
+        return found;
+    }
+
+    protected Calendar getCalendar() {
+        Calendar c = calendars.get();
+        if (c == null) {
+            c = new GregorianCalendar();
+            if (timeZone != null) {
+                c.setTimeZone(timeZone);
+            }
+            calendars.set(c);
+        }
+        c.setTimeInMillis(getCurrentTime());
+        return c;
     }
 
     protected int getPropertyAsInt(String propertyName, String defaultValue) {
@@ -374,15 +464,64 @@ public class BusinessCalendarImpl implements BusinessCalendar {
         }
     }
 
+    protected void indexWeekendDays() {
+        weekendDaysIndex = new boolean[8];
+        for (Integer day : weekendDays) {
+            if (day >= 0 && day < weekendDaysIndex.length) {
+                weekendDaysIndex[day] = true;
+            }
+        }
+        workingDaysBefore = new int[15];
+        for (int i = 0; i < 14; i++) {
+            workingDaysBefore[i + 1] = workingDaysBefore[i] + (isWorkingDay(i % 7 + Calendar.SUNDAY) ? 1 : 0);
+        }
+        workingDaysPerWeek = workingDaysBefore[7];
+    }
+
+    protected void indexHolidays() {
+        Calendar tmp = new GregorianCalendar();
+        for (int i = 0; i < holidays.size(); i++) {
+            TimePeriod holiday = holidays.get(i);
+            tmp.setTime(holiday.getTo());
+            holiday.position = i;
+            holiday.toDayOfYear = tmp.get(Calendar.DAY_OF_YEAR);
+        }
+        holidaysByStart = holidays.toArray(new TimePeriod[holidays.size()]);
+        Arrays.sort(holidaysByStart, new Comparator<TimePeriod>() {
+            public int compare(TimePeriod o1, TimePeriod o2) {
+                return o1.getFrom().compareTo(o2.getFrom());
+            }
+        });
+        holidayStarts = new long[holidaysByStart.length];
+        holidayMaxEnds = new long[holidaysByStart.length];
+        long maxEnd = Long.MIN_VALUE;
+        for (int i = 0; i < holidaysByStart.length; i++) {
+            holidayStarts[i] = holidaysByStart[i].getFrom().getTime();
+            maxEnd = Math.max(maxEnd, holidaysByStart[i].getTo().getTime());
+            holidayMaxEnds[i] = maxEnd;
+        }
+    }
+
     private class TimePeriod {
         private Date from;
         private Date to;
+        // position in the configured holidays and day of year the holiday ends on
+        private int position;
+        private int toDayOfYear;
 
         protected TimePeriod(Date from, Date to) {
             this.from = from;
             this.to = to;
         }
 
+        protected int getPosition() {
+            return this.position;
+        }
+
+        protected int getToDayOfYear() {
+            return this.toDayOfYear;
+        }
+
         protected Date getFrom() {
             return this.from;
         }
@@ -401,11 +540,10 @@ public class BusinessCalendarImpl implements BusinessCalendar {
     }
     
     protected boolean isWorkingDay(int day) {
-        if (weekendDays.contains(day)) {
-            return false;
+        if (day >= 0 && day < weekendDaysIndex.length) {
+            return !weekendDaysIndex[day];
         }
-        
-        return true;
+        return !weekendDays.contains(day);
     }
     protected void handleWeekend(Calendar c) {
         int dayOfTheWeek = c.get(Calendar.DAY_OF_WEEK);
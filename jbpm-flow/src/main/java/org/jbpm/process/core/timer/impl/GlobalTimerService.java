@@ -17,9 +17,8 @@ package org.jbpm.process.core.timer.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentMap;
 
 import org.drools.core.command.CommandService;
 import org.drools.core.command.impl.CommandBasedStatefulKnowledgeSession;
@@ -52,7 +51,8 @@ public class GlobalTimerService implements TimerService, InternalSchedulerServic
     protected TimerJobFactoryManager jobFactoryManager;
     protected GlobalSchedulerService schedulerService;
     protected RuntimeManager manager;
-    protected ConcurrentHashMap<Integer, List<GlobalJobHandle>> timerJobsPerSession = new ConcurrentHashMap<Integer, List<GlobalJobHandle>>();
+    // timer jobs indexed by session id and then by timer id for constant time registration and removal
+    protected ConcurrentHashMap<Integer, ConcurrentMap<Long, GlobalJobHandle>> timerJobsPerSession = new ConcurrentHashMap<Integer, ConcurrentMap<Long, GlobalJobHandle>>();
     private String timerServiceId;
     
     public GlobalTimerService(RuntimeManager manager, GlobalSchedulerService schedulerService) {
@@ -70,23 +70,26 @@ public class GlobalTimerService implements TimerService, InternalSchedulerServic
     public JobHandle scheduleJob(Job job, JobContext ctx, Trigger trigger) {
         if (ctx instanceof ProcessJobContext) {
             ProcessJobContext processCtx = (ProcessJobContext) ctx; 
+            long timerId = processCtx.getTimer().getId();
  
-            List<GlobalJobHandle> jobHandles = timerJobsPerSession.get(processCtx.getSessionId());
+            ConcurrentMap<Long, GlobalJobHandle> jobHandles = timerJobsPerSession.get(processCtx.getSessionId());
             if (jobHandles == null) {
-                jobHandles = new CopyOnWriteArrayList<GlobalJobHandle>();
-                timerJobsPerSession.put(processCtx.getSessionId(), jobHandles);
-            } else {
-                // check if the given job is already scheduled
-                for (GlobalJobHandle handle : jobHandles) {
-                    long timerId = handle.getTimerId();
-                    if (timerId == processCtx.getTimer().getId()) {
-                        // this timer job is already registered
-                        return handle;
-                    }
+                jobHandles = new ConcurrentHashMap<Long, GlobalJobHandle>();
+                ConcurrentMap<Long, GlobalJobHandle> existing = timerJobsPerSession.putIfAbsent(processCtx.getSessionId(), jobHandles);
+                if (existing != null) {
+                    jobHandles = existing;
                 }
             }
+            // check if the given job is already scheduled
+            GlobalJobHandle handle = jobHandles.get(timerId);
+            if (handle != null) {
+                // this timer job is already registered
+                return handle;
+            }
             GlobalJobHandle jobHandle = (GlobalJobHandle) this.schedulerService.scheduleJob(job, ctx, trigger);
-            jobHandles.add(jobHandle);
+            if (jobHandle != null) {
+                jobHandles.put(timerId, jobHandle);
+            }
             
             return jobHandle;
         }
@@ -101,14 +104,13 @@ public class GlobalTimerService implements TimerService, InternalSchedulerServic
         }
         
         int sessionId = ((GlobalJobHandle) jobHandle).getSessionId();
-        List<GlobalJobHandle> handles = timerJobsPerSession.get(sessionId);
+        ConcurrentMap<Long, GlobalJobHandle> handles = timerJobsPerSession.get(sessionId);
         if (handles == null) {
             return this.schedulerService.removeJob(jobHandle);
         }
-        if (handles.contains(jobHandle)) {
-            handles.remove(jobHandle);
+        if (handles.remove(((GlobalJobHandle) jobHandle).getTimerId(), jobHandle)) {
             if (handles.isEmpty()) {
-                timerJobsPerSession.remove(sessionId);
+                timerJobsPerSession.remove(sessionId, handles);
             }
             return this.schedulerService.removeJob(jobHandle);
         } else {
@@ -128,9 +130,9 @@ public class GlobalTimerService implements TimerService, InternalSchedulerServic
     }
     
     public void destroy() {
-        Collection<List<GlobalJobHandle>> activeTimers = timerJobsPerSession.values();
-        for (List<GlobalJobHandle> handles : activeTimers) {
-            for (GlobalJobHandle handle : handles) {
+        Collection<ConcurrentMap<Long, GlobalJobHandle>> activeTimers = timerJobsPerSession.values();
+        for (ConcurrentMap<Long, GlobalJobHandle> handles : activeTimers) {
+            for (GlobalJobHandle handle : handles.values()) {
                 this.schedulerService.removeJob(handle);
             }
         }
@@ -144,9 +146,9 @@ public class GlobalTimerService implements TimerService, InternalSchedulerServic
     @Override
     public Collection<TimerJobInstance> getTimerJobInstances(int id) {
         Collection<TimerJobInstance> timers = new ArrayList<TimerJobInstance>();
-        List<GlobalJobHandle> jobs = timerJobsPerSession.get(id); {
+        ConcurrentMap<Long, GlobalJobHandle> jobs = timerJobsPerSession.get(id); {
             if (jobs != null) {
-                for (GlobalJobHandle job : jobs) {
+                for (GlobalJobHandle job : jobs.values()) {
                     timers.add(job.getTimerJobInstance());
                 }
             }
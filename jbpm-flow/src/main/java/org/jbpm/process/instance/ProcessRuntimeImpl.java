@@ -3,6 +3,7 @@ package org.jbpm.process.instance;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -24,20 +25,19 @@ import org.drools.core.time.impl.CronExpression;
 import org.drools.core.time.impl.DefaultTimerJobFactoryManager;
 import org.drools.core.time.impl.TrackableTimeJobFactoryManager;
 import org.jbpm.process.core.event.EventFilter;
-import org.jbpm.process.core.event.EventTypeFilter;
 import org.jbpm.process.core.timer.BusinessCalendar;
 import org.jbpm.process.core.timer.DateTimeUtils;
 import org.jbpm.process.core.timer.Timer;
 import org.jbpm.process.instance.event.SignalManager;
+import org.jbpm.process.instance.StartEventRegistry.ProcessStartEvents;
+import org.jbpm.process.instance.StartEventRegistry.StartEvent;
 import org.jbpm.process.instance.event.SignalManagerFactory;
+import org.jbpm.process.instance.metrics.ProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetricsProvider;
 import org.jbpm.process.instance.timer.TimerInstance;
 import org.jbpm.process.instance.timer.TimerManager;
-import org.jbpm.ruleflow.core.RuleFlowProcess;
-import org.jbpm.workflow.core.node.EventTrigger;
 import org.jbpm.workflow.core.node.StartNode;
-import org.jbpm.workflow.core.node.Trigger;
 import org.kie.api.KieBase;
-import org.kie.api.definition.process.Node;
 import org.kie.api.definition.process.Process;
 import org.kie.api.event.kiebase.AfterProcessAddedEvent;
 import org.kie.api.event.kiebase.AfterProcessRemovedEvent;
@@ -62,6 +62,8 @@ public class ProcessRuntimeImpl implements InternalProcessRuntime {
 	private TimerManager timerManager;
 	private ProcessEventSupport processEventSupport;
 	private DefaultKieBaseEventListener knowledgeBaseListener;
+	private StartEventRegistry startEventRegistry;
+	private Map<String, List<StartProcessEventListener>> startProcessEventListeners = new HashMap<String, List<StartProcessEventListener>>();
 
 	public ProcessRuntimeImpl(InternalKnowledgeRuntime kruntime) {
 		this.kruntime = kruntime;
@@ -71,6 +73,7 @@ public class ProcessRuntimeImpl implements InternalProcessRuntime {
         }		
 		((AcceptsTimerJobFactoryManager)kruntime.getTimerService()).setTimerJobFactoryManager( new TrackableTimeJobFactoryManager() );		
 		((CompositeClassLoader) getRootClassLoader()).addClassLoader( getClass().getClassLoader() );
+		startEventRegistry = StartEventRegistry.get(kruntime.getKieBase());
 		initProcessInstanceManager();
 		initSignalManager();
 		timerManager = new TimerManager(kruntime, kruntime.getTimerService());
@@ -81,13 +84,10 @@ public class ProcessRuntimeImpl implements InternalProcessRuntime {
 	}
 	
 	private void initStartTimers() {
-	    KieBase kbase = kruntime.getKieBase();
-        Collection<Process> processes = kbase.getProcesses();
-        for (Process process : processes) {
-            RuleFlowProcess p = (RuleFlowProcess) process;
-            List<StartNode> startNodes = p.getTimerStart();
-            if (startNodes != null && !startNodes.isEmpty()) {
-                kruntime.queueWorkingMemoryAction(new RegisterStartTimerAction(p.getId(), startNodes, this.timerManager));
+        for (ProcessStartEvents startEvents : startEventRegistry.getStartEvents()) {
+            List<StartNode> startNodes = startEvents.getTimers();
+            if (!startNodes.isEmpty()) {
+                kruntime.queueWorkingMemoryAction(new RegisterStartTimerAction(startEvents.getProcessId(), startNodes, this.timerManager));
                 kruntime.executeQueuedActions();
             }
         }
@@ -100,6 +100,7 @@ public class ProcessRuntimeImpl implements InternalProcessRuntime {
 		}
 		
 		this.kruntime = (InternalKnowledgeRuntime) workingMemory.getKnowledgeRuntime();
+		startEventRegistry = StartEventRegistry.get(kruntime.getKieBase());
 		initProcessInstanceManager();
 		initSignalManager();
 		timerManager = new TimerManager(kruntime, kruntime.getTimerService());
@@ -111,35 +112,15 @@ public class ProcessRuntimeImpl implements InternalProcessRuntime {
 	
 	private void initProcessInstanceManager() {
 		String processInstanceManagerClass = ((SessionConfiguration) kruntime.getSessionConfiguration()).getProcessInstanceManagerFactory();
-		try {
-			processInstanceManager = 
-				((ProcessInstanceManagerFactory) loadClass(processInstanceManagerClass).newInstance())
-			        .createProcessInstanceManager(kruntime);
-		} catch (InstantiationException e) {
-			throw new RuntimeException(e);
-		} catch (IllegalAccessException e) {
-			throw new RuntimeException(e);
-		}
+		processInstanceManager = 
+			((ProcessInstanceManagerFactory) startEventRegistry.getFactory(processInstanceManagerClass, getRootClassLoader()))
+		        .createProcessInstanceManager(kruntime);
 	}
 	
 	private void initSignalManager() {
 		String signalManagerClass = ((SessionConfiguration) kruntime.getSessionConfiguration()).getSignalManagerFactory();
-		try {
-			signalManager = ((SignalManagerFactory) loadClass(signalManagerClass).newInstance())
-		        .createSignalManager(kruntime);
-		} catch (InstantiationException e) {
-			throw new RuntimeException(e);
-		} catch (IllegalAccessException e) {
-			throw new RuntimeException(e);
-		}
-	}
-	
-	private Class<?> loadClass(String className) {
-	    try {
-            return getRootClassLoader().loadClass(className);
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException(e);
-        }
+		signalManager = ((SignalManagerFactory) startEventRegistry.getFactory(signalManagerClass, getRootClassLoader()))
+	        .createSignalManager(kruntime);
 	}
 	
 	private ClassLoader getRootClassLoader() {
@@ -182,10 +163,13 @@ public class ProcessRuntimeImpl implements InternalProcessRuntime {
             if ( !kruntime.getActionQueue().isEmpty() ) {
             	kruntime.executeQueuedActions();
             }
+            ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+            long start = metrics.startTimer();
             ProcessInstance processInstance = getProcessInstance(processInstanceId);
 	        getProcessEventSupport().fireBeforeProcessStarted( processInstance, kruntime );
 	        ((org.jbpm.process.instance.ProcessInstance) processInstance).start(trigger);
 	        getProcessEventSupport().fireAfterProcessStarted( processInstance, kruntime );
+	        metrics.recordTime(ProcessMetrics.PROCESS_START, processInstance.getProcessId(), start);
 	        return processInstance;
         } finally {
         	kruntime.endOperation();
@@ -271,60 +255,50 @@ public class ProcessRuntimeImpl implements InternalProcessRuntime {
     }
     
     private void initProcessEventListeners() {
-        for ( Process process : kruntime.getKieBase().getProcesses() ) {
-            initProcessEventListener(process);
+        for ( ProcessStartEvents startEvents : startEventRegistry.getStartEvents() ) {
+            initProcessEventListener(startEvents);
         }
         knowledgeBaseListener = new DefaultKieBaseEventListener() {
         	@Override
         	public void afterProcessAdded(AfterProcessAddedEvent event) {
-        		initProcessEventListener(event.getProcess());
+        		removeProcessEventListeners(event.getProcess().getId());
+        		ProcessStartEvents startEvents = startEventRegistry.getStartEvents(event.getProcess());
+        		if (startEvents != null) {
+        			initProcessEventListener(startEvents);
+        		}
         	}
         	@Override
         	public void afterProcessRemoved(AfterProcessRemovedEvent event) {
-        		if (event.getProcess() instanceof RuleFlowProcess) {
-        			String type = (String)
-    				    ((RuleFlowProcess) event.getProcess()).getRuntimeMetaData().get("StartProcessEventType");
-        			StartProcessEventListener listener = (StartProcessEventListener)
-        				((RuleFlowProcess) event.getProcess()).getRuntimeMetaData().get("StartProcessEventListener");
-        			if (type != null && listener != null) {
-        				signalManager.removeEventListener(type, listener);
-        			}
-        		}
+        		removeProcessEventListeners(event.getProcess().getId());
         	}
 		};
         kruntime.getKieBase().addEventListener(knowledgeBaseListener);
     }
     
-    private void initProcessEventListener(Process process) {
-    	if ( process instanceof RuleFlowProcess ) {
-    	    for (Node node : ((RuleFlowProcess) process).getNodes()) {
-    	        if (node instanceof StartNode) {
-                    StartNode startNode = (StartNode) node;
-                    if (startNode != null) {
-                        List<Trigger> triggers = startNode.getTriggers();
-                        if ( triggers != null ) {
-                            for ( Trigger trigger : triggers ) {
-                                if ( trigger instanceof EventTrigger ) {
-                                    final List<EventFilter> filters = ((EventTrigger) trigger).getEventFilters();
-                                    String type = null;
-                                    for ( EventFilter filter : filters ) {
-                                        if ( filter instanceof EventTypeFilter ) {
-                                            type = ((EventTypeFilter) filter).getType();
-                                        }
-                                    }
-                                    StartProcessEventListener listener = new StartProcessEventListener( process.getId(),
-                                                                                                        filters,
-                                                                                                        trigger.getInMappings() );
-                                    signalManager.addEventListener( type,
-                                                                    listener );
-                                    ((RuleFlowProcess) process).getRuntimeMetaData().put("StartProcessEventType", type);
-                                    ((RuleFlowProcess) process).getRuntimeMetaData().put("StartProcessEventListener", listener);
-                                }
-                            }
-                        }
-                    }
-        	    }
-        	}
+    private void initProcessEventListener(ProcessStartEvents startEvents) {
+        List<StartEvent> events = startEvents.getEvents();
+        if ( events.isEmpty() ) {
+            return;
+        }
+        List<StartProcessEventListener> listeners = new ArrayList<StartProcessEventListener>(events.size());
+        for ( StartEvent event : events ) {
+            StartProcessEventListener listener = new StartProcessEventListener( startEvents.getProcessId(),
+                                                                                event.getType(),
+                                                                                event.getEventFilters(),
+                                                                                event.getInMappings() );
+            signalManager.addEventListener( event.getType(),
+                                            listener );
+            listeners.add(listener);
+        }
+        startProcessEventListeners.put(startEvents.getProcessId(), listeners);
+    }
+    
+    private void removeProcessEventListeners(String processId) {
+        List<StartProcessEventListener> listeners = startProcessEventListeners.remove(processId);
+        if ( listeners != null ) {
+            for ( StartProcessEventListener listener : listeners ) {
+                signalManager.removeEventListener(listener.type, listener);
+            }
         }
     }
     
@@ -347,13 +321,16 @@ public class ProcessRuntimeImpl implements InternalProcessRuntime {
     private class StartProcessEventListener implements EventListener {
     	
 	    private String              processId;
+	    private String              type;
 	    private List<EventFilter>   eventFilters;
 	    private Map<String, String> inMappings;
 	
 	    public StartProcessEventListener(String processId,
+	                                     String type,
 	                                     List<EventFilter> eventFilters,
 	                                     Map<String, String> inMappings) {
 	        this.processId = processId;
+	        this.type = type;
 	        this.eventFilters = eventFilters;
 	        this.inMappings = inMappings;
 	    }
@@ -431,6 +408,7 @@ public class ProcessRuntimeImpl implements InternalProcessRuntime {
             throw new IllegalArgumentException( "Could not find process instance for id " + processInstanceId );
         }
         ((org.jbpm.process.instance.ProcessInstance) processInstance).setState( ProcessInstance.STATE_ABORTED );
+        ProcessMetricsProvider.getMetrics().increment(ProcessMetrics.PROCESS_ABORT, processInstance.getProcessId());
 	}
 
 	public WorkItemManager getWorkItemManager() {
@@ -438,11 +416,34 @@ public class ProcessRuntimeImpl implements InternalProcessRuntime {
 	}
 
 	public void signalEvent(String type, Object event) {
+		ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+		long start = metrics.startTimer();
 		signalManager.signalEvent(type, event);
+		metrics.recordTime(ProcessMetrics.PROCESS_SIGNAL, getSignalMetricsKey(type), start);
 	}
 
 	public void signalEvent(String type, Object event, long processInstanceId) {
+		ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+		long start = metrics.startTimer();
 		signalManager.signalEvent(processInstanceId, type, event);
+		metrics.recordTime(ProcessMetrics.PROCESS_SIGNAL, getSignalMetricsKey(type), start);
+	}
+
+	/**
+	 * Strips the id suffix of signal types such as <code>processInstanceCompleted:42</code>,
+	 * so signals are measured per kind instead of per process instance.
+	 */
+	static String getSignalMetricsKey(String type) {
+		int index = type == null ? -1 : type.lastIndexOf(':');
+		if (index < 0 || index == type.length() - 1) {
+			return type;
+		}
+		for (int i = index + 1; i < type.length(); i++) {
+			if (!Character.isDigit(type.charAt(i))) {
+				return type;
+			}
+		}
+		return type.substring(0, index);
 	}
 	
 	public void setProcessEventSupport(ProcessEventSupport processEventSupport) {
@@ -0,0 +1,237 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.process.instance;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jbpm.process.core.event.EventFilter;
+import org.jbpm.process.core.event.EventTypeFilter;
+import org.jbpm.ruleflow.core.RuleFlowProcess;
+import org.jbpm.workflow.core.node.EventTrigger;
+import org.jbpm.workflow.core.node.StartNode;
+import org.jbpm.workflow.core.node.Trigger;
+import org.kie.api.KieBase;
+import org.kie.api.definition.process.Node;
+import org.kie.api.definition.process.Process;
+import org.kie.api.event.kiebase.AfterProcessAddedEvent;
+import org.kie.api.event.kiebase.AfterProcessRemovedEvent;
+import org.kie.api.event.kiebase.DefaultKieBaseEventListener;
+
+/**
+ * Keeps the start events and start timers of all processes of a knowledge base, so that
+ * new sessions do not have to walk every process definition to register them.
+ * The registry is created once per knowledge base and kept up to date when processes
+ * are added or removed. The information it hands out is immutable and shared by all
+ * sessions of the knowledge base.
+ */
+public class StartEventRegistry {
+
+    private static final Map<KieBase, StartEventRegistry> registries = new WeakHashMap<KieBase, StartEventRegistry>();
+
+    private volatile Map<String, ProcessStartEvents> processes;
+    private final Map<String, Class<?>> factories = new ConcurrentHashMap<String, Class<?>>();
+
+    public static StartEventRegistry get(KieBase kbase) {
+        synchronized (registries) {
+            StartEventRegistry registry = registries.get(kbase);
+            if (registry == null) {
+                registry = new StartEventRegistry(kbase);
+                registries.put(kbase, registry);
+            }
+            return registry;
+        }
+    }
+
+    private StartEventRegistry(KieBase kbase) {
+        Map<String, ProcessStartEvents> processes = new LinkedHashMap<String, ProcessStartEvents>();
+        for (Process process : kbase.getProcesses()) {
+            ProcessStartEvents startEvents = createStartEvents(process);
+            if (startEvents != null) {
+                processes.put(process.getId(), startEvents);
+            }
+        }
+        this.processes = Collections.unmodifiableMap(processes);
+        // the listener must not reference the knowledge base, otherwise it would never be released
+        kbase.addEventListener(new DefaultKieBaseEventListener() {
+            @Override
+            public void afterProcessAdded(AfterProcessAddedEvent event) {
+                getStartEvents(event.getProcess());
+            }
+            @Override
+            public void afterProcessRemoved(AfterProcessRemovedEvent event) {
+                removeStartEvents(event.getProcess().getId());
+            }
+        });
+    }
+
+    /**
+     * Returns the start events and start timers of all processes that have any.
+     */
+    public Collection<ProcessStartEvents> getStartEvents() {
+        return processes.values();
+    }
+
+    /**
+     * Returns the start events and start timers of the given process, or <code>null</code>
+     * when it has none. Sessions may be notified about a new process before the registry is,
+     * so the process is analyzed here if the registry does not know this version of it yet.
+     */
+    public ProcessStartEvents getStartEvents(Process process) {
+        ProcessStartEvents startEvents = processes.get(process.getId());
+        if (startEvents != null && startEvents.getProcess() == process) {
+            return startEvents;
+        }
+        startEvents = createStartEvents(process);
+        synchronized (this) {
+            Map<String, ProcessStartEvents> copy = new LinkedHashMap<String, ProcessStartEvents>(processes);
+            if (startEvents == null) {
+                copy.remove(process.getId());
+            } else {
+                copy.put(process.getId(), startEvents);
+            }
+            processes = Collections.unmodifiableMap(copy);
+        }
+        return startEvents;
+    }
+
+    private synchronized void removeStartEvents(String processId) {
+        if (processes.containsKey(processId)) {
+            Map<String, ProcessStartEvents> copy = new LinkedHashMap<String, ProcessStartEvents>(processes);
+            copy.remove(processId);
+            processes = Collections.unmodifiableMap(copy);
+        }
+    }
+
+    /**
+     * Creates an instance of the given factory class, e.g. the process instance manager
+     * or signal manager factory configured for the session. The class is only loaded once
+     * per knowledge base, but every session gets its own instance, as factories are not
+     * required to be stateless.
+     */
+    public Object getFactory(String className, ClassLoader classLoader) {
+        Class<?> factoryClass = factories.get(className);
+        try {
+            if (factoryClass == null) {
+                factoryClass = classLoader.loadClass(className);
+                factories.put(className, factoryClass);
+            }
+            return factoryClass.newInstance();
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        } catch (InstantiationException e) {
+            throw new RuntimeException(e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ProcessStartEvents createStartEvents(Process process) {
+        if (!(process instanceof RuleFlowProcess)) {
+            return null;
+        }
+        List<StartEvent> events = new ArrayList<StartEvent>();
+        List<StartNode> timers = new ArrayList<StartNode>();
+        for (Node node : ((RuleFlowProcess) process).getNodes()) {
+            if (node instanceof StartNode) {
+                StartNode startNode = (StartNode) node;
+                if (startNode.getTimer() != null) {
+                    timers.add(startNode);
+                }
+                List<Trigger> triggers = startNode.getTriggers();
+                if (triggers != null) {
+                    for (Trigger trigger : triggers) {
+                        if (trigger instanceof EventTrigger) {
+                            List<EventFilter> filters = ((EventTrigger) trigger).getEventFilters();
+                            String type = null;
+                            for (EventFilter filter : filters) {
+                                if (filter instanceof EventTypeFilter) {
+                                    type = ((EventTypeFilter) filter).getType();
+                                }
+                            }
+                            events.add(new StartEvent(type, filters, trigger.getInMappings()));
+                        }
+                    }
+                }
+            }
+        }
+        if (events.isEmpty() && timers.isEmpty()) {
+            return null;
+        }
+        return new ProcessStartEvents(process, events, timers);
+    }
+
+    public static class ProcessStartEvents {
+
+        private final Process process;
+        private final List<StartEvent> events;
+        private final List<StartNode> timers;
+
+        ProcessStartEvents(Process process, List<StartEvent> events, List<StartNode> timers) {
+            this.process = process;
+            this.events = Collections.unmodifiableList(events);
+            this.timers = Collections.unmodifiableList(timers);
+        }
+
+        public Process getProcess() {
+            return process;
+        }
+
+        public String getProcessId() {
+            return process.getId();
+        }
+
+        public List<StartEvent> getEvents() {
+            return events;
+        }
+
+        public List<StartNode> getTimers() {
+            return timers;
+        }
+    }
+
+    public static class StartEvent {
+
+        private final String type;
+        private final List<EventFilter> eventFilters;
+        private final Map<String, String> inMappings;
+
+        StartEvent(String type, List<EventFilter> eventFilters, Map<String, String> inMappings) {
+            this.type = type;
+            this.eventFilters = eventFilters;
+            this.inMappings = inMappings;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public List<EventFilter> getEventFilters() {
+            return eventFilters;
+        }
+
+        public Map<String, String> getInMappings() {
+            return inMappings;
+        }
+    }
+}
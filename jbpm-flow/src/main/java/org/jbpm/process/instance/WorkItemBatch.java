@@ -0,0 +1,100 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.process.instance;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Marks a section of the engine, e.g. the triggering of all instances of a multi instance
+ * node, in which many work items are created at once. Work item handlers that are able to
+ * process several work items together may register a {@link Callback} while a batch is
+ * active and defer their work until the outermost batch ends.
+ * <p>
+ * Batches are bound to the current thread and may be nested.
+ */
+public final class WorkItemBatch {
+
+    private static final ThreadLocal<WorkItemBatch> current = new ThreadLocal<WorkItemBatch>();
+
+    private final Map<Object, Callback> callbacks = new LinkedHashMap<Object, Callback>();
+    private int depth;
+
+    private WorkItemBatch() {
+    }
+
+    public static void begin() {
+        WorkItemBatch batch = current.get();
+        if (batch == null) {
+            batch = new WorkItemBatch();
+            current.set(batch);
+        }
+        batch.depth++;
+    }
+
+    /**
+     * Ends the batch. When the outermost batch ends successfully, the registered callbacks
+     * are flushed in the order they were registered; otherwise they are discarded.
+     */
+    public static void end(boolean success) {
+        WorkItemBatch batch = current.get();
+        if (batch == null) {
+            throw new IllegalStateException("No work item batch is active");
+        }
+        if (--batch.depth > 0) {
+            return;
+        }
+        current.remove();
+        if (success) {
+            List<Callback> callbacks = new ArrayList<Callback>(batch.callbacks.values());
+            for (Callback callback : callbacks) {
+                callback.flush();
+            }
+        }
+    }
+
+    public static boolean isActive() {
+        return current.get() != null;
+    }
+
+    /**
+     * Returns the callback registered under the given key in the active batch, or <code>null</code>.
+     */
+    public static Callback getCallback(Object key) {
+        WorkItemBatch batch = current.get();
+        return batch == null ? null : batch.callbacks.get(key);
+    }
+
+    /**
+     * Registers a callback under the given key in the active batch.
+     */
+    public static void addCallback(Object key, Callback callback) {
+        WorkItemBatch batch = current.get();
+        if (batch == null) {
+            throw new IllegalStateException("No work item batch is active");
+        }
+        batch.callbacks.put(key, callback);
+    }
+
+    public interface Callback {
+
+        void flush();
+
+    }
+}
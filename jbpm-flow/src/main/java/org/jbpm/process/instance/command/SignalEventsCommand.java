@@ -0,0 +1,107 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.process.instance.command;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.drools.core.command.impl.GenericCommand;
+import org.drools.core.command.impl.KnowledgeCommandContext;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.command.Context;
+
+/**
+ * Delivers several signals to one process instance, in the order they were added, within
+ * one command. With a persistent session the process instance is then loaded and stored
+ * once for all signals instead of once per signal.
+ * <p>
+ * The command counts the signals it delivered, so that after a failure the signals that were
+ * already applied to a session without transactions are not delivered again.
+ * <p>
+ * The command is meant to be executed within the engine, e.g. by {@link org.jbpm.process.instance.event.SignalInbox},
+ * and is not mapped for remote execution.
+ */
+public class SignalEventsCommand implements GenericCommand<Object> {
+
+    private static final long serialVersionUID = 6L;
+
+    private Long processInstanceId;
+
+    private List<String> types = new ArrayList<String>();
+
+    private List<Object> events = new ArrayList<Object>();
+
+    private transient int deliveredCount;
+
+    public SignalEventsCommand() {
+    }
+
+    public SignalEventsCommand(Long processInstanceId) {
+        this.processInstanceId = processInstanceId;
+    }
+
+    public void addSignal(String type, Object event) {
+        types.add(type);
+        events.add(event);
+    }
+
+    public int getSignalCount() {
+        return types.size();
+    }
+
+    public Long getProcessInstanceId() {
+        return processInstanceId;
+    }
+
+    public void setProcessInstanceId(Long processInstanceId) {
+        this.processInstanceId = processInstanceId;
+    }
+
+    public List<String> getTypes() {
+        return types;
+    }
+
+    public List<Object> getEvents() {
+        return events;
+    }
+
+    /**
+     * Returns the number of signals delivered by the last execution of this command.
+     * When the execution failed, this is the index of the signal that failed.
+     */
+    public int getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    public Object execute(Context context) {
+        KieSession ksession = ((KnowledgeCommandContext) context).getKieSession();
+        deliveredCount = 0;
+        if (processInstanceId == null) {
+            return null;
+        }
+        for (int i = 0; i < types.size(); i++) {
+            ksession.signalEvent(types.get(i), i < events.size() ? events.get(i) : null, processInstanceId);
+            deliveredCount++;
+        }
+        return null;
+    }
+
+    public String toString() {
+        return "session.signalEvent(" + types + ", " + processInstanceId + ");";
+    }
+
+}
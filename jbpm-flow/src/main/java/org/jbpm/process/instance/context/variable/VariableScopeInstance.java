@@ -17,8 +17,9 @@
 package org.jbpm.process.instance.context.variable;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import org.drools.core.event.ProcessEventSupport;
 import org.jbpm.process.core.context.variable.Variable;
@@ -37,7 +38,8 @@ public class VariableScopeInstance extends AbstractContextInstance {
 
     private static final long serialVersionUID = 510l;
     
-    private Map<String, Object> variables = new HashMap<String, Object>();
+    // sorted so marshallers can write variables in a deterministic order without sorting
+    private Map<String, Object> variables = new TreeMap<String, Object>();
     private transient String variableIdPrefix = null;
     private transient String variableInstanceIdPrefix = null;
 
@@ -46,10 +48,34 @@ public class VariableScopeInstance extends AbstractContextInstance {
     }
 
     public Object getVariable(String name) {
-        return variables.get(name);
+        if (name == null) {
+            return null;
+        }
+        Object value = variables.get(name);
+        if (value instanceof LazyVariableValue) {
+            value = ((LazyVariableValue) value).resolve();
+            variables.put(name, value);
+        }
+        return value;
     }
 
     public Map<String, Object> getVariables() {
+        for (Map.Entry<String, Object> entry : variables.entrySet()) {
+            if (entry.getValue() instanceof LazyVariableValue) {
+                entry.setValue(((LazyVariableValue) entry.getValue()).resolve());
+            }
+        }
+        return Collections.unmodifiableMap(variables);
+    }
+
+    /**
+     * Returns the variables without resolving {@link LazyVariableValue}s, used by marshallers
+     * to write back values that were not accessed.
+     */
+    public Map<String, Object> internalGetVariables() {
+        if (variables instanceof SortedMap) {
+            return Collections.unmodifiableSortedMap((SortedMap<String, Object>) variables);
+        }
         return Collections.unmodifiableMap(variables);
     }
 
@@ -58,7 +84,7 @@ public class VariableScopeInstance extends AbstractContextInstance {
             throw new IllegalArgumentException(
                 "The name of a variable may not be null!");
         }
-        Object oldValue = variables.get(name);
+        Object oldValue = getVariable(name);
         if (oldValue == null) {
         	if (value == null) {
         		return;
@@ -0,0 +1,262 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.process.instance.event;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.jbpm.process.instance.command.SignalEventsCommand;
+import org.jbpm.process.instance.metrics.ProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetricsProvider;
+import org.kie.api.runtime.EnvironmentName;
+import org.kie.api.runtime.KieSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queues signals for process instances and delivers the signals that arrive for one process
+ * instance within a short window together, in one {@link SignalEventsCommand}. With a
+ * persistent session a burst of signals then costs one load and one store of the process
+ * instance instead of one per signal.
+ * <p>
+ * Signals are delivered asynchronously by one daemon thread, so the signals of a process
+ * instance are always delivered in the order they were queued. A batch is delivered when its
+ * window expires, when it reaches the maximum batch size or when the inbox is flushed.
+ * The defaults are configured through <code>org.jbpm.signal.inbox.window</code> in
+ * milliseconds, 10 by default, and <code>org.jbpm.signal.inbox.max.batch</code>, 100 by default.
+ * <p>
+ * One failing signal does not discard the others of its batch. When the session rolls the
+ * failed batch back, its signals are delivered again one at a time. Otherwise the signals before
+ * the failing one have already been applied, so only the signals after it are delivered again.
+ * Signals that fail are logged, as the senders have already returned. The sizes of the delivered batches are recorded under
+ * {@link ProcessMetrics#SIGNAL_BATCH_SIZE}.
+ */
+public class SignalInbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalInbox.class);
+
+    private final KieSession ksession;
+    private final long window;
+    private final int maxBatch;
+    private final String metricsKey;
+
+    private final Map<Long, SignalEventsCommand> pending = new HashMap<Long, SignalEventsCommand>();
+    private final ScheduledExecutorService executor;
+    private boolean closed;
+
+    public SignalInbox(KieSession ksession) {
+        this(ksession,
+             Long.parseLong(System.getProperty("org.jbpm.signal.inbox.window", "10")),
+             Integer.parseInt(System.getProperty("org.jbpm.signal.inbox.max.batch", "100")));
+    }
+
+    /**
+     * @param ksession the session the signals are delivered to
+     * @param window the time in milliseconds signals for a process instance are collected
+     * @param maxBatch the maximum number of signals delivered in one command
+     */
+    public SignalInbox(KieSession ksession, long window, int maxBatch) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("Maximum batch size must be positive: " + maxBatch);
+        }
+        this.ksession = ksession;
+        this.window = window;
+        this.maxBatch = maxBatch;
+        this.metricsKey = String.valueOf(ksession.getId());
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "jbpm-signal-inbox");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Queues the given signal for the given process instance.
+     */
+    public synchronized void signalEvent(String type, Object event, long processInstanceId) {
+        if (closed) {
+            throw new IllegalStateException("Signal inbox is closed");
+        }
+        SignalEventsCommand command = pending.get(processInstanceId);
+        if (command == null) {
+            command = new SignalEventsCommand(processInstanceId);
+            pending.put(processInstanceId, command);
+            executor.schedule(new WindowExpiry(command), window, TimeUnit.MILLISECONDS);
+        }
+        command.addSignal(type, event);
+        if (command.getSignalCount() >= maxBatch) {
+            pending.remove(processInstanceId);
+            executor.execute(new Delivery(command));
+        }
+    }
+
+    /**
+     * Delivers all queued signals and waits until they are delivered.
+     */
+    public void flush() {
+        Future<?> delivered;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            delivered = deliverPending();
+        }
+        await(delivered);
+    }
+
+    /**
+     * Delivers all queued signals and stops the delivery thread.
+     */
+    public void close() {
+        Future<?> delivered;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            delivered = deliverPending();
+        }
+        await(delivered);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the number of process instances with queued signals.
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Executes the command delivering a batch of signals. Subclasses may override this,
+     * e.g. to obtain the session of the process instance from a runtime manager.
+     */
+    protected void execute(SignalEventsCommand command) {
+        ksession.execute(command);
+    }
+
+    private Future<?> deliverPending() {
+        for (SignalEventsCommand command : new ArrayList<SignalEventsCommand>(pending.values())) {
+            executor.execute(new Delivery(command));
+        }
+        pending.clear();
+        // the executor runs tasks due at the same time in submission order
+        return executor.submit(new Runnable() {
+            public void run() {
+            }
+        });
+    }
+
+    private void await(Future<?> delivered) {
+        try {
+            delivered.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // cannot happen, the marker task does nothing
+        }
+    }
+
+    private void deliver(SignalEventsCommand command) {
+        try {
+            execute(command);
+            ProcessMetricsProvider.getMetrics().recordValue(ProcessMetrics.SIGNAL_BATCH_SIZE, metricsKey, command.getSignalCount());
+        } catch (Exception e) {
+            if (command.getSignalCount() == 1) {
+                logger.error("Unable to deliver signal {} to process instance {}",
+                        command.getTypes().get(0), command.getProcessInstanceId(), e);
+                return;
+            }
+            if (isRolledBackOnFailure()) {
+                // the whole batch was rolled back, so the signals are delivered again one by one
+                logger.warn("Unable to deliver signals {} to process instance {} together, delivering them one by one: {}",
+                        command.getTypes(), command.getProcessInstanceId(), e.getMessage());
+                for (int i = 0; i < command.getSignalCount(); i++) {
+                    deliver(copy(command, i, i + 1));
+                }
+                return;
+            }
+            // the signals before the failing one stay applied, so only the ones after it are delivered again
+            int failed = command.getDeliveredCount();
+            logger.error("Unable to deliver signal {} to process instance {}",
+                    command.getTypes().get(failed), command.getProcessInstanceId(), e);
+            if (failed + 1 < command.getSignalCount()) {
+                deliver(copy(command, failed + 1, command.getSignalCount()));
+            }
+        }
+    }
+
+    /**
+     * Returns true if the session rolls back all signals of a batch when one of them fails,
+     * which is the case for sessions with a transaction manager, i.e. persistent sessions.
+     * Subclasses that execute the commands on another session should override this.
+     */
+    protected boolean isRolledBackOnFailure() {
+        return ksession.getEnvironment().get(EnvironmentName.TRANSACTION_MANAGER) != null;
+    }
+
+    private SignalEventsCommand copy(SignalEventsCommand command, int from, int to) {
+        SignalEventsCommand copy = new SignalEventsCommand(command.getProcessInstanceId());
+        for (int i = from; i < to; i++) {
+            copy.addSignal(command.getTypes().get(i), command.getEvents().get(i));
+        }
+        return copy;
+    }
+
+    private class WindowExpiry implements Runnable {
+
+        private final SignalEventsCommand command;
+
+        private WindowExpiry(SignalEventsCommand command) {
+            this.command = command;
+        }
+
+        public void run() {
+            synchronized (SignalInbox.this) {
+                // the batch may have been delivered already because it was full or flushed
+                if (pending.get(command.getProcessInstanceId()) != command) {
+                    return;
+                }
+                pending.remove(command.getProcessInstanceId());
+            }
+            deliver(command);
+        }
+    }
+
+    private class Delivery implements Runnable {
+
+        private final SignalEventsCommand command;
+
+        private Delivery(SignalEventsCommand command) {
+            this.command = command;
+        }
+
+        public void run() {
+            deliver(command);
+        }
+    }
+
+}
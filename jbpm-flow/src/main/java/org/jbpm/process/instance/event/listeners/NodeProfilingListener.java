@@ -0,0 +1,434 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.process.instance.event.listeners;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jbpm.process.instance.metrics.InMemoryProcessMetrics.Histogram;
+import org.jbpm.workflow.instance.impl.NodeInstanceImpl;
+import org.kie.api.definition.process.Node;
+import org.kie.api.event.process.DefaultProcessEventListener;
+import org.kie.api.event.process.ProcessCompletedEvent;
+import org.kie.api.event.process.ProcessNodeLeftEvent;
+import org.kie.api.event.process.ProcessNodeTriggeredEvent;
+import org.kie.api.runtime.process.NodeInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lightweight in memory profiler that aggregates per process and node how often nodes
+ * are triggered and how long they take, without writing any audit data.
+ * <p>
+ * Two timings are kept for every node:
+ * <ul>
+ *  <li>execution time: from the moment the node is triggered until it either leaves or
+ *  hands control back as a wait state, i.e. the time spent in actions, scripts, work item
+ *  handlers or gateway conditions of the node itself</li>
+ *  <li>time in node: from the moment the node is triggered until it leaves, which includes
+ *  the time spent waiting for work items, timers or signals</li>
+ * </ul>
+ * The listener can be shared by any number of sessions, as long as their process instance ids
+ * are unique, as is the case with persistence. Statistics can be queried at any time or exported
+ * periodically with {@link #scheduleExport(long, TimeUnit, SnapshotExporter)}.
+ */
+public class NodeProfilingListener extends DefaultProcessEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(NodeProfilingListener.class);
+
+    private static final int DEFAULT_MAX_ACTIVE = 100000;
+
+    private final ConcurrentMap<String, NodeProfile> profiles = new ConcurrentHashMap<String, NodeProfile>();
+    // node instances that have been triggered but not left yet, per process instance and unique node instance id,
+    // as ids of node instances are only unique within their composite node instance
+    private final ConcurrentMap<Long, ConcurrentMap<String, ActiveNode>> active = new ConcurrentHashMap<Long, ConcurrentMap<String, ActiveNode>>();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final int maxActive;
+
+    private ScheduledExecutorService exportService;
+
+    public NodeProfilingListener() {
+        this(DEFAULT_MAX_ACTIVE);
+    }
+
+    /**
+     * @param maxActive the maximum number of node instances tracked at the same time; node
+     * instances triggered beyond that are only counted, so that wait states of process instances
+     * that are never completed in this JVM cannot exhaust memory
+     */
+    public NodeProfilingListener(int maxActive) {
+        this.maxActive = maxActive;
+    }
+
+    @Override
+    public void beforeNodeTriggered(ProcessNodeTriggeredEvent event) {
+        NodeInstance nodeInstance = event.getNodeInstance();
+        NodeProfile profile = getProfile(event.getProcessInstance().getProcessId(), nodeInstance.getNode());
+        profile.triggered.incrementAndGet();
+        if (activeCount.get() >= maxActive) {
+            return;
+        }
+        long processInstanceId = event.getProcessInstance().getId();
+        ConcurrentMap<String, ActiveNode> nodes = active.get(processInstanceId);
+        if (nodes == null) {
+            nodes = new ConcurrentHashMap<String, ActiveNode>();
+            ConcurrentMap<String, ActiveNode> existing = active.putIfAbsent(processInstanceId, nodes);
+            if (existing != null) {
+                nodes = existing;
+            }
+        }
+        if (nodes.put(getUniqueId(nodeInstance), new ActiveNode(profile, System.nanoTime())) == null) {
+            activeCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void afterNodeTriggered(ProcessNodeTriggeredEvent event) {
+        ActiveNode activeNode = getActiveNode(event.getProcessInstance().getId(), getUniqueId(event.getNodeInstance()), false);
+        if (activeNode != null && !activeNode.executed) {
+            // the node did not leave while being triggered, so it is waiting
+            activeNode.executed = true;
+            activeNode.profile.executionTime.record(System.nanoTime() - activeNode.start);
+        }
+    }
+
+    @Override
+    public void beforeNodeLeft(ProcessNodeLeftEvent event) {
+        ActiveNode activeNode = getActiveNode(event.getProcessInstance().getId(), getUniqueId(event.getNodeInstance()), true);
+        if (activeNode != null) {
+            long duration = System.nanoTime() - activeNode.start;
+            if (!activeNode.executed) {
+                activeNode.profile.executionTime.record(duration);
+            }
+            activeNode.profile.timeInNode.record(duration);
+            activeNode.profile.left.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void afterProcessCompleted(ProcessCompletedEvent event) {
+        // node instances that were cancelled never leave
+        ConcurrentMap<String, ActiveNode> nodes = active.remove(event.getProcessInstance().getId());
+        if (nodes != null) {
+            activeCount.addAndGet(-nodes.size());
+        }
+    }
+
+    private NodeProfile getProfile(String processId, Node node) {
+        String nodeId = node instanceof org.jbpm.workflow.core.Node ?
+            ((org.jbpm.workflow.core.Node) node).getUniqueId() : String.valueOf(node.getId());
+        String key = processId + "#" + nodeId;
+        NodeProfile profile = profiles.get(key);
+        if (profile == null) {
+            profile = new NodeProfile(processId, nodeId, node.getName());
+            NodeProfile existing = profiles.putIfAbsent(key, profile);
+            if (existing != null) {
+                profile = existing;
+            }
+        }
+        return profile;
+    }
+
+    private static String getUniqueId(NodeInstance nodeInstance) {
+        return nodeInstance instanceof NodeInstanceImpl ?
+            ((NodeInstanceImpl) nodeInstance).getUniqueId() : String.valueOf(nodeInstance.getId());
+    }
+
+    private ActiveNode getActiveNode(long processInstanceId, String nodeInstanceId, boolean remove) {
+        ConcurrentMap<String, ActiveNode> nodes = active.get(processInstanceId);
+        if (nodes == null) {
+            return null;
+        }
+        if (!remove) {
+            return nodes.get(nodeInstanceId);
+        }
+        ActiveNode activeNode = nodes.remove(nodeInstanceId);
+        if (activeNode != null) {
+            activeCount.decrementAndGet();
+        }
+        return activeNode;
+    }
+
+    /**
+     * Returns the statistics of the given node of the given process, or <code>null</code>
+     * if it has not been triggered yet.
+     */
+    public NodeStatistics getStatistics(String processId, String nodeId) {
+        NodeProfile profile = profiles.get(processId + "#" + nodeId);
+        return profile == null ? null : profile.snapshot();
+    }
+
+    /**
+     * Returns the statistics of all nodes that have been triggered.
+     */
+    public List<NodeStatistics> getStatistics() {
+        List<NodeStatistics> result = new ArrayList<NodeStatistics>(profiles.size());
+        for (NodeProfile profile : profiles.values()) {
+            result.add(profile.snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the statistics of the nodes with the highest total execution time.
+     */
+    public List<NodeStatistics> getHottestNodes(int max) {
+        List<NodeStatistics> result = getStatistics();
+        Collections.sort(result, new Comparator<NodeStatistics>() {
+            public int compare(NodeStatistics o1, NodeStatistics o2) {
+                long t1 = o1.getExecutionTime().getTotal();
+                long t2 = o2.getExecutionTime().getTotal();
+                return t1 < t2 ? 1 : (t1 == t2 ? 0 : -1);
+            }
+        });
+        return result.size() > max ? new ArrayList<NodeStatistics>(result.subList(0, max)) : result;
+    }
+
+    /**
+     * Returns the number of node instances currently tracked as active.
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * Discards all collected statistics, including the pending measurements of active node instances.
+     */
+    public void reset() {
+        profiles.clear();
+        for (Long processInstanceId : active.keySet()) {
+            ConcurrentMap<String, ActiveNode> nodes = active.remove(processInstanceId);
+            if (nodes != null) {
+                activeCount.addAndGet(-nodes.size());
+            }
+        }
+    }
+
+    /**
+     * Hands a snapshot of all statistics to the given exporter at a fixed rate, using a
+     * daemon thread. Only one export can be scheduled at a time.
+     */
+    public synchronized void scheduleExport(long period, TimeUnit unit, final SnapshotExporter exporter) {
+        if (exportService != null) {
+            throw new IllegalStateException("Export is already scheduled");
+        }
+        exportService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "jbpm-node-profiling-export");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        exportService.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                try {
+                    exporter.export(getStatistics());
+                } catch (Exception e) {
+                    logger.warn("Unable to export node statistics", e);
+                }
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stops the periodic export, if any.
+     */
+    public synchronized void stopExport() {
+        if (exportService != null) {
+            exportService.shutdownNow();
+            exportService = null;
+        }
+    }
+
+    /**
+     * Receives the statistics of all nodes when exporting periodically.
+     */
+    public interface SnapshotExporter {
+
+        void export(List<NodeStatistics> statistics);
+
+    }
+
+    /**
+     * {@link SnapshotExporter} writing the statistics of every node to the log.
+     */
+    public static class LoggingSnapshotExporter implements SnapshotExporter {
+
+        public void export(List<NodeStatistics> statistics) {
+            for (NodeStatistics s : statistics) {
+                logger.info("{}", s);
+            }
+        }
+
+    }
+
+    private static class NodeProfile {
+
+        private final String processId;
+        private final String nodeId;
+        private final String nodeName;
+        private final AtomicLong triggered = new AtomicLong();
+        private final AtomicLong left = new AtomicLong();
+        private final Histogram executionTime = new Histogram();
+        private final Histogram timeInNode = new Histogram();
+
+        NodeProfile(String processId, String nodeId, String nodeName) {
+            this.processId = processId;
+            this.nodeId = nodeId;
+            this.nodeName = nodeName;
+        }
+
+        NodeStatistics snapshot() {
+            return new NodeStatistics(processId, nodeId, nodeName, triggered.get(), left.get(),
+                new Timing(executionTime), new Timing(timeInNode));
+        }
+    }
+
+    private static class ActiveNode {
+
+        private final NodeProfile profile;
+        private final long start;
+        private volatile boolean executed;
+
+        ActiveNode(NodeProfile profile, long start) {
+            this.profile = profile;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Immutable statistics of a node at the time they were requested.
+     */
+    public static class NodeStatistics {
+
+        private final String processId;
+        private final String nodeId;
+        private final String nodeName;
+        private final long triggerCount;
+        private final long leaveCount;
+        private final Timing executionTime;
+        private final Timing timeInNode;
+
+        NodeStatistics(String processId, String nodeId, String nodeName, long triggerCount, long leaveCount,
+                       Timing executionTime, Timing timeInNode) {
+            this.processId = processId;
+            this.nodeId = nodeId;
+            this.nodeName = nodeName;
+            this.triggerCount = triggerCount;
+            this.leaveCount = leaveCount;
+            this.executionTime = executionTime;
+            this.timeInNode = timeInNode;
+        }
+
+        public String getProcessId() {
+            return processId;
+        }
+
+        /**
+         * Returns the unique id of the node, which includes the ids of the composite nodes it is nested in.
+         */
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public String getNodeName() {
+            return nodeName;
+        }
+
+        public long getTriggerCount() {
+            return triggerCount;
+        }
+
+        public long getLeaveCount() {
+            return leaveCount;
+        }
+
+        public Timing getExecutionTime() {
+            return executionTime;
+        }
+
+        public Timing getTimeInNode() {
+            return timeInNode;
+        }
+
+        @Override
+        public String toString() {
+            return "Node " + processId + "#" + nodeId + " (" + nodeName + ") triggered=" + triggerCount
+                + " left=" + leaveCount + " execution=" + executionTime + " inNode=" + timeInNode;
+        }
+    }
+
+    /**
+     * Immutable summary of measured times in nanoseconds.
+     */
+    public static class Timing {
+
+        private final long count;
+        private final long total;
+        private final long max;
+        private final double mean;
+        private final long p50;
+        private final long p99;
+
+        Timing(Histogram histogram) {
+            this.count = histogram.getCount();
+            this.total = histogram.getTotal();
+            this.max = histogram.getMax();
+            this.mean = histogram.getMean();
+            this.p50 = histogram.getPercentile(50);
+            this.p99 = histogram.getPercentile(99);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        @Override
+        public String toString() {
+            return "[count=" + count + " mean=" + (long) mean + "ns p50=" + p50 + "ns p99=" + p99 + "ns max=" + max + "ns]";
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.process.instance.metrics;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link ProcessMetrics} keeping counters and histograms in memory, e.g. to be exposed
+ * through JMX or inspected in tests.
+ * <p>
+ * The number of counters and histograms is bounded, by default to the value of
+ * <code>org.jbpm.metrics.max.names</code> or 10000. Once the bound is reached, values
+ * for new keys are recorded under {@link #OVERFLOW_KEY} of their metric.
+ */
+public class InMemoryProcessMetrics implements ProcessMetrics {
+
+    public static final String OVERFLOW_KEY = "other";
+
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxNames;
+
+    public InMemoryProcessMetrics() {
+        this(Integer.parseInt(System.getProperty("org.jbpm.metrics.max.names", "10000")));
+    }
+
+    /**
+     * @param maxNames the maximum number of counters and histograms kept
+     */
+    public InMemoryProcessMetrics(int maxNames) {
+        this.maxNames = maxNames;
+    }
+
+    public long startTimer() {
+        return System.nanoTime();
+    }
+
+    public void recordTime(String metric, String key, long startTime) {
+        recordValue(metric, key, System.nanoTime() - startTime);
+    }
+
+    public void recordValue(String metric, String key, long value) {
+        String name = getName(metric, key);
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            if (size.get() >= maxNames) {
+                name = getName(metric, OVERFLOW_KEY);
+                histogram = histograms.get(name);
+            }
+            if (histogram == null) {
+                histogram = new Histogram();
+                Histogram existing = histograms.putIfAbsent(name, histogram);
+                if (existing != null) {
+                    histogram = existing;
+                } else {
+                    size.incrementAndGet();
+                }
+            }
+        }
+        histogram.record(value);
+    }
+
+    public void increment(String metric, String key) {
+        String name = getName(metric, key);
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            if (size.get() >= maxNames) {
+                name = getName(metric, OVERFLOW_KEY);
+                counter = counters.get(name);
+            }
+            if (counter == null) {
+                counter = new AtomicLong();
+                AtomicLong existing = counters.putIfAbsent(name, counter);
+                if (existing != null) {
+                    counter = existing;
+                } else {
+                    size.incrementAndGet();
+                }
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    public long getCount(String metric, String key) {
+        AtomicLong counter = counters.get(getName(metric, key));
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * Returns the histogram of the given metric and key or <code>null</code> if nothing was recorded.
+     */
+    public Histogram getHistogram(String metric, String key) {
+        return histograms.get(getName(metric, key));
+    }
+
+    /**
+     * Returns the names of all counters and histograms, as <code>metric:key</code>.
+     */
+    public Set<String> getNames() {
+        Set<String> names = new HashSet<String>(counters.keySet());
+        names.addAll(histograms.keySet());
+        return Collections.unmodifiableSet(names);
+    }
+
+    public void clear() {
+        counters.clear();
+        histograms.clear();
+        size.set(0);
+    }
+
+    private static String getName(String metric, String key) {
+        return metric + ":" + key;
+    }
+
+    /**
+     * Histogram with power of two buckets, which bounds the error of the percentiles
+     * to a factor of two while using a fixed amount of memory.
+     */
+    public static class Histogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(63);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+        public void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            // bucket i holds the values from 2^i to 2^(i+1)-1, bucket 0 also holds 0
+            buckets.incrementAndGet(value == 0 ? 0 : 63 - Long.numberOfLeadingZeros(value));
+            count.incrementAndGet();
+            total.addAndGet(value);
+            long current = min.get();
+            while (value < current && !min.compareAndSet(current, value)) {
+                current = min.get();
+            }
+            current = max.get();
+            while (value > current && !max.compareAndSet(current, value)) {
+                current = max.get();
+            }
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getTotal() {
+            return total.get();
+        }
+
+        public long getMin() {
+            return count.get() == 0 ? 0 : min.get();
+        }
+
+        public long getMax() {
+            return count.get() == 0 ? 0 : max.get();
+        }
+
+        public double getMean() {
+            long n = count.get();
+            return n == 0 ? 0 : (double) total.get() / n;
+        }
+
+        /**
+         * Returns an upper bound of the given percentile (between 0 and 100) of the recorded values.
+         */
+        public long getPercentile(double percentile) {
+            long n = count.get();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100 * n);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min((1L << (i + 1)) - 1, getMax());
+                }
+            }
+            return getMax();
+        }
+    }
+}
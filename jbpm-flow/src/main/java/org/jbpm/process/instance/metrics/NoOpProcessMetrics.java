@@ -0,0 +1,36 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.process.instance.metrics;
+
+/**
+ * Default {@link ProcessMetrics} that does not record anything.
+ */
+public class NoOpProcessMetrics implements ProcessMetrics {
+
+    public long startTimer() {
+        return 0;
+    }
+
+    public void recordTime(String metric, String key, long startTime) {
+    }
+
+    public void recordValue(String metric, String key, long value) {
+    }
+
+    public void increment(String metric, String key) {
+    }
+
+}
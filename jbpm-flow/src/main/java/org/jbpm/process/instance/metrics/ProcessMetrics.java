@@ -0,0 +1,87 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.process.instance.metrics;
+
+/**
+ * Service provider interface for collecting metrics of the process engine.
+ * Every measurement is recorded under a metric name and a key, e.g. the process id,
+ * the node type or the runtime manager identifier it belongs to.
+ * <p>
+ * Implementations are installed through {@link ProcessMetricsProvider} and must be
+ * thread safe, as they are shared by all sessions.
+ */
+public interface ProcessMetrics {
+
+    /** Time to start a process instance, per process id. */
+    String PROCESS_START = "process.start";
+    /** Time to deliver a signal, per signal type without the id suffix of types like <code>processInstanceCompleted:&lt;id&gt;</code>. */
+    String PROCESS_SIGNAL = "process.signal";
+    /** Number of aborted process instances, per process id. */
+    String PROCESS_ABORT = "process.abort";
+    /** Time to create and hand over a work item, per node type such as <code>WorkItemNode</code> or <code>HumanTaskNode</code>. */
+    String WORK_ITEM_CREATE = "workitem.create";
+    /** Time to continue the process when a work item completes, per node type. */
+    String WORK_ITEM_COMPLETE = "workitem.complete";
+    /** Same as {@link #WORK_ITEM_CREATE}, per work item name, which tells the handlers of a node type apart. */
+    String WORK_ITEM_HANDLER_CREATE = "workitem.handler.create";
+    /** Same as {@link #WORK_ITEM_COMPLETE}, per work item name. */
+    String WORK_ITEM_HANDLER_COMPLETE = "workitem.handler.complete";
+    /** Time to load a process instance from the database, per process id. */
+    String PROCESS_INSTANCE_LOAD = "processinstance.load";
+    /** Time to unmarshal a process instance, per process id. */
+    String PROCESS_INSTANCE_UNMARSHAL = "processinstance.unmarshal";
+    /** Time to marshal a process instance, per process id. */
+    String PROCESS_INSTANCE_MARSHAL = "processinstance.marshal";
+    /** Size in bytes of the marshalled process instance, per process id. */
+    String PROCESS_INSTANCE_SIZE = "processinstance.size";
+    /** Delay between the scheduled and the actual firing of a timer in milliseconds, per process id for start
+     *  timers and under <code>timerTriggered</code> for timers of running process instances. */
+    String TIMER_LAG = "timer.lag";
+    /** Time to acquire a runtime engine, per runtime manager identifier. */
+    String RUNTIME_ACQUIRE = "runtime.acquire";
+    /** Time to dispose a runtime engine, per runtime manager identifier. */
+    String RUNTIME_DISPOSE = "runtime.dispose";
+    /** Number of commands that failed because of a concurrent update, per conflicting entity. */
+    String OPTIMISTIC_LOCK_CONFLICT = "optlock.conflict";
+    /** Number of commands that are retried after a concurrent update, per command. */
+    String OPTIMISTIC_LOCK_RETRY = "optlock.retry";
+    /** Number of commands that still failed after all retries, per command. */
+    String OPTIMISTIC_LOCK_FAILURE = "optlock.failure";
+    /** Number of signals delivered together by a signal inbox, per session id. Its mean is the
+     *  coalescing ratio of the inbox. */
+    String SIGNAL_BATCH_SIZE = "signal.batch.size";
+
+    /**
+     * Returns the start time of a measurement, to be passed to {@link #recordTime(String, String, long)}.
+     */
+    long startTimer();
+
+    /**
+     * Records the time in nanoseconds that passed since the given start time.
+     */
+    void recordTime(String metric, String key, long startTime);
+
+    /**
+     * Records a value, such as a size or a delay.
+     */
+    void recordValue(String metric, String key, long value);
+
+    /**
+     * Increments a counter.
+     */
+    void increment(String metric, String key);
+
+}
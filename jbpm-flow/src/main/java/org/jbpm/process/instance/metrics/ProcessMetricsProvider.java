@@ -0,0 +1,53 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.process.instance.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the {@link ProcessMetrics} used by the engine. The implementation can be set
+ * programmatically or with the <code>org.jbpm.metrics.impl</code> system property
+ * naming a class with a public no-argument constructor; by default nothing is recorded.
+ */
+public final class ProcessMetricsProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessMetricsProvider.class);
+
+    private static volatile ProcessMetrics metrics = createMetrics(System.getProperty("org.jbpm.metrics.impl"));
+
+    private ProcessMetricsProvider() {
+    }
+
+    public static ProcessMetrics getMetrics() {
+        return metrics;
+    }
+
+    public static void setMetrics(ProcessMetrics processMetrics) {
+        metrics = processMetrics == null ? new NoOpProcessMetrics() : processMetrics;
+    }
+
+    private static ProcessMetrics createMetrics(String className) {
+        if (className != null) {
+            try {
+                return (ProcessMetrics) Class.forName(className).newInstance();
+            } catch (Exception e) {
+                logger.warn("Unable to create process metrics {}, metrics are disabled", className, e);
+            }
+        }
+        return new NoOpProcessMetrics();
+    }
+}
@@ -45,6 +45,9 @@ import org.jbpm.process.core.timer.impl.RegisteredTimerServiceDelegate;
 import org.jbpm.process.instance.InternalProcessRuntime;
 import org.jbpm.process.instance.ProcessInstance;
 import org.jbpm.process.instance.ProcessRuntimeImpl;
+import org.jbpm.process.instance.metrics.NoOpProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetricsProvider;
 import org.jbpm.workflow.instance.impl.WorkflowProcessInstanceImpl;
 import org.kie.api.runtime.KieSession;
 import org.kie.api.time.SessionClock;
@@ -271,6 +274,27 @@ public class TimerManager {
         }
     }
 
+    /**
+     * Records how late the timer fires compared to when it was due. Cron timers are skipped
+     * as their due time cannot be derived from the timer instance.
+     */
+    private static void recordTimerLag(TimerInstance timer, String key, long now) {
+        ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+        if (metrics instanceof NoOpProcessMetrics || timer.getCronExpression() != null) {
+            return;
+        }
+        long due;
+        if (timer.getLastTriggered() == null) {
+            if (timer.getActivated() == null) {
+                return;
+            }
+            due = timer.getActivated().getTime() + timer.getDelay();
+        } else {
+            due = timer.getLastTriggered().getTime() + timer.getPeriod();
+        }
+        metrics.recordValue(ProcessMetrics.TIMER_LAG, key, Math.max(0, now - due));
+    }
+
     public static class ProcessJob implements Job, Serializable {
 
         private static final long serialVersionUID = 6004839244692770390L;
@@ -286,8 +310,9 @@ public class TimerManager {
                     throw new IllegalArgumentException("Could not find process instance for timer ");
                 }
 
-                ctx.getTimer().setLastTriggered(
-                        new Date(ctx.getKnowledgeRuntime().<SessionClock> getSessionClock().getCurrentTime()));
+                long now = ctx.getKnowledgeRuntime().<SessionClock> getSessionClock().getCurrentTime();
+                recordTimerLag(ctx.getTimer(), "timerTriggered", now);
+                ctx.getTimer().setLastTriggered(new Date(now));
 
                 // if there is no more trigger reset period on timer so its node instance can be removed
                 if (ctx.getTrigger().hasNextFireTime() == null) {
@@ -326,8 +351,9 @@ public class TimerManager {
             InternalKnowledgeRuntime kruntime = ctx.getKnowledgeRuntime();
             try {
 
-                ctx.getTimer().setLastTriggered(
-                        new Date(ctx.getKnowledgeRuntime().<SessionClock> getSessionClock().getCurrentTime()));
+                long now = ctx.getKnowledgeRuntime().<SessionClock> getSessionClock().getCurrentTime();
+                recordTimerLag(ctx.getTimer(), ctx.getProcessId(), now);
+                ctx.getTimer().setLastTriggered(new Date(now));
 
                 // if there is no more trigger reset period on timer so its node instance can be removed
                 if (ctx.getTrigger().hasNextFireTime() == null) {
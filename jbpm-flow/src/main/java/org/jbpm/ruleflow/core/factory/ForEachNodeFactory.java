@@ -76,6 +76,11 @@ public class ForEachNodeFactory extends RuleFlowNodeContainerFactory {
         return this;
     }
 
+    public ForEachNodeFactory completionWindow(int completionWindow) {
+        getForEachNode().setCompletionWindow(completionWindow);
+        return this;
+    }
+
     public ForEachNodeFactory linkIncomingConnections(long nodeId) {
     	this.linkedIncomingNodeId = nodeId;
         return this;
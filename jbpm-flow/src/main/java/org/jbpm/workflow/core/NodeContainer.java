@@ -46,4 +46,12 @@ public interface NodeContainer extends org.kie.api.definition.process.NodeContai
     
     Node internalGetNode(long id);
     
+    /**
+     * Returns precomputed views over the nodes of this container. Views are kept until
+     * a node is added or removed so they can be used on runtime paths without allocating.
+     * 
+     * @return views over the nodes of this container
+     */
+    NodeViews getNodeViews();
+    
 }
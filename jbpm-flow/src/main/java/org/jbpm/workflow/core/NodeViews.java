@@ -0,0 +1,216 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workflow.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jbpm.process.core.event.EventFilter;
+import org.jbpm.process.core.event.EventTypeFilter;
+import org.jbpm.workflow.core.node.BoundaryEventNode;
+import org.jbpm.workflow.core.node.EventNode;
+import org.jbpm.workflow.core.node.EventNodeInterface;
+import org.jbpm.workflow.core.node.EventSubProcessNode;
+import org.jbpm.workflow.core.node.StartNode;
+import org.kie.api.definition.process.Node;
+
+/**
+ * Precomputed views over the nodes of a node container. Node containers keep an instance
+ * until a node is added or removed, so runtime code can iterate nodes without allocating.
+ * <br/>
+ * The arrays are shared and must not be modified by callers.
+ */
+public final class NodeViews {
+
+    private static final Node[] EMPTY = new Node[0];
+
+    // incremented whenever a connection is added or removed from any node, views that depend
+    // on connections are recomputed when it changes (which in practice only happens while building)
+    private static final AtomicLong connectionsVersion = new AtomicLong();
+
+    private final Node[] nodes;
+    private final Node[] eventNodes;
+    private final Node[] startNodes;
+    private volatile ConnectionsView withoutIncomingConnections;
+    private volatile Map<String, Node[]> eventNodesByType;
+    private volatile Node[] dynamicEventNodes;
+
+    public NodeViews(Node[] nodes) {
+        this.nodes = nodes;
+        List<Node> events = new ArrayList<Node>();
+        List<Node> starts = new ArrayList<Node>();
+        for (Node node : nodes) {
+            if (node instanceof EventNodeInterface) {
+                events.add(node);
+            }
+            if (node instanceof StartNode) {
+                starts.add(node);
+            }
+        }
+        this.eventNodes = toArray(events);
+        this.startNodes = toArray(starts);
+    }
+
+    public static void connectionsChanged() {
+        connectionsVersion.incrementAndGet();
+    }
+
+    public Node[] getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return nodes implementing {@link EventNodeInterface}
+     */
+    public Node[] getEventNodes() {
+        return eventNodes;
+    }
+
+    /**
+     * Returns the event nodes that may accept an event of given type, in the order of
+     * {@link #getEventNodes()}. Nodes that only accept fixed event types are looked up in a
+     * table built on first use; nodes with other filters (variable based <code>#{}</code> types,
+     * custom filters, nested containers) are always returned, so callers must still check
+     * {@link EventNodeInterface#acceptsEvent(String, Object)}.
+     */
+    public Node[] getEventNodes(String type) {
+        Map<String, Node[]> byType = eventNodesByType;
+        if (byType == null) {
+            byType = buildEventDispatchTable();
+        }
+        Node[] candidates = byType.get(type);
+        return candidates != null ? candidates : dynamicEventNodes;
+    }
+
+    public Node[] getStartNodes() {
+        return startNodes;
+    }
+
+    public Node[] getNodesWithoutIncomingConnections() {
+        long version = connectionsVersion.get();
+        ConnectionsView view = withoutIncomingConnections;
+        if (view == null || view.version != version) {
+            List<Node> result = new ArrayList<Node>();
+            for (Node node : nodes) {
+                if (node.getIncomingConnections().isEmpty()) {
+                    result.add(node);
+                }
+            }
+            view = new ConnectionsView(version, toArray(result));
+            withoutIncomingConnections = view;
+        }
+        return view.nodes;
+    }
+
+    private Map<String, Node[]> buildEventDispatchTable() {
+        List<Set<String>> nodeTypes = new ArrayList<Set<String>>(eventNodes.length);
+        Set<String> allTypes = new LinkedHashSet<String>();
+        List<Node> dynamic = new ArrayList<Node>();
+        for (Node node : eventNodes) {
+            Set<String> types = getEventTypes(node);
+            nodeTypes.add(types);
+            if (types == null) {
+                dynamic.add(node);
+            } else {
+                allTypes.addAll(types);
+            }
+        }
+        Map<String, Node[]> byType = new HashMap<String, Node[]>();
+        for (String type : allTypes) {
+            List<Node> candidates = new ArrayList<Node>();
+            for (int i = 0; i < eventNodes.length; i++) {
+                Set<String> types = nodeTypes.get(i);
+                if (types == null || types.contains(type)) {
+                    candidates.add(eventNodes[i]);
+                }
+            }
+            byType.put(type, toArray(candidates));
+        }
+        this.dynamicEventNodes = toArray(dynamic);
+        this.eventNodesByType = byType;
+        return byType;
+    }
+
+    // fixed event types the node accepts, or null when acceptance can only be decided at runtime
+    private static Set<String> getEventTypes(Node node) {
+        if (node.getClass() == EventNode.class || node.getClass() == BoundaryEventNode.class) {
+            List<EventFilter> filters = ((EventNode) node).getEventFilters();
+            if (filters.isEmpty()) {
+                // accepts any event
+                return null;
+            }
+            // all filters must accept the event
+            String type = null;
+            for (EventFilter filter : filters) {
+                String filterType = getFixedType(filter);
+                if (filterType == null || (type != null && !type.equals(filterType))) {
+                    return null;
+                }
+                type = filterType;
+            }
+            return Collections.singleton(type);
+        }
+        if (node.getClass() == EventSubProcessNode.class) {
+            // any filter may accept the event
+            Set<String> types = new LinkedHashSet<String>();
+            for (EventTypeFilter filter : ((EventSubProcessNode) node).getEventTypeFilters()) {
+                String filterType = getFixedType(filter);
+                if (filterType == null) {
+                    return null;
+                }
+                types.add(filterType);
+            }
+            return types;
+        }
+        return null;
+    }
+
+    private static String getFixedType(EventFilter filter) {
+        if (filter.getClass() != EventTypeFilter.class) {
+            return null;
+        }
+        String type = ((EventTypeFilter) filter).getType();
+        if (type == null || type.contains("#{")) {
+            return null;
+        }
+        return type;
+    }
+
+    private static Node[] toArray(List<Node> nodes) {
+        if (nodes.isEmpty()) {
+            return EMPTY;
+        }
+        return nodes.toArray(new Node[nodes.size()]);
+    }
+
+    private static class ConnectionsView {
+        private final long version;
+        private final Node[] nodes;
+
+        private ConnectionsView(long version, Node[] nodes) {
+            this.version = version;
+            this.nodes = nodes;
+        }
+    }
+
+}
@@ -23,6 +23,7 @@ import java.util.Map;
 import org.kie.api.definition.process.Node;
 import org.jbpm.process.core.Context;
 import org.jbpm.workflow.core.NodeContainer;
+import org.jbpm.workflow.core.NodeViews;
 
 /**
  * 
@@ -33,6 +34,8 @@ public class NodeContainerImpl implements Serializable, NodeContainer {
     private static final long serialVersionUID = 510l;
 
     private Map<Long, Node> nodes;
+    // definitions are not changed once built so views are computed once and reused
+    private transient volatile NodeViews nodeViews;
 
     public NodeContainerImpl() {
         this.nodes = new HashMap<Long, Node>();
@@ -42,6 +45,7 @@ public class NodeContainerImpl implements Serializable, NodeContainer {
         validateAddNode(node);
         if (!this.nodes.containsValue(node)) {
             this.nodes.put(new Long(node.getId()), node);
+            this.nodeViews = null;
         }
     }
 
@@ -51,9 +55,20 @@ public class NodeContainerImpl implements Serializable, NodeContainer {
         }
     }
 
+    /**
+     * Returns the nodes of this container, the returned array is shared and must not be modified.
+     */
     public Node[] getNodes() {
-        return (Node[]) this.nodes.values()
-                .toArray(new Node[this.nodes.size()]);
+        return getNodeViews().getNodes();
+    }
+
+    public NodeViews getNodeViews() {
+        NodeViews views = this.nodeViews;
+        if (views == null) {
+            views = new NodeViews(this.nodes.values().toArray(new Node[this.nodes.size()]));
+            this.nodeViews = views;
+        }
+        return views;
     }
 
     public Node getNode(final long id) {
@@ -71,6 +86,7 @@ public class NodeContainerImpl implements Serializable, NodeContainer {
     public void removeNode(final Node node) {
         validateRemoveNode(node);
         this.nodes.remove(new Long(node.getId()));
+        this.nodeViews = null;
     }
 
     protected void validateRemoveNode(Node node) {
@@ -28,6 +28,7 @@ import org.jbpm.process.core.Context;
 import org.jbpm.process.core.ContextResolver;
 import org.jbpm.workflow.core.Constraint;
 import org.jbpm.workflow.core.Node;
+import org.jbpm.workflow.core.NodeViews;
 import org.jbpm.workflow.core.node.CompositeNode;
 import org.kie.api.definition.process.Connection;
 import org.kie.api.definition.process.NodeContainer;
@@ -110,6 +111,7 @@ public abstract class NodeImpl implements Node, Serializable, ContextResolver {
             this.incomingConnections.put(type, connections);
         }
         connections.add(connection);
+        NodeViews.connectionsChanged();
     }
 
     public void validateAddIncomingConnection(final String type, final Connection connection) {
@@ -159,6 +161,7 @@ public abstract class NodeImpl implements Node, Serializable, ContextResolver {
     public void removeIncomingConnection(final String type, final Connection connection) {
         validateRemoveIncomingConnection(type, connection);
         this.incomingConnections.get(type).remove(connection);
+        NodeViews.connectionsChanged();
     }
 
     public void validateRemoveIncomingConnection(final String type, final Connection connection) {
@@ -19,6 +19,7 @@ package org.jbpm.workflow.core.impl;
 import org.kie.api.definition.process.Node;
 import org.kie.api.definition.process.NodeContainer;
 import org.jbpm.process.core.impl.ProcessImpl;
+import org.jbpm.workflow.core.NodeViews;
 import org.jbpm.workflow.core.WorkflowProcess;
 
 /**
@@ -46,6 +47,10 @@ public class WorkflowProcessImpl extends ProcessImpl implements WorkflowProcess,
         return nodeContainer.getNodes();
     }
 
+    public NodeViews getNodeViews() {
+        return nodeContainer.getNodeViews();
+    }
+
     public Node getNode(final long id) {
         return nodeContainer.getNode(id);
     }
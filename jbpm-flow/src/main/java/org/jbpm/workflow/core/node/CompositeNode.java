@@ -28,6 +28,7 @@ import org.jbpm.workflow.core.NodeContainer;
 import org.jbpm.workflow.core.impl.ConnectionImpl;
 import org.jbpm.workflow.core.impl.NodeContainerImpl;
 import org.jbpm.workflow.core.impl.NodeImpl;
+import org.jbpm.workflow.core.NodeViews;
 
 /**
  * 
@@ -41,6 +42,8 @@ public class CompositeNode extends StateBasedNode implements NodeContainer, Even
     private Map<String, CompositeNode.NodeAndType> inConnectionMap = new HashMap<String, CompositeNode.NodeAndType>();
     private Map<String, CompositeNode.NodeAndType> outConnectionMap = new HashMap<String, CompositeNode.NodeAndType>();
 	private boolean cancelRemainingInstances = true;
+	// views over the nodes without the internal start and end nodes
+	private transient volatile NodeViews nodeViews;
 
 	
     public CompositeNode() {
@@ -56,20 +59,40 @@ public class CompositeNode extends StateBasedNode implements NodeContainer, Even
     }
 
     public Node[] getNodes() {
-    	List<Node> subNodes = new ArrayList<Node>();
-    	for (Node node: nodeContainer.getNodes()) {
-    		if (!(node instanceof CompositeNode.CompositeNodeStart) &&
-    				!(node instanceof CompositeNode.CompositeNodeEnd)) {
-    			subNodes.add(node);
-    		}
+    	return compositeNodeViews().getNodes();
+    }
+    
+    public NodeViews getNodeViews() {
+    	return compositeNodeViews();
+    }
+    
+    private NodeViews compositeNodeViews() {
+    	NodeViews views = this.nodeViews;
+    	if (views == null) {
+	    	List<Node> subNodes = new ArrayList<Node>();
+	    	for (Node node: nodeContainer.getNodes()) {
+	    		if (!(node instanceof CompositeNode.CompositeNodeStart) &&
+	    				!(node instanceof CompositeNode.CompositeNodeEnd)) {
+	    			subNodes.add(node);
+	    		}
+	    	}
+	    	views = new NodeViews(subNodes.toArray(new Node[subNodes.size()]));
+	    	this.nodeViews = views;
     	}
-    	return subNodes.toArray(new Node[subNodes.size()]);
+    	return views;
     }
     
     public Node[] internalGetNodes() {
     	return getNodes();
     }
 
+    /**
+     * Views over the nodes returned by {@link #internalGetNodes()}.
+     */
+    public NodeViews internalGetNodeViews() {
+    	return compositeNodeViews();
+    }
+
     public void addNode(Node node) {
     	// TODO find a more elegant solution for this
     	// preferrable remove id setting from this class
@@ -84,6 +107,7 @@ public class CompositeNode extends StateBasedNode implements NodeContainer, Even
 	        ((org.jbpm.workflow.core.Node) node).setId(++id);
     	}
     	nodeContainer.addNode(node);
+    	this.nodeViews = null;
         ((org.jbpm.workflow.core.Node) node).setNodeContainer(this);
     }
     
@@ -93,6 +117,7 @@ public class CompositeNode extends StateBasedNode implements NodeContainer, Even
     
     public void removeNode(Node node) {
         nodeContainer.removeNode(node);
+        this.nodeViews = null;
         ((org.jbpm.workflow.core.Node) node).setNodeContainer(null);
     }
     
@@ -101,7 +126,7 @@ public class CompositeNode extends StateBasedNode implements NodeContainer, Even
     }
     
 	public boolean acceptsEvent(String type, Object event) {
-		for (Node node: internalGetNodes()) {
+		for (Node node: internalGetNodeViews().getEventNodes(type)) {
 			if (node instanceof EventNodeInterface) {
 				if (((EventNodeInterface) node).acceptsEvent(type, event)) {
 					return true;
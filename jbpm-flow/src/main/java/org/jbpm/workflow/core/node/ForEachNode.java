@@ -26,6 +26,7 @@ import org.jbpm.process.core.context.variable.Variable;
 import org.jbpm.process.core.context.variable.VariableScope;
 import org.jbpm.workflow.core.impl.ConnectionImpl;
 import org.jbpm.workflow.core.impl.ExtendedNodeImpl;
+import org.jbpm.workflow.core.NodeViews;
 
 /**
  * A for each node.
@@ -45,6 +46,7 @@ public class ForEachNode extends CompositeContextNode {
     private String collectionExpression;
     private String outputCollectionExpression;
     private boolean waitForCompletion = true;
+    private int completionWindow = 0;
 
     public ForEachNode() {
         // Split
@@ -152,6 +154,10 @@ public class ForEachNode extends CompositeContextNode {
     	return super.getNodes();
     }
     
+    public NodeViews getNodeViews() {
+    	return getCompositeNode().getNodeViews();
+    }
+    
     public void removeNode(Node node) {
     	getCompositeNode().removeNode(node);
     }
@@ -241,6 +247,22 @@ public class ForEachNode extends CompositeContextNode {
         this.waitForCompletion = waitForCompletion;
     }
 
+    /**
+     * Returns the maximum number of iterations that are active at the same time,
+     * or <code>0</code> when all iterations are started at once.
+     */
+    public int getCompletionWindow() {
+        return completionWindow;
+    }
+
+    /**
+     * Limits the number of active iterations. When set, the next element of the
+     * collection is only started once one of the active iterations completes.
+     */
+    public void setCompletionWindow(int completionWindow) {
+        this.completionWindow = completionWindow;
+    }
+
    public class ForEachSplitNode extends ExtendedNodeImpl {
         private static final long serialVersionUID = 510l;
     }
@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.drools.core.common.InternalKnowledgeRuntime;
@@ -36,6 +37,7 @@ import org.jbpm.process.instance.context.variable.VariableScopeInstance;
 import org.jbpm.process.instance.impl.ProcessInstanceImpl;
 import org.jbpm.workflow.core.DroolsAction;
 import org.jbpm.workflow.core.impl.NodeImpl;
+import org.jbpm.workflow.core.NodeViews;
 import org.jbpm.workflow.core.node.EventNode;
 import org.jbpm.workflow.core.node.EventNodeInterface;
 import org.jbpm.workflow.core.node.EventSubProcessNode;
@@ -73,12 +75,16 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 	private Map<String, List<EventListener>> eventListeners = new HashMap<String, List<EventListener>>();
 	private Map<String, List<EventListener>> externalEventListeners = new HashMap<String, List<EventListener>>();
 	private List<String> completedNodeIds = new ArrayList<String>();
-	private Map<String, Integer> iterationLevels = new HashMap<String, Integer>();
+	private Map<String, Integer> iterationLevels = new TreeMap<String, Integer>();
 	private int currentLevel;
 
 	public NodeContainer getNodeContainer() {
 		return getWorkflowProcess();
 	}
+	
+	private NodeViews getNodeViews() {
+		return ((org.jbpm.workflow.core.NodeContainer) getWorkflowProcess()).getNodeViews();
+	}
 
 	public void addNodeInstance(final NodeInstance nodeInstance) {
 		((NodeInstanceImpl) nodeInstance).setId(nodeInstanceCounter++);
@@ -349,7 +355,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 		synchronized (this) {
 			registerExternalEventNodeListeners();
 			// activate timer event sub processes
-	        Node[] nodes = getNodeContainer().getNodes();
+	        Node[] nodes = getNodeViews().getEventNodes();
 	        for (Node node : nodes) {
 	            if (node instanceof EventSubProcessNode) {
 	                Map<Timer, DroolsAction> timers = ((EventSubProcessNode) node).getTimers();
@@ -364,7 +370,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 	}
 
 	private void registerExternalEventNodeListeners() {
-		for (Node node : getWorkflowProcess().getNodes()) {
+		for (Node node : getNodeViews().getEventNodes()) {
 			if (node instanceof EventNode) {
 				if ("external".equals(((EventNode) node).getScope())) {
 					addEventListener(((EventNode) node).getType(),
@@ -383,7 +389,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 	}
 	
 	private void unregisterExternalEventNodeListeners() {
-		for (Node node : getWorkflowProcess().getNodes()) {
+		for (Node node : getNodeViews().getEventNodes()) {
 			if (node instanceof EventNode) {
 				if ("external".equals(((EventNode) node).getScope())) {
 					externalEventListeners.remove(((EventNode) node).getType());
@@ -409,7 +415,8 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 					listener.signalEvent(type, event);
 				}
 			}
-			for (Node node : getWorkflowProcess().getNodes()) {
+			NodeViews nodeViews = getNodeViews();
+			for (Node node : nodeViews.getEventNodes(type)) {
 		        if (node instanceof EventNodeInterface) {
 		            if (((EventNodeInterface) node).acceptsEvent(type, event)) {
 		                if (node instanceof EventNode && ((EventNode) node).getFrom() == null) {
@@ -430,8 +437,8 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 		        }
 			}
 			if (((org.jbpm.workflow.core.WorkflowProcess) getWorkflowProcess()).isDynamic()) {
-				for (Node node : getWorkflowProcess().getNodes()) {
-					if (type.equals(node.getName()) && node.getIncomingConnections().isEmpty()) {
+				for (Node node : nodeViews.getNodesWithoutIncomingConnections()) {
+					if (type.equals(node.getName())) {
 		    			NodeInstance nodeInstance = getNodeInstance(node);
 		                ((org.jbpm.workflow.instance.NodeInstance) nodeInstance)
 		                	.trigger(null, NodeImpl.CONNECTION_DEFAULT_TYPE);
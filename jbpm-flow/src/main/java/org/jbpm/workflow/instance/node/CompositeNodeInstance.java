@@ -20,10 +20,10 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.jbpm.process.instance.ProcessInstance;
 import org.jbpm.workflow.core.WorkflowProcess;
@@ -55,7 +55,7 @@ public class CompositeNodeInstance extends StateBasedNodeInstance implements Nod
     private final List<NodeInstance> nodeInstances = new ArrayList<NodeInstance>();;
     private long nodeInstanceCounter = 0;
     private int state = ProcessInstance.STATE_ACTIVE;
-    private Map<String, Integer> iterationLevels = new HashMap<String, Integer>();
+    private Map<String, Integer> iterationLevels = new TreeMap<String, Integer>();
     private int currentLevel;
     
     @Override
@@ -82,7 +82,7 @@ public class CompositeNodeInstance extends StateBasedNodeInstance implements Nod
     }
     
     private void registerExternalEventNodeListeners() {
-    	for (Node node: getCompositeNode().getNodes()) {
+    	for (Node node: getCompositeNode().getNodeViews().getEventNodes()) {
 			if (node instanceof EventNode) {
 				if ("external".equals(((EventNode) node).getScope())) {
 					getProcessInstance().addEventListener(
@@ -123,7 +123,7 @@ public class CompositeNodeInstance extends StateBasedNodeInstance implements Nod
         } else {
         	// try to search for start nodes
         	boolean found = false;
-        	for (Node node: getCompositeNode().getNodes()) {
+        	for (Node node: getCompositeNode().getNodeViews().getStartNodes()) {
         		if (node instanceof StartNode) {
         			StartNode startNode = (StartNode) node;
         			if (startNode.getTriggers() == null || startNode.getTriggers().isEmpty()) {
@@ -248,7 +248,7 @@ public class CompositeNodeInstance extends StateBasedNodeInstance implements Nod
 
 	public void signalEvent(String type, Object event) {
 		super.signalEvent(type, event);
-		for (Node node: getCompositeNode().internalGetNodes()) {
+		for (Node node: getCompositeNode().internalGetNodeViews().getEventNodes(type)) {
 			if (node instanceof EventNodeInterface) {
 				if (((EventNodeInterface) node).acceptsEvent(type, event)) {
 					if (node instanceof EventNode && ((EventNode) node).getFrom() == null) {
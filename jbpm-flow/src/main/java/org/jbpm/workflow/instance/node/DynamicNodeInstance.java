@@ -62,8 +62,8 @@ public class DynamicNodeInstance extends CompositeContextNodeInstance {
 
 	public void signalEvent(String type, Object event) {
 		super.signalEvent(type, event);
-		for (Node node: getCompositeNode().getNodes()) {
-			if (type.equals(node.getName()) && node.getIncomingConnections().isEmpty()) {
+		for (Node node: getCompositeNode().getNodeViews().getNodesWithoutIncomingConnections()) {
+			if (type.equals(node.getName())) {
     			NodeInstance nodeInstance = getNodeInstance(node);
                 ((org.jbpm.workflow.instance.NodeInstance) nodeInstance)
                 	.trigger(null, NodeImpl.CONNECTION_DEFAULT_TYPE);
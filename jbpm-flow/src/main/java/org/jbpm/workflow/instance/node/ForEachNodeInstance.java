@@ -17,6 +17,7 @@
 package org.jbpm.workflow.instance.node;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -25,6 +26,7 @@ import org.drools.core.util.MVELSafeHelper;
 import org.jbpm.process.core.ContextContainer;
 import org.jbpm.process.core.context.variable.VariableScope;
 import org.jbpm.process.instance.ContextInstance;
+import org.jbpm.process.instance.WorkItemBatch;
 import org.jbpm.process.instance.context.variable.VariableScopeInstance;
 import org.jbpm.workflow.core.node.ForEachNode;
 import org.jbpm.workflow.core.node.ForEachNode.ForEachJoinNode;
@@ -46,6 +48,13 @@ public class ForEachNodeInstance extends CompositeContextNodeInstance {
     private static final long serialVersionUID = 510l;
    
     private static final String TEMP_OUTPUT_VAR = "foreach_output";
+    private static final String NEXT_ITERATION_VAR = "foreach_next";
+    private static final String ELEMENTS_VAR = "foreach_elements";
+
+    // when a completion window is used, the elements are copied when the node is triggered
+    // and kept in the variable scope together with the position, so they are persisted with
+    // the process instance and later changes of the collection do not affect the iterations
+    private transient boolean startingIterations;
     
     public ForEachNode getForEachNode() {
         return (ForEachNode) getNode();
@@ -130,16 +139,95 @@ public class ForEachNodeInstance extends CompositeContextNodeInstance {
             return (Collection<?>) collection;
         }
         if (collection.getClass().isArray() ) {
-            List<Object> list = new ArrayList<Object>();
-            for (Object o: (Object[]) collection) {
-                list.add(o);
-            }
-            return list;
+            return Arrays.asList((Object[]) collection);
         }
         throw new IllegalArgumentException(
             "Unexpected collection type: " + collection.getClass());
     }
     
+    /**
+     * Starts iterations for the next elements of the collection until the completion
+     * window is full or all elements have been started. Iterations that complete while
+     * they are being started are picked up by the loop instead of starting the next
+     * iteration recursively.
+     */
+    protected void startIterations(org.kie.api.runtime.process.NodeInstance from) {
+        if (startingIterations) {
+            return;
+        }
+        startingIterations = true;
+        try {
+            List<?> elements = getIterationElements();
+            int next = getNextIteration();
+            while (next < elements.size() && getActiveIterations() < getForEachNode().getCompletionWindow()) {
+                Object element = elements.get(next);
+                setNextIteration(++next);
+                startIteration(element, from);
+            }
+            if (next >= elements.size()) {
+                // all iterations are started, the copy is not needed anymore
+                setIterationElements(null);
+                setNextIteration(0);
+            }
+        } finally {
+            startingIterations = false;
+        }
+        if (getActiveIterations() == 0) {
+            ForEachJoinNodeInstance joinNodeInstance = (ForEachJoinNodeInstance)
+                getFirstNodeInstance(getForEachNode().getForEachJoinNode().getId());
+            if (joinNodeInstance != null && !hasMoreIterations()) {
+                joinNodeInstance.triggerJoin();
+            }
+        }
+    }
+
+    protected boolean hasMoreIterations() {
+        return getForEachNode().getCompletionWindow() > 0
+            && getNextIteration() < getIterationElements().size();
+    }
+
+    private void startIteration(Object element, org.kie.api.runtime.process.NodeInstance from) {
+        ForEachSplitNode split = getForEachNode().getForEachSplitNode();
+        String variableName = getForEachNode().getVariableName();
+        NodeInstance nodeInstance = (NodeInstance) getNodeInstance(split.getTo().getTo());
+        VariableScopeInstance variableScopeInstance = (VariableScopeInstance)
+            nodeInstance.resolveContextInstance(VariableScope.VARIABLE_SCOPE, variableName);
+        variableScopeInstance.setVariable(variableName, element);
+        nodeInstance.trigger(from, split.getTo().getToType());
+    }
+
+    private int getActiveIterations() {
+        int active = 0;
+        for (org.kie.api.runtime.process.NodeInstance nodeInstance: getNodeInstances()) {
+            if (!(nodeInstance instanceof ForEachJoinNodeInstance) && !(nodeInstance instanceof ForEachSplitNodeInstance)) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    private List<?> getIterationElements() {
+        VariableScopeInstance variableScopeInstance = (VariableScopeInstance) getContextInstance(VariableScope.VARIABLE_SCOPE);
+        List<?> elements = (List<?>) variableScopeInstance.getVariable(ELEMENTS_VAR);
+        return elements == null ? Collections.emptyList() : elements;
+    }
+
+    private void setIterationElements(List<?> elements) {
+        VariableScopeInstance variableScopeInstance = (VariableScopeInstance) getContextInstance(VariableScope.VARIABLE_SCOPE);
+        variableScopeInstance.internalSetVariable(ELEMENTS_VAR, elements);
+    }
+
+    private int getNextIteration() {
+        VariableScopeInstance variableScopeInstance = (VariableScopeInstance) getContextInstance(VariableScope.VARIABLE_SCOPE);
+        Integer next = (Integer) variableScopeInstance.getVariable(NEXT_ITERATION_VAR);
+        return next == null ? 0 : next;
+    }
+
+    private void setNextIteration(int next) {
+        VariableScopeInstance variableScopeInstance = (VariableScopeInstance) getContextInstance(VariableScope.VARIABLE_SCOPE);
+        variableScopeInstance.internalSetVariable(NEXT_ITERATION_VAR, next);
+    }
+    
     public class ForEachSplitNodeInstance extends NodeInstanceImpl {
 
         private static final long serialVersionUID = 510l;
@@ -154,6 +242,13 @@ public class ForEachNodeInstance extends CompositeContextNodeInstance {
             ((NodeInstanceContainer) getNodeInstanceContainer()).removeNodeInstance(this);
             if (collection.isEmpty()) {
             	ForEachNodeInstance.this.triggerCompleted(org.jbpm.workflow.core.Node.CONNECTION_DEFAULT_TYPE, true);
+            } else if (getForEachNode().getCompletionWindow() > 0) {
+                setIterationElements(new ArrayList<Object>(collection));
+                setNextIteration(0);
+                startIterations(this);
+                if (!getForEachNode().isWaitForCompletion()) {
+                    ForEachNodeInstance.this.triggerCompleted(org.jbpm.workflow.core.Node.CONNECTION_DEFAULT_TYPE, false);
+                }
             } else {
             	List<NodeInstance> nodeInstances = new ArrayList<NodeInstance>();
             	for (Object o: collection) {
@@ -165,8 +260,16 @@ public class ForEachNodeInstance extends CompositeContextNodeInstance {
             		variableScopeInstance.setVariable(variableName, o);
             		nodeInstances.add(nodeInstance);
             	}
-            	for (NodeInstance nodeInstance: nodeInstances) {
-            		((org.jbpm.workflow.instance.NodeInstance) nodeInstance).trigger(this, getForEachSplitNode().getTo().getToType());
+            	// lets work item handlers create the work items of all iterations together
+            	WorkItemBatch.begin();
+            	boolean triggered = false;
+            	try {
+            	    for (NodeInstance nodeInstance: nodeInstances) {
+            	        ((org.jbpm.workflow.instance.NodeInstance) nodeInstance).trigger(this, getForEachSplitNode().getTo().getToType());
+            	    }
+            	    triggered = true;
+            	} finally {
+            	    WorkItemBatch.end(triggered);
             	}
 	            if (!getForEachNode().isWaitForCompletion()) {
 	            	ForEachNodeInstance.this.triggerCompleted(org.jbpm.workflow.core.Node.CONNECTION_DEFAULT_TYPE, false);
@@ -207,7 +310,18 @@ public class ForEachNodeInstance extends CompositeContextNodeInstance {
                 
                 subprocessVariableScopeInstance.setVariable(TEMP_OUTPUT_VAR, outputCollection);
             }
-            if (getNodeInstanceContainer().getNodeInstances().size() == 1) {
+            if (getForEachNode().getCompletionWindow() > 0) {
+                // starts the next iterations and triggers the join once all are completed
+                startIterations(this);
+            } else {
+                triggerJoin();
+            }
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        protected void triggerJoin() {
+            if (getNodeInstanceContainer().getNodeInstances().size() == 1 && !hasMoreIterations()) {
+                VariableScopeInstance subprocessVariableScopeInstance = (VariableScopeInstance) getContextInstance(VariableScope.VARIABLE_SCOPE);
                 String outputCollection = getForEachNode().getOutputCollectionExpression();
                 if (outputCollection != null) {
                     VariableScopeInstance variableScopeInstance = (VariableScopeInstance) resolveContextInstance(VariableScope.VARIABLE_SCOPE, outputCollection);
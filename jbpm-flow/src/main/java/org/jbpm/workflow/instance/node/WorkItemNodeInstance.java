@@ -45,6 +45,8 @@ import org.jbpm.process.instance.context.variable.VariableScopeInstance;
 import org.jbpm.process.instance.impl.AssignmentAction;
 import org.jbpm.process.instance.impl.ContextInstanceFactory;
 import org.jbpm.process.instance.impl.ContextInstanceFactoryRegistry;
+import org.jbpm.process.instance.metrics.ProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetricsProvider;
 import org.jbpm.workflow.core.node.Assignment;
 import org.jbpm.workflow.core.node.DataAssociation;
 import org.jbpm.workflow.core.node.Transformation;
@@ -113,6 +115,8 @@ public class WorkItemNodeInstance extends StateBasedNodeInstance implements Even
 //                "A WorkItemNode only accepts default incoming connections!");
 //        }
         WorkItemNode workItemNode = getWorkItemNode();
+        ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+        long start = metrics.startTimer();
         createWorkItem(workItemNode);
         if (workItemNode.isWaitForCompletion()) {
             addWorkItemListener();
@@ -142,6 +146,8 @@ public class WorkItemNodeInstance extends StateBasedNodeInstance implements Even
                 exceptionScopeInstance.handleException(exceptionName, e);
             }
         }
+        metrics.recordTime(ProcessMetrics.WORK_ITEM_CREATE, getNode().getClass().getSimpleName(), start);
+        metrics.recordTime(ProcessMetrics.WORK_ITEM_HANDLER_CREATE, workItem.getName(), start);
         if (!workItemNode.isWaitForCompletion()) {
             triggerCompleted();
         }
@@ -238,6 +244,8 @@ public class WorkItemNodeInstance extends StateBasedNodeInstance implements Even
     }
 
     public void triggerCompleted(WorkItem workItem) {
+        ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+        long start = metrics.startTimer();
         this.workItem = workItem;
         WorkItemNode workItemNode = getWorkItemNode();
         if (workItemNode != null && workItem.getState() == WorkItem.COMPLETED) {
@@ -305,6 +313,8 @@ public class WorkItemNodeInstance extends StateBasedNodeInstance implements Even
         } else {
             triggerCompleted();
         }
+        metrics.recordTime(ProcessMetrics.WORK_ITEM_COMPLETE, getNode().getClass().getSimpleName(), start);
+        metrics.recordTime(ProcessMetrics.WORK_ITEM_HANDLER_COMPLETE, workItem.getName(), start);
     }
   
     public void cancel() {
@@ -0,0 +1,62 @@
+package org.jbpm.marshalling.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class CompressionHelperTest {
+
+    @After
+    public void tearDown() {
+        CompressionHelper.setThreshold(-1);
+    }
+
+    @Test
+    public void testCompressionIsDisabledByDefault() throws Exception {
+        byte[] data = marshall(1000);
+        assertSame(data, CompressionHelper.compress(data));
+        assertFalse(CompressionHelper.isCompressed(data));
+        assertSame(data, CompressionHelper.decompress(data));
+    }
+
+    @Test
+    public void testCompress() throws Exception {
+        CompressionHelper.setThreshold(512);
+        byte[] small = marshall(10);
+        assertSame(small, CompressionHelper.compress(small));
+
+        byte[] data = marshall(1000);
+        byte[] compressed = CompressionHelper.compress(data);
+        assertTrue(CompressionHelper.isCompressed(compressed));
+        assertTrue(compressed.length < data.length);
+        assertArrayEquals(data, CompressionHelper.decompress(compressed));
+    }
+
+    @Test
+    public void testIncompressibleDataIsNotCompressed() {
+        CompressionHelper.setThreshold(0);
+        byte[] data = new byte[1000];
+        new Random(42).nextBytes(data);
+        data[0] = (byte) 0xAC;
+        assertSame(data, CompressionHelper.compress(data));
+    }
+
+    private byte[] marshall(int size) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(baos);
+        out.writeUTF("RuleFlow");
+        for (int i = 0; i < size; i++) {
+            out.writeUTF("variable" + i);
+        }
+        out.close();
+        return baos.toByteArray();
+    }
+}
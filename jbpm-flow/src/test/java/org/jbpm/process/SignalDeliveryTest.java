@@ -0,0 +1,224 @@
+/**
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.jbpm.process.core.event.EventTypeFilter;
+import org.jbpm.ruleflow.core.RuleFlowProcess;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.jbpm.workflow.core.Node;
+import org.jbpm.workflow.core.NodeViews;
+import org.jbpm.workflow.core.impl.ConnectionImpl;
+import org.jbpm.workflow.core.node.EndNode;
+import org.jbpm.workflow.core.node.EventNode;
+import org.jbpm.workflow.core.node.EventSubProcessNode;
+import org.jbpm.workflow.core.node.StartNode;
+import org.junit.Test;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.process.ProcessInstance;
+import org.slf4j.LoggerFactory;
+
+public class SignalDeliveryTest extends AbstractBaseTest {
+
+    private static final int EVENT_NODES = 200;
+    private static final int SIGNALS = 10000;
+
+    public void addLogger() {
+        logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @Test
+    public void testNodeViewsAreCachedUntilNodesChange() {
+        RuleFlowProcess process = createProcess();
+
+        assertSame(process.getNodes(), process.getNodes());
+        assertEquals(EVENT_NODES + 1, process.getNodeViews().getEventNodes().length);
+        assertEquals(1, process.getNodeViews().getStartNodes().length);
+        // start node and standalone event nodes
+        assertEquals(EVENT_NODES + 1, process.getNodeViews().getNodesWithoutIncomingConnections().length);
+
+        org.kie.api.definition.process.Node[] before = process.getNodes();
+        EndNode endNode = new EndNode();
+        endNode.setName("Another end");
+        endNode.setId(EVENT_NODES * 2 + 10);
+        process.addNode(endNode);
+        assertNotSame(before, process.getNodes());
+        assertEquals(before.length + 1, process.getNodes().length);
+        assertEquals(EVENT_NODES + 2, process.getNodeViews().getNodesWithoutIncomingConnections().length);
+
+        new ConnectionImpl(process.getStart(null), Node.CONNECTION_DEFAULT_TYPE, endNode, Node.CONNECTION_DEFAULT_TYPE);
+        assertEquals(EVENT_NODES + 1, process.getNodeViews().getNodesWithoutIncomingConnections().length);
+
+        process.removeNode(endNode);
+        assertEquals(before.length, process.getNodes().length);
+    }
+
+    @Test
+    public void testEventDispatchTable() {
+        RuleFlowProcess process = createProcess();
+        EventNode variableEventNode = createEventNode("#{signalName}", EVENT_NODES * 2 + 10);
+        process.addNode(variableEventNode);
+        EventNode anyEventNode = new EventNode();
+        anyEventNode.setName("Any");
+        anyEventNode.setId(EVENT_NODES * 2 + 11);
+        process.addNode(anyEventNode);
+        EventSubProcessNode eventSubProcess = new EventSubProcessNode();
+        eventSubProcess.setName("Event subprocess");
+        eventSubProcess.setId(EVENT_NODES * 2 + 12);
+        eventSubProcess.addEvent(createEventTypeFilter("event-1"));
+        eventSubProcess.addEvent(createEventTypeFilter("escalation"));
+        process.addNode(eventSubProcess);
+
+        NodeViews views = process.getNodeViews();
+        // fixed type matches are followed by the nodes that can only be checked at runtime
+        org.kie.api.definition.process.Node[] candidates = views.getEventNodes("event-42");
+        assertEquals(3, candidates.length);
+        assertEquals("event-42", candidates[0].getName());
+        assertSame(variableEventNode, candidates[1]);
+        assertSame(anyEventNode, candidates[2]);
+
+        candidates = views.getEventNodes("event-1");
+        assertEquals(4, candidates.length);
+        assertSame(eventSubProcess, candidates[3]);
+        assertEquals(3, views.getEventNodes("escalation").length);
+        assertEquals(2, views.getEventNodes("unknown").length);
+    }
+
+    @Test
+    public void testSignalDispatchPerformance() {
+        RuleFlowProcess process = createProcess();
+        KieSession ksession = createKieSession(process);
+        ProcessInstance processInstance = ksession.startProcess(process.getId());
+
+        for (int i = 0; i < SIGNALS; i++) {
+            processInstance.signalEvent("unknown-" + (i % EVENT_NODES), null);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < SIGNALS; i++) {
+            processInstance.signalEvent("unknown-" + (i % EVENT_NODES), null);
+        }
+        logger.info("Dispatched {} signals of {} types to process with {} event nodes in {} ms",
+                new Object[] { SIGNALS, EVENT_NODES, EVENT_NODES, (System.nanoTime() - start) / 1000000 });
+
+        // every standalone event node completes its own path only
+        for (int i = 0; i < EVENT_NODES; i++) {
+            processInstance.signalEvent("event-" + i, null);
+        }
+        assertEquals(ProcessInstance.STATE_ACTIVE, processInstance.getState());
+        processInstance.signalEvent("wait", null);
+        assertEquals(ProcessInstance.STATE_COMPLETED, processInstance.getState());
+        ksession.dispose();
+    }
+
+    @Test
+    public void testSignalDeliveryAllocation() {
+        RuleFlowProcess process = createProcess();
+        KieSession ksession = createKieSession(process);
+        ProcessInstance processInstance = ksession.startProcess(process.getId());
+        assertEquals(ProcessInstance.STATE_ACTIVE, processInstance.getState());
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        // warm up
+        for (int i = 0; i < SIGNALS; i++) {
+            processInstance.signalEvent("unknown", null);
+        }
+        long allocatedBefore = getAllocatedBytes(threadBean);
+        long start = System.nanoTime();
+        for (int i = 0; i < SIGNALS; i++) {
+            processInstance.signalEvent("unknown", null);
+        }
+        long duration = System.nanoTime() - start;
+        long allocatedAfter = getAllocatedBytes(threadBean);
+
+        if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+            logger.info("Delivered {} signals to process with {} event nodes in {} ms, {} bytes allocated per signal",
+                    SIGNALS, EVENT_NODES, duration / 1000000, (allocatedAfter - allocatedBefore) / SIGNALS);
+        } else {
+            logger.info("Delivered {} signals to process with {} event nodes in {} ms", SIGNALS, EVENT_NODES, duration / 1000000);
+        }
+        assertEquals(ProcessInstance.STATE_ACTIVE, processInstance.getState());
+
+        processInstance.signalEvent("event-42", null);
+        assertEquals(ProcessInstance.STATE_ACTIVE, processInstance.getState());
+        processInstance.signalEvent("wait", null);
+        assertEquals(ProcessInstance.STATE_COMPLETED, processInstance.getState());
+        ksession.dispose();
+    }
+
+    private long getAllocatedBytes(ThreadMXBean threadBean) {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private RuleFlowProcess createProcess() {
+        RuleFlowProcess process = new RuleFlowProcess();
+        process.setId("org.jbpm.process.signals");
+        process.setName("Signal Process");
+        process.setPackageName("org.jbpm");
+
+        StartNode startNode = new StartNode();
+        startNode.setName("Start");
+        startNode.setId(1);
+        process.addNode(startNode);
+
+        EventNode waitNode = createEventNode("wait", 2);
+        process.addNode(waitNode);
+        new ConnectionImpl(startNode, Node.CONNECTION_DEFAULT_TYPE, waitNode, Node.CONNECTION_DEFAULT_TYPE);
+
+        EndNode endNode = new EndNode();
+        endNode.setName("End");
+        endNode.setId(3);
+        process.addNode(endNode);
+        new ConnectionImpl(waitNode, Node.CONNECTION_DEFAULT_TYPE, endNode, Node.CONNECTION_DEFAULT_TYPE);
+
+        // standalone event nodes that only end their own path
+        long id = 4;
+        for (int i = 0; i < EVENT_NODES; i++) {
+            EventNode eventNode = createEventNode("event-" + i, id++);
+            process.addNode(eventNode);
+            EndNode eventEndNode = new EndNode();
+            eventEndNode.setName("End " + i);
+            eventEndNode.setTerminate(false);
+            eventEndNode.setId(id++);
+            process.addNode(eventEndNode);
+            new ConnectionImpl(eventNode, Node.CONNECTION_DEFAULT_TYPE, eventEndNode, Node.CONNECTION_DEFAULT_TYPE);
+        }
+        return process;
+    }
+
+    private EventNode createEventNode(String type, long id) {
+        EventNode eventNode = new EventNode();
+        eventNode.setName(type);
+        eventNode.addEventFilter(createEventTypeFilter(type));
+        eventNode.setId(id);
+        return eventNode;
+    }
+
+    private EventTypeFilter createEventTypeFilter(String type) {
+        EventTypeFilter eventFilter = new EventTypeFilter();
+        eventFilter.setType(type);
+        return eventFilter;
+    }
+}
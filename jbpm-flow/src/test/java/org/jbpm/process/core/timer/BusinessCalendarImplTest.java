@@ -254,6 +254,93 @@ public class BusinessCalendarImplTest extends AbstractBaseTest {
         assertEquals(expectedDate, formatDate("yyyy-MM-dd HH:mm", result));
     }
     
+    @Test
+    public void testCalculateWithManyHolidays() {
+        Properties config = new Properties();
+        config.setProperty(BusinessCalendarImpl.HOLIDAYS, generateHolidays(2012, 300) + ",2012-05-07:2012-05-08");
+        String expectedDate = "2012-05-09 09:15";
+
+        SessionPseudoClock clock = new StaticPseudoClock(parseToDateWithTime("2012-05-04 16:45").getTime());
+        BusinessCalendarImpl businessCal = new BusinessCalendarImpl(config, clock);
+
+        Date result = businessCal.calculateBusinessTimeAsDate("30m");
+
+        assertEquals(expectedDate, formatDate("yyyy-MM-dd HH:mm", result));
+    }
+
+    @Test
+    public void testCalculationPerformance() {
+        Properties config = new Properties();
+        config.setProperty(BusinessCalendarImpl.HOLIDAYS, generateHolidays(2012, 500));
+        config.setProperty(BusinessCalendarImpl.TIMEZONE, "Europe/Warsaw");
+        SessionPseudoClock clock = new StaticPseudoClock(parseToDateWithTime("2012-05-04 13:45").getTime());
+        BusinessCalendarImpl businessCal = new BusinessCalendarImpl(config, clock);
+
+        int iterations = 10000;
+        for (String expression : new String[] { "30m", "4h", "3d", "30d", "1000h", "12w", "26w" }) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                businessCal.calculateBusinessTimeAsDate(expression);
+            }
+            logger.info("{} calculations of '{}' with 500 holidays took {} ms",
+                    new Object[] { iterations, expression, (System.nanoTime() - start) / 1000000 });
+        }
+    }
+
+    @Test
+    public void testWorkingDayIndexMatchesDayByDayCalculation() {
+        final MovingPseudoClock clock = new MovingPseudoClock();
+        String[][] configurations = new String[][] {
+            {},
+            { BusinessCalendarImpl.WEEKEND_DAYS, "1" },
+            { BusinessCalendarImpl.WEEKEND_DAYS, "5,6" },
+            { BusinessCalendarImpl.HOURS_PER_DAY, "6" },
+            { BusinessCalendarImpl.DAYS_PER_WEEK, "4" }
+        };
+        String[] expressions = new String[] { "30m", "7h", "45h 50m", "3d", "1000h", "123d", "2w 3d 5h 20m" };
+        for (String timezone : new String[] { "UTC", "Europe/Warsaw" }) {
+            for (String[] configuration : configurations) {
+                Properties config = new Properties();
+                config.setProperty(BusinessCalendarImpl.TIMEZONE, timezone);
+                config.setProperty(BusinessCalendarImpl.HOLIDAYS, "2012-05-01,2012-12-24:2012-12-27");
+                if (configuration.length > 0) {
+                    config.setProperty(configuration[0], configuration[1]);
+                }
+                BusinessCalendarImpl businessCal = new BusinessCalendarImpl(config, clock);
+                BusinessCalendarImpl dayByDayCal = new BusinessCalendarImpl(config, clock) {
+                    protected void addWorkingDays(Calendar c, int numberOfDays) {
+                        for (int i = 0; i < numberOfDays; i++) {
+                            c.add(Calendar.DAY_OF_YEAR, 1);
+                            handleWeekend(c);
+                        }
+                    }
+                };
+                // every 7h 37m over most of a year, so all days, hours and daylight saving changes are covered
+                long end = parseToDateWithTime("2012-11-01 00:00").getTime();
+                for (long time = parseToDateWithTime("2012-03-01 00:00").getTime(); time < end; time += (7 * 60 + 37) * 60000L) {
+                    clock.currentTime = time;
+                    for (String expression : expressions) {
+                        assertEquals(timezone + " " + config + " " + new Date(time) + " " + expression,
+                                dayByDayCal.calculateBusinessTimeAsDate(expression),
+                                businessCal.calculateBusinessTimeAsDate(expression));
+                    }
+                }
+            }
+        }
+    }
+
+    // one day holidays on the 20th of each month, starting with given year
+    private String generateHolidays(int year, int count) {
+        StringBuilder holidays = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                holidays.append(",");
+            }
+            holidays.append(year + i / 12).append("-").append(String.format("%02d", i % 12 + 1)).append("-20");
+        }
+        return holidays.toString();
+    }
+
     private Date parseToDate(String dateString) {
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
         
@@ -290,6 +377,20 @@ public class BusinessCalendarImplTest extends AbstractBaseTest {
                 
     }
     
+    private class MovingPseudoClock implements SessionPseudoClock {
+
+        private long currentTime;
+
+        public long getCurrentTime() {
+            return this.currentTime;
+        }
+
+        public long advanceTime(long amount, TimeUnit unit) {
+            this.currentTime += unit.toMillis(amount);
+            return this.currentTime;
+        }
+    }
+
     private class StaticPseudoClock implements SessionPseudoClock {
 
     	private long currentTime;
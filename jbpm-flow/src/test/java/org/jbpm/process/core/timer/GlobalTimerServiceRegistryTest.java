@@ -0,0 +1,126 @@
+package org.jbpm.process.core.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.drools.core.time.Job;
+import org.drools.core.time.JobContext;
+import org.drools.core.time.JobHandle;
+import org.drools.core.time.TimerService;
+import org.drools.core.time.Trigger;
+import org.drools.core.time.impl.DefaultTimerJobInstance;
+import org.drools.core.time.impl.TimerJobInstance;
+import org.jbpm.process.core.timer.impl.GlobalTimerService;
+import org.jbpm.process.core.timer.impl.GlobalTimerService.GlobalJobHandle;
+import org.jbpm.process.instance.timer.TimerInstance;
+import org.jbpm.process.instance.timer.TimerManager.ProcessJobContext;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+public class GlobalTimerServiceRegistryTest extends AbstractBaseTest {
+
+    private static final int TIMERS = 100000;
+    private static final int SESSIONS = 10;
+
+    public void addLogger() { 
+        logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @Test
+    public void testRegisterAndCancelTimers() {
+        GlobalTimerService timerService = new GlobalTimerService(null, new NoOpSchedulerService());
+        Job job = new Job() {
+            @Override
+            public void execute(JobContext ctx) {
+            }
+        };
+
+        List<ProcessJobContext> contexts = new ArrayList<ProcessJobContext>(TIMERS);
+        for (int i = 0; i < TIMERS; i++) {
+            TimerInstance timer = new TimerInstance();
+            timer.setId(i);
+            timer.setSessionId(i % SESSIONS);
+            contexts.add(new ProcessJobContext(timer, null, (long) i, null));
+        }
+
+        long start = System.nanoTime();
+        List<JobHandle> handles = new ArrayList<JobHandle>(TIMERS);
+        for (ProcessJobContext ctx : contexts) {
+            handles.add(timerService.scheduleJob(job, ctx, null));
+        }
+        long registered = System.nanoTime();
+        logger.info("Registered {} timers in {} ms", TIMERS, (registered - start) / 1000000);
+
+        int total = 0;
+        for (int i = 0; i < SESSIONS; i++) {
+            total += timerService.getTimerJobInstances(i).size();
+        }
+        assertEquals(TIMERS, total);
+        // scheduling the same timer again returns the already registered handle
+        assertSame(handles.get(42), timerService.scheduleJob(job, contexts.get(42), null));
+
+        start = System.nanoTime();
+        for (JobHandle handle : handles) {
+            assertTrue(timerService.removeJob(handle));
+        }
+        logger.info("Cancelled {} timers in {} ms", TIMERS, (System.nanoTime() - start) / 1000000);
+
+        for (int i = 0; i < SESSIONS; i++) {
+            assertTrue(timerService.getTimerJobInstances(i).isEmpty());
+        }
+    }
+
+    private static class NoOpSchedulerService implements GlobalSchedulerService {
+
+        private AtomicLong idCounter = new AtomicLong();
+
+        @Override
+        public JobHandle scheduleJob(Job job, JobContext ctx, Trigger trigger) {
+            GlobalJobHandle handle = new GlobalJobHandle(idCounter.getAndIncrement());
+            handle.setTimerJobInstance(new DefaultTimerJobInstance(job, ctx, trigger, handle, null));
+            return handle;
+        }
+
+        @Override
+        public boolean removeJob(JobHandle jobHandle) {
+            return true;
+        }
+
+        @Override
+        public void internalSchedule(TimerJobInstance timerJobInstance) {
+        }
+
+        @Override
+        public void initScheduler(TimerService timerService) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public JobHandle buildJobHandleForContext(NamedJobContext ctx) {
+            return null;
+        }
+
+        @Override
+        public boolean isTransactional() {
+            return false;
+        }
+
+        @Override
+        public boolean retryEnabled() {
+            return false;
+        }
+
+        @Override
+        public void setInterceptor(SchedulerServiceInterceptor interceptor) {
+        }
+    }
+}
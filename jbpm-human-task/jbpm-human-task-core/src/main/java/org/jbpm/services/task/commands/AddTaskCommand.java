@@ -149,7 +149,7 @@ public class AddTaskCommand extends UserGroupCallbackTaskCommand<Long> {
         this.data = data;
     }
     
-    private void scheduleDeadlinesForTask(final InternalTask task, TaskDeadlinesService deadlineService) {
+    static void scheduleDeadlinesForTask(final InternalTask task, TaskDeadlinesService deadlineService) {
         final long now = System.currentTimeMillis();
 
         Deadlines deadlines = task.getDeadlines();
@@ -169,7 +169,7 @@ public class AddTaskCommand extends UserGroupCallbackTaskCommand<Long> {
         }
     }
 
-    private void scheduleDeadlines(final List<? extends Deadline> deadlines, final long now, 
+    private static void scheduleDeadlines(final List<? extends Deadline> deadlines, final long now, 
     		final long taskId, DeadlineType type, TaskDeadlinesService deadlineService) {
         for (Deadline deadline : deadlines) {
             if (!deadline.isEscalated()) {
@@ -181,7 +181,7 @@ public class AddTaskCommand extends UserGroupCallbackTaskCommand<Long> {
         }
     }
     
-    private void initializeTask(Task task){
+    static void initializeTask(Task task){
         Status assignedStatus = null;
 
         if (task.getPeopleAssignments() != null && task.getPeopleAssignments().getPotentialOwners() != null && task.getPeopleAssignments().getPotentialOwners().size() == 1) {
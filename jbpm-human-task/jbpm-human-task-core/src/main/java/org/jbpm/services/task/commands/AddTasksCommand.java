@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 JBoss by Red Hat.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.services.task.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
+
+import org.jbpm.services.task.impl.TaskInstanceServiceImpl;
+import org.jbpm.services.task.impl.model.xml.JaxbTask;
+import org.jbpm.services.task.rule.TaskRuleService;
+import org.kie.api.task.model.Task;
+import org.kie.internal.command.Context;
+import org.kie.internal.task.api.TaskInstanceService;
+import org.kie.internal.task.api.model.ContentData;
+import org.kie.internal.task.api.model.InternalPeopleAssignments;
+import org.kie.internal.task.api.model.InternalTask;
+import org.kie.internal.task.api.model.InternalTaskData;
+
+/**
+ * Adds several tasks in one command, e.g. the tasks of a multi instance user task.
+ * Compared to one {@link AddTaskCommand} per task, the identity checks of users and
+ * groups shared by the tasks are done once, all contents and tasks are persisted
+ * together and the deadlines are scheduled once all tasks are stored.
+ * <p>
+ * The contents are only handed over within the engine and are not part of the xml form of
+ * the command. With a task instance service other than {@link TaskInstanceServiceImpl} the
+ * tasks are added one by one.
+ */
+@XmlRootElement(name="add-tasks-command")
+@XmlAccessorType(XmlAccessType.NONE)
+public class AddTasksCommand extends UserGroupCallbackTaskCommand<List<Long>> {
+
+    private static final long serialVersionUID = -3297834521934846315L;
+
+    @XmlElement(name="task")
+    private List<JaxbTask> jaxbTasks;
+
+    @XmlTransient
+    private List<Task> tasks;
+
+    private List<ContentData> data;
+
+    public AddTasksCommand() {
+    }
+
+    /**
+     * @param tasks the tasks to add
+     * @param data the content of each task, the list and its elements may be <code>null</code>
+     */
+    public AddTasksCommand(List<Task> tasks, List<ContentData> data) {
+        setTasks(tasks);
+        this.data = data;
+    }
+
+    public List<Long> execute(Context cntxt) {
+        TaskContext context = (TaskContext) cntxt;
+
+        if (tasks == null) {
+            tasks = new ArrayList<Task>(jaxbTasks);
+        }
+        List<Task> taskImpls = new ArrayList<Task>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            Task taskImpl = task instanceof JaxbTask ? ((JaxbTask) task).getTask() : task;
+            ContentData content = data == null ? null : data.get(i);
+            AddTaskCommand.initializeTask(taskImpl);
+            context.getTaskRuleService().executeRules(taskImpl, userId, content, TaskRuleService.ADD_TASK_SCOPE);
+            doCallbackOperationForPeopleAssignments((InternalPeopleAssignments) taskImpl.getPeopleAssignments(), context);
+            doCallbackOperationForTaskData((InternalTaskData) taskImpl.getTaskData(), context);
+            doCallbackOperationForTaskDeadlines(((InternalTask) taskImpl).getDeadlines(), context);
+            taskImpls.add(taskImpl);
+        }
+
+        List<Long> taskIds;
+        TaskInstanceService taskInstanceService = context.getTaskInstanceService();
+        if (taskInstanceService instanceof TaskInstanceServiceImpl) {
+            taskIds = ((TaskInstanceServiceImpl) taskInstanceService).addTasks(taskImpls, data);
+        } else {
+            taskIds = new ArrayList<Long>(taskImpls.size());
+            for (int i = 0; i < taskImpls.size(); i++) {
+                taskIds.add(taskInstanceService.addTask(taskImpls.get(i), data == null ? null : data.get(i)));
+            }
+        }
+
+        for (Task taskImpl : taskImpls) {
+            AddTaskCommand.scheduleDeadlinesForTask((InternalTask) taskImpl, context.getTaskDeadlinesService());
+        }
+        return taskIds;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<Task> tasks) {
+        this.tasks = tasks;
+        this.jaxbTasks = new ArrayList<JaxbTask>(tasks.size());
+        for (Task task : tasks) {
+            jaxbTasks.add(task instanceof JaxbTask ? (JaxbTask) task : new JaxbTask(task));
+        }
+    }
+
+    public List<JaxbTask> getJaxbTasks() {
+        return jaxbTasks;
+    }
+
+    public void setJaxbTasks(List<JaxbTask> jaxbTasks) {
+        this.jaxbTasks = jaxbTasks;
+    }
+
+    public List<ContentData> getData() {
+        return data;
+    }
+
+    public void setData(List<ContentData> data) {
+        this.data = data;
+    }
+}
@@ -1,9 +1,11 @@
 package org.jbpm.services.task.commands;
 
+import java.util.Date;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
 import org.jbpm.services.task.query.DeadlineSummaryImpl;
@@ -22,9 +24,23 @@ public class InitDeadlinesCommand extends TaskCommand<Void> {
 	private static final long serialVersionUID = -8095766991770311489L;
 	private static final Logger logger = LoggerFactory.getLogger(InitDeadlinesCommand.class);
 
+	@XmlElement
+	private Date from;
+	@XmlElement
+	private Date until;
+
 	public InitDeadlinesCommand() {		
 	}
 
+	/**
+	 * Loads only deadlines that are due after <code>from</code> (exclusive, might be null to load
+	 * all overdue deadlines as well) and up to <code>until</code> (inclusive).
+	 */
+	public InitDeadlinesCommand(Date from, Date until) {
+		this.from = from;
+		this.until = until;
+	}
+
 	@Override
 	public Void execute(Context context) {
 		TaskContext ctx = (TaskContext) context;
@@ -34,16 +50,14 @@ public class InitDeadlinesCommand extends TaskCommand<Void> {
 		
         try {
 	        long now = System.currentTimeMillis();
-	        List<DeadlineSummaryImpl> resultList = persistenceContext.queryInTransaction("UnescalatedStartDeadlines",
-	        										ClassUtil.<List<DeadlineSummaryImpl>>castClass(List.class));
+	        List<DeadlineSummaryImpl> resultList = getDeadlines(persistenceContext, "UnescalatedStartDeadlines");
 	        for (DeadlineSummaryImpl summary : resultList) {
 	            long delay = summary.getDate().getTime() - now;
 	            deadlineService.schedule(summary.getTaskId(), summary.getDeadlineId(), delay, DeadlineType.START);
 	
 	        }
 	        
-	        resultList = persistenceContext.queryInTransaction("UnescalatedEndDeadlines",
-	        		ClassUtil.<List<DeadlineSummaryImpl>>castClass(List.class));
+	        resultList = getDeadlines(persistenceContext, "UnescalatedEndDeadlines");
 	        for (DeadlineSummaryImpl summary : resultList) {
 	            long delay = summary.getDate().getTime() - now;
 	            deadlineService.schedule(summary.getTaskId(), summary.getDeadlineId(), delay, DeadlineType.END);
@@ -55,4 +69,22 @@ public class InitDeadlinesCommand extends TaskCommand<Void> {
 		return null;
 	}
 
+	private List<DeadlineSummaryImpl> getDeadlines(TaskPersistenceContext persistenceContext, String queryName) {
+		if (until == null) {
+			return persistenceContext.queryInTransaction(queryName,
+					ClassUtil.<List<DeadlineSummaryImpl>>castClass(List.class));
+		}
+		return persistenceContext.queryWithParametersInTransaction(queryName + "InWindow",
+				persistenceContext.addParametersToMap("from", from == null ? new Date(0) : from, "until", until),
+				ClassUtil.<List<DeadlineSummaryImpl>>castClass(List.class));
+	}
+
+	public Date getFrom() {
+		return from;
+	}
+
+	public Date getUntil() {
+		return until;
+	}
+
 }
@@ -45,6 +45,11 @@ public class UserGroupCallbackTaskCommand<T> extends TaskCommand<T> {
     private static final Logger logger = LoggerFactory.getLogger(UserGroupCallbackTaskCommand.class);  
 
     private Map<String, Boolean> userGroupsMap = new HashMap<String, Boolean>();
+    // results of the identity checks of the current execution, so that users and groups
+    // referenced several times by the task(s) of this command are only looked up once
+    private transient TaskContext checkedContext;
+    private transient Map<String, Boolean> checkedUsers;
+    private transient Map<String, Boolean> checkedGroups;
     private static Set<String> restrictedGroups = new HashSet<String>(); 
     
     public UserGroupCallbackTaskCommand() {
@@ -77,24 +82,48 @@ public class UserGroupCallbackTaskCommand<T> extends TaskCommand<T> {
 
     protected boolean doCallbackUserOperation(String userId, TaskContext context) {
 
-        if (userId != null && context.getUserGroupCallback().existsUser(userId)) {
-            addUserFromCallbackOperation(userId, context);
-            return true;
+        if (userId == null) {
+            return false;
         }
-        return false;
+        resetIdentityChecks(context);
+        Boolean exists = checkedUsers.get(userId);
+        if (exists == null) {
+            exists = context.getUserGroupCallback().existsUser(userId);
+            if (exists) {
+                addUserFromCallbackOperation(userId, context);
+            }
+            checkedUsers.put(userId, exists);
+        }
+        return exists;
 
     }
 
     protected boolean doCallbackGroupOperation(String groupId, TaskContext context) {
 
-        if (groupId != null && context.getUserGroupCallback().existsGroup(groupId) && !restrictedGroups.contains(groupId)) {
-            addGroupFromCallbackOperation(groupId, context);
-            return true;
+        if (groupId == null) {
+            return false;
+        }
+        resetIdentityChecks(context);
+        Boolean exists = checkedGroups.get(groupId);
+        if (exists == null) {
+            exists = context.getUserGroupCallback().existsGroup(groupId) && !restrictedGroups.contains(groupId);
+            if (exists) {
+                addGroupFromCallbackOperation(groupId, context);
+            }
+            checkedGroups.put(groupId, exists);
         }
-        return false;
+        return exists;
 
     }
 
+    private void resetIdentityChecks(TaskContext context) {
+        if (checkedContext != context) {
+            checkedContext = context;
+            checkedUsers = new HashMap<String, Boolean>();
+            checkedGroups = new HashMap<String, Boolean>();
+        }
+    }
+
     protected void addUserFromCallbackOperation(String userId, TaskContext context) {
     	User user = context.getPersistenceContext().findUser(userId);
         boolean userExists = user != null;
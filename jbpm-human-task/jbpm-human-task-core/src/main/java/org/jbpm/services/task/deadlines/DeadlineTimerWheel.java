@@ -0,0 +1,479 @@
+/*
+ * Copyright 2014 JBoss by Red Hat.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.services.task.deadlines;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kie.internal.task.api.TaskDeadlinesService.DeadlineType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed timer wheel used to keep track of in-memory task deadlines.
+ * <p>
+ * Deadlines are kept as small entries hashed into a fixed number of buckets based
+ * on their due time; a single worker thread advances the wheel every tick and hands
+ * expired deadlines to a {@link DeadlineHandler}. Entries are additionally chained
+ * per task in an index keyed by the primitive task id so all deadlines of a task can
+ * be cancelled in one operation, e.g. when the task is completed.
+ */
+public class DeadlineTimerWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineTimerWheel.class);
+
+    /**
+     * Callback invoked (on one of the firing threads) for every expired deadline.
+     */
+    public interface DeadlineHandler {
+
+        void onDeadline(long taskId, long deadlineId, DeadlineType type);
+    }
+
+    private final long tickDuration;
+    private final int mask;
+    private final Entry[] buckets;
+    private final TaskIndex<Entry> index = new TaskIndex<Entry>(1024);
+    private final DeadlineHandler handler;
+    private final ExecutorService firingExecutor;
+    private final Thread worker;
+    private final long startTime;
+
+    // guarded by this
+    private long tick;
+    private int size;
+
+    private volatile boolean running = true;
+
+    private final AtomicLong scheduledCount = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private final AtomicLong firedCount = new AtomicLong();
+    private final AtomicLong totalFiringLag = new AtomicLong();
+    private final AtomicLong maxFiringLag = new AtomicLong();
+
+    public DeadlineTimerWheel(DeadlineHandler handler, long tickDuration, int wheelSize, int firingThreads) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be greater than 0 but was " + tickDuration);
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("Wheel size must be greater than 0 but was " + wheelSize);
+        }
+        int normalized = Integer.highestOneBit(wheelSize);
+        if (normalized < wheelSize) {
+            normalized <<= 1;
+        }
+        this.handler = handler;
+        this.tickDuration = tickDuration;
+        this.mask = normalized - 1;
+        this.buckets = new Entry[normalized];
+        this.firingExecutor = Executors.newFixedThreadPool(firingThreads, new NamedThreadFactory("jbpm-deadline-firing-"));
+        this.startTime = System.currentTimeMillis();
+
+        this.worker = new NamedThreadFactory("jbpm-deadline-wheel-").newThread(new Runnable() {
+            @Override
+            public void run() {
+                runWheel();
+            }
+        });
+        this.worker.start();
+    }
+
+    /**
+     * Registers given deadline to fire at <code>dueTime</code> (epoch millis).
+     * @return false if the same deadline (task, deadline, type) is already registered
+     */
+    public synchronized boolean schedule(long taskId, long deadlineId, DeadlineType type, long dueTime) {
+        if (!running) {
+            return false;
+        }
+        Entry head = index.get(taskId);
+        for (Entry e = head; e != null; e = e.nextForTask) {
+            if (e.deadlineId == deadlineId && e.type == type) {
+                return false;
+            }
+        }
+        long ticks = Math.max((dueTime - startTime) / tickDuration, tick);
+        Entry entry = new Entry(taskId, deadlineId, type, dueTime);
+        entry.remainingRounds = (ticks - tick) / buckets.length;
+        entry.bucket = (int) (ticks & mask);
+        linkToBucket(entry);
+
+        entry.nextForTask = head;
+        index.put(taskId, entry);
+
+        size++;
+        scheduledCount.incrementAndGet();
+        return true;
+    }
+
+    public synchronized boolean contains(long taskId, long deadlineId, DeadlineType type) {
+        for (Entry e = index.get(taskId); e != null; e = e.nextForTask) {
+            if (e.deadlineId == deadlineId && e.type == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cancels all deadlines of given type registered for the task.
+     * @return number of cancelled deadlines
+     */
+    public synchronized int cancel(long taskId, DeadlineType type) {
+        Entry head = index.get(taskId);
+        Entry newHead = null;
+        Entry tail = null;
+        int cancelled = 0;
+        for (Entry e = head; e != null; ) {
+            Entry next = e.nextForTask;
+            if (type == null || e.type == type) {
+                unlinkFromBucket(e);
+                cancelled++;
+            } else {
+                e.nextForTask = null;
+                if (tail == null) {
+                    newHead = e;
+                } else {
+                    tail.nextForTask = e;
+                }
+                tail = e;
+            }
+            e = next;
+        }
+        if (newHead == null) {
+            index.remove(taskId);
+        } else if (newHead != head) {
+            index.put(taskId, newHead);
+        }
+        size -= cancelled;
+        cancelledCount.addAndGet(cancelled);
+        return cancelled;
+    }
+
+    /**
+     * Cancels all deadlines (start and end) registered for the task.
+     * @return number of cancelled deadlines
+     */
+    public int cancelAll(long taskId) {
+        return cancel(taskId, null);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        firingExecutor.shutdownNow();
+        synchronized (this) {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = null;
+            }
+            index.clear();
+            size = 0;
+        }
+    }
+
+    public long getScheduledCount() {
+        return scheduledCount.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    public long getFiredCount() {
+        return firedCount.get();
+    }
+
+    /**
+     * @return average delay in milliseconds between a deadline's due time and the moment it was fired
+     */
+    public long getAverageFiringLag() {
+        long fired = firedCount.get();
+        return fired == 0 ? 0 : totalFiringLag.get() / fired;
+    }
+
+    /**
+     * @return maximum delay in milliseconds between a deadline's due time and the moment it was fired
+     */
+    public long getMaxFiringLag() {
+        return maxFiringLag.get();
+    }
+
+    private void runWheel() {
+        while (running) {
+            long nextTick;
+            synchronized (this) {
+                nextTick = startTime + (tick + 1) * tickDuration;
+            }
+            long sleep = nextTick - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            List<Entry> expired;
+            synchronized (this) {
+                expired = expireBucket((int) (tick & mask));
+                tick++;
+            }
+            for (Entry entry : expired) {
+                fire(entry);
+            }
+        }
+    }
+
+    // must be called while holding the lock
+    private List<Entry> expireBucket(int bucket) {
+        List<Entry> expired = null;
+        Entry e = buckets[bucket];
+        while (e != null) {
+            Entry next = e.next;
+            if (e.remainingRounds <= 0) {
+                unlinkFromBucket(e);
+                unlinkFromTask(e);
+                size--;
+                if (expired == null) {
+                    expired = new ArrayList<Entry>();
+                }
+                expired.add(e);
+            } else {
+                e.remainingRounds--;
+            }
+            e = next;
+        }
+        if (expired == null) {
+            return Collections.emptyList();
+        }
+        return expired;
+    }
+
+    private void fire(final Entry entry) {
+        try {
+            firingExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    long lag = Math.max(0, System.currentTimeMillis() - entry.dueTime);
+                    firedCount.incrementAndGet();
+                    totalFiringLag.addAndGet(lag);
+                    long max = maxFiringLag.get();
+                    while (lag > max && !maxFiringLag.compareAndSet(max, lag)) {
+                        max = maxFiringLag.get();
+                    }
+                    try {
+                        handler.onDeadline(entry.taskId, entry.deadlineId, entry.type);
+                    } catch (Throwable e) {
+                        logger.error("Error while executing deadline {} of task {}", entry.deadlineId, entry.taskId, e);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            if (running) {
+                logger.error("Unable to fire deadline {} of task {}", entry.deadlineId, entry.taskId, e);
+            }
+        }
+    }
+
+    private void linkToBucket(Entry entry) {
+        Entry head = buckets[entry.bucket];
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        buckets[entry.bucket] = entry;
+    }
+
+    private void unlinkFromBucket(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            buckets[entry.bucket] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    private void unlinkFromTask(Entry entry) {
+        Entry head = index.get(entry.taskId);
+        if (head == entry) {
+            if (entry.nextForTask == null) {
+                index.remove(entry.taskId);
+            } else {
+                index.put(entry.taskId, entry.nextForTask);
+            }
+        } else {
+            for (Entry e = head; e != null; e = e.nextForTask) {
+                if (e.nextForTask == entry) {
+                    e.nextForTask = entry.nextForTask;
+                    break;
+                }
+            }
+        }
+        entry.nextForTask = null;
+    }
+
+    private static final class Entry {
+        private final long taskId;
+        private final long deadlineId;
+        private final DeadlineType type;
+        private final long dueTime;
+
+        private long remainingRounds;
+        private int bucket;
+        private Entry prev;
+        private Entry next;
+        private Entry nextForTask;
+
+        private Entry(long taskId, long deadlineId, DeadlineType type, long dueTime) {
+            this.taskId = taskId;
+            this.deadlineId = deadlineId;
+            this.type = type;
+            this.dueTime = dueTime;
+        }
+    }
+
+    /**
+     * Open addressing (linear probing) map from task id to the first entry of the task,
+     * avoids boxing of the keys and per mapping node allocation.
+     */
+    static final class TaskIndex<V> {
+
+        private long[] keys;
+        private Object[] values;
+        private int size;
+
+        TaskIndex(int initialCapacity) {
+            int capacity = Integer.highestOneBit(Math.max(initialCapacity, 16) - 1) << 1;
+            keys = new long[capacity];
+            values = new Object[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(long key) {
+            int m = keys.length - 1;
+            for (int i = hash(key) & m; values[i] != null; i = (i + 1) & m) {
+                if (keys[i] == key) {
+                    return (V) values[i];
+                }
+            }
+            return null;
+        }
+
+        void put(long key, V value) {
+            int m = keys.length - 1;
+            int i = hash(key) & m;
+            for (; values[i] != null; i = (i + 1) & m) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+            }
+            keys[i] = key;
+            values[i] = value;
+            if (++size > (keys.length >> 1) + (keys.length >> 2)) {
+                resize(keys.length << 1);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V remove(long key) {
+            int m = keys.length - 1;
+            int i = hash(key) & m;
+            for (; values[i] != null; i = (i + 1) & m) {
+                if (keys[i] == key) {
+                    V removed = (V) values[i];
+                    values[i] = null;
+                    size--;
+                    // shift back following entries of the same probe sequence
+                    for (int j = (i + 1) & m; values[j] != null; j = (j + 1) & m) {
+                        int slot = hash(keys[j]) & m;
+                        if ((j > i && (slot <= i || slot > j)) || (j < i && (slot <= i && slot > j))) {
+                            keys[i] = keys[j];
+                            values[i] = values[j];
+                            values[j] = null;
+                            i = j;
+                        }
+                    }
+                    return removed;
+                }
+            }
+            return null;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = null;
+            }
+            size = 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[capacity];
+            values = new Object[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    put(oldKeys[i], (V) oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
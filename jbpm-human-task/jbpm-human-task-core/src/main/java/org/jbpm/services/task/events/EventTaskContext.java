@@ -1,5 +1,8 @@
 package org.jbpm.services.task.events;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.kie.api.task.UserGroupCallback;
 import org.kie.internal.command.World;
 import org.kie.internal.task.api.TaskContext;
@@ -7,7 +10,14 @@ import org.kie.internal.task.api.TaskPersistenceContext;
 
 public class EventTaskContext implements TaskContext {
 
+	/**
+	 * Identifier under which the output of a completed task is available to listeners
+	 * running in the same operation, so they do not need to load the output content again.
+	 */
+	public static final String TASK_OUTPUT = "TaskOutput";
+
 	private TaskPersistenceContext persistenceContext;
+	private Map<String, Object> attributes;
 	
 	public EventTaskContext() {
 		
@@ -28,16 +38,25 @@ public class EventTaskContext implements TaskContext {
 
 	@Override
 	public Object get(String identifier) {		
-		return null;
+		if (attributes == null) {
+			return null;
+		}
+		return attributes.get(identifier);
 	}
 
 	@Override
 	public void set(String identifier, Object value) {
-
+		if (attributes == null) {
+			attributes = new HashMap<String, Object>();
+		}
+		attributes.put(identifier, value);
 	}
 
 	@Override
 	public void remove(String identifier) {	
+		if (attributes != null) {
+			attributes.remove(identifier);
+		}
 	}
 
 	@Override
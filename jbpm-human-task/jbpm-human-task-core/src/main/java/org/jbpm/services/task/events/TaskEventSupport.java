@@ -183,10 +183,18 @@ public class TaskEventSupport extends AbstractEventSupport<TaskLifeCycleEventLis
     }
     
     public void fireAfterTaskCompleted(final Task task, TaskPersistenceContext context) {
+        fireAfterTaskCompleted(task, context, null);
+    }
+
+    public void fireAfterTaskCompleted(final Task task, TaskPersistenceContext context, Object output) {
         final Iterator<TaskLifeCycleEventListener> iter = getEventListenersIterator();
         if (iter.hasNext()) {
             do{
-                iter.next().afterTaskCompletedEvent(new TaskEventImpl(task, new EventTaskContext(context)));
+                EventTaskContext eventContext = new EventTaskContext(context);
+                if (output != null) {
+                    eventContext.set(EventTaskContext.TASK_OUTPUT, output);
+                }
+                iter.next().afterTaskCompletedEvent(new TaskEventImpl(task, eventContext));
             } while (iter.hasNext());
         }
     }
@@ -16,14 +16,14 @@
 package org.jbpm.services.task.impl;
 
 import java.io.Serializable;
-import java.util.Iterator;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import org.drools.core.time.Job;
@@ -37,6 +37,7 @@ import org.jbpm.process.core.timer.TimerServiceRegistry;
 import org.jbpm.process.core.timer.impl.GlobalTimerService;
 import org.jbpm.services.task.commands.ExecuteDeadlinesCommand;
 import org.jbpm.services.task.commands.InitDeadlinesCommand;
+import org.jbpm.services.task.deadlines.DeadlineTimerWheel;
 import org.jbpm.services.task.deadlines.NotificationListener;
 import org.jbpm.services.task.query.DeadlineSummaryImpl;
 import org.jbpm.services.task.utils.ClassUtil;
@@ -58,10 +59,17 @@ public class TaskDeadlinesServiceImpl implements TaskDeadlinesService {
     
     protected static NotificationListener notificationListener;
 
-	// use single ThreadPoolExecutor for all instances of task services within same JVM
-    private volatile static ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(3);
-    private volatile static Map<Long, List<ScheduledFuture<ScheduledTaskDeadline>>> startScheduledTaskDeadlines = new ConcurrentHashMap<Long, List<ScheduledFuture<ScheduledTaskDeadline>>>();
-    private volatile static Map<Long, List<ScheduledFuture<ScheduledTaskDeadline>>> endScheduledTaskDeadlines = new ConcurrentHashMap<Long, List<ScheduledFuture<ScheduledTaskDeadline>>>();
+    private static final long TICK_DURATION = Long.parseLong(System.getProperty("org.jbpm.ht.deadline.tick", "100"));
+    private static final int WHEEL_SIZE = Integer.parseInt(System.getProperty("org.jbpm.ht.deadline.wheel.size", "512"));
+    private static final int FIRING_THREADS = Integer.parseInt(System.getProperty("org.jbpm.ht.deadline.threads", "3"));
+    // deadlines stored before start up are loaded from data base in slices of this window as it moves,
+    // deadlines created at runtime are always scheduled directly
+    private static final long LOAD_WINDOW = Long.parseLong(System.getProperty("org.jbpm.ht.deadline.window", String.valueOf(TimeUnit.HOURS.toMillis(1))));
+
+	// use single timer wheel for all instances of task services within same JVM
+    private volatile static DeadlineTimerWheel wheel = newTimerWheel();
+    private volatile static ScheduledExecutorService windowLoader;
+    private volatile static long loadedUntil;
     private volatile static Map<String, JobHandle> jobHandles = new ConcurrentHashMap<String, JobHandle>();
 
     private TaskPersistenceContext persistenceContext;
@@ -86,6 +94,10 @@ public class TaskDeadlinesServiceImpl implements TaskDeadlinesService {
         TimerService timerService = TimerServiceRegistry.getInstance().get(deploymentId + TimerServiceRegistry.TIMER_SERVICE_SUFFIX);
         if (timerService != null && timerService instanceof GlobalTimerService) {
             TaskDeadlineJob deadlineJob = new TaskDeadlineJob(taskId, deadlineId, type);
+            if (jobHandles.containsKey(deadlineJob.getId())) {
+                // already scheduled, e.g. when deadline was loaded again by the window loader
+                return;
+            }
             Trigger trigger = new IntervalTrigger( timerService.getCurrentTime(),
                     null,
                     null,
@@ -99,25 +111,8 @@ public class TaskDeadlinesServiceImpl implements TaskDeadlinesService {
             jobHandles.put(deadlineJob.getId(), handle);
 
         } else {
-            ScheduledFuture<ScheduledTaskDeadline> scheduled = scheduler.schedule(new ScheduledTaskDeadline(taskId, deadlineId, type), delay, TimeUnit.MILLISECONDS);
-            
-            List<ScheduledFuture<ScheduledTaskDeadline>> knownFutures = null;
-            if (type == DeadlineType.START) {
-                knownFutures = startScheduledTaskDeadlines.get(taskId);
-            } else if (type == DeadlineType.END) {
-                knownFutures = endScheduledTaskDeadlines.get(taskId);
-            }
-            if (knownFutures == null) {
-                knownFutures = new CopyOnWriteArrayList<ScheduledFuture<ScheduledTaskDeadline>>();
-            }
-
-            knownFutures.add(scheduled);
-                        
-            if (type == DeadlineType.START) {
-                startScheduledTaskDeadlines.put(taskId, knownFutures);
-            } else if (type == DeadlineType.END) {
-                endScheduledTaskDeadlines.put(taskId, knownFutures);
-            }
+            // every deadline is scheduled right away, the wheel ignores it when the window loader finds it again
+            wheel.schedule(taskId, deadlineId, type, System.currentTimeMillis() + delay);
         }
 
     }
@@ -173,27 +168,8 @@ public class TaskDeadlinesServiceImpl implements TaskDeadlinesService {
             }
             
         } else {
-            List<ScheduledFuture<ScheduledTaskDeadline>> knownFutures = null;
-            if (type == DeadlineType.START) {
-                knownFutures = startScheduledTaskDeadlines.get(taskId);
-            } else if (type == DeadlineType.END) {
-                knownFutures = endScheduledTaskDeadlines.get(taskId);
-            }
-            if (knownFutures == null) {
-                return;
-            }
-            Iterator<ScheduledFuture<ScheduledTaskDeadline>> it = knownFutures.iterator();
-            while (it.hasNext()) {
-                ScheduledFuture<ScheduledTaskDeadline> scheduled = it.next();
-                try {
-                    if (!scheduled.isDone() && !scheduled.isCancelled()) {
-                        scheduled.cancel(true);
-                    }
-    
-                } catch (Exception e) {
-                    logger.error("Error while cancelling scheduled deadline task for Task with id {} -> {}", taskId, e);
-                }
-            }
+            int cancelled = wheel.cancel(taskId, type);
+            logger.debug("Cancelled {} {} deadlines of task {}", cancelled, type, taskId);
         }
     }
 
@@ -362,22 +338,26 @@ public class TaskDeadlinesServiceImpl implements TaskDeadlinesService {
     public static synchronized void initialize(CommandExecutor instance) {
     	if (instance != null) {
     	    TaskDeadlinesServiceImpl.instance = instance;
-	        getInstance().execute(new InitDeadlinesCommand());
+    	    loadedUntil = System.currentTimeMillis() + LOAD_WINDOW;
+	        getInstance().execute(new InitDeadlinesCommand(null, new Date(loadedUntil)));
+	        startWindowLoader();
     	}        
     }
     
     public static synchronized void reset() {
     	dispose();
-        scheduler = new ScheduledThreadPoolExecutor(3);        
+        wheel = newTimerWheel();
     }
 
     public static synchronized void dispose() {
         try {
-            if (scheduler != null) {
-                scheduler.shutdownNow();
-            }        
-            startScheduledTaskDeadlines.clear();
-            endScheduledTaskDeadlines.clear();
+            if (wheel != null) {
+                wheel.stop();
+            }
+            if (windowLoader != null) {
+                windowLoader.shutdownNow();
+                windowLoader = null;
+            }
             jobHandles.clear();
             notificationListener = null;
             TaskDeadlinesServiceImpl.instance = null;
@@ -385,4 +365,60 @@ public class TaskDeadlinesServiceImpl implements TaskDeadlinesService {
             logger.error("Error encountered when disposing TaskDeadlineService", e);
         }
     }
+
+    /**
+     * @return timer wheel that keeps in memory deadlines, mainly to expose its statistics
+     * (number of scheduled/fired/cancelled deadlines and firing lag)
+     */
+    public static DeadlineTimerWheel getTimerWheel() {
+        return wheel;
+    }
+
+    private static DeadlineTimerWheel newTimerWheel() {
+        return new DeadlineTimerWheel(new DeadlineTimerWheel.DeadlineHandler() {
+
+            @Override
+            public void onDeadline(long taskId, long deadlineId, DeadlineType type) {
+                try {
+                    new ScheduledTaskDeadline(taskId, deadlineId, type).call();
+                } catch (Exception e) {
+                    logger.error("Error while executing deadline {} for task {}", deadlineId, taskId, e);
+                }
+            }
+        }, TICK_DURATION, WHEEL_SIZE, FIRING_THREADS);
+    }
+
+    private static void startWindowLoader() {
+        if (windowLoader != null) {
+            return;
+        }
+        windowLoader = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "jbpm-deadline-window-loader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long period = Math.max(LOAD_WINDOW / 2, 1);
+        windowLoader.scheduleAtFixedRate(new Runnable() {
+
+            @Override
+            public void run() {
+                CommandExecutor executor = getInstance();
+                if (executor == null) {
+                    return;
+                }
+                try {
+                    long from = loadedUntil;
+                    long until = System.currentTimeMillis() + LOAD_WINDOW;
+                    executor.execute(new InitDeadlinesCommand(new Date(from), new Date(until)));
+                    loadedUntil = until;
+                } catch (Exception e) {
+                    logger.error("Error while loading deadlines for next window", e);
+                }
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
 }
@@ -109,6 +109,40 @@ public class TaskInstanceServiceImpl implements TaskInstanceService {
         return task.getId();
     }
 
+    /**
+     * Adds several tasks at once. All contents are persisted before all tasks so that the
+     * inserts are not interleaved and can be batched by the persistence provider.
+     *
+     * @param tasks the tasks to add
+     * @param contentData the content of each task, the list and its elements may be <code>null</code>
+     * @return the ids of the added tasks, in the order of the given tasks
+     */
+    public List<Long> addTasks(List<Task> tasks, List<ContentData> contentData) {
+        for (Task task : tasks) {
+            taskEventSupport.fireBeforeTaskAdded(task, persistenceContext);
+        }
+        if (contentData != null) {
+            for (int i = 0; i < tasks.size(); i++) {
+                ContentData data = contentData.get(i);
+                if (data != null) {
+                    Content content = TaskModelProvider.getFactory().newContent();
+                    ((InternalContent) content).setContent(data.getContent());
+                    persistenceContext.persistContent(content);
+                    ((InternalTaskData) tasks.get(i).getTaskData()).setDocument(content.getId(), data);
+                }
+            }
+        }
+        List<Long> taskIds = new ArrayList<Long>(tasks.size());
+        for (Task task : tasks) {
+            persistenceContext.persistTask(task);
+            taskIds.add(task.getId());
+        }
+        for (Task task : tasks) {
+            taskEventSupport.fireAfterTaskAdded(task, persistenceContext);
+        }
+        return taskIds;
+    }
+
     public void activate(long taskId, String userId) {
         lifeCycleManager.taskOperation(Operation.Activate, taskId, userId, null, null, null);
     }
@@ -12,6 +12,7 @@ import org.jbpm.services.task.commands.AddCommentCommand;
 import org.jbpm.services.task.commands.AddContentCommand;
 import org.jbpm.services.task.commands.AddGroupCommand;
 import org.jbpm.services.task.commands.AddTaskCommand;
+import org.jbpm.services.task.commands.AddTasksCommand;
 import org.jbpm.services.task.commands.AddUserCommand;
 import org.jbpm.services.task.commands.AddUsersGroupsCommand;
 import org.jbpm.services.task.commands.ArchiveTasksCommand;
@@ -471,6 +472,10 @@ public class CommandBasedTaskService implements InternalTaskService, EventServic
 		return executor.execute(new AddTaskCommand(task, data));
 	}
 
+	public List<Long> addTasks(List<Task> tasks, List<ContentData> data) {
+		return executor.execute(new AddTasksCommand(tasks, data));
+	}
+
 	@Override
 	public void remove(long taskId, String userId) {
 		executor.execute(new RemoveTaskCommand(taskId, userId));
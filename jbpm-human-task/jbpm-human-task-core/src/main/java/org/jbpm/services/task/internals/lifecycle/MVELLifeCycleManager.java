@@ -331,13 +331,18 @@ public class MVELLifeCycleManager implements LifeCycleManager {
                     break;
                 }
                 case Complete: {
+                    Object output = null;
                     if (data != null) {
-                        
+                        // when no output was saved before, the stored output is exactly the given data
+                        // so hand it to the listeners instead of making them load it again
+                        if (task.getTaskData().getOutputContentId() == -1) {
+                            output = data;
+                        }
                         taskContentService.addContent(taskId, data);
                         
                     }
 
-                    taskEventSupport.fireAfterTaskCompleted(task, persistenceContext);
+                    taskEventSupport.fireAfterTaskCompleted(task, persistenceContext, output);
                     break;
                 }
                 case Delegate: {
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014 JBoss by Red Hat.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.services.task.deadlines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.kie.internal.task.api.TaskDeadlinesService.DeadlineType;
+
+public class DeadlineTimerWheelTest {
+
+    private DeadlineTimerWheel wheel;
+
+    @After
+    public void tearDown() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void testDeadlinesFireInOrder() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final List<Long> fired = Collections.synchronizedList(new ArrayList<Long>());
+        wheel = new DeadlineTimerWheel(new DeadlineTimerWheel.DeadlineHandler() {
+            @Override
+            public void onDeadline(long taskId, long deadlineId, DeadlineType type) {
+                fired.add(deadlineId);
+                latch.countDown();
+            }
+        }, 10, 8, 1);
+
+        long now = System.currentTimeMillis();
+        // 300ms is more than one rotation of the wheel (8 x 10ms)
+        assertTrue(wheel.schedule(1, 3, DeadlineType.END, now + 300));
+        assertTrue(wheel.schedule(1, 1, DeadlineType.START, now + 20));
+        assertTrue(wheel.schedule(2, 2, DeadlineType.START, now + 150));
+        assertFalse(wheel.schedule(1, 1, DeadlineType.START, now + 20));
+        assertEquals(3, wheel.size());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(3, fired.size());
+        assertEquals(1l, fired.get(0).longValue());
+        assertEquals(2l, fired.get(1).longValue());
+        assertEquals(3l, fired.get(2).longValue());
+        assertEquals(0, wheel.size());
+        assertEquals(3, wheel.getFiredCount());
+        assertTrue(wheel.getMaxFiringLag() >= wheel.getAverageFiringLag());
+    }
+
+    @Test
+    public void testCancelDeadlinesOfTask() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<Long> fired = Collections.synchronizedList(new ArrayList<Long>());
+        wheel = new DeadlineTimerWheel(new DeadlineTimerWheel.DeadlineHandler() {
+            @Override
+            public void onDeadline(long taskId, long deadlineId, DeadlineType type) {
+                fired.add(taskId);
+                latch.countDown();
+            }
+        }, 10, 16, 1);
+
+        long now = System.currentTimeMillis();
+        wheel.schedule(1, 1, DeadlineType.START, now + 100);
+        wheel.schedule(1, 2, DeadlineType.START, now + 100);
+        wheel.schedule(1, 3, DeadlineType.END, now + 100);
+        wheel.schedule(2, 4, DeadlineType.START, now + 200);
+
+        assertEquals(2, wheel.cancel(1, DeadlineType.START));
+        assertFalse(wheel.contains(1, 1, DeadlineType.START));
+        assertTrue(wheel.contains(1, 3, DeadlineType.END));
+        assertEquals(1, wheel.cancelAll(1));
+        assertEquals(1, wheel.size());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, fired.size());
+        assertEquals(2l, fired.get(0).longValue());
+        assertEquals(3, wheel.getCancelledCount());
+    }
+
+    @Test
+    public void testTaskIndexGrowAndRemove() {
+        DeadlineTimerWheel.TaskIndex<String> index = new DeadlineTimerWheel.TaskIndex<String>(16);
+        int count = 10000;
+        for (long i = 0; i < count; i++) {
+            index.put(i * 31, String.valueOf(i));
+        }
+        assertEquals(count, index.size());
+        for (long i = 0; i < count; i += 2) {
+            assertEquals(String.valueOf(i), index.remove(i * 31));
+        }
+        assertEquals(count / 2, index.size());
+        for (long i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                assertEquals(null, index.get(i * 31));
+            } else {
+                assertEquals(String.valueOf(i), index.get(i * 31));
+            }
+        }
+    }
+}
@@ -16,12 +16,15 @@
 package org.jbpm.services.task.wih;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 
 import org.drools.core.process.instance.impl.WorkItemImpl;
 import org.jbpm.process.core.timer.DateTimeUtils;
+import org.jbpm.process.instance.WorkItemBatch;
+import org.jbpm.services.task.commands.AddTasksCommand;
 import org.jbpm.services.task.utils.ContentMarshallerHelper;
 import org.jbpm.services.task.utils.OnErrorAction;
 import org.jbpm.services.task.wih.util.HumanTaskHandlerHelper;
@@ -31,6 +34,7 @@ import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.process.WorkItem;
 import org.kie.api.runtime.process.WorkItemHandler;
 import org.kie.api.runtime.process.WorkItemManager;
+import org.kie.api.task.TaskService;
 import org.kie.api.task.model.I18NText;
 import org.kie.api.task.model.OrganizationalEntity;
 import org.kie.api.task.model.PeopleAssignments;
@@ -56,6 +60,8 @@ public abstract class AbstractHTWorkItemHandler implements WorkItemHandler {
     
     protected OnErrorAction action = OnErrorAction.LOG;
 
+    private boolean batchCreation = Boolean.parseBoolean(System.getProperty("org.jbpm.ht.batch.create", "false"));
+
     public AbstractHTWorkItemHandler() {
     }
 
@@ -68,6 +74,19 @@ public abstract class AbstractHTWorkItemHandler implements WorkItemHandler {
         this.action = action;
     }
 
+    public boolean isBatchCreation() {
+        return batchCreation;
+    }
+
+    /**
+     * When enabled, the tasks of work items created within a {@link WorkItemBatch}, e.g. the
+     * instances of a multi instance user task, are added with a single {@link AddTasksCommand}
+     * once all work items of the batch have been created.
+     */
+    public void setBatchCreation(boolean batchCreation) {
+        this.batchCreation = batchCreation;
+    }
+
     protected Task createTaskBasedOnWorkItemParams(KieSession session, WorkItem workItem) {
         InternalTask task = (InternalTask) TaskModelProvider.getFactory().newTask();
         String taskName = (String) workItem.getParameter("NodeName");
@@ -193,7 +212,107 @@ public abstract class AbstractHTWorkItemHandler implements WorkItemHandler {
     }
 
     
+    /**
+     * Defers the creation of the given task to the end of the active work item batch.
+     *
+     * @return <code>false</code> if batch creation is disabled or no batch is active, in
+     * which case the task must be added right away
+     */
+    protected boolean addToBatch(TaskService taskService, WorkItem workItem, Task task, ContentData content, WorkItemManager manager) {
+        if (!batchCreation || !WorkItemBatch.isActive()) {
+            return false;
+        }
+        List<Object> key = Arrays.<Object>asList(this, taskService);
+        PendingTasks pendingTasks = (PendingTasks) WorkItemBatch.getCallback(key);
+        if (pendingTasks == null) {
+            pendingTasks = new PendingTasks(taskService, manager);
+            WorkItemBatch.addCallback(key, pendingTasks);
+        }
+        pendingTasks.add(workItem, task, content);
+        return true;
+    }
+
+    /**
+     * Removes the task of the given work item from the active work item batch.
+     *
+     * @return <code>true</code> if the task was pending and will therefore not be created
+     */
+    protected boolean removeFromBatch(TaskService taskService, WorkItem workItem) {
+        PendingTasks pendingTasks = (PendingTasks) WorkItemBatch.getCallback(Arrays.<Object>asList(this, taskService));
+        return pendingTasks != null && pendingTasks.remove(workItem);
+    }
+
+    protected void handleError(Exception e, WorkItem workItem, WorkItemManager manager) {
+        if (action.equals(OnErrorAction.ABORT)) {
+            manager.abortWorkItem(workItem.getId());
+        } else if (action.equals(OnErrorAction.RETHROW)) {
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else {
+                throw new RuntimeException(e);
+            }
+        } else if (action.equals(OnErrorAction.LOG)) {
+            StringBuilder logMsg = new StringBuilder();
+            logMsg.append(new Date()).append(": Error when creating task on task server for work item id ").append(workItem.getId());
+            logMsg.append(". Error reported by task server: ").append(e.getMessage());
+            logger.error(logMsg.toString(), e);
+        }
+    }
+
     public abstract void executeWorkItem(WorkItem workItem, WorkItemManager manager);
 
     public abstract void abortWorkItem(WorkItem workItem, WorkItemManager manager);
+
+    private class PendingTasks implements WorkItemBatch.Callback {
+
+        private final TaskService taskService;
+        private final WorkItemManager manager;
+        private final List<WorkItem> workItems = new ArrayList<WorkItem>();
+        private final List<Task> tasks = new ArrayList<Task>();
+        private final List<ContentData> contents = new ArrayList<ContentData>();
+
+        PendingTasks(TaskService taskService, WorkItemManager manager) {
+            this.taskService = taskService;
+            this.manager = manager;
+        }
+
+        void add(WorkItem workItem, Task task, ContentData content) {
+            workItems.add(workItem);
+            tasks.add(task);
+            contents.add(content);
+        }
+
+        boolean remove(WorkItem workItem) {
+            for (int i = 0; i < workItems.size(); i++) {
+                if (workItems.get(i).getId() == workItem.getId()) {
+                    workItems.remove(i);
+                    tasks.remove(i);
+                    contents.remove(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void flush() {
+            if (tasks.isEmpty()) {
+                return;
+            }
+            List<Long> taskIds;
+            try {
+                taskIds = taskService.execute(new AddTasksCommand(tasks, contents));
+            } catch (Exception e) {
+                // the tasks are added in one command, so none of them has been created
+                for (WorkItem workItem : workItems) {
+                    handleError(e, workItem, manager);
+                }
+                return;
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                if (isAutoClaim(workItems.get(i), tasks.get(i))) {
+                    taskService.claim(taskIds.get(i), (String) workItems.get(i).getParameter("SwimlaneActorId"));
+                }
+            }
+        }
+    }
 }
@@ -18,6 +18,7 @@ package org.jbpm.services.task.wih;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.jbpm.services.task.events.EventTaskContext;
 import org.jbpm.services.task.lifecycle.listeners.TaskLifeCycleEventListener;
 import org.jbpm.services.task.utils.ContentMarshallerHelper;
 import org.kie.api.runtime.KieSession;
@@ -30,6 +31,7 @@ import org.kie.api.task.model.Task;
 import org.kie.internal.runtime.manager.InternalRuntimeManager;
 import org.kie.internal.runtime.manager.RuntimeManagerRegistry;
 import org.kie.internal.runtime.manager.context.ProcessInstanceIdContext;
+import org.kie.internal.task.api.TaskContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +45,15 @@ public class ExternalTaskEventListener implements TaskLifeCycleEventListener {
     }
 
     public void processTaskState(Task task) {
+        processTaskState(task, null);
+    }
+
+    /**
+     * Completes or aborts the work item of the given task. When the task context carries
+     * the output of the completed task it is used as is, otherwise the output content is
+     * loaded through the task service (e.g. when the event was raised in another JVM).
+     */
+    public void processTaskState(Task task, TaskContext context) {
 
         long workItemId = task.getTaskData().getWorkItemId();
         long processInstanceId = task.getTaskData().getProcessInstanceId();
@@ -56,12 +67,18 @@ public class ExternalTaskEventListener implements TaskLifeCycleEventListener {
             results.put("ActorId", userId);
             long contentId = task.getTaskData().getOutputContentId();
             if (contentId != -1) {
-                Content content = runtime.getTaskService().getContentById(contentId);
-                ClassLoader cl = null;
-                if (manager instanceof InternalRuntimeManager) {
-                    cl = ((InternalRuntimeManager)manager).getEnvironment().getClassLoader();
+                Object result = null;
+                if (context != null) {
+                    result = context.get(EventTaskContext.TASK_OUTPUT);
+                }
+                if (result == null) {
+                    Content content = runtime.getTaskService().getContentById(contentId);
+                    ClassLoader cl = null;
+                    if (manager instanceof InternalRuntimeManager) {
+                        cl = ((InternalRuntimeManager)manager).getEnvironment().getClassLoader();
+                    }
+                    result = ContentMarshallerHelper.unmarshall(content.getContent(), session.getEnvironment(), cl);
                 }
-                Object result = ContentMarshallerHelper.unmarshall(content.getContent(), session.getEnvironment(), cl);
                 results.put("Result", result);
                 if (result instanceof Map) {
                     Map<?, ?> map = (Map<?, ?>) result;
@@ -116,7 +133,11 @@ public class ExternalTaskEventListener implements TaskLifeCycleEventListener {
         KieSession session = runtime.getKieSession();
         if (session != null) {
             logger.debug(">> I've recieved an event for a known session (" + task.getTaskData().getProcessSessionId()+")");
-            processTaskState(task);
+            TaskContext context = null;
+            if (event.getTaskContext() instanceof TaskContext) {
+                context = (TaskContext) event.getTaskContext();
+            }
+            processTaskState(task, context);
         } else {
             logger.error("EE: I've recieved an event but the session is not known by this handler ( "+task.getTaskData().getProcessSessionId()+")");
         }
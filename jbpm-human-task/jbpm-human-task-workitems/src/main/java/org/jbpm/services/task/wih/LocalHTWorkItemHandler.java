@@ -57,40 +57,51 @@ public class LocalHTWorkItemHandler extends AbstractHTWorkItemHandler {
         
         Task task = createTaskBasedOnWorkItemParams(ksessionById, workItem);
         ContentData content = createTaskContentBasedOnWorkItemParams(ksessionById, workItem);
+        if (addToBatch(runtime.getTaskService(), workItem, task, content, manager)) {
+            return;
+        }
         try {
             long taskId = ((InternalTaskService) runtime.getTaskService()).addTask(task, content);
             if (isAutoClaim(workItem, task)) {
                 runtime.getTaskService().claim(taskId, (String) workItem.getParameter("SwimlaneActorId"));
             }
         } catch (Exception e) {
-            if (action.equals(OnErrorAction.ABORT)) {
-                manager.abortWorkItem(workItem.getId());
-            } else if (action.equals(OnErrorAction.RETHROW)) {
-                if (e instanceof RuntimeException) {
+            handleError(e, workItem, manager);
+        }
+    }
+
+    @Override
+    protected void handleError(Exception e, WorkItem workItem, WorkItemManager manager) {
+        if (action.equals(OnErrorAction.ABORT)) {
+            manager.abortWorkItem(workItem.getId());
+        } else if (action.equals(OnErrorAction.RETHROW)) {
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else {
+                throw new RuntimeException(e);
+            }
+        } else if (action.equals(OnErrorAction.LOG)) {
+            StringBuilder logMsg = new StringBuilder();
+            logMsg.append(new Date()).append(": Error when creating task on task server for work item id ").append(workItem.getId());
+            logMsg.append(". Error reported by task server: ").append(e.getMessage());
+            logger.error(logMsg.toString(), e);
+            // rethrow to cancel processing if the exception is not recoverable                
+            if (!(e instanceof TaskException) || ((e instanceof TaskException) && !((TaskException) e).isRecoverable())) {
+            	if (e instanceof RuntimeException) {
                     throw (RuntimeException) e;
                 } else {
                     throw new RuntimeException(e);
                 }
-            } else if (action.equals(OnErrorAction.LOG)) {
-                StringBuilder logMsg = new StringBuilder();
-                logMsg.append(new Date()).append(": Error when creating task on task server for work item id ").append(workItem.getId());
-                logMsg.append(". Error reported by task server: ").append(e.getMessage());
-                logger.error(logMsg.toString(), e);
-                // rethrow to cancel processing if the exception is not recoverable                
-                if (!(e instanceof TaskException) || ((e instanceof TaskException) && !((TaskException) e).isRecoverable())) {
-                	if (e instanceof RuntimeException) {
-                        throw (RuntimeException) e;
-                    } else {
-                        throw new RuntimeException(e);
-                    }
-                }
             }
-        } 
+        }
     }
 
     @Override
     public void abortWorkItem(WorkItem workItem, WorkItemManager manager) {
         RuntimeEngine runtime = runtimeManager.getRuntimeEngine(ProcessInstanceIdContext.get(workItem.getProcessInstanceId()));
+        if (removeFromBatch(runtime.getTaskService(), workItem)) {
+            return;
+        }
         Task task = runtime.getTaskService().getTaskByWorkItemId(workItem.getId());
         if (task != null) {
             try {
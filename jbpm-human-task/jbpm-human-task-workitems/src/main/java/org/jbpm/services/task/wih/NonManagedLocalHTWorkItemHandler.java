@@ -15,10 +15,7 @@
  */
 package org.jbpm.services.task.wih;
 
-import java.util.Date;
-
 import org.jbpm.services.task.exception.PermissionDeniedException;
-import org.jbpm.services.task.utils.OnErrorAction;
 import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.process.WorkItem;
 import org.kie.api.runtime.process.WorkItemManager;
@@ -95,31 +92,24 @@ public class NonManagedLocalHTWorkItemHandler extends AbstractHTWorkItemHandler
         
         Task task = createTaskBasedOnWorkItemParams(ksession, workItem);
         ContentData content = createTaskContentBasedOnWorkItemParams(ksession, workItem);
+        if (addToBatch(taskService, workItem, task, content, manager)) {
+            return;
+        }
         try {
             long taskId = ((InternalTaskService) taskService).addTask(task, content);
             if (isAutoClaim(workItem, task)) {
                 taskService.claim(taskId, (String) workItem.getParameter("SwimlaneActorId"));
             }
         } catch (Exception e) {
-            if (action.equals(OnErrorAction.ABORT)) {
-                manager.abortWorkItem(workItem.getId());
-            } else if (action.equals(OnErrorAction.RETHROW)) {
-                if (e instanceof RuntimeException) {
-                    throw (RuntimeException) e;
-                } else {
-                    throw new RuntimeException(e);
-                }
-            } else if (action.equals(OnErrorAction.LOG)) {
-                StringBuilder logMsg = new StringBuilder();
-                logMsg.append(new Date()).append(": Error when creating task on task server for work item id ").append(workItem.getId());
-                logMsg.append(". Error reported by task server: ").append(e.getMessage());
-                logger.error(logMsg.toString(), e);
-            }
+            handleError(e, workItem, manager);
         } 
     }
 
     @Override
     public void abortWorkItem(WorkItem workItem, WorkItemManager manager) {
+        if (removeFromBatch(taskService, workItem)) {
+            return;
+        }
         Task task = taskService.getTaskByWorkItemId(workItem.getId());
         if (task != null) {
             try {
@@ -18,6 +18,8 @@ package org.jbpm.services.task.wih;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -28,7 +30,9 @@ import java.util.Map;
 
 import org.drools.core.process.instance.impl.WorkItemImpl;
 import org.jbpm.process.core.timer.DateTimeUtils;
+import org.jbpm.process.instance.WorkItemBatch;
 import org.jbpm.services.task.events.DefaultTaskEventListener;
+import org.jbpm.services.task.events.EventTaskContext;
 import org.jbpm.services.task.exception.PermissionDeniedException;
 import org.jbpm.services.task.test.MyObject;
 import org.jbpm.services.task.test.TestStatefulKnowledgeSession;
@@ -45,6 +49,7 @@ import org.kie.api.task.model.Status;
 import org.kie.api.task.model.Task;
 import org.kie.api.task.model.TaskSummary;
 import org.kie.internal.task.api.EventService;
+import org.kie.internal.task.api.TaskContext;
 import org.kie.internal.task.api.model.AccessType;
 import org.kie.internal.task.api.model.InternalTaskData;
 
@@ -466,6 +471,71 @@ public abstract class HTWorkItemHandlerBaseTest extends AbstractBaseTest {
     }
     
     
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testTaskOutputHandedToCompletedListeners() throws Exception {
+        TestWorkItemManager manager = new TestWorkItemManager();
+        ksession.setWorkItemManager(manager);
+        CompletedTaskListener listener = new CompletedTaskListener();
+        ((EventService<TaskLifeCycleEventListener>) taskService).registerTaskEventListener(listener);
+        WorkItemImpl workItem = new WorkItemImpl();
+        workItem.setName("Human Task");
+        workItem.setParameter("NodeName", "TaskName");
+        workItem.setParameter("ActorId", "Darth Vader");
+        workItem.setProcessInstanceId(10);
+        getHandler().executeWorkItem(workItem, manager);
+
+        List<TaskSummary> tasks = taskService.getTasksAssignedAsPotentialOwner("Darth Vader", "en-UK");
+        assertEquals(1, tasks.size());
+        long taskId = tasks.get(0).getId();
+        taskService.start(taskId, "Darth Vader");
+
+        Map<String, Object> results = new HashMap<String, Object>();
+        results.put("Result", "This is the result");
+        taskService.complete(taskId, "Darth Vader", results);
+
+        assertTrue(manager.waitTillCompleted(MANAGER_COMPLETION_WAIT_TIME));
+        assertSame(results, listener.getOutput());
+        assertEquals("Darth Vader", manager.getResults().get("ActorId"));
+        assertEquals("This is the result", manager.getResults().get("Result"));
+        ((EventService<TaskLifeCycleEventListener>) taskService).removeTaskEventListener(listener);
+    }
+
+    @Test
+    public void testTaskBatchCreation() throws Exception {
+        TestWorkItemManager manager = new TestWorkItemManager();
+        ksession.setWorkItemManager(manager);
+        ((AbstractHTWorkItemHandler) getHandler()).setBatchCreation(true);
+
+        WorkItemBatch.begin();
+        WorkItemImpl abortedWorkItem = null;
+        for (int i = 0; i < 3; i++) {
+            WorkItemImpl workItem = new WorkItemImpl();
+            workItem.setId(i + 1);
+            workItem.setName("Human Task");
+            workItem.setParameter("NodeName", "TaskName" + i);
+            workItem.setParameter("ActorId", "Darth Vader");
+            workItem.setProcessInstanceId(10);
+            getHandler().executeWorkItem(workItem, manager);
+            abortedWorkItem = workItem;
+        }
+        // tasks are only added when the batch ends
+        assertEquals(0, taskService.getTasksAssignedAsPotentialOwner("Darth Vader", "en-UK").size());
+        getHandler().abortWorkItem(abortedWorkItem, manager);
+        WorkItemBatch.end(true);
+
+        List<TaskSummary> tasks = taskService.getTasksAssignedAsPotentialOwner("Darth Vader", "en-UK");
+        assertEquals(2, tasks.size());
+        for (TaskSummary task : tasks) {
+            assertEquals(Status.Reserved, task.getStatus());
+            assertEquals("Darth Vader", task.getActualOwner().getId());
+            assertEquals(10, task.getProcessInstanceId());
+        }
+        assertNotNull(taskService.getTaskByWorkItemId(1));
+        assertNotNull(taskService.getTaskByWorkItemId(2));
+        assertNull(taskService.getTaskByWorkItemId(3));
+    }
+
     @SuppressWarnings("unchecked")
 	@Test
     public void testTaskCreateFailedWithLog() throws Exception {
@@ -831,4 +901,18 @@ public abstract class HTWorkItemHandlerBaseTest extends AbstractBaseTest {
             }
         }
     }
+    
+    public static class CompletedTaskListener extends DefaultTaskEventListener {
+        
+        private Object output;
+
+        public Object getOutput() {
+            return output;
+        }
+
+        @Override
+        public void afterTaskCompletedEvent(TaskEvent event) {
+            output = ((TaskContext) event.getTaskContext()).get(EventTaskContext.TASK_OUTPUT);
+        }
+    }
 }
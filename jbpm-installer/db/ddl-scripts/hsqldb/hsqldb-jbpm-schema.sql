@@ -52,6 +52,7 @@
     create table CorrelationKeyInfo (
         keyId bigint generated by default as identity (start with 1),
         name varchar(255),
+        keyHash varchar(255),
         processInstanceId bigint not null,
         OPTLOCK integer,
         primary key (keyId)
@@ -479,6 +480,9 @@
     alter table Notification_email_header 
         add constraint UK_F30FE3446CEA0510 unique (emailHeaders_id);
 
+    alter table CorrelationKeyInfo 
+        add constraint UK_CorrKeyInfo_keyHash unique (keyHash);
+
     alter table Notification_email_header 
         add constraint FKF30FE3448BED1339 
         foreign key (emailHeaders_id) 
@@ -52,6 +52,7 @@
     create table CorrelationKeyInfo (
         keyId bigint not null auto_increment,
         name varchar(255),
+        keyHash varchar(255),
         processInstanceId bigint not null,
         OPTLOCK integer,
         primary key (keyId)
@@ -504,6 +505,9 @@
     alter table Notification_email_header 
         add constraint UK_F30FE3446CEA0510 unique (emailHeaders_id);
 
+    alter table CorrelationKeyInfo 
+        add constraint UK_CorrKeyInfo_keyHash unique (keyHash);
+
     alter table Notification_email_header 
         add index FKF30FE3448BED1339 (emailHeaders_id), 
         add constraint FKF30FE3448BED1339 
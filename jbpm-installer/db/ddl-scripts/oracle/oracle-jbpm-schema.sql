@@ -52,6 +52,7 @@
     create table CorrelationKeyInfo (
         keyId number(19,0) not null,
         name varchar2(255 char),
+        keyHash varchar2(255 char),
         processInstanceId number(19,0) not null,
         OPTLOCK number(10,0),
         primary key (keyId)
@@ -479,6 +480,9 @@
     alter table Notification_email_header 
         add constraint UK_F30FE3446CEA0510 unique (emailHeaders_id);
 
+    alter table CorrelationKeyInfo 
+        add constraint UK_CorrKeyInfo_keyHash unique (keyHash);
+
     alter table Notification_email_header 
         add constraint FKF30FE3448BED1339 
         foreign key (emailHeaders_id) 
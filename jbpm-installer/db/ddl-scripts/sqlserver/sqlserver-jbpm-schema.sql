@@ -52,6 +52,7 @@
     create table CorrelationKeyInfo (
         keyId numeric(19,0) identity not null,
         name varchar(255),
+        keyHash varchar(255),
         processInstanceId numeric(19,0) not null,
         OPTLOCK int,
         primary key (keyId)
@@ -479,6 +480,11 @@
     alter table Notification_email_header 
         add constraint UK_F30FE3446CEA0510 unique (emailHeaders_id);
 
+    create view CorrelationKeyInfo_keyHash with schemabinding as 
+        select keyHash from dbo.CorrelationKeyInfo where keyHash is not null;
+
+    create unique clustered index IDX_CorrKeyInfo_keyHash on CorrelationKeyInfo_keyHash (keyHash);
+
     alter table Notification_email_header 
         add constraint FKF30FE3448BED1339 
         foreign key (emailHeaders_id) 
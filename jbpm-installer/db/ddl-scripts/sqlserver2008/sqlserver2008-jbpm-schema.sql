@@ -52,6 +52,7 @@
     create table CorrelationKeyInfo (
         keyId bigint identity not null,
         name varchar(255),
+        keyHash varchar(255),
         processInstanceId bigint not null,
         OPTLOCK int,
         primary key (keyId)
@@ -479,6 +480,8 @@
     alter table Notification_email_header 
         add constraint UK_F30FE3446CEA0510 unique (emailHeaders_id);
 
+    create unique index IDX_CorrKeyInfo_keyHash on CorrelationKeyInfo (keyHash) where keyHash is not null;
+
     alter table Notification_email_header 
         add constraint FKF30FE3448BED1339 
         foreign key (emailHeaders_id) 
@@ -1,7 +1,11 @@
 package org.jbpm.persistence;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.FlushModeType;
@@ -23,6 +27,11 @@ import org.kie.internal.process.CorrelationProperty;
 public class JpaProcessPersistenceContext extends JpaPersistenceContext
     implements
     ProcessPersistenceContext {
+
+    private static final boolean LEGACY_CORRELATION_LOOKUP = Boolean.parseBoolean(
+        System.getProperty( "org.jbpm.correlation.legacy.lookup", "false" ) );
+
+    private static final int MAX_KEYS_PER_QUERY = 500;
     
     public JpaProcessPersistenceContext(EntityManager em) {
         super( em );
@@ -115,6 +124,67 @@ public class JpaProcessPersistenceContext extends JpaPersistenceContext
      * </p>
      */
     public Long getProcessInstanceByCorrelationKey(CorrelationKey correlationKey) {
+        Query processInstancesForEvent = getEntityManager().createNamedQuery( "GetProcessInstanceIdByCorrelationKeyHash" );
+        processInstancesForEvent.setFlushMode(FlushModeType.COMMIT);
+        processInstancesForEvent.setParameter( "keyHash", CorrelationKeyInfo.getKeyHash( correlationKey ) );
+        try {
+            return (Long) processInstancesForEvent.getSingleResult();
+        } catch (NonUniqueResultException e) {
+            return null;
+        } catch (NoResultException e) {
+            if ( LEGACY_CORRELATION_LOOKUP ) {
+                return getProcessInstanceByCorrelationProperties( correlationKey );
+            }
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<CorrelationKey, Long> getProcessInstancesByCorrelationKeys(Collection<? extends CorrelationKey> correlationKeys) {
+        Map<String, List<CorrelationKey>> keysByHash = new LinkedHashMap<String, List<CorrelationKey>>();
+        for (CorrelationKey correlationKey : correlationKeys) {
+            String keyHash = CorrelationKeyInfo.getKeyHash( correlationKey );
+            List<CorrelationKey> keys = keysByHash.get( keyHash );
+            if (keys == null) {
+                keys = new ArrayList<CorrelationKey>( 1 );
+                keysByHash.put( keyHash, keys );
+            }
+            keys.add( correlationKey );
+        }
+        Map<CorrelationKey, Long> processInstanceIds = new HashMap<CorrelationKey, Long>();
+        List<String> keyHashes = new ArrayList<String>( keysByHash.keySet() );
+        // keep the in list below the limits of the supported databases
+        for (int i = 0; i < keyHashes.size(); i += MAX_KEYS_PER_QUERY) {
+            Query processInstancesForKeys = getEntityManager().createNamedQuery( "GetProcessInstanceIdsByCorrelationKeyHashes" );
+            processInstancesForKeys.setFlushMode(FlushModeType.COMMIT);
+            processInstancesForKeys.setParameter( "keyHashes", keyHashes.subList( i, Math.min( i + MAX_KEYS_PER_QUERY, keyHashes.size() ) ) );
+            for (Object[] result : (List<Object[]>) processInstancesForKeys.getResultList()) {
+                List<CorrelationKey> keys = keysByHash.remove( result[0] );
+                if (keys != null) {
+                    for (CorrelationKey correlationKey : keys) {
+                        processInstanceIds.put( correlationKey, (Long) result[1] );
+                    }
+                }
+            }
+        }
+        if ( LEGACY_CORRELATION_LOOKUP ) {
+            for (List<CorrelationKey> keys : keysByHash.values()) {
+                for (CorrelationKey correlationKey : keys) {
+                    Long processInstanceId = getProcessInstanceByCorrelationProperties( correlationKey );
+                    if (processInstanceId != null) {
+                        processInstanceIds.put( correlationKey, processInstanceId );
+                    }
+                }
+            }
+        }
+        return processInstanceIds;
+    }
+
+    /**
+     * Matches the correlation properties one by one, only needed for correlation keys that were
+     * stored before the key hash was introduced.
+     */
+    protected Long getProcessInstanceByCorrelationProperties(CorrelationKey correlationKey) {
         Query processInstancesForEvent = getEntityManager().createNamedQuery( "GetProcessInstanceIdByCorrelation" );
         processInstancesForEvent.setFlushMode(FlushModeType.COMMIT);
         processInstancesForEvent.setParameter( "elem_count", correlationKey.getProperties().size() );
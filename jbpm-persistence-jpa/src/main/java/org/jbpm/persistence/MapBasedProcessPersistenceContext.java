@@ -1,6 +1,7 @@
 package org.jbpm.persistence;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -82,4 +83,16 @@ public class MapBasedProcessPersistenceContext extends MapBasedPersistenceContex
         ProcessInstanceInfo piInfo = this.processInstancesByBusinessKey.get(correlationKey);
         return piInfo.getId();
     }
+
+    @Override
+    public Map<CorrelationKey, Long> getProcessInstancesByCorrelationKeys(Collection<? extends CorrelationKey> correlationKeys) {
+        Map<CorrelationKey, Long> processInstanceIds = new HashMap<CorrelationKey, Long>();
+        for (CorrelationKey correlationKey : correlationKeys) {
+            ProcessInstanceInfo piInfo = this.processInstancesByBusinessKey.get(correlationKey);
+            if (piInfo != null) {
+                processInstanceIds.put(correlationKey, piInfo.getId());
+            }
+        }
+        return processInstanceIds;
+    }
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.persistence;
+
+import java.lang.reflect.Method;
+import java.util.Random;
+
+import javax.persistence.OptimisticLockException;
+
+import org.drools.core.command.impl.AbstractInterceptor;
+import org.drools.persistence.TransactionManager;
+import org.jbpm.process.instance.metrics.ProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetricsProvider;
+import org.kie.api.command.Command;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Retries commands that failed because an entity, usually the <code>ProcessInstanceInfo</code>
+ * of a process instance signalled in parallel, was updated concurrently. As the failed
+ * transaction is rolled back and the session drops its cached process instances, the retry
+ * reloads the current state from the database and replays the command on it, so parallel
+ * updates of one process instance do not need pessimistic database locks.
+ * <p>
+ * Retries are delayed with an exponential backoff with jitter, so that competing commands
+ * do not collide again. The behaviour is configured through system properties:
+ * <ul>
+ * <li><code>org.kie.optlock.retries</code> - maximum number of retries, 3 by default</li>
+ * <li><code>org.kie.optlock.delay</code> - delay before the first retry in milliseconds, 50 by default</li>
+ * <li><code>org.kie.optlock.max.delay</code> - maximum delay before a retry in milliseconds, 1000 by default</li>
+ * </ul>
+ * Only the outermost command of a thread is retried, as nested commands run in the
+ * transaction of the outer one. For the same reason commands are not retried when they
+ * are executed within a transaction started by the caller: that transaction is marked for
+ * rollback, so the conflict is left to the caller.
+ */
+public class OptimisticLockRetryInterceptor extends AbstractInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticLockRetryInterceptor.class);
+
+    private static final String HIBERNATE_STALE_STATE_EXCEPTION = "org.hibernate.StaleObjectStateException";
+
+    private static final ThreadLocal<Boolean> retrying = new ThreadLocal<Boolean>();
+
+    private final Environment environment;
+    private final int retries;
+    private final long delay;
+    private final long maxDelay;
+    private final Random random = new Random();
+
+    /**
+     * @param environment the environment of the session, used to find out whether the caller
+     * has started a transaction
+     */
+    public OptimisticLockRetryInterceptor(Environment environment) {
+        this(environment,
+             Integer.parseInt(System.getProperty("org.kie.optlock.retries", "3")),
+             Long.parseLong(System.getProperty("org.kie.optlock.delay", "50")),
+             Long.parseLong(System.getProperty("org.kie.optlock.max.delay", "1000")));
+    }
+
+    public OptimisticLockRetryInterceptor(Environment environment, int retries, long delay, long maxDelay) {
+        this.environment = environment;
+        this.retries = retries;
+        this.delay = delay;
+        this.maxDelay = maxDelay;
+    }
+
+    public <T> T execute(Command<T> command) {
+        if (retrying.get() != null || isTransactionActive()) {
+            return executeNext(command);
+        }
+        retrying.set(Boolean.TRUE);
+        try {
+            return executeWithRetries(command);
+        } finally {
+            retrying.remove();
+        }
+    }
+
+    private <T> T executeWithRetries(Command<T> command) {
+        ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+        String commandName = command.getClass().getSimpleName();
+        int attempt = 0;
+        while (true) {
+            try {
+                return executeNext(command);
+            } catch (RuntimeException e) {
+                String entity = getConflictingEntity(e);
+                if (entity == null) {
+                    throw e;
+                }
+                metrics.increment(ProcessMetrics.OPTIMISTIC_LOCK_CONFLICT, entity);
+                if (attempt >= retries) {
+                    metrics.increment(ProcessMetrics.OPTIMISTIC_LOCK_FAILURE, commandName);
+                    logger.warn("Command {} failed after {} retries due to concurrent update of {}", commandName, attempt, entity);
+                    throw e;
+                }
+                attempt++;
+                long sleepTime = getSleepTime(attempt);
+                logger.debug("Command {} failed due to concurrent update of {}, retrying in {} ms ({}/{})",
+                        commandName, entity, sleepTime, attempt, retries);
+                metrics.increment(ProcessMetrics.OPTIMISTIC_LOCK_RETRY, commandName);
+                try {
+                    Thread.sleep(sleepTime);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if a transaction is active before the command starts, i.e. the
+     * transaction is not owned by the command service.
+     */
+    private boolean isTransactionActive() {
+        if (environment == null) {
+            return false;
+        }
+        Object txm = environment.get(EnvironmentName.TRANSACTION_MANAGER);
+        if (txm instanceof TransactionManager) {
+            return ((TransactionManager) txm).getStatus() != TransactionManager.STATUS_NO_TRANSACTION;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a random delay between the half and the full backoff delay of the given attempt.
+     */
+    private long getSleepTime(int attempt) {
+        long backoff = delay << Math.min(attempt - 1, 30);
+        if (backoff <= 0 || backoff > maxDelay) {
+            backoff = maxDelay;
+        }
+        long half = backoff / 2;
+        synchronized (random) {
+            return half + (long) (random.nextDouble() * (backoff - half + 1));
+        }
+    }
+
+    /**
+     * Returns the name of the entity whose concurrent update caused the given exception,
+     * <code>"unknown"</code> if the entity is not known or <code>null</code> if the exception
+     * is not caused by a concurrent update.
+     */
+    static String getConflictingEntity(Throwable e) {
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof OptimisticLockException) {
+                Object entity = ((OptimisticLockException) cause).getEntity();
+                if (entity != null) {
+                    return entity.getClass().getSimpleName();
+                }
+                String entityName = getConflictingEntity(cause.getCause());
+                return entityName != null ? entityName : "unknown";
+            }
+            if (HIBERNATE_STALE_STATE_EXCEPTION.equals(cause.getClass().getName())) {
+                return getHibernateEntityName(cause);
+            }
+            cause = cause.getCause() == cause ? null : cause.getCause();
+        }
+        return null;
+    }
+
+    private static String getHibernateEntityName(Throwable e) {
+        try {
+            Method method = e.getClass().getMethod("getEntityName");
+            String entityName = (String) method.invoke(e);
+            if (entityName != null) {
+                return entityName.substring(entityName.lastIndexOf('.') + 1);
+            }
+        } catch (Exception ex) {
+            // fall through, the entity name is only used for reporting
+        }
+        return "unknown";
+    }
+
+}
@@ -1,6 +1,8 @@
 package org.jbpm.persistence;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.drools.persistence.PersistenceContext;
 import org.jbpm.persistence.correlation.CorrelationKeyInfo;
@@ -22,4 +24,10 @@ public interface ProcessPersistenceContext
     List<Long> getProcessInstancesWaitingForEvent(String type);
     
     Long getProcessInstanceByCorrelationKey(CorrelationKey correlationKey);
+
+    /**
+     * Resolves many correlation keys at once, keys without a process instance are not
+     * contained in the returned map.
+     */
+    Map<CorrelationKey, Long> getProcessInstancesByCorrelationKeys(Collection<? extends CorrelationKey> correlationKeys);
 }
@@ -15,7 +15,12 @@
  */
 package org.jbpm.persistence.correlation;
 
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import javax.persistence.CascadeType;
@@ -25,6 +30,8 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Version;
 
@@ -35,6 +42,8 @@ import org.kie.internal.process.CorrelationProperty;
 @SequenceGenerator(name="correlationKeyInfoIdSeq", sequenceName="CORRELATION_KEY_ID_SEQ")
 public class CorrelationKeyInfo implements CorrelationKey {
 
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO, generator="correlationKeyInfoIdSeq")
     @Column(name = "keyId")
@@ -48,6 +57,9 @@ public class CorrelationKeyInfo implements CorrelationKey {
     
     private String name;
     
+    @Column(name = "keyHash", unique = true)
+    private String keyHash;
+    
     @OneToMany(mappedBy="correlationKey", cascade=CascadeType.ALL)
     private List<CorrelationPropertyInfo> properties;
     
@@ -133,4 +145,60 @@ public class CorrelationKeyInfo implements CorrelationKey {
         return id;
     }
 
+    public String getKeyHash() {
+        return keyHash;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void updateKeyHash() {
+        this.keyHash = properties == null ? null : getKeyHash(this);
+    }
+
+    /**
+     * Returns the canonical hash of the property values of given correlation key. Like the
+     * property matching it replaces, the hash does not depend on the order of the properties,
+     * so a key can be looked up and checked for duplicates with a single indexed equality.
+     */
+    public static String getKeyHash(CorrelationKey correlationKey) {
+        List<String> values = new ArrayList<String>();
+        for (CorrelationProperty<?> property : correlationKey.getProperties()) {
+            values.add(property.getValue() == null ? null : property.getValue().toString());
+        }
+        Collections.sort(values, new Comparator<String>() {
+            public int compare(String o1, String o2) {
+                if (o1 == null) {
+                    return o2 == null ? 0 : -1;
+                }
+                return o2 == null ? 1 : o1.compareTo(o2);
+            }
+        });
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (String value : values) {
+                if (value == null) {
+                    digest.update((byte) 0);
+                } else {
+                    // length prefixed so that the values can not run into each other
+                    byte[] bytes = value.getBytes("UTF-8");
+                    digest.update((byte) 1);
+                    digest.update(new byte[] { (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                                               (byte) (bytes.length >>> 8), (byte) bytes.length });
+                    digest.update(bytes);
+                }
+            }
+            byte[] hash = digest.digest();
+            char[] result = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                result[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+                result[i * 2 + 1] = HEX[hash[i] & 0xF];
+            }
+            return new String(result);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not available", e);
+        }
+    }
+
 }
@@ -15,6 +15,8 @@ import org.jbpm.persistence.correlation.CorrelationKeyInfo;
 import org.jbpm.process.instance.InternalProcessRuntime;
 import org.jbpm.process.instance.ProcessInstanceManager;
 import org.jbpm.process.instance.impl.ProcessInstanceImpl;
+import org.jbpm.process.instance.metrics.ProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetricsProvider;
 import org.jbpm.process.instance.timer.TimerManager;
 import org.jbpm.workflow.instance.node.StateBasedNodeInstance;
 import org.jbpm.workflow.instance.node.TimerNodeInstance;
@@ -100,10 +102,13 @@ public class JPAProcessInstanceManager
     	ppcm.beginCommandScopedEntityManager();
     	
         ProcessPersistenceContext context = ppcm.getProcessPersistenceContext();
+        ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+        long start = metrics.startTimer();
         ProcessInstanceInfo processInstanceInfo = context.findProcessInstanceInfo( id );
         if ( processInstanceInfo == null ) {
             return null;
         }
+        metrics.recordTime( ProcessMetrics.PROCESS_INSTANCE_LOAD, processInstanceInfo.getProcessId(), start );
         processInstance = (org.jbpm.process.instance.ProcessInstance)
         	processInstanceInfo.getProcessInstance(kruntime, this.kruntime.getEnvironment(), readOnly);
         if (!readOnly) {
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
@@ -20,12 +21,17 @@ import org.drools.core.marshalling.impl.MarshallerReaderContext;
 import org.drools.core.marshalling.impl.MarshallerWriteContext;
 import org.drools.core.marshalling.impl.PersisterHelper;
 import org.drools.core.marshalling.impl.ProtobufMarshaller;
+import org.jbpm.marshalling.impl.CompressionHelper;
 import org.jbpm.marshalling.impl.JBPMMessages;
+import org.jbpm.marshalling.impl.ProcessInstanceProjection;
+import org.jbpm.marshalling.impl.ProcessInstanceProjectionReader;
 import org.jbpm.marshalling.impl.ProcessInstanceMarshaller;
 import org.jbpm.marshalling.impl.ProcessMarshallerRegistry;
 import org.jbpm.marshalling.impl.ProtobufRuleFlowProcessInstanceMarshaller;
 import org.jbpm.process.instance.context.variable.VariableScopeInstance;
 import org.jbpm.process.instance.impl.ProcessInstanceImpl;
+import org.jbpm.process.instance.metrics.ProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetricsProvider;
 import org.jbpm.workflow.instance.impl.WorkflowProcessInstanceImpl;
 import org.kie.api.runtime.Environment;
 import org.kie.api.runtime.process.ProcessInstance;
@@ -145,8 +151,10 @@ public class ProcessInstanceInfo{
                                               boolean readOnly) {
         this.env = env;
         if ( processInstance == null ) {
+            ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+            long start = metrics.startTimer();
             try {
-                ByteArrayInputStream bais = new ByteArrayInputStream( processInstanceByteArray );
+                ByteArrayInputStream bais = new ByteArrayInputStream( CompressionHelper.decompress( processInstanceByteArray ) );
                 MarshallerReaderContext context = new MarshallerReaderContext( bais,
                                                                                (InternalKnowledgeBase) kruntime.getKieBase(),
                                                                                null,
@@ -166,10 +174,24 @@ public class ProcessInstanceInfo{
                 throw new IllegalArgumentException( "IOException while loading process instance: " + e.getMessage(),
                                                     e );
             }
+            metrics.recordTime( ProcessMetrics.PROCESS_INSTANCE_UNMARSHAL, processId, start );
+            metrics.recordValue( ProcessMetrics.PROCESS_INSTANCE_SIZE, processId, processInstanceByteArray.length );
         }
         return processInstance;
     }
    
+    /**
+     * Reads the state, the active node ids and the given variables of the stored process
+     * instance without loading it into a session.
+     *
+     * @param variableNames the names of the variables to read, <code>null</code> for all
+     * @see ProcessInstanceProjectionReader
+     */
+    public ProcessInstanceProjection getProjection(Collection<String> variableNames,
+                                                   Environment env) {
+        return new ProcessInstanceProjectionReader( env ).read( processInstanceByteArray, variableNames );
+    }
+
     private ProcessInstanceMarshaller getMarshallerFromContext(MarshallerReaderContext context) throws IOException {
         ObjectInputStream stream = context.stream;
         String processInstanceType = stream.readUTF();
@@ -200,6 +222,8 @@ public class ProcessInstanceInfo{
      */
     @PreUpdate
     public void update() {
+        ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+        long start = metrics.startTimer();
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         boolean variablesChanged = false;
         try {
@@ -227,7 +251,9 @@ public class ProcessInstanceInfo{
             throw new IllegalArgumentException( "IOException while storing process instance "
         		+ processInstance.getId() + ": " + e.getMessage(), e );
         }
-        byte[] newByteArray = baos.toByteArray();
+        byte[] newByteArray = CompressionHelper.compress( baos.toByteArray() );
+        metrics.recordTime( ProcessMetrics.PROCESS_INSTANCE_MARSHAL, processId, start );
+        metrics.recordValue( ProcessMetrics.PROCESS_INSTANCE_SIZE, processId, newByteArray.length );
         if ( variablesChanged || !Arrays.equals( newByteArray,
                                                  processInstanceByteArray ) ) {
             this.state = processInstance.getState();
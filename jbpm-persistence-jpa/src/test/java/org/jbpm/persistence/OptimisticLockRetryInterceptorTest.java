@@ -0,0 +1,146 @@
+package org.jbpm.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import javax.persistence.OptimisticLockException;
+
+import org.drools.core.command.CommandService;
+import org.drools.core.impl.EnvironmentFactory;
+import org.hibernate.StaleObjectStateException;
+import org.jbpm.persistence.jta.ContainerManagedTransactionManager;
+import org.jbpm.persistence.processinstance.ProcessInstanceInfo;
+import org.jbpm.process.instance.metrics.InMemoryProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetricsProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.command.Command;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
+import org.kie.internal.command.Context;
+
+public class OptimisticLockRetryInterceptorTest {
+
+    private InMemoryProcessMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new InMemoryProcessMetrics();
+        ProcessMetricsProvider.setMetrics(metrics);
+    }
+
+    @After
+    public void tearDown() {
+        ProcessMetricsProvider.setMetrics(null);
+    }
+
+    @Test
+    public void testCommandIsRetried() {
+        FailingCommandService commandService = new FailingCommandService(2, new RuntimeException(
+            new OptimisticLockException("concurrent update", null, new TestEntity())));
+        OptimisticLockRetryInterceptor interceptor = new OptimisticLockRetryInterceptor(null, 3, 1, 10);
+        interceptor.setNext(commandService);
+
+        assertEquals("done", interceptor.execute(new TestCommand()));
+        assertEquals(3, commandService.executions);
+        assertEquals(2, metrics.getCount(ProcessMetrics.OPTIMISTIC_LOCK_CONFLICT, "TestEntity"));
+        assertEquals(2, metrics.getCount(ProcessMetrics.OPTIMISTIC_LOCK_RETRY, "TestCommand"));
+        assertEquals(0, metrics.getCount(ProcessMetrics.OPTIMISTIC_LOCK_FAILURE, "TestCommand"));
+    }
+
+    @Test
+    public void testRetriesAreBounded() {
+        RuntimeException exception = new OptimisticLockException();
+        FailingCommandService commandService = new FailingCommandService(10, exception);
+        OptimisticLockRetryInterceptor interceptor = new OptimisticLockRetryInterceptor(null, 2, 1, 10);
+        interceptor.setNext(commandService);
+
+        try {
+            interceptor.execute(new TestCommand());
+            fail("Command should fail after all retries");
+        } catch (RuntimeException e) {
+            assertSame(exception, e);
+        }
+        assertEquals(3, commandService.executions);
+        assertEquals(3, metrics.getCount(ProcessMetrics.OPTIMISTIC_LOCK_CONFLICT, "unknown"));
+        assertEquals(1, metrics.getCount(ProcessMetrics.OPTIMISTIC_LOCK_FAILURE, "TestCommand"));
+    }
+
+    @Test
+    public void testOtherFailuresAreNotRetried() {
+        FailingCommandService commandService = new FailingCommandService(1, new IllegalStateException());
+        OptimisticLockRetryInterceptor interceptor = new OptimisticLockRetryInterceptor(null, 3, 1, 10);
+        interceptor.setNext(commandService);
+
+        try {
+            interceptor.execute(new TestCommand());
+            fail("Command should fail");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(1, commandService.executions);
+    }
+
+    @Test
+    public void testCommandInCallerTransactionIsNotRetried() {
+        Environment env = EnvironmentFactory.newEnvironment();
+        // reports an active transaction, as when the caller started it
+        env.set(EnvironmentName.TRANSACTION_MANAGER, new ContainerManagedTransactionManager());
+        RuntimeException exception = new OptimisticLockException();
+        FailingCommandService commandService = new FailingCommandService(1, exception);
+        OptimisticLockRetryInterceptor interceptor = new OptimisticLockRetryInterceptor(env, 3, 1, 10);
+        interceptor.setNext(commandService);
+
+        try {
+            interceptor.execute(new TestCommand());
+            fail("Command should fail");
+        } catch (RuntimeException e) {
+            assertSame(exception, e);
+        }
+        assertEquals(1, commandService.executions);
+        assertEquals(0, metrics.getCount(ProcessMetrics.OPTIMISTIC_LOCK_RETRY, "TestCommand"));
+    }
+
+    @Test
+    public void testConflictingEntity() {
+        assertNull(OptimisticLockRetryInterceptor.getConflictingEntity(new RuntimeException()));
+        assertEquals("ProcessInstanceInfo", OptimisticLockRetryInterceptor.getConflictingEntity(
+            new RuntimeException(new OptimisticLockException(
+                new StaleObjectStateException(ProcessInstanceInfo.class.getName(), 1L)))));
+    }
+
+    private static class TestEntity {
+    }
+
+    private static class TestCommand implements Command<String> {
+    }
+
+    private static class FailingCommandService implements CommandService {
+
+        private final int failures;
+        private final RuntimeException exception;
+        private int executions;
+
+        FailingCommandService(int failures, RuntimeException exception) {
+            this.failures = failures;
+            this.exception = exception;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T execute(Command<T> command) {
+            executions++;
+            if (executions <= failures) {
+                throw exception;
+            }
+            return (T) "done";
+        }
+
+        public Context getContext() {
+            return null;
+        }
+    }
+}
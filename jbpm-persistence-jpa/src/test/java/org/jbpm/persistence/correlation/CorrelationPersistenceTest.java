@@ -4,13 +4,16 @@ import static org.jbpm.persistence.util.PersistenceUtil.JBPM_PERSISTENCE_UNIT_NA
 import static org.jbpm.persistence.util.PersistenceUtil.cleanUp;
 import static org.jbpm.persistence.util.PersistenceUtil.setupWithPoolingDataSource;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.naming.InitialContext;
 import javax.persistence.EntityManager;
@@ -18,6 +21,7 @@ import javax.persistence.EntityManagerFactory;
 import javax.persistence.Query;
 import javax.transaction.UserTransaction;
 
+import org.jbpm.persistence.JpaProcessPersistenceContext;
 import org.jbpm.test.util.AbstractBaseTest;
 import org.junit.After;
 import org.junit.Before;
@@ -26,6 +30,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 import org.kie.internal.KieInternalServices;
+import org.kie.internal.process.CorrelationKey;
 import org.kie.internal.process.CorrelationKeyFactory;
 import org.kie.api.runtime.EnvironmentName;
 
@@ -124,4 +129,47 @@ public class CorrelationPersistenceTest extends AbstractBaseTest {
         assertNotNull(processInstances);
         assertEquals(1, processInstances.size());
     }
+
+    @Test
+    public void testGetProcessInstanceByCorrelationKeyHash() throws Exception {
+        EntityManagerFactory emf = (EntityManagerFactory) context.get(EnvironmentName.ENTITY_MANAGER_FACTORY);
+        EntityManager em = emf.createEntityManager();
+        CorrelationKeyFactory factory = KieInternalServices.Factory.get().newCorrelationKeyFactory();
+        JpaProcessPersistenceContext persistenceContext = new JpaProcessPersistenceContext(em);
+
+        // the order of the properties does not matter
+        assertEquals(new Long(0), persistenceContext.getProcessInstanceByCorrelationKey(
+            factory.newCorrelationKey(Arrays.asList(new String[] {"123test", "test123"}))));
+        assertEquals(new Long(0), persistenceContext.getProcessInstanceByCorrelationKey(factory.newCorrelationKey("test123")));
+        assertNull(persistenceContext.getProcessInstanceByCorrelationKey(
+            factory.newCorrelationKey(Arrays.asList(new String[] {"test123", "test123"}))));
+        em.close();
+    }
+
+    @Test
+    public void testGetProcessInstancesByCorrelationKeys() throws Exception {
+        EntityManagerFactory emf = (EntityManagerFactory) context.get(EnvironmentName.ENTITY_MANAGER_FACTORY);
+        EntityManager em = emf.createEntityManager();
+        CorrelationKeyFactory factory = KieInternalServices.Factory.get().newCorrelationKeyFactory();
+
+        CorrelationKey single = factory.newCorrelationKey("test123");
+        CorrelationKey multi = factory.newCorrelationKey(Arrays.asList(new String[] {"test123", "123test"}));
+        CorrelationKey unknown = factory.newCorrelationKey("unknown");
+        Map<CorrelationKey, Long> processInstanceIds = new JpaProcessPersistenceContext(em)
+            .getProcessInstancesByCorrelationKeys(Arrays.asList(single, multi, unknown));
+        em.close();
+        assertEquals(2, processInstanceIds.size());
+        assertEquals(new Long(0), processInstanceIds.get(single));
+        assertEquals(new Long(0), processInstanceIds.get(multi));
+        assertFalse(processInstanceIds.containsKey(unknown));
+    }
+
+    @Test
+    public void testKeyHashIsCanonical() {
+        CorrelationKeyFactory factory = KieInternalServices.Factory.get().newCorrelationKeyFactory();
+        assertEquals(CorrelationKeyInfo.getKeyHash(factory.newCorrelationKey(Arrays.asList(new String[] {"a", "b"}))),
+                     CorrelationKeyInfo.getKeyHash(factory.newCorrelationKey(Arrays.asList(new String[] {"b", "a"}))));
+        assertFalse(CorrelationKeyInfo.getKeyHash(factory.newCorrelationKey(Arrays.asList(new String[] {"ab", "c"})))
+                    .equals(CorrelationKeyInfo.getKeyHash(factory.newCorrelationKey(Arrays.asList(new String[] {"a", "bc"})))));
+    }
 }
@@ -0,0 +1,113 @@
+package org.jbpm.persistence.session;
+
+import static org.jbpm.persistence.util.PersistenceUtil.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.drools.core.command.impl.CommandBasedStatefulKnowledgeSession;
+import org.drools.core.io.impl.ClassPathResource;
+import org.drools.persistence.SingleSessionCommandService;
+import org.jbpm.persistence.OptimisticLockRetryInterceptor;
+import org.jbpm.persistence.session.objects.TestWorkItemHandler;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.event.process.DefaultProcessEventListener;
+import org.kie.api.event.process.ProcessNodeTriggeredEvent;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.process.ProcessInstance;
+import org.kie.api.runtime.process.WorkItem;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.persistence.jpa.JPAKnowledgeService;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class ParallelSignalTest extends AbstractBaseTest {
+
+    private HashMap<String, Object> context;
+
+    @Before
+    public void setUp() throws Exception {
+        context = setupWithPoolingDataSource(JBPM_PERSISTENCE_UNIT_NAME);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cleanUp(context);
+    }
+
+    @Test
+    public void testParallelSignalsAreApplied() throws Exception {
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add( new ClassPathResource( "EventsProcess.rf" ),
+                      ResourceType.DRF );
+        final KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+
+        StatefulKnowledgeSession ksession = JPAKnowledgeService.newStatefulKnowledgeSession( kbase, null, createEnvironment(context) );
+        final int id = ksession.getId();
+        final ProcessInstance processInstance = ksession.startProcess( "org.drools.test.TestProcess" );
+        WorkItem workItem = TestWorkItemHandler.getInstance().getWorkItem();
+        assertNotNull( workItem );
+        ksession.getWorkItemManager().completeWorkItem( workItem.getId(), null );
+        ksession.dispose();
+
+        // both signals read the process instance before either of them is stored,
+        // so one of them conflicts and has to be retried
+        final CountDownLatch loaded = new CountDownLatch(2);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (final String type : new String[] { "MyEvent1", "MyEvent2" }) {
+            final StatefulKnowledgeSession session = loadSession( id, kbase );
+            session.addEventListener(new DefaultProcessEventListener() {
+                public void beforeNodeTriggered(ProcessNodeTriggeredEvent event) {
+                    loaded.countDown();
+                    try {
+                        loaded.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        session.signalEvent( type, null, processInstance.getId() );
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    } finally {
+                        session.dispose();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(30000);
+        }
+        assertTrue( failures.toString(), failures.isEmpty() );
+
+        ksession = loadSession( id, kbase );
+        assertNull( ksession.getProcessInstance( processInstance.getId() ) );
+        ksession.dispose();
+    }
+
+    private StatefulKnowledgeSession loadSession(int id, KnowledgeBase kbase) {
+        StatefulKnowledgeSession ksession = JPAKnowledgeService.loadStatefulKnowledgeSession( id, kbase, null, createEnvironment(context) );
+        SingleSessionCommandService sscs = (SingleSessionCommandService)
+                ((CommandBasedStatefulKnowledgeSession) ksession).getCommandService();
+        sscs.addInterceptor(new OptimisticLockRetryInterceptor(ksession.getEnvironment()));
+        return ksession;
+    }
+
+}
@@ -28,6 +28,8 @@ import org.drools.persistence.OrderedTransactionSynchronization;
 import org.drools.persistence.TransactionManager;
 import org.drools.persistence.TransactionManagerHelper;
 import org.drools.persistence.jta.JtaTransactionManager;
+import org.jbpm.process.instance.metrics.ProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetricsProvider;
 import org.jbpm.runtime.manager.impl.factory.CDITaskServiceFactory;
 import org.jbpm.runtime.manager.impl.mapper.EnvironmentAwareProcessInstanceContext;
 import org.jbpm.runtime.manager.impl.mapper.InMemoryMapper;
@@ -95,6 +97,8 @@ public class PerProcessInstanceRuntimeManager extends AbstractRuntimeManager {
         Object contextId = context.getContextId();
         KieSession ksession = null;
         Integer ksessionId = null;
+        ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+        long start = metrics.startTimer();
         if (contextId == null || context instanceof EmptyContext ) { 
             ksession = factory.newKieSession();
             ksessionId = ksession.getId();                 
@@ -120,6 +124,7 @@ public class PerProcessInstanceRuntimeManager extends AbstractRuntimeManager {
         saveLocalRuntime(contextId, runtime);
         
         ksession.addEventListener(new MaintainMappingListener(ksessionId, runtime, this.identifier));
+        metrics.recordTime(ProcessMetrics.RUNTIME_ACQUIRE, identifier, start);
         return runtime;
     }
     
@@ -159,7 +164,10 @@ public class PerProcessInstanceRuntimeManager extends AbstractRuntimeManager {
         	if (mapper instanceof InMemoryMapper && ((InMemoryMapper)mapper).hasContext(runtime.getKieSession().getId())){
         		return;
         	}
+            ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+            long start = metrics.startTimer();
             ((Disposable) runtime).dispose();
+            metrics.recordTime(ProcessMetrics.RUNTIME_DISPOSE, identifier, start);
         }
         
     }
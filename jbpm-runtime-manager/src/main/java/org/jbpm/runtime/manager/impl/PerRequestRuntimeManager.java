@@ -15,6 +15,8 @@
  */
 package org.jbpm.runtime.manager.impl;
 
+import org.jbpm.process.instance.metrics.ProcessMetrics;
+import org.jbpm.process.instance.metrics.ProcessMetricsProvider;
 import org.jbpm.runtime.manager.impl.factory.CDITaskServiceFactory;
 import org.jbpm.runtime.manager.impl.tx.DestroySessionTransactionSynchronization;
 import org.jbpm.runtime.manager.impl.tx.DisposeSessionTransactionSynchronization;
@@ -60,6 +62,8 @@ public class PerRequestRuntimeManager extends AbstractRuntimeManager {
         if (local.get() != null) {
             return local.get();
         }
+        ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+        long start = metrics.startTimer();
         InternalTaskService internalTaskService = (InternalTaskService) taskServiceFactory.newTaskService();
         configureRuntimeOnTaskService(internalTaskService);
         RuntimeEngine runtime = new RuntimeEngineImpl(factory.newKieSession(), internalTaskService);
@@ -69,6 +73,7 @@ public class PerRequestRuntimeManager extends AbstractRuntimeManager {
         registerItems(runtime);
         attachManager(runtime);
         local.set(runtime);
+        metrics.recordTime(ProcessMetrics.RUNTIME_ACQUIRE, identifier, start);
         return runtime;
     }
     
@@ -90,6 +95,8 @@ public class PerRequestRuntimeManager extends AbstractRuntimeManager {
     		throw new IllegalStateException("Runtime manager " + identifier + " is already closed");
     	}
         local.set(null);
+        ProcessMetrics metrics = ProcessMetricsProvider.getMetrics();
+        long start = metrics.startTimer();
         try {
             if (canDestroy()) {
                 runtime.getKieSession().destroy();
@@ -104,6 +111,7 @@ public class PerRequestRuntimeManager extends AbstractRuntimeManager {
                 ((Disposable) runtime).dispose();
             }
         }
+        metrics.recordTime(ProcessMetrics.RUNTIME_DISPOSE, identifier, start);
     }
 
     @Override
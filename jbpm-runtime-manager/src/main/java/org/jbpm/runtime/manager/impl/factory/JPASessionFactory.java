@@ -17,8 +17,8 @@ package org.jbpm.runtime.manager.impl.factory;
 
 import org.drools.core.command.impl.CommandBasedStatefulKnowledgeSession;
 import org.drools.persistence.SingleSessionCommandService;
-import org.drools.persistence.jpa.OptimisticLockRetryInterceptor;
 import org.drools.persistence.jta.TransactionLockInterceptor;
+import org.jbpm.persistence.OptimisticLockRetryInterceptor;
 import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.manager.RuntimeEnvironment;
 import org.kie.internal.persistence.jpa.JPAKnowledgeService;
@@ -65,7 +65,7 @@ public class JPASessionFactory implements SessionFactory {
         
         SingleSessionCommandService sscs = (SingleSessionCommandService)
                 ((CommandBasedStatefulKnowledgeSession) ksession).getCommandService();
-        sscs.addInterceptor(new OptimisticLockRetryInterceptor());
+        sscs.addInterceptor(new OptimisticLockRetryInterceptor(ksession.getEnvironment()));
         // even though it's added always TransactionLockInterceptor is by default disabled so won't do anything
         sscs.addInterceptor(new TransactionLockInterceptor(ksession.getEnvironment()));
     }
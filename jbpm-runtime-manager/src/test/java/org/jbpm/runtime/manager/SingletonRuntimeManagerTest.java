@@ -7,6 +7,8 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -19,6 +21,7 @@ import org.jbpm.runtime.manager.impl.DefaultRegisterableItemsFactory;
 import org.jbpm.runtime.manager.util.TestUtil;
 import org.jbpm.services.task.events.DefaultTaskEventListener;
 import org.jbpm.services.task.identity.JBossUserGroupCallbackImpl;
+import org.jbpm.services.task.wih.AbstractHTWorkItemHandler;
 import org.jbpm.test.util.AbstractBaseTest;
 import org.junit.After;
 import org.junit.Before;
@@ -32,8 +35,10 @@ import org.kie.api.runtime.manager.RuntimeEnvironmentBuilder;
 import org.kie.api.runtime.manager.RuntimeManager;
 import org.kie.api.runtime.manager.RuntimeManagerFactory;
 import org.kie.api.runtime.process.ProcessInstance;
+import org.kie.api.runtime.process.WorkItemHandler;
 import org.kie.api.task.TaskEvent;
 import org.kie.api.task.TaskLifeCycleEventListener;
+import org.kie.api.task.model.TaskSummary;
 import org.kie.internal.io.ResourceFactory;
 import org.kie.internal.runtime.manager.context.EmptyContext;
 import org.kie.internal.runtime.manager.context.ProcessInstanceIdContext;
@@ -572,4 +577,59 @@ public class SingletonRuntimeManagerTest extends AbstractBaseTest {
         
         logService.dispose();
     }
+
+    @Test
+    public void testMultiInstanceTasksAreCreatedInOneBatch() {
+        final List<String> events = new ArrayList<String>();
+        RuntimeEnvironment environment = RuntimeEnvironmentBuilder.Factory.get()
+    			.newDefaultBuilder()
+                .userGroupCallback(userGroupCallback)
+                .addAsset(ResourceFactory.newClassPathResource("BPMN2-MultiInstanceLoopCharacteristicsTask.bpmn2"), ResourceType.BPMN2)
+                .registerableItemsFactory(new DefaultRegisterableItemsFactory(){
+
+                    @Override
+                    protected WorkItemHandler getHTWorkItemHandler(RuntimeEngine runtime) {
+                        AbstractHTWorkItemHandler handler = (AbstractHTWorkItemHandler) super.getHTWorkItemHandler(runtime);
+                        handler.setBatchCreation(true);
+                        return handler;
+                    }
+
+                    @Override
+                    public List<TaskLifeCycleEventListener> getTaskListeners() {
+                        List<TaskLifeCycleEventListener> listeners = super.getTaskListeners();
+                        listeners.add(new DefaultTaskEventListener() {
+
+                            @Override
+                            public void beforeTaskAddedEvent(TaskEvent event) {
+                                events.add("before " + event.getTask().getName());
+                            }
+
+                            @Override
+                            public void afterTaskAddedEvent(TaskEvent event) {
+                                events.add("after " + event.getTask().getName());
+                            }
+                        });
+                        return listeners;
+                    }
+                })
+                .get();
+
+        manager = RuntimeManagerFactory.Factory.get().newSingletonRuntimeManager(environment);
+        RuntimeEngine runtime = manager.getRuntimeEngine(EmptyContext.get());
+        KieSession ksession = runtime.getKieSession();
+
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("list", Arrays.asList("first", "second", "third"));
+        ProcessInstance processInstance = ksession.startProcess("MultiInstanceLoopCharacteristicsTask", params);
+        assertNotNull(processInstance);
+
+        // tasks added one by one would be stored before the next one is announced
+        assertEquals(Arrays.asList("before Hello", "before Hello", "before Hello",
+                "after Hello", "after Hello", "after Hello"), events);
+        List<TaskSummary> tasks = runtime.getTaskService().getTasksAssignedAsPotentialOwner("john", "en-UK");
+        assertEquals(3, tasks.size());
+
+        manager.disposeRuntimeEngine(runtime);
+        manager.close();
+    }
 }
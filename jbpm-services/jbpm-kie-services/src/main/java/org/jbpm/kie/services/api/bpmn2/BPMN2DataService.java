@@ -20,6 +20,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.jbpm.kie.services.impl.model.ProcessAssetDesc;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieContainer;
 import org.kie.internal.task.api.model.TaskDef;
 
 public interface BPMN2DataService {
@@ -34,4 +36,15 @@ public interface BPMN2DataService {
     Collection<String> getReusableSubProcesses(String processId);
     ProcessAssetDesc findProcessId(String bpmn2Content, ClassLoader classLoader);
     Map<String, String> getAllServiceTasks(String processId);
+    /**
+     * Returns kbase of given container making sure descriptors of all BPMN2 processes compiled
+     * while building it are collected as part of the same build, so processes do not have to be
+     * parsed again by <code>findProcessId</code>. Descriptors are recorded for given deployment.
+     */
+    KieBase buildKieBase(KieContainer kieContainer, String kbaseName, String deploymentId);
+    /**
+     * Returns true if descriptor of given process has been collected while building the kbase
+     * of given deployment.
+     */
+    boolean hasProcessDesc(String processId, String deploymentId);
 }
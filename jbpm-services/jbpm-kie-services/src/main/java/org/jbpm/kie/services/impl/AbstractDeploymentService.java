@@ -3,9 +3,18 @@ package org.jbpm.kie.services.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.enterprise.event.Event;
 import javax.enterprise.inject.spi.BeanManager;
@@ -35,6 +44,9 @@ import org.slf4j.LoggerFactory;
 public abstract class AbstractDeploymentService implements DeploymentService {
     
     private static Logger logger = LoggerFactory.getLogger(AbstractDeploymentService.class);
+    
+    private static final int DEPLOY_THREADS = Integer.parseInt(System.getProperty("org.jbpm.deploy.threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
 
     @Inject
     private BeanManager beanManager; 
@@ -52,7 +64,7 @@ public abstract class AbstractDeploymentService implements DeploymentService {
     @Undeploy
     protected Event<DeploymentEvent> undeploymentEvent;
     
-    protected Map<String, DeployedUnit> deploymentsMap = new ConcurrentHashMap<String, DeployedUnit>();
+    protected ConcurrentMap<String, DeployedUnit> deploymentsMap = new ConcurrentHashMap<String, DeployedUnit>();
     
     public EntityManagerFactory getEmf() {
         return emf;
@@ -69,41 +81,103 @@ public abstract class AbstractDeploymentService implements DeploymentService {
         }
     }
     
+    /**
+     * Deploys given units in parallel on a bounded pool of threads (<code>org.jbpm.deploy.threads</code>,
+     * number of available processors by default). Resolution, compilation and runtime manager initialization
+     * of the units run concurrently, only the update of the deployments registry is serialized.
+     * @param units deployment units to be deployed
+     * @return errors of units that failed to deploy keyed by unit identifier, empty when all units were deployed
+     */
+    public Map<String, Exception> deployAll(Collection<? extends DeploymentUnit> units) {
+        Map<String, Exception> errors = new LinkedHashMap<String, Exception>();
+        if (units == null || units.isEmpty()) {
+            return errors;
+        }
+        int threads = Math.max(1, Math.min(DEPLOY_THREADS, units.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private AtomicInteger counter = new AtomicInteger();
+            
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "jbpm-deploy-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            Map<String, Future<Void>> deployments = new LinkedHashMap<String, Future<Void>>();
+            for (final DeploymentUnit unit : units) {
+                deployments.put(unit.getIdentifier(), executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        deploy(unit);
+                        return null;
+                    }
+                }));
+            }
+            for (Map.Entry<String, Future<Void>> deployment : deployments.entrySet()) {
+                try {
+                    deployment.getValue().get();
+                    DeployedUnit deployed = getDeployedUnit(deployment.getKey());
+                    if (deployed instanceof DeployedUnitImpl) {
+                        logger.info("Deployed {} with phase timings (ms) {}", deployment.getKey(), 
+                                ((DeployedUnitImpl) deployed).getPhaseTimings());
+                    }
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    logger.error("Deployment of {} failed", deployment.getKey(), cause);
+                    errors.put(deployment.getKey(), cause instanceof Exception ? (Exception) cause : e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    errors.put(deployment.getKey(), e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return errors;
+    }
+    
     public void commonDeploy(DeploymentUnit unit, DeployedUnitImpl deployedUnit, RuntimeEnvironment environemnt) {
 
-        synchronized (this) {
+        if (deploymentsMap.containsKey(unit.getIdentifier())) {
+            throw new IllegalStateException("Unit with id " + unit.getIdentifier() + " is already deployed");
+        }
+        // runtime manager is initialized outside of any lock so several units can be deployed concurrently,
+        // the unit is only published once it is complete
+        long start = System.currentTimeMillis();
+        RuntimeManager manager = null;
+        try {
+            switch (unit.getStrategy()) {
         
-            if (deploymentsMap.containsKey(unit.getIdentifier())) {
-                DeployedUnit deployed = deploymentsMap.remove(unit.getIdentifier());
-                RuntimeManager manager = deployed.getRuntimeManager();
-                manager.close();
-            }
-            RuntimeManager manager = null;
-            deploymentsMap.put(unit.getIdentifier(), deployedUnit);
-            try {
-                switch (unit.getStrategy()) {
-            
-                    case SINGLETON:
-                        manager = managerFactory.newSingletonRuntimeManager(environemnt, unit.getIdentifier());
-                        break;
-                    case PER_REQUEST:
-                        manager = managerFactory.newPerRequestRuntimeManager(environemnt, unit.getIdentifier());
-                        break;
-                        
-                    case PER_PROCESS_INSTANCE:
-                        manager = managerFactory.newPerProcessInstanceRuntimeManager(environemnt, unit.getIdentifier());
-                        break;
-                    default:
-                        throw new IllegalArgumentException("Invalid strategy " + unit.getStrategy());
-                }            
-                deployedUnit.setRuntimeManager(manager);
-            } catch (Exception e) {
-                deploymentsMap.remove(unit.getIdentifier());
-                throw new RuntimeException(e);
-            }
+                case SINGLETON:
+                    manager = managerFactory.newSingletonRuntimeManager(environemnt, unit.getIdentifier());
+                    break;
+                case PER_REQUEST:
+                    manager = managerFactory.newPerRequestRuntimeManager(environemnt, unit.getIdentifier());
+                    break;
+                    
+                case PER_PROCESS_INSTANCE:
+                    manager = managerFactory.newPerProcessInstanceRuntimeManager(environemnt, unit.getIdentifier());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid strategy " + unit.getStrategy());
+            }            
+            deployedUnit.setRuntimeManager(manager);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        deployedUnit.addPhaseTiming("init", System.currentTimeMillis() - start);
+        if (deploymentsMap.putIfAbsent(unit.getIdentifier(), deployedUnit) != null) {
+            // another deployment of the same unit won the race
+            manager.close();
+            throw new IllegalStateException("Unit with id " + unit.getIdentifier() + " is already deployed");
         }
         if (deploymentEvent != null) {
-            deploymentEvent.fire(new DeploymentEvent(unit.getIdentifier(), deployedUnit));
+            // observers maintain their own registries so events are delivered one at a time
+            synchronized (this) {
+                deploymentEvent.fire(new DeploymentEvent(unit.getIdentifier(), deployedUnit));
+            }
         }
         
     }
@@ -133,8 +207,9 @@ public abstract class AbstractDeploymentService implements DeploymentService {
 
     @Override
     public RuntimeManager getRuntimeManager(String deploymentUnitId) {
-        if (deploymentsMap.containsKey(deploymentUnitId)) {
-            return deploymentsMap.get(deploymentUnitId).getRuntimeManager();
+        DeployedUnit deployed = deploymentsMap.get(deploymentUnitId);
+        if (deployed != null) {
+            return deployed.getRuntimeManager();
         }
         
         return null;
@@ -142,11 +217,7 @@ public abstract class AbstractDeploymentService implements DeploymentService {
 
     @Override
     public DeployedUnit getDeployedUnit(String deploymentUnitId) {
-        if (deploymentsMap.containsKey(deploymentUnitId)) {
-            return deploymentsMap.get(deploymentUnitId);
-        }
-        
-        return null;
+        return deploymentsMap.get(deploymentUnitId);
     }
     
     public Map<String, DeployedUnit> getDeploymentsMap() {
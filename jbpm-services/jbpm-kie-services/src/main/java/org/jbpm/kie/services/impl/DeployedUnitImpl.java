@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -21,6 +22,11 @@ public class DeployedUnitImpl implements DeployedUnit {
     
     private Map<String, DeployedAsset> assets = new HashMap<String, DeployedAsset>();
     private Set<Class<?>> classes = new CopyOnWriteArraySet<Class<?>>();
+    // classes of the kjar are loaded on first access to avoid loading all of them at deploy time
+    private Set<String> classNames = new HashSet<String>();
+    private ClassLoader classLoader;
+    // duration in milliseconds of each deployment phase in the order they were executed
+    private Map<String, Long> phaseTimings = Collections.synchronizedMap(new LinkedHashMap<String, Long>());
     
     public DeployedUnitImpl(DeploymentUnit unit) {
         this.unit = unit;
@@ -49,6 +55,18 @@ public class DeployedUnitImpl implements DeployedUnit {
         this.classes.add(kModuleClass);
     }
     
+    /**
+     * Registers a class of the project to be loaded on first access. The class file must be
+     * visible to the given class loader, so a missing class still fails the deployment.
+     */
+    public synchronized void addClassName(String className, ClassLoader classLoader) {
+        if (classLoader.getResource(className.replace('.', '/') + ".class") == null) {
+            throw new IllegalArgumentException("Class " + className + " not found in the project");
+        }
+        this.classNames.add(className);
+        this.classLoader = classLoader;
+    }
+    
     public void setRuntimeManager(RuntimeManager manager) {
         if (this.manager != null) {
             throw new IllegalStateException("RuntimeManager already exists");
@@ -63,7 +81,32 @@ public class DeployedUnitImpl implements DeployedUnit {
 
     @Override
     public Collection<Class<?>> getDeployedClasses() {
+        loadClasses();
         return Collections.unmodifiableCollection(classes);
     }
 
+    protected synchronized void loadClasses() {
+        if (classNames.isEmpty()) {
+            return;
+        }
+        for (String className : classNames) {
+            try {
+                this.classes.add(classLoader.loadClass(className));
+            } catch (ClassNotFoundException cnfe) {
+                throw new IllegalArgumentException("Class " + className + " not found in the project");
+            }
+        }
+        classNames.clear();
+    }
+
+    public void addPhaseTiming(String phase, long durationMillis) {
+        this.phaseTimings.put(phase, durationMillis);
+    }
+
+    public Map<String, Long> getPhaseTimings() {
+        synchronized (phaseTimings) {
+            return new LinkedHashMap<String, Long>(phaseTimings);
+        }
+    }
+
 }
@@ -13,13 +13,13 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.spi.BeanManager;
 import javax.inject.Inject;
 
-import org.apache.commons.codec.binary.Base64;
 import org.drools.compiler.kie.builder.impl.InternalKieModule;
 import org.drools.compiler.kie.builder.impl.KieContainerImpl;
 import org.drools.core.util.StringUtils;
 import org.jbpm.kie.services.api.IdentityProvider;
 import org.jbpm.kie.services.api.Kjar;
 import org.jbpm.kie.services.api.bpmn2.BPMN2DataService;
+import org.jbpm.kie.services.impl.bpmn2.ProcessIdExtractor;
 import org.jbpm.kie.services.impl.model.ProcessAssetDesc;
 import org.jbpm.process.audit.event.AuditEventBuilder;
 import org.jbpm.runtime.manager.impl.cdi.InjectableRegisterableItemsFactory;
@@ -27,6 +27,7 @@ import org.kie.api.KieBase;
 import org.kie.api.KieServices;
 import org.kie.api.builder.ReleaseId;
 import org.kie.api.builder.model.KieBaseModel;
+import org.kie.api.definition.process.Process;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.manager.RuntimeEnvironmentBuilder;
 import org.kie.internal.deployment.DeploymentUnit;
@@ -60,9 +61,12 @@ public class KModuleDeploymentService extends AbstractDeploymentService {
         DeployedUnitImpl deployedUnit = new DeployedUnitImpl(unit);
         ReleaseId releaseId = ks.newReleaseId(kmoduleUnit.getGroupId(), kmoduleUnit.getArtifactId(), kmoduleUnit.getVersion());
 
+        long start = System.currentTimeMillis();
         MavenRepository repository = getMavenRepository();
         repository.resolveArtifact(releaseId.toExternalForm());
+        deployedUnit.addPhaseTiming("resolve", System.currentTimeMillis() - start);
 
+        start = System.currentTimeMillis();
         KieContainer kieContainer = ks.newKieContainer(releaseId);
 
         String kbaseName = kmoduleUnit.getKbaseName();
@@ -79,10 +83,18 @@ public class KModuleDeploymentService extends AbstractDeploymentService {
             throw new IllegalStateException("Cannot find kbase, either it does not exist or there are multiple default kbases in kmodule.xml");
         }
 
+        deployedUnit.addPhaseTiming("container", System.currentTimeMillis() - start);
+
+        // build the kbase first so process descriptors are collected while processes are compiled
+        start = System.currentTimeMillis();
+        KieBase kbase = bpmn2Service.buildKieBase(kieContainer, kbaseName, unit.getIdentifier());
+        deployedUnit.addPhaseTiming("compile", System.currentTimeMillis() - start);
+
+        start = System.currentTimeMillis();
         Map<String, String> formsData = new HashMap<String, String>();
         Collection<String> files = module.getFileNames();
         
-        processResources(module, formsData, files, kieContainer, kmoduleUnit, deployedUnit, releaseId);
+        processResources(module, formsData, files, kieContainer, kmoduleUnit, deployedUnit, releaseId, kbase);
         
         if (module.getKieDependencies() != null) {
 	        Collection<InternalKieModule> dependencies = module.getKieDependencies().values();
@@ -91,12 +103,10 @@ public class KModuleDeploymentService extends AbstractDeploymentService {
 	        	logger.debug("Processing dependency module " + depModule.getReleaseId());
 	        	files = depModule.getFileNames();
 	        	
-	        	processResources(depModule, formsData, files, kieContainer, kmoduleUnit, deployedUnit, depModule.getReleaseId());
+	        	processResources(depModule, formsData, files, kieContainer, kmoduleUnit, deployedUnit, depModule.getReleaseId(), kbase);
 	        }
         }
-
-
-        KieBase kbase = kieContainer.getKieBase(kbaseName);        
+        deployedUnit.addPhaseTiming("resources", System.currentTimeMillis() - start);
 
         AuditEventBuilder auditLoggerBuilder = setupAuditLogger(identityProvider, unit.getIdentifier());
 
@@ -129,20 +139,33 @@ public class KModuleDeploymentService extends AbstractDeploymentService {
 
 
 	protected void processResources(InternalKieModule module, Map<String, String> formsData, Collection<String> files,
-    		KieContainer kieContainer, DeploymentUnit unit, DeployedUnitImpl deployedUnit, ReleaseId releaseId) {
+    		KieContainer kieContainer, DeploymentUnit unit, DeployedUnitImpl deployedUnit, ReleaseId releaseId, KieBase kbase) {
         for (String fileName : files) {
             if(fileName.matches(".+bpmn[2]?$")) {
                 ProcessAssetDesc process;
-                try {
-                    String processString = new String(module.getBytes(fileName), "UTF-8");
-                    process = bpmn2Service.findProcessId(processString, kieContainer.getClassLoader());
-                    process.setEncodedProcessSource(Base64.encodeBase64String(processString.getBytes()));
-                    process.setDeploymentId(unit.getIdentifier());
-                    process.setForms(formsData);
-                    deployedUnit.addAssetLocation(process.getId(), process);
-                } catch (UnsupportedEncodingException e) {
-                	throw new IllegalArgumentException("Unsupported encoding while processing process " + fileName);
+                byte[] processSource = module.getBytes(fileName);
+                String processId = ProcessIdExtractor.extractProcessId(processSource);
+                Process kieProcess = processId == null ? null : kbase.getProcess(processId);
+                if (kieProcess != null && bpmn2Service.hasProcessDesc(processId, unit.getIdentifier())) {
+                    process = new ProcessAssetDesc(kieProcess.getId(), kieProcess.getName(), kieProcess.getVersion(),
+                            kieProcess.getPackageName(), kieProcess.getType(), kieProcess.getKnowledgeType().name(),
+                            kieProcess.getNamespace(), "");
+                } else {
+                    // kbase was not compiled as part of this deployment (e.g. reused from kie repository)
+                    // so process needs to be parsed to collect its descriptor
+                    try {
+                        process = bpmn2Service.findProcessId(new String(processSource, "UTF-8"), kieContainer.getClassLoader());
+                    } catch (UnsupportedEncodingException e) {
+                        throw new IllegalArgumentException("Unsupported encoding while processing process " + fileName);
+                    }
+                }
+                if (process == null) {
+                    continue;
                 }
+                process.setSourceReference(module, fileName);
+                process.setDeploymentId(unit.getIdentifier());
+                process.setForms(formsData);
+                deployedUnit.addAssetLocation(process.getId(), process);
             } else if (fileName.matches(".+ftl$")) {
                 try {
                     String formContent = new String(module.getBytes(fileName), "UTF-8");
@@ -172,12 +195,8 @@ public class KModuleDeploymentService extends AbstractDeploymentService {
             } else if( fileName.matches(".+class$")) { 
                 String className = fileName.replaceAll("/", ".");
                 className = className.substring(0, fileName.length() - ".class".length());
-                try {
-                    deployedUnit.addClass(kieContainer.getClassLoader().loadClass(className));
-                    logger.debug( "Loaded {} into the classpath from deployment {}", className, releaseId.toExternalForm());
-                } catch (ClassNotFoundException cnfe) {
-                    throw new IllegalArgumentException("Class " + className + " not found in the project");
-                }
+                deployedUnit.addClassName(className, kieContainer.getClassLoader());
+                logger.debug( "Registered {} from deployment {} to be loaded on demand", className, releaseId.toExternalForm());
             }
         }
     }
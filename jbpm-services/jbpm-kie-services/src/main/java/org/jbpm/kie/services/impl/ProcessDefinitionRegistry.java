@@ -0,0 +1,335 @@
+/*
+ * Copyright 2014 JBoss by Red Hat.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.kie.services.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.jbpm.kie.services.impl.model.ProcessAssetDesc;
+
+/**
+ * In memory registry of deployed process definitions. Definitions are indexed by deployment id,
+ * process id and (deployment id, process id), and the ids and names are indexed by their
+ * three character long fragments (trigrams) so filtered searches only have to verify the
+ * definitions that contain every fragment of the filter.
+ * <br/>
+ * Filters that contain regular expression constructs are matched against all definitions
+ * with a single precompiled pattern.
+ */
+public class ProcessDefinitionRegistry {
+
+    private static final int GRAM_SIZE = 3;
+    private static final String REGEX_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Map<String, ProcessAssetDesc>> byDeployment = new LinkedHashMap<String, Map<String, ProcessAssetDesc>>();
+    private final Map<String, List<ProcessAssetDesc>> byProcessId = new HashMap<String, List<ProcessAssetDesc>>();
+    private final Map<String, Set<ProcessAssetDesc>> byGram = new HashMap<String, Set<ProcessAssetDesc>>();
+    private int size;
+
+    public void register(ProcessAssetDesc process) {
+        lock.writeLock().lock();
+        try {
+            Map<String, ProcessAssetDesc> processes = byDeployment.get(process.getDeploymentId());
+            if (processes == null) {
+                processes = new LinkedHashMap<String, ProcessAssetDesc>();
+                byDeployment.put(process.getDeploymentId(), processes);
+            }
+            ProcessAssetDesc replaced = processes.put(process.getId(), process);
+            if (replaced != null) {
+                unindex(replaced);
+            } else {
+                size++;
+            }
+            index(process);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Collection<ProcessAssetDesc> unregister(String deploymentId) {
+        lock.writeLock().lock();
+        try {
+            Map<String, ProcessAssetDesc> processes = byDeployment.remove(deploymentId);
+            if (processes == null) {
+                return Collections.emptyList();
+            }
+            for (ProcessAssetDesc process : processes.values()) {
+                unindex(process);
+            }
+            size -= processes.size();
+            return processes.values();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Collection<ProcessAssetDesc> getByDeploymentId(String deploymentId) {
+        lock.readLock().lock();
+        try {
+            Map<String, ProcessAssetDesc> processes = byDeployment.get(deploymentId);
+            if (processes == null) {
+                return Collections.emptyList();
+            }
+            return new ArrayList<ProcessAssetDesc>(processes.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Collection<String> getProcessIds(String deploymentId) {
+        lock.readLock().lock();
+        try {
+            Map<String, ProcessAssetDesc> processes = byDeployment.get(deploymentId);
+            if (processes == null) {
+                return new ArrayList<String>();
+            }
+            return new ArrayList<String>(processes.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ProcessAssetDesc get(String deploymentId, String processId) {
+        lock.readLock().lock();
+        try {
+            Map<String, ProcessAssetDesc> processes = byDeployment.get(deploymentId);
+            if (processes == null) {
+                return null;
+            }
+            return processes.get(processId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the definition with given id from the first deployment that provides it.
+     */
+    public ProcessAssetDesc getByProcessId(String processId) {
+        lock.readLock().lock();
+        try {
+            List<ProcessAssetDesc> processes = byProcessId.get(processId);
+            if (processes == null) {
+                return null;
+            }
+            return processes.get(0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Collection<ProcessAssetDesc> getAll() {
+        lock.readLock().lock();
+        try {
+            List<ProcessAssetDesc> all = new ArrayList<ProcessAssetDesc>(size);
+            for (Map<String, ProcessAssetDesc> processes : byDeployment.values()) {
+                all.addAll(processes.values());
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds definitions which id or name contains given filter. Filters with regular expression
+     * constructs are evaluated as <code>^.*filter.*$</code> patterns.
+     */
+    public Collection<ProcessAssetDesc> getByFilter(String filter) {
+        if (filter == null || filter.length() == 0) {
+            return getAll();
+        }
+        if (isRegularExpression(filter)) {
+            return getByPattern(Pattern.compile("^.*" + filter + ".*$"));
+        }
+        lock.readLock().lock();
+        try {
+            Collection<ProcessAssetDesc> candidates = null;
+            if (filter.length() < GRAM_SIZE) {
+                candidates = new ArrayList<ProcessAssetDesc>(size);
+                for (Map<String, ProcessAssetDesc> processes : byDeployment.values()) {
+                    candidates.addAll(processes.values());
+                }
+            } else {
+                candidates = candidatesOf(filter);
+            }
+            List<ProcessAssetDesc> result = new ArrayList<ProcessAssetDesc>();
+            for (ProcessAssetDesc process : candidates) {
+                if (contains(process.getId(), filter) || contains(process.getName(), filter)) {
+                    result.add(process);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    protected Collection<ProcessAssetDesc> getByPattern(Pattern pattern) {
+        lock.readLock().lock();
+        try {
+            List<ProcessAssetDesc> result = new ArrayList<ProcessAssetDesc>();
+            for (Map<String, ProcessAssetDesc> processes : byDeployment.values()) {
+                for (ProcessAssetDesc process : processes.values()) {
+                    if ((process.getId() != null && pattern.matcher(process.getId()).matches())
+                            || (process.getName() != null && pattern.matcher(process.getName()).matches())) {
+                        result.add(process);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // candidates are definitions that have every gram of the filter in their id or name,
+    // found by intersecting the postings starting from the smallest one
+    private Collection<ProcessAssetDesc> candidatesOf(String filter) {
+        Set<String> grams = gramsOf(filter);
+        List<Set<ProcessAssetDesc>> postings = new ArrayList<Set<ProcessAssetDesc>>(grams.size());
+        Set<ProcessAssetDesc> smallest = null;
+        for (String gram : grams) {
+            Set<ProcessAssetDesc> posting = byGram.get(gram);
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            postings.add(posting);
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        List<ProcessAssetDesc> candidates = new ArrayList<ProcessAssetDesc>(smallest.size());
+        for (ProcessAssetDesc process : smallest) {
+            boolean inAll = true;
+            for (Set<ProcessAssetDesc> posting : postings) {
+                if (posting != smallest && !posting.contains(process)) {
+                    inAll = false;
+                    break;
+                }
+            }
+            if (inAll) {
+                candidates.add(process);
+            }
+        }
+        return candidates;
+    }
+
+    private void index(ProcessAssetDesc process) {
+        List<ProcessAssetDesc> processes = byProcessId.get(process.getId());
+        if (processes == null) {
+            processes = new ArrayList<ProcessAssetDesc>(1);
+            byProcessId.put(process.getId(), processes);
+        }
+        processes.add(process);
+
+        for (String gram : gramsOf(process)) {
+            Set<ProcessAssetDesc> posting = byGram.get(gram);
+            if (posting == null) {
+                posting = newIdentitySet();
+                byGram.put(gram, posting);
+            }
+            posting.add(process);
+        }
+    }
+
+    private void unindex(ProcessAssetDesc process) {
+        List<ProcessAssetDesc> processes = byProcessId.get(process.getId());
+        if (processes != null) {
+            for (Iterator<ProcessAssetDesc> it = processes.iterator(); it.hasNext();) {
+                if (it.next() == process) {
+                    it.remove();
+                    break;
+                }
+            }
+            if (processes.isEmpty()) {
+                byProcessId.remove(process.getId());
+            }
+        }
+        for (String gram : gramsOf(process)) {
+            Set<ProcessAssetDesc> posting = byGram.get(gram);
+            if (posting != null) {
+                posting.remove(process);
+                if (posting.isEmpty()) {
+                    byGram.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> gramsOf(ProcessAssetDesc process) {
+        Set<String> grams = new HashSet<String>();
+        addGrams(process.getId(), grams);
+        addGrams(process.getName(), grams);
+        return grams;
+    }
+
+    private static Set<String> gramsOf(String value) {
+        Set<String> grams = new HashSet<String>();
+        addGrams(value, grams);
+        return grams;
+    }
+
+    private static void addGrams(String value, Set<String> grams) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_SIZE));
+        }
+    }
+
+    private static boolean contains(String value, String filter) {
+        return value != null && value.indexOf(filter) != -1;
+    }
+
+    private static boolean isRegularExpression(String filter) {
+        for (int i = 0; i < filter.length(); i++) {
+            if (REGEX_CHARACTERS.indexOf(filter.charAt(i)) != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // process descriptors compare equal across deployments so index entries are kept by identity
+    private static Set<ProcessAssetDesc> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<ProcessAssetDesc, Boolean>());
+    }
+}
@@ -19,17 +19,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
-import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.Predicate;
 import org.jbpm.kie.services.api.RuntimeDataService;
 import org.jbpm.kie.services.impl.event.Deploy;
 import org.jbpm.kie.services.impl.event.DeploymentEvent;
@@ -47,7 +43,7 @@ import org.kie.internal.deployment.DeployedAsset;
 @ApplicationScoped
 public class RuntimeDataServiceImpl implements RuntimeDataService {
 
-    private Set<ProcessAssetDesc> availableProcesses = new HashSet<ProcessAssetDesc>();
+    private ProcessDefinitionRegistry availableProcesses = new ProcessDefinitionRegistry();
     
     @Inject 
     private TransactionalCommandService commandService;
@@ -60,67 +56,41 @@ public class RuntimeDataServiceImpl implements RuntimeDataService {
         Collection<DeployedAsset> assets = event.getDeployedUnit().getDeployedAssets();
         for( DeployedAsset asset : assets ) { 
             if( asset instanceof ProcessAssetDesc ) { 
-                availableProcesses.add((ProcessAssetDesc) asset);
+                availableProcesses.register((ProcessAssetDesc) asset);
             }
         }
     }
     
     public void removeOnUnDeploy(@Observes@Undeploy DeploymentEvent event) {
-        Collection<ProcessAssetDesc> outputCollection = new HashSet<ProcessAssetDesc>();
-        CollectionUtils.select(availableProcesses, new ByDeploymentIdPredicate(event.getDeploymentId()), outputCollection);
-        
-        availableProcesses.removeAll(outputCollection);
+        availableProcesses.unregister(event.getDeploymentId());
     }
 
     public Collection<ProcessAssetDesc> getProcessesByDeploymentId(String deploymentId) {
-        Collection<ProcessAssetDesc> outputCollection = new HashSet<ProcessAssetDesc>();
-        CollectionUtils.select(availableProcesses, new ByDeploymentIdPredicate(deploymentId), outputCollection);
-        
-        return Collections.unmodifiableCollection(outputCollection);
+        return Collections.unmodifiableCollection(availableProcesses.getByDeploymentId(deploymentId));
     }
     
     public ProcessAssetDesc getProcessesByDeploymentIdProcessId(String deploymentId, String processId) {
-        Collection<ProcessAssetDesc> outputCollection = new HashSet<ProcessAssetDesc>();
-        CollectionUtils.select(availableProcesses, new ByDeploymentIdProcessIdPredicate(deploymentId, processId), outputCollection);
-        
-        if (!outputCollection.isEmpty()) {
-            return outputCollection.iterator().next();
-        }
-        return null; 
+        return availableProcesses.get(deploymentId, processId);
     }
     
     public Collection<ProcessAssetDesc> getProcessesByFilter(String filter) {
-        Collection<ProcessAssetDesc> outputCollection = new HashSet<ProcessAssetDesc>();
-        CollectionUtils.select(availableProcesses, new RegExPredicate("^.*"+filter+".*$"), outputCollection);
-        return Collections.unmodifiableCollection(outputCollection);
+        return Collections.unmodifiableCollection(availableProcesses.getByFilter(filter));
     }
 
     public ProcessAssetDesc getProcessById(String processId){
-        
-        Collection<ProcessAssetDesc> outputCollection = new HashSet<ProcessAssetDesc>();
-        CollectionUtils.select(availableProcesses, new ByProcessIdPredicate(processId), outputCollection);
-        if (!outputCollection.isEmpty()) {
-            return outputCollection.iterator().next();
-        }
-        return null;   
+        return availableProcesses.getByProcessId(processId);
     }
     
     public Collection<ProcessAssetDesc> getProcesses() {
-        return Collections.unmodifiableCollection(availableProcesses);
+        return Collections.unmodifiableCollection(availableProcesses.getAll());
     }
 
     @Override
     public Collection<String> getProcessIds(String deploymentId) {
-        List<String> processIds = new ArrayList<String>(availableProcesses.size());
         if( deploymentId == null || deploymentId.isEmpty() ) { 
-            return processIds;
-        }
-        for( ProcessAssetDesc procAssetDesc : availableProcesses ) { 
-            if( procAssetDesc.getDeploymentId().equals(deploymentId) ) {
-                processIds.add(procAssetDesc.getId());
-            }
+            return new ArrayList<String>();
         }
-        return processIds;
+        return availableProcesses.getProcessIds(deploymentId);
     }
     
     public Collection<ProcessInstanceDesc> getProcessInstances() { 
@@ -303,91 +273,4 @@ public class RuntimeDataServiceImpl implements RuntimeDataService {
 
         return variablesState;
     }
-
-    private class RegExPredicate implements Predicate {
-        private String pattern;
-        
-        private RegExPredicate(String pattern) {
-            this.pattern = pattern;
-        }
-        
-        @Override
-        public boolean evaluate(Object object) {
-            if (object instanceof ProcessAssetDesc) {
-                ProcessAssetDesc pDesc = (ProcessAssetDesc) object;
-                
-                if (pDesc.getId().matches(pattern) 
-                        || pDesc.getName().matches(pattern)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-        
-    }
-    
-    private class ByDeploymentIdPredicate implements Predicate {
-        private String deploymentId;
-        
-        private ByDeploymentIdPredicate(String deploymentId) {
-            this.deploymentId = deploymentId;
-        }
-        
-        @Override
-        public boolean evaluate(Object object) {
-            if (object instanceof ProcessAssetDesc) {
-                ProcessAssetDesc pDesc = (ProcessAssetDesc) object;
-                
-                if (pDesc.getDeploymentId().equals(deploymentId)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-        
-    }
-    
-    private class ByProcessIdPredicate implements Predicate {
-        private String processId;
-        
-        private ByProcessIdPredicate(String processId) {
-            this.processId = processId;
-        }
-        
-        @Override
-        public boolean evaluate(Object object) {
-            if (object instanceof ProcessAssetDesc) {
-                ProcessAssetDesc pDesc = (ProcessAssetDesc) object;
-                
-                if (pDesc.getId().equals(processId)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-        
-    }
-    
-    private class ByDeploymentIdProcessIdPredicate implements Predicate {
-        private String processId;
-        private String depoymentId;
-        
-        private ByDeploymentIdProcessIdPredicate(String depoymentId, String processId) {
-            this.depoymentId = depoymentId;
-            this.processId = processId;
-        }
-        
-        @Override
-        public boolean evaluate(Object object) {
-            if (object instanceof ProcessAssetDesc) {
-                ProcessAssetDesc pDesc = (ProcessAssetDesc) object;
-                
-                if (pDesc.getId().equals(processId) && pDesc.getDeploymentId().equals(depoymentId)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-        
-    }
 }
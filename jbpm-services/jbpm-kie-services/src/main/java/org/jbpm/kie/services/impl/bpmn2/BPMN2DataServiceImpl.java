@@ -32,7 +32,9 @@ import org.jbpm.bpmn2.xml.BPMNDISemanticModule;
 import org.jbpm.bpmn2.xml.BPMNExtensionsSemanticModule;
 import org.jbpm.kie.services.api.bpmn2.BPMN2DataService;
 import org.jbpm.kie.services.impl.model.ProcessAssetDesc;
+import org.kie.api.KieBase;
 import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieContainer;
 import org.kie.internal.builder.KnowledgeBuilder;
 import org.kie.internal.builder.KnowledgeBuilderConfiguration;
 import org.kie.internal.builder.KnowledgeBuilderError;
@@ -56,6 +58,11 @@ public class BPMN2DataServiceImpl implements BPMN2DataService {
     
     private BPMN2ProcessProvider provider;
     
+    // BPMN2 process provider is global so it is installed once for all concurrent builds
+    // and the original one is restored when the last of them completes
+    private BPMN2ProcessProvider originalProvider;
+    private int providerUsages;
+    
     public BPMN2DataServiceImpl() {
     }
     
@@ -182,19 +189,19 @@ public class BPMN2DataServiceImpl implements BPMN2DataService {
             return null;
         }
         
-        BPMN2ProcessProvider originalProvider = BPMN2ProcessFactory.getBPMN2ProcessProvider();
-        if (originalProvider != provider) {
-            BPMN2ProcessFactory.setBPMN2ProcessProvider(provider);
-        }
-
         KnowledgeBuilder kbuilder = null;
-        if (classLoader != null) {
-            KnowledgeBuilderConfigurationImpl pconf = new KnowledgeBuilderConfigurationImpl(classLoader);
-            kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder(pconf);
-        } else {
-            kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        installProvider();
+        try {
+            if (classLoader != null) {
+                KnowledgeBuilderConfigurationImpl pconf = new KnowledgeBuilderConfigurationImpl(classLoader);
+                kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder(pconf);
+            } else {
+                kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+            }
+            kbuilder.add(new ByteArrayResource(bpmn2Content.getBytes()), ResourceType.BPMN2);
+        } finally {
+            restoreProvider();
         }
-        kbuilder.add(new ByteArrayResource(bpmn2Content.getBytes()), ResourceType.BPMN2);
         if (kbuilder.hasErrors()) {
             for(KnowledgeBuilderError error: kbuilder.getErrors()){
                 logger.error("Error: {}", error.getMessage());
@@ -203,8 +210,6 @@ public class BPMN2DataServiceImpl implements BPMN2DataService {
             return null;
         }
         
-        BPMN2ProcessFactory.setBPMN2ProcessProvider(originalProvider);
-        
         KnowledgePackage pckg = kbuilder.getKnowledgePackages().iterator().next();
         
         org.kie.api.definition.process.Process process = pckg.getProcesses().iterator().next();
@@ -224,4 +229,42 @@ public class BPMN2DataServiceImpl implements BPMN2DataService {
         }
         return helper.getServiceTasks();
     }
+
+    @Override
+    public KieBase buildKieBase(KieContainer kieContainer, String kbaseName, String deploymentId) {
+        installProvider();
+        repo.setCurrentDeployment(deploymentId);
+        try {
+            return kieContainer.getKieBase(kbaseName);
+        } finally {
+            repo.setCurrentDeployment(null);
+            restoreProvider();
+        }
+    }
+
+    protected synchronized void installProvider() {
+        if (providerUsages++ == 0) {
+            originalProvider = BPMN2ProcessFactory.getBPMN2ProcessProvider();
+            if (originalProvider != provider) {
+                BPMN2ProcessFactory.setBPMN2ProcessProvider(provider);
+            }
+        }
+    }
+
+    protected synchronized void restoreProvider() {
+        if (--providerUsages == 0) {
+            BPMN2ProcessFactory.setBPMN2ProcessProvider(originalProvider);
+            originalProvider = null;
+        }
+    }
+
+    @Override
+    public boolean hasProcessDesc(String processId, String deploymentId) {
+        if (processId == null) {
+            return false;
+        }
+        // descriptors are kept per process id, so one collected for another deployment must not be reused
+        ProcessDescRepoHelper helper = repo.getProcessDesc(processId);
+        return helper != null && deploymentId != null && deploymentId.equals(helper.getDeploymentId());
+    }
 }
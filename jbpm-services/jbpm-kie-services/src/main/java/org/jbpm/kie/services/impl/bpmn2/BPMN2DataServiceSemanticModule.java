@@ -18,6 +18,7 @@ package org.jbpm.kie.services.impl.bpmn2;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import org.jbpm.bpmn2.xml.BPMNSemanticModule;
+import org.jbpm.kie.services.impl.model.ProcessAssetDesc;
 
 public class BPMN2DataServiceSemanticModule extends BPMNSemanticModule {
 
@@ -64,7 +65,26 @@ public class BPMN2DataServiceSemanticModule extends BPMNSemanticModule {
     
     @PostConstruct
     public void init(){
-        ProcessDescRepoHelper repoHelper = new ProcessDescRepoHelper();
+        // handlers only use the helper to track the process being parsed, keep it per thread
+        // so several deployments can parse their processes concurrently
+        ProcessDescRepoHelper repoHelper = new ProcessDescRepoHelper() {
+            private final ThreadLocal<ProcessAssetDesc> currentProcess = new ThreadLocal<ProcessAssetDesc>();
+
+            @Override
+            public void setProcess(ProcessAssetDesc process) {
+                currentProcess.set(process);
+            }
+
+            @Override
+            public ProcessAssetDesc getProcess() {
+                return currentProcess.get();
+            }
+
+            @Override
+            public void clear() {
+                currentProcess.remove();
+            }
+        };
         taskHandler.setRepositoryHelper(repoHelper);
         processHandler.setRepositoryHelper(repoHelper);
         processInputHandler.setRepositoryHelper(repoHelper);
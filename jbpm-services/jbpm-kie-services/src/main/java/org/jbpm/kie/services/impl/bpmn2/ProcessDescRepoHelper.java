@@ -26,6 +26,7 @@ import org.kie.internal.task.api.model.TaskDef;
 public class ProcessDescRepoHelper {
 
     private ProcessAssetDesc process;
+    private String deploymentId;
     private Map<String, TaskDef> tasks = new HashMap<String, TaskDef>();
     private Map<String, Map<String, String>> taskInputMappings = new HashMap<String, Map<String, String>>();
     private Map<String, Map<String, String>> taskOutputMappings = new HashMap<String, Map<String, String>>();
@@ -47,6 +48,14 @@ public class ProcessDescRepoHelper {
         return process;
     }
 
+    public String getDeploymentId() {
+        return deploymentId;
+    }
+
+    public void setDeploymentId(String deploymentId) {
+        this.deploymentId = deploymentId;
+    }
+
     public Map<String, TaskDef> getTasks() {
         return tasks;
     }
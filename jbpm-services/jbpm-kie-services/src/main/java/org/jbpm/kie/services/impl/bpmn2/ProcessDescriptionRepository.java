@@ -11,6 +11,9 @@ public class ProcessDescriptionRepository {
     private Map<String, ProcessDescRepoHelper> processRepoHelper = new ConcurrentHashMap<String, ProcessDescRepoHelper>();
     
     private Map<String, String> globalItemDefinitions = new ConcurrentHashMap<String, String>();
+
+    // deployment whose kbase is being built by current thread
+    private ThreadLocal<String> currentDeployment = new ThreadLocal<String>();
     
     public ProcessDescRepoHelper getProcessDesc(String processId) {
         return this.processRepoHelper.get(processId);
@@ -22,8 +25,17 @@ public class ProcessDescriptionRepository {
     
     
     public void addProcessDescription(String processId, ProcessDescRepoHelper repoHelper) {
+        repoHelper.setDeploymentId(currentDeployment.get());
         this.processRepoHelper.put(processId, repoHelper);
     }
+
+    public void setCurrentDeployment(String deploymentId) {
+        if (deploymentId == null) {
+            this.currentDeployment.remove();
+        } else {
+            this.currentDeployment.set(deploymentId);
+        }
+    }
     
     public ProcessDescRepoHelper removeProcessDescription(String processId) {
         return this.processRepoHelper.remove(processId);
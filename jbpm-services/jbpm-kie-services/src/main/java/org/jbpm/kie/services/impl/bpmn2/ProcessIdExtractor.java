@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 JBoss by Red Hat.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.kie.services.impl.bpmn2;
+
+import java.io.ByteArrayInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads only the id of the (first) process defined in BPMN2 content by streaming 
+ * over the document until the <code>process</code> element is found, without building
+ * the process definition.
+ */
+public class ProcessIdExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessIdExtractor.class);
+
+    private static final XMLInputFactory factory = XMLInputFactory.newInstance();
+
+    static {
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    }
+
+    private ProcessIdExtractor() {
+    }
+
+    public static String extractProcessId(byte[] bpmn2Content) {
+        if (bpmn2Content == null || bpmn2Content.length == 0) {
+            return null;
+        }
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(new ByteArrayInputStream(bpmn2Content));
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "process".equals(reader.getLocalName())) {
+                    return reader.getAttributeValue(null, "id");
+                }
+            }
+        } catch (XMLStreamException e) {
+            logger.debug("Unable to read process id from BPMN2 content", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // ignore
+                }
+            }
+        }
+        return null;
+    }
+}
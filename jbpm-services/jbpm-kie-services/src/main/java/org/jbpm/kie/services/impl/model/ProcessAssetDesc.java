@@ -15,10 +15,14 @@
  */
 package org.jbpm.kie.services.impl.model;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.commons.codec.binary.Base64;
+import org.drools.compiler.kie.builder.impl.InternalKieModule;
 import org.kie.internal.deployment.DeployedAsset;
 
 /**
@@ -38,6 +42,9 @@ public class ProcessAssetDesc implements Serializable, DeployedAsset {
     private String originalPath;
     private String deploymentId;
     private String encodedProcessSource;
+    // reference to the kjar the process comes from so the source is only read when requested
+    private transient InternalKieModule sourceModule;
+    private String sourceFileName;
     private Map<String, String> forms = new HashMap<String, String>();
 
     public ProcessAssetDesc() {
@@ -170,6 +177,12 @@ public class ProcessAssetDesc implements Serializable, DeployedAsset {
 
 
     public String getEncodedProcessSource() {
+        if (encodedProcessSource == null && sourceModule != null && sourceFileName != null) {
+            byte[] source = sourceModule.getBytes(sourceFileName);
+            if (source != null) {
+                return Base64.encodeBase64String(source);
+            }
+        }
         return encodedProcessSource;
     }
 
@@ -179,6 +192,17 @@ public class ProcessAssetDesc implements Serializable, DeployedAsset {
     }
 
 
+    public void setSourceReference(InternalKieModule sourceModule, String sourceFileName) {
+        this.sourceModule = sourceModule;
+        this.sourceFileName = sourceFileName;
+    }
+
+
+    public String getSourceFileName() {
+        return sourceFileName;
+    }
+
+
     public Map<String, String> getForms() {
         return forms;
     }
@@ -191,6 +215,12 @@ public class ProcessAssetDesc implements Serializable, DeployedAsset {
     public void addForm(String id, String formContent) {
         this.forms.put(id, formContent);
     }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        // kjar reference is not serialized, so the source is encoded before the descriptor is written
+        this.encodedProcessSource = getEncodedProcessSource();
+        out.defaultWriteObject();
+    }
     
 
 }
@@ -0,0 +1,33 @@
+package org.jbpm.kie.services.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.jbpm.kie.services.impl.DeployedUnitImpl;
+import org.jbpm.kie.services.impl.KModuleDeploymentUnit;
+import org.junit.Test;
+
+public class DeployedUnitImplTest {
+
+    @Test
+    public void testClassesAreLoadedOnAccess() {
+        DeployedUnitImpl deployedUnit = new DeployedUnitImpl(new KModuleDeploymentUnit("org.jbpm.test", "test-module", "1.0"));
+        deployedUnit.addClassName(DeployedUnitImplTest.class.getName(), getClass().getClassLoader());
+
+        assertEquals(1, deployedUnit.getDeployedClasses().size());
+        assertTrue(deployedUnit.getDeployedClasses().contains(DeployedUnitImplTest.class));
+    }
+
+    @Test
+    public void testMissingClassFailsDeployment() {
+        DeployedUnitImpl deployedUnit = new DeployedUnitImpl(new KModuleDeploymentUnit("org.jbpm.test", "test-module", "1.0"));
+        try {
+            deployedUnit.addClassName("org.jbpm.test.DoesNotExist", getClass().getClassLoader());
+            fail("Missing class should fail the deployment");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Class org.jbpm.test.DoesNotExist not found in the project", e.getMessage());
+        }
+        assertTrue(deployedUnit.getDeployedClasses().isEmpty());
+    }
+}
@@ -3,13 +3,18 @@ package org.jbpm.kie.services.test;
 import static org.junit.Assert.*;
 import static org.kie.scanner.MavenRepository.getMavenRepository;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Scanner;
 
 import javax.inject.Inject;
 
@@ -22,6 +27,8 @@ import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jbpm.kie.services.api.Kjar;
 import org.jbpm.kie.services.api.RuntimeDataService;
+import org.jbpm.kie.services.impl.AbstractDeploymentService;
+import org.jbpm.kie.services.impl.DeployedUnitImpl;
 import org.jbpm.kie.services.impl.KModuleDeploymentUnit;
 import org.jbpm.kie.services.impl.model.ProcessAssetDesc;
 import org.jbpm.runtime.manager.util.TestUtil;
@@ -31,6 +38,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
 import org.kie.api.builder.ReleaseId;
 import org.kie.api.runtime.manager.RuntimeEngine;
 import org.kie.api.runtime.manager.RuntimeManager;
@@ -203,6 +212,26 @@ public class KModuleDeploymentServiceTest extends AbstractBaseTest {
         
     }
     
+    @Test
+    public void testProcessSourceSurvivesSerialization() throws Exception {
+        DeploymentUnit deploymentUnit = new KModuleDeploymentUnit(GROUP_ID, ARTIFACT_ID, VERSION, "KBase-test", "ksession-test");
+        deploymentService.deploy(deploymentUnit);
+        units.add(deploymentUnit);
+
+        ProcessAssetDesc process = runtimeDataService.getProcessById("customtask");
+        assertNotNull(process);
+        String source = process.getEncodedProcessSource();
+        assertNotNull(source);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(process);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        ProcessAssetDesc copy = (ProcessAssetDesc) in.readObject();
+        assertEquals(source, copy.getEncodedProcessSource());
+    }
+
     @Test
     public void testDeploymentOfProcessesOnDefaultKbaseAndKsession() {
         
@@ -328,6 +357,84 @@ public class KModuleDeploymentServiceTest extends AbstractBaseTest {
         assertEquals(ProcessInstance.STATE_COMPLETED, processInstance.getState());
         
     }
-    
-    
+
+    @Test
+    public void testDeploymentOfKjarWithManyProcesses() throws Exception {
+        int numberOfProcesses = 500;
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId = ks.newReleaseId(GROUP_ID, "test-module-large", VERSION);
+
+        String template = new Scanner(getClass().getResourceAsStream("/repo/processes/general/customtask.bpmn"), "UTF-8").useDelimiter("\\A").next();
+        KieFileSystem kfs = createKieFileSystemWithKProject(ks);
+        kfs.writePomXML(getPom(releaseId));
+        for (int i = 0; i < numberOfProcesses; i++) {
+            kfs.write("src/main/resources/KBase-test/large/customtask" + i + ".bpmn2",
+                    template.replace("id=\"customtask\"", "id=\"customtask" + i + "\"").getBytes("UTF-8"));
+        }
+        KieBuilder kieBuilder = ks.newKieBuilder(kfs);
+        assertTrue(kieBuilder.buildAll().getResults().getMessages().isEmpty());
+
+        File pom = new File("target/kmodule-large", "pom.xml");
+        pom.getParentFile().mkdir();
+        FileOutputStream fs = new FileOutputStream(pom);
+        fs.write(getPom(releaseId).getBytes());
+        fs.close();
+        getMavenRepository().deployArtifact(releaseId, (InternalKieModule) kieBuilder.getKieModule(), pom);
+        // make sure deployment builds the kbase instead of reusing the one built above
+        ks.getRepository().removeKieModule(releaseId);
+
+        DeploymentUnit deploymentUnit = new KModuleDeploymentUnit(GROUP_ID, "test-module-large", VERSION);
+        long start = System.currentTimeMillis();
+        deploymentService.deploy(deploymentUnit);
+        units.add(deploymentUnit);
+        logger.info("Deployment of kjar with {} processes took {} ms", numberOfProcesses, System.currentTimeMillis() - start);
+
+        Collection<ProcessAssetDesc> processes = runtimeDataService.getProcessesByDeploymentId(deploymentUnit.getIdentifier());
+        assertEquals(numberOfProcesses, processes.size());
+
+        ProcessAssetDesc process = runtimeDataService.getProcessesByDeploymentIdProcessId(deploymentUnit.getIdentifier(), "customtask42");
+        assertNotNull(process);
+        assertNotNull(process.getEncodedProcessSource());
+    }
+
+    @Test
+    public void testParallelDeploymentOfKjars() throws Exception {
+        int numberOfKjars = 4;
+        KieServices ks = KieServices.Factory.get();
+        List<String> processes = new ArrayList<String>();
+        processes.add("repo/processes/general/customtask.bpmn");
+        processes.add("repo/processes/general/humanTask.bpmn");
+
+        List<DeploymentUnit> parallelUnits = new ArrayList<DeploymentUnit>();
+        for (int i = 0; i < numberOfKjars; i++) {
+            ReleaseId releaseId = ks.newReleaseId(GROUP_ID, "test-module-parallel" + i, VERSION);
+            InternalKieModule kJar = createKieJar(ks, releaseId, processes);
+            File pom = new File("target/kmodule-parallel" + i, "pom.xml");
+            pom.getParentFile().mkdir();
+            FileOutputStream fs = new FileOutputStream(pom);
+            fs.write(getPom(releaseId).getBytes());
+            fs.close();
+            getMavenRepository().deployArtifact(releaseId, kJar, pom);
+            ks.getRepository().removeKieModule(releaseId);
+
+            parallelUnits.add(new KModuleDeploymentUnit(GROUP_ID, "test-module-parallel" + i, VERSION));
+        }
+
+        long start = System.currentTimeMillis();
+        Map<String, Exception> errors = ((AbstractDeploymentService) deploymentService).deployAll(parallelUnits);
+        units.addAll(parallelUnits);
+        logger.info("Parallel deployment of {} kjars took {} ms", numberOfKjars, System.currentTimeMillis() - start);
+        assertTrue(errors.isEmpty());
+
+        for (DeploymentUnit unit : parallelUnits) {
+            DeployedUnit deployed = deploymentService.getDeployedUnit(unit.getIdentifier());
+            assertNotNull(deployed);
+            assertNotNull(deployed.getRuntimeManager());
+            assertEquals(2, runtimeDataService.getProcessesByDeploymentId(unit.getIdentifier()).size());
+
+            Map<String, Long> timings = ((DeployedUnitImpl) deployed).getPhaseTimings();
+            assertTrue(timings.containsKey("compile"));
+            assertTrue(timings.containsKey("init"));
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package org.jbpm.kie.services.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+
+import org.jbpm.kie.services.impl.ProcessDefinitionRegistry;
+import org.jbpm.kie.services.impl.model.ProcessAssetDesc;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ProcessDefinitionRegistryTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessDefinitionRegistryTest.class);
+
+    @Test
+    public void testLookupsAcrossDeployments() {
+        ProcessDefinitionRegistry registry = new ProcessDefinitionRegistry();
+        ProcessAssetDesc first = newProcess("org.jbpm.writedocument", "Write document", "first");
+        ProcessAssetDesc second = newProcess("org.jbpm.writedocument", "Write document", "second");
+        registry.register(first);
+        registry.register(second);
+        registry.register(newProcess("customtask", "Custom task", "second"));
+
+        assertEquals(3, registry.size());
+        assertEquals(1, registry.getByDeploymentId("first").size());
+        assertEquals(2, registry.getByDeploymentId("second").size());
+        assertEquals(2, registry.getProcessIds("second").size());
+        assertSame(second, registry.get("second", "org.jbpm.writedocument"));
+        assertSame(first, registry.getByProcessId("org.jbpm.writedocument"));
+        assertNull(registry.get("first", "customtask"));
+
+        registry.unregister("first");
+        assertEquals(2, registry.size());
+        assertTrue(registry.getByDeploymentId("first").isEmpty());
+        assertSame(second, registry.getByProcessId("org.jbpm.writedocument"));
+        assertEquals(1, registry.getByFilter("writedoc").size());
+    }
+
+    @Test
+    public void testFilter() {
+        ProcessDefinitionRegistry registry = new ProcessDefinitionRegistry();
+        registry.register(newProcess("org.jbpm.writedocument", "Write document", "test"));
+        registry.register(newProcess("customtask", "Custom task", "test"));
+        registry.register(newProcess("hiring", "Hiring a developer", "test"));
+
+        assertEquals(1, registry.getByFilter("custom").size());
+        assertEquals(1, registry.getByFilter("Hiring").size());
+        assertEquals(2, registry.getByFilter("t").size());
+        assertEquals(0, registry.getByFilter("customtasks").size());
+        // regular expressions are still supported
+        assertEquals(2, registry.getByFilter("(custom|hiring)").size());
+        assertEquals(3, registry.getByFilter("").size());
+    }
+
+    @Test
+    public void testFilterOnManyDefinitions() {
+        int numberOfDeployments = 50;
+        int numberOfProcesses = 100;
+        ProcessDefinitionRegistry registry = new ProcessDefinitionRegistry();
+        for (int d = 0; d < numberOfDeployments; d++) {
+            for (int p = 0; p < numberOfProcesses; p++) {
+                registry.register(newProcess("org.jbpm.process" + p, "Process " + p, "deployment" + d));
+            }
+        }
+        assertEquals(numberOfDeployments * numberOfProcesses, registry.size());
+
+        long start = System.nanoTime();
+        Collection<ProcessAssetDesc> found = null;
+        for (int i = 0; i < 1000; i++) {
+            found = registry.getByFilter("process42");
+        }
+        logger.info("1000 filtered searches over {} definitions took {} ms", registry.size(), (System.nanoTime() - start) / 1000000);
+        assertEquals(numberOfDeployments, found.size());
+
+        start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            assertNotNull(registry.get("deployment" + (i % numberOfDeployments), "org.jbpm.process" + (i % numberOfProcesses)));
+        }
+        logger.info("1000 lookups over {} definitions took {} ms", registry.size(), (System.nanoTime() - start) / 1000000);
+    }
+
+    private ProcessAssetDesc newProcess(String id, String name, String deploymentId) {
+        ProcessAssetDesc process = new ProcessAssetDesc(id, name, "1.0", "org.jbpm", "RuleFlow", "PROCESS", "org.jbpm", "");
+        process.setDeploymentId(deploymentId);
+        return process;
+    }
+}